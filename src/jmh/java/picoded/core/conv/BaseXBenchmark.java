@@ -0,0 +1,86 @@
+package picoded.core.conv;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BaseX benchmarks, of encoding and decoding byte arrays of varying length
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseXBenchmark {
+	
+	/**
+	 * Charset to encode with
+	 **/
+	@Param({ "base16", "base58", "base62" })
+	public String charset;
+	
+	/**
+	 * Number of bytes to encode
+	 **/
+	@Param({ "16", "256" })
+	public int byteLength;
+	
+	// Encoder, and its input / output
+	protected BaseX baseX;
+	protected byte[] bytes;
+	protected String encoded;
+	
+	// Reused output buffers
+	protected StringBuilder encodeBuffer = new StringBuilder();
+	protected byte[] decodeBuffer;
+	
+	@Setup
+	public void setup() {
+		if ("base16".equals(charset)) {
+			baseX = new BaseX("0123456789abcdef");
+		} else if ("base58".equals(charset)) {
+			baseX = new BaseX(Base58.DEFAULT_CHARSET);
+		} else {
+			baseX = new BaseX(Base62.DEFAULT_CHARSET);
+		}
+		bytes = new byte[byteLength];
+		new Random(byteLength).nextBytes(bytes);
+		encoded = baseX.encode(bytes);
+		decodeBuffer = new byte[byteLength];
+	}
+	
+	@Benchmark
+	public Object encode() {
+		return baseX.encode(bytes);
+	}
+	
+	@Benchmark
+	public Object decode() {
+		return baseX.decode(encoded, byteLength);
+	}
+	
+	@Benchmark
+	public Object encodeIntoBuffer() {
+		encodeBuffer.setLength(0);
+		baseX.encode(bytes, 0, bytes.length, encodeBuffer);
+		return encodeBuffer;
+	}
+	
+	@Benchmark
+	public Object decodeIntoBuffer() {
+		return baseX.decode(encoded, decodeBuffer);
+	}
+}
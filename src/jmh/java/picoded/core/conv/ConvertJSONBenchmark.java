@@ -0,0 +1,112 @@
+package picoded.core.conv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ConvertJSON (and ConvertSmile) benchmarks, of parsing and serializing maps of varying size
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertJSONBenchmark {
+	
+	/**
+	 * Number of keys in the map
+	 **/
+	@Param({ "10", "1000" })
+	public int mapSize;
+	
+	// Map, and its JSON string / smile bytes
+	protected Map<String, Object> map;
+	protected String json;
+	protected byte[] smile;
+	
+	// Primitive array, and its JSON string
+	protected int[] intArray;
+	protected String intArrayJson;
+	
+	@Setup
+	public void setup() {
+		map = new HashMap<String, Object>();
+		for (int i = 0; i < mapSize; ++i) {
+			switch (i % 4) {
+			case 0:
+				map.put("key" + i, i);
+				break;
+			case 1:
+				map.put("key" + i, "value" + i);
+				break;
+			case 2:
+				map.put("key" + i, i * 1.5);
+				break;
+			default:
+				List<Object> list = new ArrayList<Object>();
+				list.add(i);
+				list.add("item" + i);
+				map.put("key" + i, list);
+			}
+		}
+		json = ConvertJSON.fromMap(map);
+		smile = ConvertSmile.fromMap(map);
+		
+		intArray = new int[mapSize];
+		for (int i = 0; i < mapSize; ++i) {
+			intArray[i] = i * 31;
+		}
+		intArrayJson = ConvertJSON.fromArray(intArray);
+	}
+	
+	@Benchmark
+	public Object toMap() {
+		return ConvertJSON.toMap(json);
+	}
+	
+	@Benchmark
+	public Object fromMap() {
+		return ConvertJSON.fromMap(map);
+	}
+	
+	@Benchmark
+	public Object toMapSmile() {
+		return ConvertSmile.toMap(smile);
+	}
+	
+	@Benchmark
+	public Object fromMapSmile() {
+		return ConvertSmile.fromMap(map);
+	}
+	
+	@Benchmark
+	public Object fromMapPretty() {
+		return ConvertJSON.fromObject(map, true);
+	}
+	
+	@Benchmark
+	public Object toIntArray() {
+		return ConvertJSON.toIntArray(intArrayJson);
+	}
+	
+	@Benchmark
+	public Object toStringArray() {
+		return ConvertJSON.toStringArray(intArrayJson);
+	}
+}
@@ -0,0 +1,70 @@
+package picoded.core.conv;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GenericConvert benchmarks, of the common toXXX conversion from various input types
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenericConvertBenchmark {
+	
+	/**
+	 * Input type to convert from
+	 **/
+	@Param({ "integer", "double", "string", "bigdecimal" })
+	public String inputType;
+	
+	// Input value
+	protected Object input;
+	
+	@Setup
+	public void setup() {
+		if ("integer".equals(inputType)) {
+			input = Integer.valueOf(12345);
+		} else if ("double".equals(inputType)) {
+			input = Double.valueOf(12345.678);
+		} else if ("string".equals(inputType)) {
+			input = "12345.678";
+		} else {
+			input = new BigDecimal("12345.678");
+		}
+	}
+	
+	@Benchmark
+	public int toInt() {
+		return GenericConvert.toInt(input, 0);
+	}
+	
+	@Benchmark
+	public double toDouble() {
+		return GenericConvert.toDouble(input, 0.0);
+	}
+	
+	@Benchmark
+	public Object toBigDecimal() {
+		return GenericConvert.toBigDecimal(input, null);
+	}
+	
+	@Benchmark
+	public Object toStringValue() {
+		return GenericConvert.toString(input, null);
+	}
+}
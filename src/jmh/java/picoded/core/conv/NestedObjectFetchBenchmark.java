@@ -0,0 +1,113 @@
+package picoded.core.conv;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NestedObjectFetch benchmarks, of nested map / list paths of varying depth
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NestedObjectFetchBenchmark {
+	
+	/**
+	 * Nesting depth of the fetched value
+	 **/
+	@Param({ "1", "4", "8" })
+	public int depth;
+	
+	// Nested object, and the path to fetch
+	protected Map<String, Object> base;
+	protected String dotPath;
+	protected String bracketPath;
+	
+	// Shared nested maps, under both the "k" and "k.k" keys, and its missing path
+	protected Map<String, Object> sharedBase;
+	protected String sharedMissingPath;
+	
+	@Setup
+	public void setup() {
+		// Build from the innermost value outwards, alternating maps and lists
+		Object node = "value";
+		StringBuilder dot = new StringBuilder();
+		StringBuilder bracket = new StringBuilder();
+		for (int i = depth - 1; i >= 0; --i) {
+			if (i > 0 && i % 2 == 0) {
+				List<Object> list = new ArrayList<Object>();
+				list.add("pad");
+				list.add(node);
+				node = list;
+				dot.insert(0, ".1");
+				bracket.insert(0, "[1]");
+			} else {
+				Map<String, Object> map = new HashMap<String, Object>();
+				for (int p = 0; p < 10; ++p) {
+					map.put("pad" + p, p);
+				}
+				map.put("key" + i, node);
+				node = map;
+				dot.insert(0, ".key" + i);
+				bracket.insert(0, (i == 0) ? "key0" : "[key" + i + "]");
+			}
+		}
+		base = (Map<String, Object>) node;
+		dotPath = dot.substring(1);
+		bracketPath = bracket.toString();
+		
+		// Every "k.k" segment of the path has two prefix interpretations,
+		// which are exponential in the depth, without memoizing the failed fetches
+		int sharedDepth = depth * 4;
+		Map<String, Object> next = new HashMap<String, Object>();
+		Map<String, Object> nextNext = new HashMap<String, Object>();
+		StringBuilder shared = new StringBuilder("missing");
+		for (int i = 0; i < sharedDepth; ++i) {
+			Map<String, Object> map = new HashMap<String, Object>();
+			map.put("k", next);
+			map.put("k.k", nextNext);
+			nextNext = next;
+			next = map;
+			shared.insert(0, "k.");
+		}
+		sharedBase = next;
+		sharedMissingPath = shared.toString();
+	}
+	
+	@Benchmark
+	public Object fetchDotPath() {
+		return NestedObjectFetch.fetchObject(base, dotPath);
+	}
+	
+	@Benchmark
+	public Object fetchBracketPath() {
+		return NestedObjectFetch.fetchObject(base, bracketPath);
+	}
+	
+	@Benchmark
+	public Object fetchMissing() {
+		return NestedObjectFetch.fetchObject(base, dotPath + ".missing");
+	}
+	
+	@Benchmark
+	public Object fetchSharedMissing() {
+		return NestedObjectFetch.fetchObject(sharedBase, sharedMissingPath);
+	}
+}
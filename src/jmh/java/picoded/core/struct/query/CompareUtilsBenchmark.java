@@ -0,0 +1,84 @@
+package picoded.core.struct.query;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CompareUtils.dynamicCompare throughput benchmarks, for each value type pair
+ *
+ * + Single threaded throughput
+ * + Concurrent throughput, to check for lock contention between threads
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompareUtilsBenchmark {
+	
+	/**
+	 * Value types to compare
+	 *
+	 * + number  : Number against Number
+	 * + numeric : numeric String against Number
+	 * + ascii   : ASCII String against String
+	 * + unicode : non ASCII String against String
+	 **/
+	@Param({ "number", "numeric", "ascii", "unicode" })
+	public String types;
+	
+	// Values to compare against each other
+	protected Object[] values;
+	
+	@Setup
+	public void setup() {
+		values = new Object[64];
+		for (int i = 0; i < values.length; ++i) {
+			if ("number".equals(types)) {
+				values[i] = (i % 2 == 0) ? (Object) i : (Object) (i * 1.5);
+			} else if ("numeric".equals(types)) {
+				values[i] = (i % 2 == 0) ? (Object) String.valueOf(i * 1.5) : (Object) i;
+			} else if ("ascii".equals(types)) {
+				values[i] = ((i % 2 == 0) ? "Name" : "name") + (i % 10);
+			} else {
+				values[i] = "caf\u00e9 " + (i % 10);
+			}
+		}
+	}
+	
+	/**
+	 * Compares all the values against each other
+	 **/
+	protected int compareAll() {
+		int ret = 0;
+		for (int i = 0; i < values.length; ++i) {
+			ret += CompareUtils.dynamicCompare(values[i], values[(i * 7) % values.length]);
+		}
+		return ret;
+	}
+	
+	@Benchmark
+	@Threads(1)
+	public int dynamicCompare() {
+		return compareAll();
+	}
+	
+	@Benchmark
+	@Threads(8)
+	public int dynamicCompareConcurrent() {
+		return compareAll();
+	}
+}
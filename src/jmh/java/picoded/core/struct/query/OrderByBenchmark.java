@@ -0,0 +1,73 @@
+package picoded.core.struct.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OrderBy sorting benchmarks, of the comparator against the decorated sort and top-K
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderByBenchmark {
+	
+	/**
+	 * Number of rows to sort
+	 **/
+	@Param({ "1000", "100000" })
+	public int rows;
+	
+	/**
+	 * Order by string to sort with
+	 **/
+	@Param({ "intVal DESC", "name ASC, doubleVal DESC" })
+	public String orderBy;
+	
+	// Generated dataset, and sorter
+	protected List<Map<String, Object>> dataSet;
+	protected OrderBy<Map<String, Object>> sorter;
+	
+	@Setup
+	public void setup() {
+		dataSet = QueryBenchmark.dataSet(rows);
+		Collections.shuffle(dataSet, new java.util.Random(rows));
+		sorter = new OrderBy<Map<String, Object>>(orderBy);
+	}
+	
+	@Benchmark
+	public Object compareSort() {
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>(dataSet);
+		Collections.sort(list, sorter);
+		return list;
+	}
+	
+	@Benchmark
+	public Object decoratedSort() {
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>(dataSet);
+		sorter.sort(list);
+		return list;
+	}
+	
+	@Benchmark
+	public Object topK20() {
+		return sorter.topK(dataSet, 20);
+	}
+}
@@ -0,0 +1,153 @@
+package picoded.core.struct.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query hot path benchmarks, over a generated collection of flat maps
+ *
+ * + Interpreted Query.test, against the Query.compile predicate
+ * + Search, ordered top-K search, and aggregation
+ * + Query building, against binding a prepared query
+ *
+ * Parameterized by the number of rows, and the query complexity
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+	
+	/**
+	 * Number of rows in the dataset
+	 **/
+	@Param({ "1000", "100000" })
+	public int rows;
+	
+	/**
+	 * Query complexity to use
+	 *
+	 * + simple  : single numeric condition
+	 * + and     : string equality, with a numeric range
+	 * + complex : nested OR / AND / NOT, with LIKE
+	 **/
+	@Param({ "simple", "and", "complex" })
+	public String complexity;
+	
+	// Generated dataset, and query
+	protected List<Map<String, Object>> dataSet;
+	protected Query query;
+	protected Predicate<Object> compiled;
+	protected Aggregation aggregation;
+	protected PreparedQuery preparedQuery;
+	
+	/**
+	 * Generate a row of mixed field types
+	 **/
+	public static Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("_oid", "oid-" + i);
+		ret.put("name", "name" + (i % 100));
+		ret.put("intVal", i);
+		ret.put("doubleVal", i * 1.5);
+		ret.put("strVal", String.valueOf(i % 1000));
+		return ret;
+	}
+	
+	/**
+	 * Generate a dataset of the given number of rows
+	 **/
+	public static List<Map<String, Object>> dataSet(int rows) {
+		List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>(rows);
+		for (int i = 0; i < rows; ++i) {
+			ret.add(row(i));
+		}
+		return ret;
+	}
+	
+	@Setup
+	public void setup() {
+		dataSet = dataSet(rows);
+		if ("simple".equals(complexity)) {
+			query = Query.build("intVal > ?", new Object[] { rows / 2 });
+		} else if ("and".equals(complexity)) {
+			query = Query.build("name = ? AND intVal > ?", new Object[] { "name7", rows / 2 });
+		} else {
+			query = Query.build("(name = ? OR name = ? OR strVal LIKE ?) AND intVal > ? AND NOT("
+				+ "doubleVal < ?)", new Object[] { "name7", "name8", "%99%", rows / 4, 100.0 });
+		}
+		compiled = query.compile();
+		aggregation = Aggregation.build(new String[] { "count(*)", "sum(intVal)", "avg(doubleVal)" });
+		preparedQuery = PreparedQuery.prepare("name = ? AND intVal > ?");
+	}
+	
+	@Benchmark
+	public int testInterpreted() {
+		int ret = 0;
+		for (Map<String, Object> row : dataSet) {
+			if (query.test(row)) {
+				++ret;
+			}
+		}
+		return ret;
+	}
+	
+	@Benchmark
+	public int testCompiled() {
+		int ret = 0;
+		for (Map<String, Object> row : dataSet) {
+			if (compiled.test(row)) {
+				++ret;
+			}
+		}
+		return ret;
+	}
+	
+	@Benchmark
+	public Object search() {
+		return query.search(dataSet);
+	}
+	
+	@Benchmark
+	public Object searchSortedTop20() {
+		return QueryUtils.filterSortAndOffset(dataSet, compiled, "doubleVal DESC", 0, 20);
+	}
+	
+	@Benchmark
+	public Object searchSortedFull() {
+		return QueryUtils.sortList(query.search(dataSet), "doubleVal DESC");
+	}
+	
+	@Benchmark
+	public Object aggregate() {
+		return query.aggregation(dataSet, aggregation);
+	}
+	
+	@Benchmark
+	public Object buildQuery() {
+		return Query.build("name = ? AND intVal > ?", new Object[] { "name7", rows / 2 });
+	}
+	
+	@Benchmark
+	public Object bindPreparedQuery() {
+		return preparedQuery.compile(new Object[] { "name7", rows / 2 });
+	}
+}
@@ -1,7 +1,7 @@
 package picoded.core.conv;
 
 import java.math.BigInteger;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import org.apache.commons.codec.digest.DigestUtils;
 
@@ -11,8 +11,8 @@ import org.apache.commons.codec.digest.DigestUtils;
  * transmitted over the internet / is readable.
  *
  * Note that unlike general usage Base64, this is not built for performance on large input streams,
- * or anything in ~20 bytes and above, as the input values are internally collected into a BigInteger.
- * And hence process everything in memory in one go.
+ * as the input values are converted as a whole (in 32 bit limbs, several characters at a time).
+ * Which is fast for short values (like UUID), but is quadratic to the input length.
  *
  * However it allows the conversion of any abitaray base types, in a reliable manner.
  **/
@@ -44,13 +44,37 @@ public class BaseX {
 	 **/
 	protected BigInteger inCharsetLength = null;
 	/**
-	 * The Memoization cache for bit to string length
+	 * The char set, as a char array (value to char lookup)
 	 **/
-	protected HashMap<Integer, Integer> bitToStringCache = null;
+	protected char[] charsetChars = null;
 	/**
-	 * The Memoization cache for string to bit length
+	 * The char to value lookup, -1 for invalid characters
 	 **/
-	protected HashMap<Integer, Integer> stringToBitCache = null;
+	protected int[] charValues = null;
+	/**
+	 * Number of characters processed per 32 bit limb division / multiplication
+	 * (the highest power of the base, which fits in 31 bits)
+	 **/
+	protected int chunkLength = 0;
+	/**
+	 * The base, to the power of chunkLength
+	 **/
+	protected long chunkBase = 0;
+	
+	/**
+	 * Maximum length to memoize, for the bit / string length conversion
+	 **/
+	protected static final int LENGTH_CACHE_LIMIT = 4096;
+	/**
+	 * The Memoization cache for bit to string length, 0 if not yet computed
+	 * (copy on write, hence safe for concurrent reads)
+	 **/
+	protected volatile int[] bitToStringCache = new int[0];
+	/**
+	 * The Memoization cache for string to bit length, offset by 1, 0 if not yet computed
+	 * (copy on write, hence safe for concurrent reads)
+	 **/
+	protected volatile int[] stringToBitCache = new int[0];
 	
 	/**
 	 * Builds the object with the custom charspace
@@ -64,8 +88,28 @@ public class BaseX {
 		
 		inCharset = customCharset;
 		inCharsetLength = BigInteger.valueOf(customCharset.length());
-		bitToStringCache = new HashMap<Integer, Integer>();
-		stringToBitCache = new HashMap<Integer, Integer>();
+		
+		// Value to char, and char to value lookup tables
+		// (for repeated characters, the first occurence is used, as per indexOf)
+		charsetChars = customCharset.toCharArray();
+		int maxChar = 0;
+		for (char c : charsetChars) {
+			maxChar = Math.max(maxChar, c);
+		}
+		charValues = new int[maxChar + 1];
+		Arrays.fill(charValues, -1);
+		for (int i = charsetChars.length - 1; i >= 0; --i) {
+			charValues[charsetChars[i]] = i;
+		}
+		
+		// Characters per limb operation
+		long base = charsetChars.length;
+		chunkLength = 1;
+		chunkBase = base;
+		while (chunkBase * base <= Integer.MAX_VALUE) {
+			chunkBase *= base;
+			++chunkLength;
+		}
 	}
 	
 	/**
@@ -99,8 +143,9 @@ public class BaseX {
 		/**
 		 * Load from Memoization cache
 		 **/
-		if (bitToStringCache.containsKey(bitlength)) {
-			return bitToStringCache.get(bitlength);
+		int[] cache = bitToStringCache;
+		if (bitlength < cache.length && cache[bitlength] != 0) {
+			return cache[bitlength];
 		}
 		
 		/**
@@ -119,7 +164,11 @@ public class BaseX {
 		/**
 		 * Store into the Memoization cache
 		 **/
-		bitToStringCache.put(bitlength, n);
+		if (bitlength < LENGTH_CACHE_LIMIT) {
+			cache = Arrays.copyOf(cache, Math.max(cache.length, bitlength + 1));
+			cache[bitlength] = n;
+			bitToStringCache = cache;
+		}
 		return n;
 	}
 	
@@ -138,8 +187,9 @@ public class BaseX {
 		/**
 		 * Load from Memoization cache
 		 **/
-		if (stringToBitCache.containsKey(stringLength)) {
-			return stringToBitCache.get(stringLength);
+		int[] cache = stringToBitCache;
+		if (stringLength < cache.length && cache[stringLength] != 0) {
+			return cache[stringLength] - 1;
 		}
 		
 		/**
@@ -159,7 +209,11 @@ public class BaseX {
 		/**
 		 * Store into the Memoization cache
 		 **/
-		stringToBitCache.put(stringLength, n);
+		if (stringLength < LENGTH_CACHE_LIMIT) {
+			cache = Arrays.copyOf(cache, Math.max(cache.length, stringLength + 1));
+			cache[stringLength] = n + 1;
+			stringToBitCache = cache;
+		}
 		return n;
 	}
 	
@@ -203,57 +257,78 @@ public class BaseX {
 	 * @return Encoded string
 	 **/
 	public String encode(byte[] bArr) {
+		StringBuilder ret = new StringBuilder(bitToStringLength(bArr.length * 8));
+		encode(bArr, 0, bArr.length, ret);
+		return ret.toString();
+	}
+	
+	/**
+	 * Conversion of part of the byte array, appended to the given string builder.
+	 * Avoiding the intermediate string allocation.
+	 *
+	 * @param  Byte Array values to encode
+	 * @param  Offset of the bytes to encode
+	 * @param  Number of bytes to encode
+	 * @param  StringBuilder to append the encoded string to
+	 **/
+	public void encode(byte[] bArr, int off, int len, StringBuilder out) {
 		
 		/**
 		 * String length needed as 1 byte is 8 bits
 		 **/
-		int stringlength = bitToStringLength(bArr.length * 8);
+		int stringlength = bitToStringLength(len * 8);
 		
 		/**
-		 * Variables setup
+		 * Byte array as a single huge unsigned number, of big endian 32 bit limbs
 		 **/
-		int remainder;
-		StringBuilder ret = new StringBuilder();
-		
-		/**
-		 * Byte array as a single huge BigInt
-		 **/
-		BigInteger bArrValue = new BigInteger(1, bArr);
+		int limbCount = (len + 3) / 4;
+		int[] limbs = new int[limbCount];
+		for (int i = 0; i < len; ++i) {
+			int fromEnd = len - 1 - i;
+			limbs[limbCount - 1 - fromEnd / 4] |= (bArr[off + i] & 0xFF) << (8 * (fromEnd % 4));
+		}
 		
 		/**
-		 * Pair of divided value, and remaider
+		 * The string is filled from its last (least significant) character
+		 * This confroms to most base encoding format
 		 **/
-		BigInteger[] dSplit = new BigInteger[] { bArrValue, null };
+		int start = out.length();
+		int pos = start + stringlength;
+		out.setLength(pos);
 		
 		/**
-		 * For every string character needed (to fit the byte array),
-		 * derive its value, by dividing the current value by charlength.
+		 * Divide the value by chunkBase, for chunkLength characters at a time,
+		 * skipping the leading (most significant) limbs, which are already zero
 		 **/
-		for (int a = 0; a < stringlength; ++a) {
-			dSplit = dSplit[0].divideAndRemainder(inCharsetLength);
-			
-			/**
-			 * Use the remainder, to get the char
-			 **/
-			remainder = dSplit[1].intValue();
+		long base = charsetChars.length;
+		int head = 0;
+		while (head < limbCount && pos > start) {
+			long remainder = 0;
+			for (int i = head; i < limbCount; ++i) {
+				// remainder < chunkBase <= 2^31, hence this fits in a long
+				long current = (remainder << 32) | (limbs[i] & 0xFFFFFFFFL);
+				limbs[i] = (int) (current / chunkBase);
+				remainder = current % chunkBase;
+			}
+			while (head < limbCount && limbs[head] == 0) {
+				++head;
+			}
 			
 			/**
-			 * As the bArrValue is always positive based,
-			 * Remainder can always be assumed to be positive.
-			 *
-			 * Its simply elementry math =)
-			 *
-			 * Hence no remainder <= 0 checks is required
+			 * Use the remainder, to get the chars
 			 **/
-			ret.append(inCharset.charAt(remainder));
-			
+			for (int c = 0; c < chunkLength && pos > start; ++c) {
+				out.setCharAt(--pos, charsetChars[(int) (remainder % base)]);
+				remainder /= base;
+			}
 		}
 		
 		/**
-		 * Reverse the string value before returning
-		 * This confroms to most base encoding format
+		 * Remaining leading chars, are of zero value
 		 **/
-		return ret.reverse().toString();
+		while (pos > start) {
+			out.setCharAt(--pos, charsetChars[0]);
+		}
 	}
 	
 	/**
@@ -304,118 +379,122 @@ public class BaseX {
 	 **/
 	public byte[] decode(String encodedString, int byteLength, boolean acceptEncodingLoss) {
 		
-		/**
-		 * Variable setup
-		 **/
-		int stringlength = encodedString.length();
-		int indx;
-		
 		/**
 		 * Derive max byte length : auto if -1
 		 **/
 		if (byteLength < 0) {
-			byteLength = stringToDecodeByteLength(stringlength);
+			byteLength = stringToDecodeByteLength(encodedString.length());
 		}
 		
+		byte[] retValue = new byte[byteLength];
+		decode(encodedString, retValue, 0, byteLength, acceptEncodingLoss);
+		return retValue;
+	}
+	
+	/**
+	 * Decodes the encoded string into the given byte array (filling it fully),
+	 * avoiding any intermediate string / byte array allocation.
+	 *
+	 * Note that prefix extra bits will be loss if encoded string value
+	 * is larger then the byte array can hold.
+	 *
+	 * @param  Encoded string to convert
+	 * @param  Byte array to decode into
+	 *
+	 * @return The given byte array
+	 **/
+	public byte[] decode(CharSequence encodedString, byte[] out) {
+		decode(encodedString, out, 0, out.length, true);
+		return out;
+	}
+	
+	/**
+	 * Decodes the encoded string into the given byte array range, with blank
+	 * (zero) prefix byte values, if the range is larger then the encoded value.
+	 *
+	 * @param  Encoded string to convert
+	 * @param  Byte array to decode into
+	 * @param  Offset of the bytes to decode into
+	 * @param  Number of bytes to decode into
+	 * @param  Set this to false, to make the byte encoding length strict
+	 **/
+	public void decode(CharSequence encodedString, byte[] out, int off, int len,
+		boolean acceptEncodingLoss) {
+		
 		/**
-		 * Start off with blank value
+		 * Variable setup
 		 **/
-		BigInteger encodedValue = value0_BigInteger;
+		int stringlength = encodedString.length();
+		long base = charsetChars.length;
 		
 		/**
-		 * No reversal is done, as reversal is performed on the "encode" step
-		 * This is the same as base64 format.
-		 *
-		 * encodedString = StringBuilder(encodedString).reverse().toString();
+		 * The value as big endian 32 bit limbs, sized for the maximum value of the string.
+		 * The most significant non zero limb is tracked, to skip the leading zeros.
 		 **/
+		int bitsPerChar = 32 - Integer.numberOfLeadingZeros(charsetChars.length - 1);
+		int limbCount = (int) (((long) stringlength * bitsPerChar + 31) / 32) + 1;
+		int[] limbs = new int[limbCount];
+		int top = limbCount;
 		
 		/**
-		 * Iterate the characters and get the encoded value
+		 * No reversal is done, as reversal is performed on the "encode" step
+		 * This is the same as base64 format.
+		 *
+		 * Iterate the characters, chunkLength characters at a time
 		 **/
-		for (char character : encodedString.toCharArray()) {
-			indx = inCharset.indexOf(character);
-			if (indx < 0) {
-				throw new IllegalArgumentException("Invalid character `" + character
-					+ "` for encoded string:" + encodedString);
+		for (int pos = 0; pos < stringlength;) {
+			
+			// Characters of this chunk, as a single value
+			long chunkValue = 0;
+			long multiplier = 1;
+			for (int c = 0; c < chunkLength && pos < stringlength; ++c, ++pos) {
+				char character = encodedString.charAt(pos);
+				int indx = (character < charValues.length) ? charValues[character] : -1;
+				if (indx < 0) {
+					throw new IllegalArgumentException("Invalid character `" + character
+						+ "` for encoded string:" + encodedString);
+				}
+				chunkValue = chunkValue * base + indx;
+				multiplier *= base;
 			}
 			
-			/**
-			 * Process each character into the BigInteger value
-			 **/
-			encodedValue = encodedValue.multiply(inCharsetLength).add(BigInteger.valueOf(indx));
-		}
-		
-		/**
-		 * Converts the BigInteger to a byte array value
-		 **/
-		byte[] fullEncodedValue = encodedValue.toByteArray();
-		
-		/**
-		 * Exact desired byteLength match found, returns
-		 **/
-		if (fullEncodedValue.length == byteLength) {
-			return fullEncodedValue;
+			// value = value * multiplier + chunkValue
+			// (limb < 2^32, multiplier <= 2^31, hence this fits in a long)
+			long carry = chunkValue;
+			int i = limbCount - 1;
+			for (; i >= top; --i) {
+				long current = (limbs[i] & 0xFFFFFFFFL) * multiplier + carry;
+				limbs[i] = (int) current;
+				carry = current >>> 32;
+			}
+			for (; carry != 0; --i) {
+				limbs[i] = (int) carry;
+				carry = carry >>> 32;
+				top = i;
+			}
 		}
 		
 		/**
-		 * The actual return array (to format to new byte length)
-		 **/
-		byte[] retValue = new byte[byteLength];
-		
-		/**
-		 * Note that initializing the array with 0 is not needed in java
-		 * as this will be its default behaviour
+		 * Copies the least significant bytes over, with zero prefix values if needed.
 		 *
-		 * See: http:*stackoverflow.com/a/16475488
-		 *-----------------------------------------------------------------
-		 * for (int a = 0; a < byteLength; ++a) {
-		 * 	retValue[a] = 0;
-		 * }
+		 * Does an encoding loss check if acceptEncodingLoss is set to false.
+		 * If a non zero value is found past the byte length. Assume values will be lost
+		 * to encoding, hence throw an error.
 		 **/
-		
-		if (fullEncodedValue.length > byteLength) {
-			//
-			// Actual value is larger, then the targeted length. Note there might be bit value loss
-			//
-			
-			// Position to start the data copy from, position prior values is "discarded"
-			int copyFrom = fullEncodedValue.length - byteLength;
-			
-			// Does an encoding loss check if acceptEncodingLoss is set to false.
-			//
-			// Check the first few additional bytes, if its "zero", and hence suffer from no encoding lost.
-			// If a non zero value is found. Assume values will be lost to encoding, hence throw an error.
-			if (!acceptEncodingLoss) {
-				checkForEncodingLoss(fullEncodedValue, copyFrom, byteLength, encodedString);
+		int valueLength = limbCount * 4;
+		int checkLength = acceptEncodingLoss ? len : Math.max(len, valueLength);
+		for (int fromEnd = 0; fromEnd < checkLength; ++fromEnd) {
+			byte value = 0;
+			if (fromEnd < valueLength) {
+				value = (byte) (limbs[limbCount - 1 - fromEnd / 4] >>> (8 * (fromEnd % 4)));
+			}
+			if (fromEnd < len) {
+				out[off + len - 1 - fromEnd] = value;
+			} else if (value != 0 && !acceptEncodingLoss) {
+				throw new IllegalArgumentException("Encoded value loss for given byteLength(" + len
+					+ ") for input encodedString: " + encodedString);
 			}
-			
-			// Copies the value over to the final return array
-			System.arraycopy( //
-				fullEncodedValue, // original value
-				copyFrom, // Start copying from
-				retValue, // Copy to target
-				0, // Start from position 0
-				byteLength // With all the remainding data
-				); //
-			
-		} else {
-			//
-			// is definately less, as equal is already checked above
-			//
-			
-			// Copies the value over to the final return array
-			System.arraycopy( //
-				fullEncodedValue, // original value
-				0, // Start from 0 position
-				retValue, //Return value
-				// start position (all before it will be zero)
-				retValue.length - fullEncodedValue.length, //
-				fullEncodedValue.length // all the data
-				);
 		}
-		
-		// The actual return array
-		return retValue;
 	}
 	
 	/**
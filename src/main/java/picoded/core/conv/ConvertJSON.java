@@ -2,12 +2,27 @@ package picoded.core.conv;
 
 // Java libs
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 // Jackson library used
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.databind.MapperFeature;
@@ -58,27 +73,20 @@ public class ConvertJSON {
 	/**
 	 * Internal reused object mapper, this is via jackson json converter.
 	 *
-	 * Memoizer for cachedMapper()
+	 * This is built once on class load, and is hence safely published to all threads,
+	 * without any (racy) null check on each call.
 	 **/
-	private static volatile ObjectMapper cachedMapper = null;
+	private static final ObjectMapper cachedMapper = buildMapper();
 	
 	/**
-	 * cachedMapper used for JSON string parsing, this is generated once,
-	 * and reused for each return call
+	 * Builds the object mapper used for JSON string parsing
 	 *
 	 * Note that the JSON formatting here ALLOW COMMENTS, and single quotes.
 	 * Basically making it as "linent" as a valid JSON structure in JS.
 	 *
-	 * @returns The Jacksons cached map builder
+	 * @returns The Jacksons map builder
 	 **/
-	private static ObjectMapper cachedMapper() {
-		
-		/**
-		 * Reuse old object mapping
-		 **/
-		if (cachedMapper != null) {
-			return cachedMapper;
-		}
+	private static ObjectMapper buildMapper() {
 		
 		/**
 		 * New object mapping
@@ -99,16 +107,111 @@ public class ConvertJSON {
 		 * Allow single quotes in JSON
 		 **/
 		cm.configure(JsonParser.Feature.ALLOW_SINGLE_QUOTES, true);
-
+		
 		/**
 		 * Ignore transient fields
 		 */
 		cm.configure(MapperFeature.PROPAGATE_TRANSIENT_MARKER, true);
-
+		
+		/**
+		 * Reuse the parser / generator char and byte buffers, per thread.
+		 * (This is the jackson default, which is explicitly ensured here, as it
+		 * avoids the buffer allocations of each string parse / serialize)
+		 **/
+		cm.getFactory().enable(JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING);
+		
 		/**
 		 * Actual map builder
 		 **/
-		return cachedMapper = cm;
+		return cm;
+	}
+	
+	/**
+	 * Pretty print indenter, with tab indentation
+	 **/
+	protected static final DefaultPrettyPrinter prettyPrinter = buildPrettyPrinter();
+	
+	/**
+	 * Builds the pretty print indenter
+	 * See: http://stackoverflow.com/questions/28256852/what-is-the-simplest-way-to-configure-the-indentation-spacing-on-a-jackson-objec
+	 **/
+	private static DefaultPrettyPrinter buildPrettyPrinter() {
+		DefaultPrettyPrinter.Indenter indenter = new DefaultIndenter("	", DefaultIndenter.SYS_LF);
+		DefaultPrettyPrinter printer = new DefaultPrettyPrinter();
+		printer.indentObjectsWith(indenter);
+		printer.indentArraysWith(indenter);
+		return printer;
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// Precompiled readers, and writers
+	//
+	/////////////////////////////////////////////////
+	
+	//
+	// Reader / writers are immutable, and thread safe. Prebuilding them skips the
+	// per call configuration copy, and (root) type resolution of ObjectMapper.readValue
+	//
+	
+	/// Writers, and its stream varient (which leaves the output target open)
+	private static final ObjectWriter objectWriter = cachedMapper.writer();
+	private static final ObjectWriter prettyWriter = cachedMapper.writer(prettyPrinter);
+	private static final ObjectWriter streamWriter = objectWriter
+		.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	private static final ObjectWriter prettyStreamWriter = prettyWriter
+		.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	
+	/// Readers of the common types
+	private static final ObjectReader mapReader = cachedMapper.readerFor(Map.class);
+	private static final ObjectReader listReader = cachedMapper.readerFor(List.class);
+	private static final ObjectReader objectReader = cachedMapper.readerFor(Object.class);
+	
+	/// Readers of the other custom classes, built on first use
+	private static final Map<Class<?>, ObjectReader> classReaders = new ConcurrentHashMap<Class<?>, ObjectReader>();
+	
+	/// Stream readers of the common types (which leaves the input source open)
+	private static final ObjectReader mapStreamReader = mapReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	private static final ObjectReader listStreamReader = listReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	private static final ObjectReader objectStreamReader = objectReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	
+	/**
+	 * Get the precompiled reader for the given class
+	 *
+	 * @param  Class to read as
+	 *
+	 * @return  ObjectReader of the class
+	 **/
+	private static ObjectReader reader(Class<?> c) {
+		if (c == Map.class) {
+			return mapReader;
+		} else if (c == List.class) {
+			return listReader;
+		} else if (c == Object.class) {
+			return objectReader;
+		}
+		return classReaders.computeIfAbsent(c, (type) -> cachedMapper.readerFor(type));
+	}
+	
+	/**
+	 * Get the precompiled stream reader for the given class, which leaves the input source open
+	 *
+	 * @param  Class to read as
+	 *
+	 * @return  ObjectReader of the class
+	 **/
+	private static ObjectReader streamReader(Class<?> c) {
+		if (c == Map.class) {
+			return mapStreamReader;
+		} else if (c == List.class) {
+			return listStreamReader;
+		} else if (c == Object.class) {
+			return objectStreamReader;
+		}
+		return reader(c).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
 	}
 	
 	/////////////////////////////////////////////////
@@ -153,7 +256,7 @@ public class ConvertJSON {
 	 **/
 	public static String fromObject(Object input) {
 		try {
-			return cachedMapper().writeValueAsString(input);
+			return objectWriter.writeValueAsString(input);
 		} catch (IOException e) {
 			/**
 			 * Any exception is recasted as InvalidFormatJSON
@@ -162,11 +265,6 @@ public class ConvertJSON {
 		}
 	}
 	
-	/**
-	 * Pretty print indenter
-	 **/
-	protected static DefaultPrettyPrinter prettyPrinter = null;
-	
 	/**
 	 * Converts input object into a json string
 	 *
@@ -188,30 +286,81 @@ public class ConvertJSON {
 			return fromObject(input);
 		}
 		
-		/**
-		 * Ensure pretty printer indenter is configured
-		 **/
-		if (prettyPrinter == null) {
-			/**
-			 * Creates first
-			 * See: http://stackoverflow.com/questions/28256852/what-is-the-simplest-way-to-configure-the-indentation-spacing-on-a-jackson-objec
-			 **/
-			DefaultPrettyPrinter.Indenter indenter = new DefaultIndenter("	", DefaultIndenter.SYS_LF);
-			DefaultPrettyPrinter printer = new DefaultPrettyPrinter();
-			printer.indentObjectsWith(indenter);
-			printer.indentArraysWith(indenter);
-			
-			/**
-			 * Then replace : prevents multithread race collisions
-			 **/
-			prettyPrinter = printer;
-		}
-		
 		/**
 		 * With pretty print
 		 **/
 		try {
-			return cachedMapper().writer(prettyPrinter).writeValueAsString(input);
+			return prettyWriter.writeValueAsString(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// From java objects to JSON stream
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Writes the input object as json, directly into the output stream (as UTF-8),
+	 * without buffering it as a string first.
+	 *
+	 * Note: The output stream is flushed, but not closed
+	 *
+	 * @param  Output stream to write into
+	 * @param  Input object to convert
+	 **/
+	public static void writeTo(OutputStream output, Object input) {
+		writeTo(output, input, false);
+	}
+	
+	/**
+	 * Writes the input object as json, directly into the output stream (as UTF-8),
+	 * without buffering it as a string first.
+	 *
+	 * Note: The output stream is flushed, but not closed
+	 *
+	 * @param  Output stream to write into
+	 * @param  Input object to convert
+	 * @param  Boolean true, if output as pretty print
+	 **/
+	public static void writeTo(OutputStream output, Object input, boolean prettyPrint) {
+		try {
+			(prettyPrint ? prettyStreamWriter : streamWriter).writeValue(output, input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/**
+	 * Writes the input object as json, directly into the writer,
+	 * without buffering it as a string first.
+	 *
+	 * Note: The writer is flushed, but not closed
+	 *
+	 * @param  Writer to write into
+	 * @param  Input object to convert
+	 **/
+	public static void writeTo(Writer output, Object input) {
+		writeTo(output, input, false);
+	}
+	
+	/**
+	 * Writes the input object as json, directly into the writer,
+	 * without buffering it as a string first.
+	 *
+	 * Note: The writer is flushed, but not closed
+	 *
+	 * @param  Writer to write into
+	 * @param  Input object to convert
+	 * @param  Boolean true, if output as pretty print
+	 **/
+	public static void writeTo(Writer output, Object input, boolean prettyPrint) {
+		try {
+			(prettyPrint ? prettyStreamWriter : streamWriter).writeValue(output, input);
 		} catch (IOException e) {
 			// Any exception is recasted as InvalidFormatJSON
 			throw new InvalidFormatJSON(e);
@@ -319,7 +468,7 @@ public class ConvertJSON {
 	 **/
 	public static Object toCustomClass(String input, Class<?> c) {
 		try {
-			return cachedMapper().readValue(input, c);
+			return reader(c).readValue(input);
 		} catch (IOException e) {
 			/**
 			 * Any exception is recasted as InvalidFormatJSON
@@ -328,6 +477,268 @@ public class ConvertJSON {
 		}
 	}
 	
+	/////////////////////////////////////////////////
+	//
+	// From JSON stream to java object
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Converts json input stream into an mapping object
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 *
+	 * @return  Output Map if successful, else throws an error
+	 **/
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> toMap(InputStream input) {
+		return (Map<String, Object>) toCustomClass(input, Map.class);
+	}
+	
+	/**
+	 * Converts json reader into an mapping object
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 *
+	 * @return  Output Map if successful, else throws an error
+	 **/
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> toMap(Reader input) {
+		return (Map<String, Object>) toCustomClass(input, Map.class);
+	}
+	
+	/**
+	 * Converts json input stream into an list array
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 *
+	 * @return  Output List if successful, else throws an error
+	 **/
+	@SuppressWarnings("unchecked")
+	public static List<Object> toList(InputStream input) {
+		return (List<Object>) toCustomClass(input, List.class);
+	}
+	
+	/**
+	 * Converts json reader into an list array
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 *
+	 * @return  Output List if successful, else throws an error
+	 **/
+	@SuppressWarnings("unchecked")
+	public static List<Object> toList(Reader input) {
+		return (List<Object>) toCustomClass(input, List.class);
+	}
+	
+	/**
+	 * Converts json input stream into any output object (depends on input)
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 *
+	 * @return  Output object (either map or list)
+	 **/
+	public static Object toObject(InputStream input) {
+		return toCustomClass(input, Object.class);
+	}
+	
+	/**
+	 * Converts json reader into any output object (depends on input)
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 *
+	 * @return  Output object (either map or list)
+	 **/
+	public static Object toObject(Reader input) {
+		return toCustomClass(input, Object.class);
+	}
+	
+	/**
+	 * Converts json input stream into a custom output object,
+	 * without buffering it as a string first. The encoding (UTF-8/16/32) is auto detected.
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 *
+	 * @return  Output object (either map or list, or other class)
+	 **/
+	public static Object toCustomClass(InputStream input, Class<?> c) {
+		try {
+			return streamReader(c).readValue(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/**
+	 * Converts json reader into a custom output object,
+	 * without buffering it as a string first.
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 *
+	 * @return  Output object (either map or list, or other class)
+	 **/
+	public static Object toCustomClass(Reader input, Class<?> c) {
+		try {
+			return streamReader(c).readValue(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// Streaming of JSON array elements
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Iterates the elements of a top level JSON array, one element at a time,
+	 * without materializing the whole array. Each element is converted
+	 * (as a map, list, or value) only when it is reached.
+	 *
+	 * ```
+	 * try (ConvertJSON.ArrayIterator iterator = ConvertJSON.arrayIterator(inputStream)) {
+	 *    while (iterator.hasNext()) {
+	 *       Object element = iterator.next();
+	 *       ...
+	 *    }
+	 * }
+	 * ```
+	 *
+	 * A top level `null` is treated as an empty array, while any other
+	 * non array input, or a format error, throws an InvalidFormatJSON.
+	 **/
+	public static class ArrayIterator implements Iterator<Object>, AutoCloseable {
+		
+		/**
+		 * Underlying token parser, positioned on the current element
+		 **/
+		protected final JsonParser parser;
+		
+		/**
+		 * Current token, of the next element, or END_ARRAY / null when done
+		 **/
+		protected JsonToken token = null;
+		
+		/**
+		 * Setup the iterator, on the given parser, reading up to the first element
+		 *
+		 * @param  JSON token parser to iterate
+		 **/
+		protected ArrayIterator(JsonParser parser) {
+			this.parser = parser;
+			try {
+				JsonToken first = parser.nextToken();
+				if (first == JsonToken.VALUE_NULL) {
+					return;
+				}
+				if (first != JsonToken.START_ARRAY) {
+					throw new InvalidFormatJSON("Expected a JSON array, found : " + first, null);
+				}
+				token = parser.nextToken();
+			} catch (IOException e) {
+				throw new InvalidFormatJSON(e);
+			}
+		}
+		
+		/**
+		 * @return true, if there is another array element
+		 **/
+		@Override
+		public boolean hasNext() {
+			return token != null && token != JsonToken.END_ARRAY;
+		}
+		
+		/**
+		 * @return the next array element, as a map, list, or value
+		 **/
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			try {
+				Object ret = objectReader.readValue(parser);
+				token = parser.nextToken();
+				return ret;
+			} catch (IOException e) {
+				throw new InvalidFormatJSON(e);
+			}
+		}
+		
+		/**
+		 * Closes the underlying parser, but not the input source
+		 **/
+		@Override
+		public void close() {
+			try {
+				parser.close();
+			} catch (IOException e) {
+				throw new InvalidFormatJSON(e);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the iterator of a top level JSON array elements, without materializing the array
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 *
+	 * @return  ArrayIterator of the array elements
+	 **/
+	public static ArrayIterator arrayIterator(InputStream input) {
+		try {
+			return new ArrayIterator(cachedMapper.getFactory().createParser(input)
+				.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+		} catch (IOException e) {
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/**
+	 * Gets the iterator of a top level JSON array elements, without materializing the array
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 *
+	 * @return  ArrayIterator of the array elements
+	 **/
+	public static ArrayIterator arrayIterator(Reader input) {
+		try {
+			return new ArrayIterator(cachedMapper.getFactory().createParser(input)
+				.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+		} catch (IOException e) {
+			throw new InvalidFormatJSON(e);
+		}
+	}
+	
+	/**
+	 * Calls the consumer for each element of a top level JSON array,
+	 * without materializing the array
+	 *
+	 * @param  JSON input stream, which is read but not closed
+	 * @param  Consumer of each array element
+	 **/
+	public static void forEachArrayElement(InputStream input, Consumer<Object> consumer) {
+		try (ArrayIterator iterator = arrayIterator(input)) {
+			iterator.forEachRemaining(consumer);
+		}
+	}
+	
+	/**
+	 * Calls the consumer for each element of a top level JSON array,
+	 * without materializing the array
+	 *
+	 * @param  JSON reader, which is read but not closed
+	 * @param  Consumer of each array element
+	 **/
+	public static void forEachArrayElement(Reader input, Consumer<Object> consumer) {
+		try (ArrayIterator iterator = arrayIterator(input)) {
+			iterator.forEachRemaining(consumer);
+		}
+	}
+	
 	/////////////////////////////////////////////////
 	//
 	// From string to array conversion
@@ -354,6 +765,41 @@ public class ConvertJSON {
 		return rawList.stream().toArray(Object[]::new);
 	}
 	
+	/**
+	 * Creates a token parser of the json string, positioned at the start of the array
+	 *
+	 * @param  Input JSON string
+	 *
+	 * @return JsonParser to read the array elements, or Null for input 'null'
+	 **/
+	private static JsonParser arrayParser(String input) throws IOException {
+		JsonParser parser = cachedMapper.getFactory().createParser(input);
+		JsonToken token = parser.nextToken();
+		if (token == JsonToken.START_ARRAY) {
+			return parser;
+		}
+		parser.close();
+		if (token == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		throw new InvalidFormatJSON("Expected a JSON array, found : " + token, null);
+	}
+	
+	/**
+	 * Get the number of the current array element token
+	 *
+	 * @param  JsonParser positioned on the array element
+	 * @param  JsonToken of the array element
+	 *
+	 * @return Number value of the array element
+	 **/
+	private static Number arrayNumber(JsonParser parser, JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+			return parser.getNumberValue();
+		}
+		throw new InvalidFormatJSON("Expected a JSON number array element, found : " + token, null);
+	}
+	
 	/**
 	 * Converts a json string into a string[] array
 	 *
@@ -362,17 +808,32 @@ public class ConvertJSON {
 	 * @return Converted String[] array, or Null for input 'null'
 	 **/
 	public static String[] toStringArray(String input) {
-		List<Object> rawList = ConvertJSON.toList(input);
-		if (rawList == null) {
-			return null;
-		}
-		String[] ret = new String[rawList.size()];
-		for (int a = 0; a < rawList.size(); ++a) {
-			if (rawList.get(a) != null) {
-				ret[a] = rawList.get(a).toString();
+		try (JsonParser parser = arrayParser(input)) {
+			if (parser == null) {
+				return null;
 			}
+			
+			List<String> ret = new ArrayList<String>();
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser
+				.nextToken()) {
+				if (token == null) {
+					throw new InvalidFormatJSON("Unexpected end of JSON array", null);
+				} else if (token == JsonToken.VALUE_NULL) {
+					ret.add(null);
+				} else if (token == JsonToken.VALUE_STRING) {
+					ret.add(parser.getText());
+				} else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+					ret.add(parser.getNumberValue().toString());
+				} else {
+					// Boolean, or nested map / list, as its java object string value
+					ret.add(objectReader.readValue(parser).toString());
+				}
+			}
+			return ret.toArray(new String[ret.size()]);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
 		}
-		return ret;
 	}
 	
 	/**
@@ -383,16 +844,25 @@ public class ConvertJSON {
 	 * @return Converted double[] array, or Null for input 'null'
 	 **/
 	public static double[] toDoubleArray(String input) {
-		List<Object> rawList = ConvertJSON.toList(input);
-		if (rawList == null) {
-			return null;
-		}
-		
-		double[] ret = new double[rawList.size()];
-		for (int a = 0; a < rawList.size(); ++a) {
-			ret[a] = ((Number) rawList.get(a)).doubleValue();
+		try (JsonParser parser = arrayParser(input)) {
+			if (parser == null) {
+				return null;
+			}
+			
+			double[] ret = new double[16];
+			int size = 0;
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser
+				.nextToken()) {
+				if (size == ret.length) {
+					ret = Arrays.copyOf(ret, size * 2);
+				}
+				ret[size++] = arrayNumber(parser, token).doubleValue();
+			}
+			return Arrays.copyOf(ret, size);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
 		}
-		return ret;
 	}
 	
 	/**
@@ -403,16 +873,25 @@ public class ConvertJSON {
 	 * @return Converted int[] array, or Null for input 'null'
 	 **/
 	public static int[] toIntArray(String input) {
-		List<Object> rawList = ConvertJSON.toList(input);
-		if (rawList == null) {
-			return null;
-		}
-		
-		int[] ret = new int[rawList.size()];
-		for (int a = 0; a < rawList.size(); ++a) {
-			ret[a] = ((Number) rawList.get(a)).intValue();
+		try (JsonParser parser = arrayParser(input)) {
+			if (parser == null) {
+				return null;
+			}
+			
+			int[] ret = new int[16];
+			int size = 0;
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser
+				.nextToken()) {
+				if (size == ret.length) {
+					ret = Arrays.copyOf(ret, size * 2);
+				}
+				ret[size++] = arrayNumber(parser, token).intValue();
+			}
+			return Arrays.copyOf(ret, size);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
 		}
-		return ret;
 	}
 	
 	/**
@@ -423,16 +902,25 @@ public class ConvertJSON {
 	 * @return Converted float[] array, or Null for input 'null'
 	 **/
 	public static float[] toFloatArray(String input) {
-		List<Object> rawList = ConvertJSON.toList(input);
-		if (rawList == null) {
-			return null;
-		}
-		
-		float[] ret = new float[rawList.size()];
-		for (int a = 0; a < rawList.size(); ++a) {
-			ret[a] = ((Number) rawList.get(a)).floatValue();
+		try (JsonParser parser = arrayParser(input)) {
+			if (parser == null) {
+				return null;
+			}
+			
+			float[] ret = new float[16];
+			int size = 0;
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser
+				.nextToken()) {
+				if (size == ret.length) {
+					ret = Arrays.copyOf(ret, size * 2);
+				}
+				ret[size++] = arrayNumber(parser, token).floatValue();
+			}
+			return Arrays.copyOf(ret, size);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
 		}
-		return ret;
 	}
 	
 	/**
@@ -443,16 +931,25 @@ public class ConvertJSON {
 	 * @return Converted long[] array, or Null for input 'null'
 	 **/
 	public static long[] toLongArray(String input) {
-		List<Object> rawList = ConvertJSON.toList(input);
-		if (rawList == null) {
-			return null;
-		}
-		
-		long[] ret = new long[rawList.size()];
-		for (int a = 0; a < rawList.size(); ++a) {
-			ret[a] = ((Number) rawList.get(a)).longValue();
+		try (JsonParser parser = arrayParser(input)) {
+			if (parser == null) {
+				return null;
+			}
+			
+			long[] ret = new long[16];
+			int size = 0;
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser
+				.nextToken()) {
+				if (size == ret.length) {
+					ret = Arrays.copyOf(ret, size * 2);
+				}
+				ret[size++] = arrayNumber(parser, token).longValue();
+			}
+			return Arrays.copyOf(ret, size);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new InvalidFormatJSON(e);
 		}
-		return ret;
 	}
 	
 }
@@ -0,0 +1,353 @@
+package picoded.core.conv;
+
+// Java libs
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Jackson library used
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+// Picoded libraries used
+import picoded.core.exception.ExceptionMessage;
+
+/**
+ * Binary JSON (Smile) conversion helpers, with the same API shape as ConvertJSON.
+ *
+ * Smile is a binary encoding of the JSON data model, as such any Map / List structure
+ * converted via ConvertJSON, round trips as the same Map / List structure here. While
+ * being more compact, and faster to parse, especially for map heavy payloads (as repeated
+ * keys are back referenced).
+ *
+ * Use this in place of ConvertJSON, when passing data between processes / caches,
+ * which does not need to be human readable.
+ *
+ * ---------------------------------------------------------------------------------------------------
+ *
+ * Technical notes: Jackson (jackson-dataformat-smile) is used internally.
+ * Format errors are thrown as ConvertJSON.InvalidFormatJSON.
+ **/
+public class ConvertSmile {
+	
+	/**
+	 * Invalid constructor (throws exception)
+	 **/
+	protected ConvertSmile() {
+		throw new IllegalAccessError(ExceptionMessage.staticClassConstructor);
+	}
+	
+	/**
+	 * Smile content type, used for HTTP content negotiation
+	 **/
+	public static final String CONTENT_TYPE = "application/x-jackson-smile";
+	
+	/**
+	 * Internal reused object mapper, built once on class load
+	 **/
+	private static final ObjectMapper cachedMapper = buildMapper();
+	
+	/**
+	 * Builds the smile object mapper, with the same object mapping
+	 * configuration as ConvertJSON
+	 *
+	 * @returns The Jacksons map builder
+	 **/
+	private static ObjectMapper buildMapper() {
+		ObjectMapper cm = new ObjectMapper(new SmileFactory());
+		
+		/**
+		 * Ignore transient fields
+		 */
+		cm.configure(MapperFeature.PROPAGATE_TRANSIENT_MARKER, true);
+		
+		return cm;
+	}
+	
+	//
+	// Precompiled readers, and writers
+	//
+	private static final ObjectWriter objectWriter = cachedMapper.writer();
+	private static final ObjectWriter streamWriter = objectWriter
+		.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	private static final ObjectReader mapReader = cachedMapper.readerFor(Map.class);
+	private static final ObjectReader listReader = cachedMapper.readerFor(List.class);
+	private static final ObjectReader objectReader = cachedMapper.readerFor(Object.class);
+	
+	/// Readers of the other custom classes, built on first use
+	private static final Map<Class<?>, ObjectReader> classReaders = new ConcurrentHashMap<Class<?>, ObjectReader>();
+	
+	/// Stream readers of the common types (which leaves the input source open)
+	private static final ObjectReader mapStreamReader = mapReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	private static final ObjectReader listStreamReader = listReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	private static final ObjectReader objectStreamReader = objectReader
+		.without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	
+	/**
+	 * Get the precompiled reader for the given class
+	 *
+	 * @param  Class to read as
+	 *
+	 * @return  ObjectReader of the class
+	 **/
+	private static ObjectReader reader(Class<?> c) {
+		if (c == Map.class) {
+			return mapReader;
+		} else if (c == List.class) {
+			return listReader;
+		} else if (c == Object.class) {
+			return objectReader;
+		}
+		return classReaders.computeIfAbsent(c, (type) -> cachedMapper.readerFor(type));
+	}
+	
+	/**
+	 * Get the precompiled stream reader for the given class, which leaves the input source open
+	 *
+	 * @param  Class to read as
+	 *
+	 * @return  ObjectReader of the class
+	 **/
+	private static ObjectReader streamReader(Class<?> c) {
+		if (c == Map.class) {
+			return mapStreamReader;
+		} else if (c == List.class) {
+			return listStreamReader;
+		} else if (c == Object.class) {
+			return objectStreamReader;
+		}
+		return reader(c).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// From java objects to smile bytes
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Converts input Map into smile bytes
+	 *
+	 * @param  Input map to convert
+	 *
+	 * @return The smile bytes
+	 **/
+	public static byte[] fromMap(Map<String, ?> input) {
+		return fromObject(input);
+	}
+	
+	/**
+	 * Converts input List into smile bytes
+	 *
+	 * @param  Input list to convert
+	 *
+	 * @return The smile bytes
+	 **/
+	public static byte[] fromList(List<?> input) {
+		return fromObject(input);
+	}
+	
+	/**
+	 * Converts input object into smile bytes
+	 *
+	 * @param  Input object to convert
+	 *
+	 * @return The smile bytes
+	 **/
+	public static byte[] fromObject(Object input) {
+		try {
+			return objectWriter.writeValueAsBytes(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new ConvertJSON.InvalidFormatJSON("Invalid Format Smile", e);
+		}
+	}
+	
+	/**
+	 * Writes the input object as smile, directly into the output stream
+	 *
+	 * Note: The output stream is flushed, but not closed
+	 *
+	 * @param  Output stream to write into
+	 * @param  Input object to convert
+	 **/
+	public static void writeTo(OutputStream output, Object input) {
+		try {
+			streamWriter.writeValue(output, input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new ConvertJSON.InvalidFormatJSON("Invalid Format Smile", e);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// From smile bytes to java object
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Converts smile bytes into an mapping object
+	 *
+	 * @param  Smile bytes
+	 *
+	 * @return  Output Map if successful, else throws an error
+	 **/
+	public static Map<String, Object> toMap(byte[] input) {
+		return read(mapReader, input);
+	}
+	
+	/**
+	 * Converts smile bytes into an list array
+	 *
+	 * @param  Smile bytes
+	 *
+	 * @return  Output List if successful, else throws an error
+	 **/
+	public static List<Object> toList(byte[] input) {
+		return read(listReader, input);
+	}
+	
+	/**
+	 * Converts smile bytes into any output object (depends on input)
+	 *
+	 * @param  Smile bytes
+	 *
+	 * @return  Output object (either map or list)
+	 **/
+	public static Object toObject(byte[] input) {
+		return read(objectReader, input);
+	}
+	
+	/**
+	 * Converts smile bytes into a custom output object
+	 *
+	 * @param  Smile bytes
+	 *
+	 * @return  Output object (either map or list, or other class)
+	 **/
+	public static Object toCustomClass(byte[] input, Class<?> c) {
+		return read(reader(c), input);
+	}
+	
+	/**
+	 * Reads the smile bytes with the given reader
+	 **/
+	private static <T> T read(ObjectReader reader, byte[] input) {
+		try {
+			return reader.readValue(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new ConvertJSON.InvalidFormatJSON("Invalid Format Smile", e);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// From smile stream to java object
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Converts smile input stream into an mapping object
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 *
+	 * @return  Output Map if successful, else throws an error
+	 **/
+	public static Map<String, Object> toMap(InputStream input) {
+		return read(mapStreamReader, input);
+	}
+	
+	/**
+	 * Converts smile input stream into an list array
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 *
+	 * @return  Output List if successful, else throws an error
+	 **/
+	public static List<Object> toList(InputStream input) {
+		return read(listStreamReader, input);
+	}
+	
+	/**
+	 * Converts smile input stream into any output object (depends on input)
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 *
+	 * @return  Output object (either map or list)
+	 **/
+	public static Object toObject(InputStream input) {
+		return read(objectStreamReader, input);
+	}
+	
+	/**
+	 * Converts smile input stream into a custom output object
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 *
+	 * @return  Output object (either map or list, or other class)
+	 **/
+	public static Object toCustomClass(InputStream input, Class<?> c) {
+		return read(streamReader(c), input);
+	}
+	
+	/**
+	 * Reads the smile input stream with the given stream reader, leaving the stream open
+	 **/
+	private static <T> T read(ObjectReader reader, InputStream input) {
+		try {
+			return reader.readValue(input);
+		} catch (IOException e) {
+			// Any exception is recasted as InvalidFormatJSON
+			throw new ConvertJSON.InvalidFormatJSON("Invalid Format Smile", e);
+		}
+	}
+	
+	/////////////////////////////////////////////////
+	//
+	// Streaming of smile array elements
+	//
+	/////////////////////////////////////////////////
+	
+	/**
+	 * Gets the iterator of a top level smile array elements, without materializing the array
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 *
+	 * @return  ConvertJSON.ArrayIterator of the array elements
+	 **/
+	public static ConvertJSON.ArrayIterator arrayIterator(InputStream input) {
+		try {
+			return new ConvertJSON.ArrayIterator(cachedMapper.getFactory().createParser(input)
+				.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+		} catch (IOException e) {
+			throw new ConvertJSON.InvalidFormatJSON("Invalid Format Smile", e);
+		}
+	}
+	
+	/**
+	 * Calls the consumer for each element of a top level smile array,
+	 * without materializing the array
+	 *
+	 * @param  Smile input stream, which is read but not closed
+	 * @param  Consumer of each array element
+	 **/
+	public static void forEachArrayElement(InputStream input, Consumer<Object> consumer) {
+		try (ConvertJSON.ArrayIterator iterator = arrayIterator(input)) {
+			iterator.forEachRemaining(consumer);
+		}
+	}
+	
+}
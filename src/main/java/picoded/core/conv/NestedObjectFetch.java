@@ -135,94 +135,18 @@ public class NestedObjectFetch {
 		
 		//-----------------------------------------------------------------------
 		//
-		//  Split path matching
+		//  Split path matching, and common mistakes workarounds
 		//
 		//-----------------------------------------------------------------------
 		
-		// Get the split pathing of the objectPath
-		String[] splitPath = splitObjectPath(objectPath);
-		int splitPathLength = splitPath.length;
-		
-		//
-		// For each possible interpration of the split path, 
-		// attempt to fetch the target object, using the longest path first
-		//
-		// For the following search `this.is.1.annoying.deep.search`
-		//
-		// The following possible matches are done in priority till a result is found.
-		//
-		// `this.is.1.annoying.deep.search`
-		// `this.is.1.annoying.deep`, `search`
-		// `this.is.1.annoying`, `deep.search`
-		// `this.is.1.annoying`, `deep`, `search`
-		// `this.is.1`, `annoying.deep.search`
-		// `this.is.1.annoying`, `annoying.deep`, `search`
-		// `this.is.1.annoying`, `annoying`, `deep.search`
-		// `this.is.1.annoying`, `annoying`, `deep`, `search`
-		//
-		for (int idx = splitPathLength; idx >= 0; --idx) {
-			
-			// The prefix text to use, to get the nested map/list
-			// to attempt to get the subsequent objects
-			String[] prefixArray = ArrayConv.subarray(splitPath, 0, idx);
-			String prefixStr = String.join(".", prefixArray);
-			
-			// The nested base to use, if found
-			Object nestedBase = MapOrListUtil.getValue(base, prefixStr);
-			if (nestedBase == null) {
-				// No nested base found, skips
-				continue;
-			}
-			
-			// The suffix text, to try to extract from the nested base object
-			String[] suffixArray = ArrayConv.subarray(splitPath, idx, splitPathLength);
-			String suffixStr = String.join(".", suffixArray);
-			
-			// Recursively attempts to fetch a suffix nested object, till its found
-			ret = fetchObject(nestedBase, suffixStr, null);
-			
-			// Return if result was found
-			if (ret != null) {
-				return ret;
-			}
-		}
-		
-		//-----------------------------------------------------------------------
-		//
-		//  Common mistakes workarounds 
-		//
-		//-----------------------------------------------------------------------
-		
-		// Try again with trimmed object path
-		// ` why ` -> `why`
-		String objectPathTrim = objectPath.trim();
-		if (!objectPath.equals(objectPathTrim)) {
-			return fetchObject(base, objectPathTrim, fallback);
-		}
-		
-		// Trim off usesless starting ".dots", and try again
-		// `.doh` -> `doh`
-		if (objectPath.startsWith(".")) {
-			return fetchObject(base, objectPath.substring(1), fallback);
-		}
-		
-		// Trim off usesless wrapping brackets
-		// `[wrap][it]` -> `wrap[it]`
-		if (objectPath.startsWith("[")) {
-			int closingBracket = objectPath.indexOf("]", 1);
-			String unwrappedPath = objectPath.substring(1, closingBracket)
-				+ objectPath.substring(closingBracket + 1);
-			return fetchObject(base, unwrappedPath, fallback);
-		}
-		
-		//-----------------------------------------------------------------------
-		//
-		//  Final fallback
-		//
-		//-----------------------------------------------------------------------
+		// Uses the compiled (and cached) object path, which is split only once.
+		// Each prefix / suffix interpration is tried in the same order as described above,
+		// followed by the common mistakes workarounds (such as trimming the path),
+		// without splitting, joining, nor parsing any strings on each fetch.
+		ret = NestedObjectPath.compile(objectPath).fetchSplitPath(base);
 		
 		// All else failed, including full key fetch -> fallback
-		return fallback;
+		return (ret != null) ? ret : fallback;
 	}
 	
 	/**
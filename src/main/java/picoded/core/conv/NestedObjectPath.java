@@ -0,0 +1,388 @@
+package picoded.core.conv;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import picoded.core.struct.ConcurrentLRUCache;
+
+/**
+ * Compiled object path, used to fetch nested objects in a Map/List.
+ *
+ * This gives the same result as `NestedObjectFetch.fetchObject`, however the path
+ * is split only once when compiled. Along with every prefix / suffix interpration
+ * of the path, and their list index values. As such fetching does not split,
+ * join, nor parse any strings.
+ *
+ * This is intended for repeated fetching of the same path, across many objects,
+ * such as query conditions and sorting.
+ *
+ * ```
+ * NestedObjectPath path = NestedObjectPath.compile("a.b.c[0]");
+ * Object base = ConvertJSON.toMap("{ \"a\" : { \"b.c\" : [1,2] } }");
+ * assertEquals(1, path.fetch(base));
+ * ```
+ **/
+public class NestedObjectPath {
+	
+	//--------------------------------------------------------------------------------------------------
+	//
+	// Constructor vars
+	//
+	//--------------------------------------------------------------------------------------------------
+	
+	/**
+	 * The full object path
+	 **/
+	protected final String path;
+	
+	/**
+	 * The path as a list index, -1 if its not a valid index
+	 **/
+	protected final int index;
+	
+	/**
+	 * Compiled nested object paths, shared by this path (and its sub paths).
+	 * Used to avoid compiling the same sub path more then once.
+	 **/
+	protected final Map<String, NestedObjectPath> pathMap;
+	
+	/**
+	 * The split path interpration, computed on first use
+	 **/
+	protected volatile SplitPath split = null;
+	
+	/**
+	 * Protected constructor, use compile instead
+	 *
+	 * @param path     the full object path
+	 * @param pathMap  shared compiled sub paths
+	 **/
+	protected NestedObjectPath(String path, Map<String, NestedObjectPath> pathMap) {
+		this.path = path;
+		this.index = GenericConvert.toInt(path, -1);
+		this.pathMap = pathMap;
+		pathMap.put(path, this);
+	}
+	
+	/**
+	 * @return the full object path
+	 **/
+	public String path() {
+		return path;
+	}
+	
+	/**
+	 * @return the full object path
+	 **/
+	@Override
+	public String toString() {
+		return path;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	//
+	// Path compilation, and its cache
+	//
+	//--------------------------------------------------------------------------------------------------
+	
+	/**
+	 * Default number of compiled paths to cache
+	 **/
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+	
+	/**
+	 * Compiled path cache
+	 **/
+	protected static final ConcurrentLRUCache<String, NestedObjectPath> pathCache = new ConcurrentLRUCache<String, NestedObjectPath>(
+		DEFAULT_CACHE_SIZE);
+	
+	/**
+	 * Gets the compiled object path, from the cache if possible
+	 *
+	 * @param objectPath  the object path to compile
+	 *
+	 * @return  the compiled object path
+	 **/
+	public static NestedObjectPath compile(String objectPath) {
+		if (objectPath == null) {
+			return new NestedObjectPath(null, new HashMap<String, NestedObjectPath>());
+		}
+		return pathCache.computeIfAbsent(objectPath, (p) -> new NestedObjectPath(p,
+			new HashMap<String, NestedObjectPath>()));
+	}
+	
+	/**
+	 * Gets the compiled sub path, which shares the same path map
+	 *
+	 * @param subPath  the sub path to get
+	 *
+	 * @return  the compiled sub path
+	 **/
+	protected NestedObjectPath subPath(String subPath) {
+		synchronized (pathMap) {
+			NestedObjectPath ret = pathMap.get(subPath);
+			if (ret == null) {
+				ret = new NestedObjectPath(subPath, pathMap);
+			}
+			return ret;
+		}
+	}
+	
+	/**
+	 * The split path interpration, of a full object path.
+	 *
+	 * This represents the possible prefix / suffix of the path, in the same
+	 * order as NestedObjectFetch. Along with its "common mistakes" workaround.
+	 **/
+	protected static class SplitPath {
+		
+		/**
+		 * Error on splitting the path, thrown only when the split path is used
+		 **/
+		protected RuntimeException error = null;
+		
+		/**
+		 * Prefix strings, and its list index, from the longest to shortest
+		 **/
+		protected String[] prefix = null;
+		protected int[] prefixIndex = null;
+		
+		/**
+		 * Suffix paths, to fetch from the respective prefix nested base
+		 **/
+		protected NestedObjectPath[] suffix = null;
+		
+		/**
+		 * Workaround path, to fetch with if all else fails
+		 **/
+		protected NestedObjectPath workaround = null;
+	}
+	
+	/**
+	 * Gets the split path interpration, computing it if needed
+	 *
+	 * @return  the split path
+	 **/
+	protected SplitPath splitPath() {
+		SplitPath ret = split;
+		if (ret != null) {
+			return ret;
+		}
+		
+		ret = new SplitPath();
+		try {
+			// Prefix / suffix of the split path, from the longest prefix first
+			String[] splitPath = NestedObjectFetch.splitObjectPath(path);
+			int splitPathLength = splitPath.length;
+			
+			ret.prefix = new String[splitPathLength + 1];
+			ret.prefixIndex = new int[splitPathLength + 1];
+			ret.suffix = new NestedObjectPath[splitPathLength + 1];
+			for (int idx = splitPathLength; idx >= 0; --idx) {
+				int pos = splitPathLength - idx;
+				ret.prefix[pos] = String.join(".", ArrayConv.subarray(splitPath, 0, idx));
+				ret.prefixIndex[pos] = GenericConvert.toInt(ret.prefix[pos], -1);
+				ret.suffix[pos] = subPath(String.join(".", ArrayConv.subarray(splitPath, idx,
+					splitPathLength)));
+			}
+			
+			// Common mistakes workaround, see NestedObjectFetch
+			String pathTrim = path.trim();
+			if (!path.equals(pathTrim)) {
+				ret.workaround = subPath(pathTrim);
+			} else if (path.startsWith(".")) {
+				ret.workaround = subPath(path.substring(1));
+			} else if (path.startsWith("[")) {
+				int closingBracket = path.indexOf("]", 1);
+				ret.workaround = subPath(path.substring(1, closingBracket)
+					+ path.substring(closingBracket + 1));
+			}
+		} catch (RuntimeException e) {
+			ret.error = e;
+		}
+		
+		split = ret;
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	//
+	// Nested object fetching
+	//
+	//--------------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the value from a Map / List, with a precomputed list index
+	 *
+	 * @param base   Map / List to get from
+	 * @param key    map key
+	 * @param index  list index, -1 if invalid
+	 *
+	 * @return  the value, null if not found
+	 **/
+	@SuppressWarnings("rawtypes")
+	protected static Object getValue(Object base, String key, int index) {
+		if (base instanceof Map) {
+			return ((Map) base).get(key);
+		}
+		List list = (List) base;
+		if (index >= 0 && index < list.size()) {
+			return list.get(index);
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the nested object from a Map / List, see `NestedObjectFetch.fetchObject`
+	 *
+	 * @param base      Map / List to fetch from
+	 * @param fallback  The fallback default (if not found)
+	 *
+	 * @return  The fetched object, always possible unless fallbck null
+	 **/
+	public Object fetch(Object base, Object fallback) {
+		Object ret = fetch(base);
+		return (ret != null) ? ret : fallback;
+	}
+	
+	/**
+	 * Null fallback alternative for fetch
+	 *
+	 * Unlike `NestedObjectFetch.fetchObject`, a path which fails to parse (such as an unclosed `[`)
+	 * does not throw, and is fetched only as a literal key. As such a flat field name is always usable.
+	 *
+	 * @param base  Map / List to fetch from
+	 *
+	 * @return  The fetched object, null if not found
+	 **/
+	public Object fetch(Object base) {
+		return fetch(base, (FailedFetch) null);
+	}
+	
+	/**
+	 * Nested object fetching, after the full path was not found
+	 * (used by `NestedObjectFetch.fetchObject`, which does its own full path fetching)
+	 *
+	 * @param base  Map / List to fetch from
+	 *
+	 * @return  The fetched object, null if not found
+	 **/
+	protected Object fetchSplitPath(Object base) {
+		if (path == null || path.length() <= 0) {
+			return null;
+		}
+		return fetchSplitPath(base, null);
+	}
+	
+	/**
+	 * The (nested base, sub path) fetches which was not found, in a single fetch.
+	 *
+	 * As the same sub path can be reached on the same nested base by multiple
+	 * prefix / suffix interpration, each pair is only fetched once. Bounding the worst case
+	 * cost to the number of nested objects, multiplied by the number of sub paths.
+	 * Instead of the number of interpration, which is exponential to the path length.
+	 **/
+	protected static class FailedFetch {
+		
+		/**
+		 * Sub paths not found, for each nested base
+		 **/
+		protected final Map<Object, Set<NestedObjectPath>> failed = new IdentityHashMap<Object, Set<NestedObjectPath>>();
+		
+		/**
+		 * @return  true, if the sub path was already not found on the nested base
+		 **/
+		protected boolean contains(Object base, NestedObjectPath subPath) {
+			Set<NestedObjectPath> set = failed.get(base);
+			return set != null && set.contains(subPath);
+		}
+		
+		/**
+		 * Record the sub path as not found on the nested base
+		 **/
+		protected void add(Object base, NestedObjectPath subPath) {
+			Set<NestedObjectPath> set = failed.get(base);
+			if (set == null) {
+				set = new HashSet<NestedObjectPath>();
+				failed.put(base, set);
+			}
+			set.add(subPath);
+		}
+	}
+	
+	/**
+	 * Gets the nested object from a Map / List, skipping the already failed fetches
+	 *
+	 * @param base    Map / List to fetch from
+	 * @param failed  failed fetches, null if none so far
+	 *
+	 * @return  The fetched object, null if not found
+	 **/
+	protected Object fetch(Object base, FailedFetch failed) {
+		// Invalid base
+		if (!(base instanceof Map || base instanceof List)) {
+			return null;
+		}
+		
+		// Full path fetching
+		Object ret = getValue(base, path, index);
+		if (ret != null || path == null || path.length() <= 0) {
+			return ret;
+		}
+		
+		// Path which fails to parse, is only fetched as the literal key (done above)
+		if (splitPath().error != null) {
+			return null;
+		}
+		return fetchSplitPath(base, failed);
+	}
+	
+	/**
+	 * Split path matching (and its workaround), after the full path was not found
+	 *
+	 * @param base    Map / List to fetch from
+	 * @param failed  failed fetches, null if none so far
+	 *
+	 * @return  The fetched object, null if not found
+	 **/
+	protected Object fetchSplitPath(Object base, FailedFetch failed) {
+		// Split path matching, using the longest prefix first
+		SplitPath splitPath = splitPath();
+		if (splitPath.error != null) {
+			throw splitPath.error;
+		}
+		String[] prefix = splitPath.prefix;
+		for (int pos = 0; pos < prefix.length; ++pos) {
+			Object nestedBase = getValue(base, prefix[pos], splitPath.prefixIndex[pos]);
+			if (nestedBase == null) {
+				continue;
+			}
+			
+			// Skip the sub path fetch, if it was already not found
+			NestedObjectPath suffix = splitPath.suffix[pos];
+			if (failed != null && failed.contains(nestedBase, suffix)) {
+				continue;
+			}
+			if (failed == null) {
+				failed = new FailedFetch();
+			}
+			
+			Object ret = suffix.fetch(nestedBase, failed);
+			if (ret != null) {
+				return ret;
+			}
+			failed.add(nestedBase, suffix);
+		}
+		
+		// Common mistakes workaround
+		if (splitPath.workaround != null) {
+			return splitPath.workaround.fetch(base, failed);
+		}
+		return null;
+	}
+	
+}
@@ -2,6 +2,8 @@ package picoded.core.file;
 
 //
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -170,8 +172,10 @@ public class ConfigFileSet implements GenericConvertMap<String, Object> {
 					//
 					// Takes in a JS / JSON file, and map it accordingly
 					//
-					String jsString = FileUtil.readFileToString(inFile);
-					Object jsonObj = ConvertJSON.toObject(jsString);
+					Object jsonObj = null;
+					try (InputStream jsStream = new FileInputStream(inFile)) {
+						jsonObj = ConvertJSON.toObject(jsStream);
+					}
 					if (jsonObj == null) {
 						throw new RuntimeException("Failed ot pass JSON config : " + inFile.getPath());
 					}
@@ -0,0 +1,358 @@
+package picoded.core.struct;
+
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.PreparedQuery;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryUtils;
+import picoded.core.struct.query.column.ColumnTable;
+
+/**
+ * In memory collection of maps, stored column by column in a ColumnTable.
+ * Where each field is stored as a primitive long / double array, dictionary encoded strings,
+ * or an object array (for other value types), instead of a map for each row.
+ *
+ * ```
+ * ColumnarQueryMapCollection collection = new ColumnarQueryMapCollection();
+ * collection.addAll(rows);
+ * List<Map<String,Object>> res = collection.query("name = ? AND age > ?", new Object[] { "bob", 10 }, null, -1, -1);
+ * BigDecimal[] sums = collection.aggregate(new String[] { "sum(age)" }, "name = ?", new Object[] { "bob" });
+ * ```
+ *
+ * Query conditions and aggregations are evaluated column at a time, and the rows
+ * are returned as lightweight map views of the columns (see ColumnTable.RowView).
+ *
+ * Rows are copied into the columns when added, where changes to the original map
+ * are not reflected. Changes can instead be made on the returned row views.
+ * Note that null values are stored as missing values, and integer values are returned as Long.
+ *
+ * Removed rows are left as gaps till `compact()` is called, which invalidates
+ * any row views obtained before it.
+ *
+ * Note that this class is not thread safe.
+ **/
+public class ColumnarQueryMapCollection extends AbstractCollection<Map<String, Object>> implements
+	QueryMapCollection<Map<String, Object>> {
+	
+	//------------------------------------------------------------------------
+	//
+	//  Constructor vars
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * The column table of the rows
+	 **/
+	protected ColumnTable table = new ColumnTable();
+	
+	/**
+	 * Blank constructor
+	 **/
+	public ColumnarQueryMapCollection() {
+		super();
+	}
+	
+	/**
+	 * Constructor with initial rows
+	 *
+	 * @param  rows to add
+	 **/
+	public ColumnarQueryMapCollection(Collection<? extends Map<String, Object>> initialRows) {
+		super();
+		addAll(initialRows);
+	}
+	
+	/**
+	 * @return  the column table of the rows
+	 **/
+	public ColumnTable table() {
+		return table;
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Collection implementation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * @return number of rows
+	 **/
+	@Override
+	public int size() {
+		return table.size();
+	}
+	
+	/**
+	 * Adds the row, copying its values into the columns
+	 *
+	 * @param  row to add
+	 *
+	 * @return  true
+	 **/
+	@Override
+	public boolean add(Map<String, Object> row) {
+		if (row == null) {
+			throw new IllegalArgumentException("Null rows are not supported");
+		}
+		table.addRow(row);
+		return true;
+	}
+	
+	/**
+	 * Removes the row, by its row view (or the first equal row)
+	 *
+	 * @param  row to remove
+	 *
+	 * @return  true, if a row was removed
+	 **/
+	@Override
+	public boolean remove(Object row) {
+		if (row instanceof ColumnTable.RowView && ((ColumnTable.RowView) row).table() == table) {
+			return table.removeRow(((ColumnTable.RowView) row).rowId());
+		}
+		return super.remove(row);
+	}
+	
+	/**
+	 * Removes all rows
+	 **/
+	@Override
+	public void clear() {
+		table.clear();
+	}
+	
+	/**
+	 * Removes the gaps left by removed rows, see ColumnTable.compact()
+	 **/
+	public void compact() {
+		table.compact();
+	}
+	
+	/**
+	 * @return  iterator of the row views, in insertion order
+	 **/
+	@Override
+	public Iterator<Map<String, Object>> iterator() {
+		return rowIterator(table.liveRows());
+	}
+	
+	/**
+	 * Iterator of the row views, of the selected row id's
+	 *
+	 * @param  selection of row id's to iterate
+	 *
+	 * @return  iterator of the row views
+	 **/
+	protected Iterator<Map<String, Object>> rowIterator(BitSet selection) {
+		return new Iterator<Map<String, Object>>() {
+			// Next, and last returned row id
+			int next = selection.nextSetBit(0);
+			int last = -1;
+			
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+			
+			@Override
+			public Map<String, Object> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = selection.nextSetBit(next + 1);
+				return table.row(last);
+			}
+			
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				table.removeRow(last);
+				last = -1;
+			}
+		};
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Query implementation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Performs a search query column at a time, and returns the respective row views.
+	 *
+	 * @param   queryClause, of where query statement and value
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value list
+	 **/
+	@Override
+	public List<Map<String, Object>> query(Query queryClause, String orderByStr, int offset,
+		int limit) {
+		BitSet selection = table.filter(queryClause);
+		return QueryUtils.filterSortAndOffset(() -> rowIterator(selection), null, orderByStr,
+			offset, limit);
+	}
+	
+	/**
+	 * Performs a search query column at a time, and returns the respective row views as a stream.
+	 *
+	 * @param   queryClause, of where query statement and value
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	@Override
+	public Stream<Map<String, Object>> queryStream(Query queryClause, String orderByStr,
+		int offset, int limit) {
+		// Sorting requires all the results
+		if (orderByStr != null && orderByStr.trim().length() > 0) {
+			return query(queryClause, orderByStr, offset, limit).stream();
+		}
+		
+		Stream<Map<String, Object>> ret = table.filter(queryClause).stream().mapToObj(table::row);
+		return QueryUtils.offsetStream(ret, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query column at a time, and count the number of results.
+	 *
+	 * @param   queryClause, of where query statement and value, can be null
+	 *
+	 * @return  number of matching values
+	 **/
+	@Override
+	public long queryCount(Query queryClause) {
+		if (queryClause == null) {
+			return size();
+		}
+		return table.filter(queryClause).cardinality();
+	}
+	
+	/**
+	 * Performs a query, and aggregate the result column at a time
+	 *
+	 * @param aggregationTerms to aggregate data with
+	 * @param queryClause to filter the collection with, can be null
+	 *
+	 * @return Aggregation result to the corresponding terms
+	 */
+	@Override
+	public BigDecimal[] aggregate(String[] aggregationTerms, Query queryClause) {
+		return Aggregation.build(aggregationTerms).compute(table, table.filter(queryClause));
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Prepared query implementation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Gets the rows matching the prepared query, with its bound arguments
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	protected BitSet filter(PreparedQuery preparedClause, Object[] whereValues) {
+		if (preparedClause == null) {
+			return table.filter(null);
+		}
+		return table.filter(preparedClause.template(), preparedClause.arguments(whereValues));
+	}
+	
+	/**
+	 * Performs a search query column at a time, with the prepared query and its arguments.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value list
+	 **/
+	@Override
+	public List<Map<String, Object>> query(PreparedQuery preparedClause, Object[] whereValues,
+		String orderByStr, int offset, int limit) {
+		BitSet selection = filter(preparedClause, whereValues);
+		return QueryUtils.filterSortAndOffset(() -> rowIterator(selection), null, orderByStr,
+			offset, limit);
+	}
+	
+	/**
+	 * Performs a search query column at a time, with the prepared query and its arguments,
+	 * and returns the respective row views as a stream.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	@Override
+	public Stream<Map<String, Object>> queryStream(PreparedQuery preparedClause,
+		Object[] whereValues, String orderByStr, int offset, int limit) {
+		// Sorting requires all the results
+		if (orderByStr != null && orderByStr.trim().length() > 0) {
+			return query(preparedClause, whereValues, orderByStr, offset, limit).stream();
+		}
+		
+		Stream<Map<String, Object>> ret = filter(preparedClause, whereValues).stream().mapToObj(
+			table::row);
+		return QueryUtils.offsetStream(ret, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query column at a time, with the prepared query and its arguments,
+	 * and count the number of results.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 *
+	 * @return  number of matching values
+	 **/
+	@Override
+	public long queryCount(PreparedQuery preparedClause, Object[] whereValues) {
+		return filter(preparedClause, whereValues).cardinality();
+	}
+	
+	/**
+	 * Performs a query column at a time, with the prepared query and its arguments,
+	 * and aggregate the result
+	 *
+	 * @param aggregationTerms to aggregate data with
+	 * @param preparedClause, of where query statement, can be null
+	 * @param where clause values array
+	 *
+	 * @return Aggregation result to the corresponding terms
+	 */
+	@Override
+	public BigDecimal[] aggregate(String[] aggregationTerms, PreparedQuery preparedClause,
+		Object[] whereValues) {
+		return Aggregation.build(aggregationTerms).compute(table,
+			filter(preparedClause, whereValues));
+	}
+	
+}
@@ -0,0 +1,279 @@
+package picoded.core.struct;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread safe, least recently used (LRU) cache.
+ *
+ * The cache is split into multiple segments by the key hash, where each segment
+ * is an access ordered LinkedHashMap with its own lock. This reduces the lock
+ * contention across threads, at the cost of the LRU eviction being per segment.
+ *
+ * Hit, miss, and eviction counters are tracked for monitoring.
+ *
+ * ```
+ * ConcurrentLRUCache<String, Pattern> cache = new ConcurrentLRUCache<String, Pattern>(1000);
+ * Pattern p = cache.computeIfAbsent("ab.*", Pattern::compile);
+ * ```
+ **/
+public class ConcurrentLRUCache<K, V> {
+	
+	//------------------------------------------------------------------------
+	//
+	//  Constructor vars
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Default number of segments used, when the capacity is large enough
+	 **/
+	protected static final int DEFAULT_SEGMENT_COUNT = 16;
+	
+	/**
+	 * The cache segments, with its own lock
+	 **/
+	protected final Segment<K, V>[] segments;
+	
+	/**
+	 * Maximum number of entries the cache holds
+	 **/
+	protected final int capacity;
+	
+	/**
+	 * Performance counters
+	 **/
+	protected final AtomicLong hitCount = new AtomicLong();
+	protected final AtomicLong missCount = new AtomicLong();
+	protected final AtomicLong evictionCount = new AtomicLong();
+	
+	/**
+	 * Single cache segment, an access ordered LinkedHashMap, with eviction
+	 **/
+	@SuppressWarnings("serial")
+	protected static class Segment<K, V> extends LinkedHashMap<K, V> {
+		
+		/**
+		 * Maximum size of the segment
+		 **/
+		protected final int segmentCapacity;
+		
+		/**
+		 * Eviction counter to increment
+		 **/
+		protected final AtomicLong evictionCount;
+		
+		/**
+		 * Segment constructor
+		 *
+		 * @param  maximum size of the segment
+		 * @param  eviction counter to increment
+		 **/
+		Segment(int segmentCapacity, AtomicLong evictionCount) {
+			super(16, 0.75f, true);
+			this.segmentCapacity = segmentCapacity;
+			this.evictionCount = evictionCount;
+		}
+		
+		/**
+		 * Evicts the least recently used entry, when above the segment capacity
+		 **/
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			if (size() > segmentCapacity) {
+				evictionCount.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Constructor with the maximum number of entries
+	 *
+	 * @param  capacity of the cache, 0 or less disables caching
+	 **/
+	public ConcurrentLRUCache(int capacity) {
+		this.capacity = Math.max(capacity, 0);
+		
+		// Small caches use a single segment, to keep the LRU order accurate
+		int segmentCount = (this.capacity >= DEFAULT_SEGMENT_COUNT * 4) ? DEFAULT_SEGMENT_COUNT
+			: 1;
+		int segmentCapacity = (this.capacity + segmentCount - 1) / segmentCount;
+		
+		// Generic arrays cannot be created directly, the raw array only holds Segment<K, V>
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Segment<K, V>[] segmentArr = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; ++i) {
+			segmentArr[i] = new Segment<K, V>(segmentCapacity, evictionCount);
+		}
+		segments = segmentArr;
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Cache operations
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Gets the segment for the key
+	 *
+	 * @param  key used
+	 *
+	 * @return segment used by the key
+	 **/
+	protected Segment<K, V> segmentFor(Object key) {
+		if (segments.length == 1) {
+			return segments[0];
+		}
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (segments.length - 1)];
+	}
+	
+	/**
+	 * Gets the cached value, and update its recently used order
+	 *
+	 * @param  key used
+	 *
+	 * @return cached value, null if not found
+	 **/
+	public V get(K key) {
+		if (capacity <= 0) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		
+		V ret;
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			ret = segment.get(key);
+		}
+		
+		if (ret == null) {
+			missCount.incrementAndGet();
+		} else {
+			hitCount.incrementAndGet();
+		}
+		return ret;
+	}
+	
+	/**
+	 * Stores the value into the cache, evicting the least recently used entry if needed
+	 *
+	 * @param  key used
+	 * @param  value to store, null values are ignored
+	 **/
+	public void put(K key, V value) {
+		if (capacity <= 0 || value == null) {
+			return;
+		}
+		
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+	
+	/**
+	 * Gets the cached value, else compute and store it.
+	 *
+	 * Note that the computation is done outside the segment lock, as such
+	 * concurrent misses on the same key may compute the value more then once.
+	 *
+	 * @param  key used
+	 * @param  function used to compute the value when its not cached
+	 *
+	 * @return cached (or computed) value
+	 **/
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		V ret = get(key);
+		if (ret == null) {
+			ret = mappingFunction.apply(key);
+			put(key, ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Removes the cached value
+	 *
+	 * @param  key used
+	 **/
+	public void remove(K key) {
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+	
+	/**
+	 * Clear all cached values, this does not reset the counters
+	 **/
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Cache statistics
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * @return maximum number of entries the cache holds
+	 **/
+	public int capacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return current number of cached entries
+	 **/
+	public int size() {
+		int ret = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				ret += segment.size();
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * @return number of cache hits
+	 **/
+	public long hitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * @return number of cache misses
+	 **/
+	public long missCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * @return number of entries evicted, due to the capacity limit
+	 **/
+	public long evictionCount() {
+		return evictionCount.get();
+	}
+	
+	/**
+	 * Reset the hit, miss, and eviction counters
+	 **/
+	public void resetStats() {
+		hitCount.set(0);
+		missCount.set(0);
+		evictionCount.set(0);
+	}
+}
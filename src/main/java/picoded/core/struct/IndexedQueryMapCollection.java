@@ -0,0 +1,625 @@
+package picoded.core.struct;
+
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.MaterializedAggregation;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryUtils;
+import picoded.core.struct.query.index.FieldIndex;
+import picoded.core.struct.query.index.HashFieldIndex;
+import picoded.core.struct.query.index.IndexPlanner;
+import picoded.core.struct.query.index.RowIdList;
+import picoded.core.struct.query.index.SortedFieldIndex;
+import picoded.core.struct.query.metrics.QueryMetrics;
+import picoded.core.struct.query.planner.QueryPlan;
+import picoded.core.struct.query.planner.QueryPlanner;
+import picoded.core.struct.query.planner.QueryStatistics;
+
+/**
+ * In memory collection of maps, with secondary indexes on declared fields,
+ * used to avoid a full scan of the collection on query.
+ *
+ * + Hash indexes, supports Equals and NotEquals conditions
+ * + Sorted indexes, supports Equals, NotEquals, LessThan(OrEquals), and MoreThan(OrEquals) conditions
+ *
+ * ```
+ * IndexedQueryMapCollection<Map<String,Object>> collection = new IndexedQueryMapCollection<>();
+ * collection.addHashIndex("name");
+ * collection.addSortedIndex("age");
+ * collection.addAll(rows);
+ * List<Map<String,Object>> res = collection.query("name = ? AND age > ?", new Object[] { "bob", 10 }, null, -1, -1);
+ * ```
+ *
+ * Query conditions are reordered by the QueryPlanner before evaluation, using the field
+ * statistics collected by `analyze()` (or the default estimates, if it was never called).
+ *
+ * Rows are tracked by their object identity, where adding the same map instance
+ * more then once is ignored. Modifications to a row after it was added, needs to be
+ * followed up with a `reindex(row)` call for the indexes to reflect the changes.
+ *
+ * Aggregations that are polled repeatedly, can be registered with `materialize(terms, query)`.
+ * Which are then maintained incrementally on add / remove / reindex, and returned by `aggregate`
+ * without recomputing them.
+ *
+ * Note that this class is not thread safe.
+ **/
+public class IndexedQueryMapCollection<V extends Map<String, Object>> extends AbstractCollection<V>
+	implements QueryMapCollection<V> {
+	
+	//------------------------------------------------------------------------
+	//
+	//  Constructor vars
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Rows stored by their row id, removed rows are left as null till compaction
+	 **/
+	protected List<V> rows = new ArrayList<V>();
+	
+	/**
+	 * Row instance, to its row id
+	 **/
+	protected Map<V, Integer> rowIdMap = new IdentityHashMap<V, Integer>();
+	
+	/**
+	 * Field indexes, by their field name
+	 **/
+	protected Map<String, FieldIndex> indexes = new HashMap<String, FieldIndex>();
+	
+	/**
+	 * Query planner, used to reorder the query conditions
+	 **/
+	protected QueryPlanner planner = new QueryPlanner(null);
+	
+	/**
+	 * Materialized aggregations, maintained on changes to the rows
+	 **/
+	protected List<MaterializedAggregation> materialized = new ArrayList<MaterializedAggregation>();
+	
+	/**
+	 * Blank constructor
+	 **/
+	public IndexedQueryMapCollection() {
+		super();
+	}
+	
+	/**
+	 * Constructor with initial rows
+	 *
+	 * @param  rows to add
+	 **/
+	public IndexedQueryMapCollection(Collection<V> initialRows) {
+		super();
+		addAll(initialRows);
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Index declaration
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Adds a hash index on the field, for Equals / NotEquals conditions
+	 *
+	 * @param  field name to index
+	 **/
+	public void addHashIndex(String fieldName) {
+		addIndex(new HashFieldIndex(fieldName));
+	}
+	
+	/**
+	 * Adds a sorted index on the field, for Equals / NotEquals / LessThan / MoreThan conditions
+	 *
+	 * @param  field name to index
+	 **/
+	public void addSortedIndex(String fieldName) {
+		addIndex(new SortedFieldIndex(fieldName));
+	}
+	
+	/**
+	 * Adds the field index (replacing any existing index on the same field),
+	 * and index all existing rows
+	 *
+	 * @param  field index to add
+	 **/
+	public void addIndex(FieldIndex index) {
+		int len = rows.size();
+		for (int i = 0; i < len; ++i) {
+			V row = rows.get(i);
+			if (row != null) {
+				index.add(i, index.fieldValue(row));
+			}
+		}
+		indexes.put(index.fieldName(), index);
+	}
+	
+	/**
+	 * Removes the field index
+	 *
+	 * @param  field name to remove the index of
+	 **/
+	public void removeIndex(String fieldName) {
+		indexes.remove(fieldName);
+	}
+	
+	/**
+	 * @return  the field indexes, by their field name
+	 **/
+	public Map<String, FieldIndex> indexes() {
+		return indexes;
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Collection implementation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * @return number of rows
+	 **/
+	@Override
+	public int size() {
+		return rowIdMap.size();
+	}
+	
+	/**
+	 * Adds the row, and index it
+	 *
+	 * @param  row to add
+	 *
+	 * @return  false, if the row instance was already added
+	 **/
+	@Override
+	public boolean add(V row) {
+		if (row == null) {
+			throw new IllegalArgumentException("Null rows are not supported");
+		}
+		if (rowIdMap.containsKey(row)) {
+			return false;
+		}
+		
+		int rowId = rows.size();
+		rows.add(row);
+		rowIdMap.put(row, rowId);
+		for (FieldIndex index : indexes.values()) {
+			index.add(rowId, index.fieldValue(row));
+		}
+		for (MaterializedAggregation agg : materialized) {
+			agg.add(row);
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes the row, by its instance (or the first equal row)
+	 *
+	 * @param  row to remove
+	 *
+	 * @return  true, if a row was removed
+	 **/
+	@Override
+	public boolean remove(Object row) {
+		Integer rowId = rowIdMap.get(row);
+		
+		// Fallback to equality, as per the collection interface
+		if (rowId == null) {
+			int len = rows.size();
+			for (int i = 0; i < len; ++i) {
+				V existing = rows.get(i);
+				if (existing != null && existing.equals(row)) {
+					rowId = i;
+					break;
+				}
+			}
+		}
+		
+		if (rowId == null) {
+			return false;
+		}
+		removeRowId(rowId);
+		return true;
+	}
+	
+	/**
+	 * Removes the row, by its row id
+	 *
+	 * @param  row id to remove
+	 **/
+	protected void removeRowId(int rowId) {
+		V row = rows.get(rowId);
+		rows.set(rowId, null);
+		rowIdMap.remove(row);
+		for (FieldIndex index : indexes.values()) {
+			index.remove(rowId);
+		}
+		for (MaterializedAggregation agg : materialized) {
+			agg.remove(row);
+		}
+		
+		// Compact the rows, if more then half of it are removed rows
+		if (rows.size() > 64 && rowIdMap.size() < rows.size() / 2) {
+			compact();
+		}
+	}
+	
+	/**
+	 * @return  true, if the row instance (or an equal row) is in the collection
+	 **/
+	@Override
+	public boolean contains(Object row) {
+		return rowIdMap.containsKey(row) || super.contains(row);
+	}
+	
+	/**
+	 * Removes all rows
+	 **/
+	@Override
+	public void clear() {
+		rows.clear();
+		rowIdMap.clear();
+		for (FieldIndex index : indexes.values()) {
+			index.clear();
+		}
+		for (MaterializedAggregation agg : materialized) {
+			agg.clear();
+		}
+	}
+	
+	/**
+	 * @return  iterator of all rows, in insertion order
+	 **/
+	@Override
+	public Iterator<V> iterator() {
+		return new Iterator<V>() {
+			// Next, and last returned row id
+			int next = -1;
+			int last = -1;
+			
+			{
+				next = seek(0);
+			}
+			
+			int seek(int from) {
+				while (from < rows.size() && rows.get(from) == null) {
+					++from;
+				}
+				return from;
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return next < rows.size();
+			}
+			
+			@Override
+			public V next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = seek(next + 1);
+				return rows.get(last);
+			}
+			
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				// Removal without compaction, to keep the row id's stable while iterating
+				V row = rows.get(last);
+				rows.set(last, null);
+				rowIdMap.remove(row);
+				for (FieldIndex index : indexes.values()) {
+					index.remove(last);
+				}
+				for (MaterializedAggregation agg : materialized) {
+					agg.remove(row);
+				}
+				last = -1;
+			}
+		};
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Index maintenance
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Update the indexes (and materialized aggregations) of the row, after it was modified
+	 *
+	 * @param  row to reindex
+	 *
+	 * @return  false, if the row is not in the collection
+	 **/
+	public boolean reindex(V row) {
+		Integer rowId = rowIdMap.get(row);
+		if (rowId == null) {
+			return false;
+		}
+		for (FieldIndex index : indexes.values()) {
+			index.add(rowId, index.fieldValue(row));
+		}
+		for (MaterializedAggregation agg : materialized) {
+			agg.update(row);
+		}
+		return true;
+	}
+	
+	/**
+	 * Removes the gaps left by removed rows, and rebuild all the indexes
+	 **/
+	public void compact() {
+		List<V> oldRows = rows;
+		rows = new ArrayList<V>(rowIdMap.size());
+		rowIdMap.clear();
+		for (FieldIndex index : indexes.values()) {
+			index.clear();
+		}
+		for (V row : oldRows) {
+			if (row != null) {
+				add(row);
+			}
+		}
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Query planning
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Collect the field statistics of the current rows, for the query planner to use.
+	 *
+	 * The statistics are not updated on changes to the collection,
+	 * and should be collected again after large changes.
+	 *
+	 * @return  collected statistics of all fields
+	 **/
+	public QueryStatistics analyze() {
+		QueryStatistics stats = queryStatistics();
+		planner = new QueryPlanner(stats);
+		return stats;
+	}
+	
+	/**
+	 * Plans the query, with the collected statistics
+	 *
+	 * @param   queryClause to plan
+	 *
+	 * @return  query plan
+	 **/
+	public QueryPlan queryPlan(Query queryClause) {
+		return planner.plan(queryClause);
+	}
+	
+	/**
+	 * Explains how the query would be performed, the index scan (or full scan) used to get
+	 * the candidate rows, followed by the query plan in its evaluation order.
+	 *
+	 * ```
+	 * INDEX SCAN  (candidates=143, rows=1000)
+	 * AND  (selectivity=0.0143, cost=1.14, rows=14)
+	 *   "name" = :0  (selectivity=0.1429, cost=1.00, rows=143)
+	 *   "desc" LIKE :1  (selectivity=0.1000, cost=10.00, rows=100)
+	 * ```
+	 *
+	 * @param   queryClause to explain
+	 *
+	 * @return  explain string
+	 **/
+	public String explain(Query queryClause) {
+		StringBuilder ret = new StringBuilder();
+		List<RowIdList> candidates = IndexPlanner.candidates(queryClause, indexes);
+		if (candidates == null) {
+			ret.append("FULL SCAN  (rows=").append(size()).append(")\n");
+		} else {
+			ret.append("INDEX SCAN  (candidates=").append(FieldIndex.candidateCount(candidates))
+				.append(", rows=").append(size()).append(")\n");
+		}
+		ret.append(queryPlan(queryClause).explain());
+		return ret.toString();
+	}
+	
+	/**
+	 * @param   queryClause to plan, can be null
+	 *
+	 * @return  the planned query, with its conditions reordered
+	 **/
+	protected Query plannedQuery(Query queryClause) {
+		return (queryClause == null) ? null : planner.plan(queryClause).query();
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Query implementation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Performs a search query, using the most selective index where possible,
+	 * and returns the respective value list.
+	 *
+	 * @param   queryClause, of where query statement and value
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value list
+	 **/
+	@Override
+	public List<V> query(Query queryClause, String orderByStr, int offset, int limit) {
+		// Get the index candidates, falls back to the full scan
+		List<RowIdList> candidates = IndexPlanner.candidates(queryClause, indexes);
+		if (candidates == null) {
+			return QueryMapCollection.super.query(plannedQuery(queryClause), orderByStr, offset,
+				limit);
+		}
+		
+		// Test each candidate row
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = plannedQuery(queryClause).compile();
+		List<V> queryList = new ArrayList<V>();
+		long scanned = 0;
+		for (int rowId : IndexPlanner.mergeCandidates(candidates)) {
+			V row = rows.get(rowId);
+			++scanned;
+			if (row != null && compiled.test(row)) {
+				queryList.add(row);
+			}
+		}
+		QueryMetrics.record("query", queryClause, start, scanned, queryList.size());
+		
+		// Sort, and offset list, after the query
+		return QueryUtils.sortAndOffsetList(queryList, orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, and returns the respective values as a lazy stream.
+	 * 
+	 * Without orderBy, and without usable index, the values are filtered, offset and limited
+	 * lazily, without building the filtered list. Else the query result list is streamed.
+	 *
+	 * @param   queryClause, of where query statement and value, can be null
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	@Override
+	public Stream<V> queryStream(Query queryClause, String orderByStr, int offset, int limit) {
+		// Sorting requires all the results, while index candidates are already limited
+		if ((orderByStr != null && orderByStr.trim().length() > 0)
+			|| IndexPlanner.candidates(queryClause, indexes) != null) {
+			return query(queryClause, orderByStr, offset, limit).stream();
+		}
+		
+		// Lazily filter, and offset the stream
+		Stream<V> ret = (queryClause == null) ? stream() : plannedQuery(queryClause).stream(this);
+		return QueryUtils.offsetStream(ret, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, and count the number of results,
+	 * using the most selective index where possible.
+	 *
+	 * @param   queryClause, of where query statement and value, can be null
+	 *
+	 * @return  number of matching values
+	 **/
+	@Override
+	public long queryCount(Query queryClause) {
+		// Get the index candidates, falls back to the full scan
+		List<RowIdList> candidates = (queryClause == null) ? null : IndexPlanner.candidates(
+			queryClause, indexes);
+		if (candidates == null) {
+			return (queryClause == null) ? size() : plannedQuery(queryClause).count(this);
+		}
+		
+		// Test each candidate row
+		Predicate<Object> compiled = plannedQuery(queryClause).compile();
+		long ret = 0;
+		for (int rowId : IndexPlanner.mergeCandidates(candidates)) {
+			V row = rows.get(rowId);
+			if (row != null && compiled.test(row)) {
+				++ret;
+			}
+		}
+		return ret;
+	}
+	
+	//------------------------------------------------------------------------
+	//
+	//  Materialized aggregation
+	//
+	//------------------------------------------------------------------------
+	
+	/**
+	 * Registers the aggregation terms and query, to be maintained incrementally
+	 * as rows are added, removed, or reindexed. Where `aggregate` of the same terms and query,
+	 * returns the maintained result without recomputing it.
+	 *
+	 * Returns the existing materialized aggregation, if the same terms and query was registered.
+	 *
+	 * @param   aggregationTerms to aggregate data with
+	 * @param   queryClause to filter the collection with, can be null
+	 *
+	 * @return  the materialized aggregation, of the current rows
+	 **/
+	public MaterializedAggregation materialize(String[] aggregationTerms, Query queryClause) {
+		MaterializedAggregation ret = materialized(aggregationTerms, queryClause);
+		if (ret == null) {
+			ret = Aggregation.build(aggregationTerms).materialize(queryClause);
+			ret.addAll(this);
+			materialized.add(ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Unregister the materialized aggregation, of the given terms and query
+	 *
+	 * @param   aggregationTerms of the materialized aggregation
+	 * @param   queryClause of the materialized aggregation, can be null
+	 *
+	 * @return  false, if no such aggregation was registered
+	 **/
+	public boolean dematerialize(String[] aggregationTerms, Query queryClause) {
+		return materialized.remove(materialized(aggregationTerms, queryClause));
+	}
+	
+	/**
+	 * Get the registered materialized aggregation, of the given terms and query
+	 *
+	 * @param   aggregationTerms of the materialized aggregation
+	 * @param   queryClause of the materialized aggregation, can be null
+	 *
+	 * @return  the materialized aggregation, null if it was not registered
+	 **/
+	public MaterializedAggregation materialized(String[] aggregationTerms, Query queryClause) {
+		for (MaterializedAggregation agg : materialized) {
+			if (agg.matches(aggregationTerms, queryClause)) {
+				return agg;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Performs a query, and aggregate the result accordingly.
+	 * Using the maintained result, if the terms and query was materialized.
+	 *
+	 * @param aggregationTerms to aggregate data with
+	 * @param queryClause to filter the collection with, can be null
+	 *
+	 * @return Aggregation result to the corresponding terms
+	 */
+	@Override
+	public BigDecimal[] aggregate(String[] aggregationTerms, Query queryClause) {
+		MaterializedAggregation agg = materialized(aggregationTerms, queryClause);
+		if (agg != null) {
+			return agg.result();
+		}
+		return QueryMapCollection.super.aggregate(aggregationTerms, queryClause);
+	}
+	
+}
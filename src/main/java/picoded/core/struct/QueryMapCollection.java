@@ -5,9 +5,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import picoded.core.struct.query.PreparedQuery;
 import picoded.core.struct.query.Query;
 import picoded.core.struct.query.QueryUtils;
+import picoded.core.struct.query.metrics.QueryMetrics;
+import picoded.core.struct.query.planner.QueryStatistics;
 
 /**
  * Query and aggregation interface for a collection of maps
@@ -32,23 +36,29 @@ public interface QueryMapCollection<V extends Map> extends Collection<V> {
 	 **/
 	@SuppressWarnings("unchecked")
 	default List<V> query(Query queryClause, String orderByStr, int offset, int limit) {
-		// Get the collection as a filteredlist
-		List<V> queryList = null;
-		
 		// If query object is null, just convert it
 		if (queryClause == null) {
+			List<V> queryList = null;
 			if (this instanceof List) {
 				queryList = (List<V>) (this);
 			} else {
 				queryList = new ArrayList<V>(this);
 			}
-		} else {
-			// Else : Lets query it
-			queryList = queryClause.search(this);
+			
+			// Sort, and offset list
+			return QueryUtils.sortAndOffsetList(queryList, orderByStr, offset, limit);
 		}
 		
-		// Sort, and offset list, after the query
-		return QueryUtils.sortAndOffsetList(queryList, orderByStr, offset, limit);
+		// Else : Lets query it, sort, and offset the list.
+		// Without building the full filtered list, when only the first few results are needed
+		long start = QueryMetrics.start();
+		List<V> ret = QueryUtils.filterSortAndOffset(this, queryClause.compile(), orderByStr,
+			offset, limit);
+		// size() is only called when the metrics are enabled, as it may be costly
+		if (start != QueryMetrics.DISABLED) {
+			QueryMetrics.record("query", queryClause, start, size(), ret.size());
+		}
+		return ret;
 	}
 	
 	/**
@@ -76,6 +86,152 @@ public interface QueryMapCollection<V extends Map> extends Collection<V> {
 		return query(queryObj, orderByStr, offset, limit);
 	}
 	
+	/**
+	 * Performs a search query, with the prepared query and its arguments,
+	 * without parsing the query string again.
+	 *
+	 * The prepared query is bound into a Query copy, and passed to the Query overload,
+	 * so that any index / backend specific query handling applies. Collections which
+	 * can evaluate the compiled predicate directly, should override this instead.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 * @param   query string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value list
+	 **/
+	default List<V> query(PreparedQuery preparedClause, Object[] whereValues, String orderByStr,
+		int offset, int limit) {
+		return query((preparedClause == null) ? null : preparedClause.bind(whereValues),
+			orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, and returns the respective values as a stream.
+	 * 
+	 * By default this streams the result of query(Query, ...), so that any overridden
+	 * query handling applies. As such the full result list is built first, and the stream
+	 * is only lazy for implementations which override this (such as IndexedQueryMapCollection,
+	 * and ColumnarQueryMapCollection), to filter, offset and limit the values lazily.
+	 *
+	 * @param   queryClause, of where query statement and value
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	default Stream<V> queryStream(Query queryClause, String orderByStr, int offset, int limit) {
+		return query(queryClause, orderByStr, offset, limit).stream();
+	}
+	
+	/**
+	 * Performs a search query, and returns the respective values as a lazy stream.
+	 *
+	 * @param   where query statement
+	 * @param   where clause values array
+	 * @param   query string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	default Stream<V> queryStream(String whereClause, Object[] whereValues, String orderByStr,
+		int offset, int limit) {
+		// Query object to use
+		Query queryObj = null;
+		
+		// Where clause to convert to query object
+		if (whereClause != null) {
+			queryObj = Query.build(whereClause, whereValues);
+		}
+		
+		// Query function to call, and return
+		return queryStream(queryObj, orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, with the prepared query and its arguments,
+	 * and returns the respective values as a lazy stream.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 * @param   query string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted Value stream
+	 **/
+	default Stream<V> queryStream(PreparedQuery preparedClause, Object[] whereValues,
+		String orderByStr, int offset, int limit) {
+		return queryStream((preparedClause == null) ? null : preparedClause.bind(whereValues),
+			orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, and count the number of results.
+	 * 
+	 * By default this is the size of the query(Query, ...) result, so that any overridden
+	 * query handling applies. As such the full result list is built first, only implementations
+	 * which override this (such as IndexedQueryMapCollection, and ColumnarQueryMapCollection)
+	 * count the matching values without building the result list.
+	 *
+	 * @param   queryClause, of where query statement and value, can be null
+	 *
+	 * @return  number of matching values
+	 **/
+	default long queryCount(Query queryClause) {
+		if (queryClause == null) {
+			return size();
+		}
+		return query(queryClause, null, -1, -1).size();
+	}
+	
+	/**
+	 * Performs a search query, and count the number of results.
+	 *
+	 * @param   where query statement
+	 * @param   where clause values array
+	 *
+	 * @return  number of matching values
+	 **/
+	default long queryCount(String whereClause, Object[] whereValues) {
+		// Query object to use
+		Query queryObj = null;
+		
+		// Where clause to convert to query object
+		if (whereClause != null) {
+			queryObj = Query.build(whereClause, whereValues);
+		}
+		
+		return queryCount(queryObj);
+	}
+	
+	/**
+	 * Performs a search query, with the prepared query and its arguments,
+	 * and count the number of results.
+	 *
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 *
+	 * @return  number of matching values
+	 **/
+	default long queryCount(PreparedQuery preparedClause, Object[] whereValues) {
+		return queryCount((preparedClause == null) ? null : preparedClause.bind(whereValues));
+	}
+	
+	/**
+	 * Collect the per field value statistics of the collection,
+	 * used by the QueryPlanner to estimate the query selectivity and cost.
+	 *
+	 * @return  collected statistics of all fields
+	 **/
+	default QueryStatistics queryStatistics() {
+		return QueryStatistics.collect(this);
+	}
+	
 	//
 	// Aggregation command support
 	//
@@ -125,6 +281,22 @@ public interface QueryMapCollection<V extends Map> extends Collection<V> {
 		return aggregate(aggregationTerms, queryObj);
 	}
 	
+	/**
+	 * Performs a query, with the prepared query and its arguments,
+	 * and aggregate the result accordingly
+	 * 
+	 * @param   aggregationTerms to aggregate data with
+	 * @param   preparedClause, of where query statement, can be null
+	 * @param   where clause values array
+	 * 
+	 * @return Aggregation result to the corresponding terms
+	 */
+	default BigDecimal[] aggregate(String[] aggregationTerms, PreparedQuery preparedClause,
+		Object[] whereValues) {
+		return aggregate(aggregationTerms, (preparedClause == null) ? null : preparedClause
+			.bind(whereValues));
+	}
+	
 	/**
 	 * Performs a query, and aggregate the result accordingly
 	 * 
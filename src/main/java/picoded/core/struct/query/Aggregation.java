@@ -1,13 +1,22 @@
 package picoded.core.struct.query;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 import picoded.core.struct.MutablePair;
+import picoded.core.struct.query.column.Column;
+import picoded.core.struct.query.column.ColumnTable;
 import picoded.core.struct.query.mapreduce.*;
 import picoded.core.struct.query.internal.AggregationUtils;
+import picoded.core.struct.query.internal.ParallelUtils;
+import picoded.core.struct.query.metrics.QueryMetrics;
 
 /**
  * Aggregation library to be used with the query library.
@@ -22,6 +31,13 @@ import picoded.core.struct.query.internal.AggregationUtils;
  * + min(fieldname)
  * + avg(fieldname)
  * + sum(fieldname)
+ * + countDistinct(fieldname), approximate using HyperLogLog
+ * + percentile(fieldname, percent) / median(fieldname), approximate using t-digest
+ * + variance(fieldname) / stddev(fieldname), of the sample (or `population` as the parameter)
+ *
+ * Results can also be grouped by field values, using `groupBy`
+ * (see GroupedAggregation), or maintained incrementally using `materialize`
+ * (see MaterializedAggregation)
  *
  **/
 public class Aggregation {
@@ -39,9 +55,15 @@ public class Aggregation {
 	// Field names to extract values and compute aggregation on
 	protected String[] fieldNames = null;
 	
+	// Optional parameter of each aggregation term, such as `percentile(field, 0.9)`
+	protected String[] parameters = null;
+	
 	// Aggregation fuction mapping
 	protected Map<String, MapReduceBase> mapReduceBaseImplementation = null;
 	
+	// Fast mode, where primitive number values are accumulated as long / double
+	protected boolean fastMode = false;
+	
 	/**
 	 * Protected internal constructor
 	 * 
@@ -60,10 +82,12 @@ public class Aggregation {
 		MutablePair<String[], String[]> info = AggregationUtils
 			.extractAggregrationInfo(aggregationTerms);
 		
-		// 4. Save the terms, funcnames, and fields
+		// 4. Save the terms, funcnames, fields and parameters
 		termsArray = aggregationTerms.clone();
 		funcNames = info.getLeft();
 		fieldNames = info.getRight();
+		parameters = AggregationUtils.extractAggregationParameters(mapReduceBaseImplementation,
+			funcNames, fieldNames);
 	}
 	
 	//--------------------------------------------------------------------
@@ -82,10 +106,75 @@ public class Aggregation {
 		return new Aggregation(queryString);
 	}
 	
+	/**
+	 * Build the aggregator, with the fast mode option.
+	 * 
+	 * In fast mode, Long / Integer / Short / Byte / Double values are accumulated
+	 * as primitive long / double, instead of BigDecimal for every value.
+	 * Where long sums are exact (with BigDecimal on overflow), and double sums
+	 * use compensated summation (and may differ slightly from the BigDecimal result).
+	 * Other values (like numeric strings) are still converted to BigDecimal.
+	 * 
+	 * @param  aggregationTerms to aggregate using
+	 * @param  fastMode to enable
+	 **/
+	public static Aggregation build(String[] queryString, boolean fastMode) {
+		Aggregation ret = new Aggregation(queryString);
+		ret.fastMode = fastMode;
+		return ret;
+	}
+	
+	/**
+	 * @return  true if fast mode is enabled
+	 **/
+	public boolean isFastMode() {
+		return fastMode;
+	}
+	
+	/**
+	 * Group the aggregation results, by the given field values
+	 * 
+	 * @param  groupFields to group by
+	 * 
+	 * @return  GroupedAggregation, to compute the result of each group
+	 **/
+	public GroupedAggregation groupBy(String... groupFields) {
+		return new GroupedAggregation(this, groupFields);
+	}
+	
+	/**
+	 * Materialize the aggregation of the values matching the query,
+	 * to be maintained incrementally as values are added and removed.
+	 * 
+	 * @param  queryClause to filter the values with, null for all values
+	 * 
+	 * @return  MaterializedAggregation, with no values added
+	 **/
+	public MaterializedAggregation materialize(Query queryClause) {
+		return new MaterializedAggregation(this, queryClause);
+	}
+	
 	//--------------------------------------------------------------------
 	// Aggregation computation
 	//--------------------------------------------------------------------
 	
+	/**
+	 * Initialize the MapReduceBase array implmentations, with the fast mode setting and parameters
+	 * 
+	 * @return  MapReduceBase[] implmentation of the function names
+	 */
+	protected MapReduceBase[] prepareMapReduceBaseArray() {
+		MapReduceBase[] ret = AggregationUtils.prepareMapReduceBaseArray(
+			mapReduceBaseImplementation, funcNames);
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i].setFastMode(fastMode);
+			if (parameters[i] != null) {
+				ret[i].setParameter(parameters[i]);
+			}
+		}
+		return ret;
+	}
+	
 	/**
 	 * Compute and get the aggregation result from the collection
 	 * 
@@ -100,11 +189,120 @@ public class Aggregation {
 		}
 		
 		// 2. Initialize MapReduceBase array implmentations
-		MapReduceBase[] mapreduceArray = AggregationUtils.prepareMapReduceBaseArray(
-			mapReduceBaseImplementation, funcNames);
+		long start = QueryMetrics.start();
+		MapReduceBase[] mapreduceArray = prepareMapReduceBaseArray();
 		
 		// 3. Compute the mapreduceArray and return the result
-		return AggregationUtils.computeMapReduceBase(mapreduceArray, fieldNames, dataSet);
+		BigDecimal[] ret = AggregationUtils.computeMapReduceBase(mapreduceArray, fieldNames,
+			dataSet);
+		if (start != QueryMetrics.DISABLED) {
+			QueryMetrics.record("aggregate", String.join(", ", termsArray), null, start, dataSet
+				.size(), dataSet.size());
+		}
+		return ret;
+	}
+	
+	/**
+	 * Compute and get the aggregation result from the selected rows of a columnar table,
+	 * column at a time (without the row maps) for plain field names.
+	 * Other terms (such as count(*), or nested field paths) are computed on the row views.
+	 * 
+	 * @param  table     to compute on
+	 * @param  selection row id's to compute on, null for all rows
+	 * 
+	 * @return  BigDecimal array of the corresponding aggregation result
+	 */
+	public BigDecimal[] compute(ColumnTable table, BitSet selection) {
+		// 1. Ensure input safety
+		if (table == null) {
+			throw new RuntimeException("No table given.");
+		}
+		BitSet rows = (selection != null) ? selection : table.liveRows();
+		
+		// 2. Initialize MapReduceBase array implmentations
+		MapReduceBase[] mapreduceArray = prepareMapReduceBaseArray();
+		
+		// 3. Compute each term, column at a time where possible
+		BigDecimal[] ret = new BigDecimal[mapreduceArray.length];
+		for (int i = 0; i < mapreduceArray.length; ++i) {
+			MapReduceBase base = mapreduceArray[i];
+			Column column = table.isColumnField(fieldNames[i]) ? table.column(fieldNames[i]) : null;
+			if (column != null) {
+				column.aggregate(base, rows);
+			} else {
+				for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r + 1)) {
+					base.map(table.row(r), fieldNames[i]);
+				}
+			}
+			ret[i] = base.reduce();
+		}
+		return ret;
+	}
+	
+	/**
+	 * Compute and get the aggregation result from the collection,
+	 * in parallel using the common ForkJoinPool
+	 * 
+	 * @param  dataSet to compute on
+	 * 
+	 * @return  BigDecimal array of the corresponding aggregation result
+	 */
+	public BigDecimal[] computeParallel(Collection<Object> dataSet) {
+		return computeParallel(dataSet, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Compute and get the aggregation result from the collection,
+	 * in parallel using the given ForkJoinPool
+	 * 
+	 * @param  dataSet to compute on
+	 * @param  pool    to compute with
+	 * 
+	 * @return  BigDecimal array of the corresponding aggregation result
+	 */
+	public BigDecimal[] computeParallel(Collection<Object> dataSet, ForkJoinPool pool) {
+		return computeParallel(dataSet, null, pool);
+	}
+	
+	/**
+	 * Filter the collection, and compute the aggregation result of the matching values,
+	 * in parallel using the given ForkJoinPool. Without building the intermediate filtered list.
+	 * 
+	 * Falls back to the single threaded compute, if any aggregation function
+	 * does not support merging of partial results.
+	 * 
+	 * @param  dataSet to compute on
+	 * @param  filter  to test each value with, null to compute on all values
+	 * @param  pool    to compute with
+	 * 
+	 * @return  BigDecimal array of the corresponding aggregation result
+	 */
+	public BigDecimal[] computeParallel(Collection<?> dataSet, Predicate<Object> filter,
+		ForkJoinPool pool) {
+		// 1. Ensure input safety
+		if (dataSet == null) {
+			throw new RuntimeException("No dataSet given.");
+		}
+		
+		// 2. Initialize MapReduceBase array implmentations
+		MapReduceBase[] mapreduceArray = prepareMapReduceBaseArray();
+		
+		// 3. Fallback to single threaded compute, if merging is not supported
+		for (MapReduceBase base : mapreduceArray) {
+			if (!base.isMergeable()) {
+				List<Object> data = new ArrayList<Object>();
+				for (Object val : dataSet) {
+					if (filter == null || filter.test(val)) {
+						data.add(val);
+					}
+				}
+				return AggregationUtils.computeMapReduceBase(mapreduceArray, fieldNames, data);
+			}
+		}
+		
+		// 4. Compute the mapreduceArray in parallel, and return the result
+		return ParallelUtils.aggregate(pool, ParallelUtils.randomAccessList(dataSet), filter,
+			mapreduceArray, fieldNames);
 	}
 	
 }
\ No newline at end of file
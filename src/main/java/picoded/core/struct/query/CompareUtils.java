@@ -1,17 +1,23 @@
 package picoded.core.struct.query;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.CollationKey;
 import java.text.Collator;
 import java.text.NumberFormat;
-import java.text.ParseException;
-import java.text.RuleBasedCollator;
+import java.text.ParsePosition;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.ToIntFunction;
+
+import picoded.core.struct.query.internal.LikePattern;
 
 /**
  * Comparision utility functions
  *
  * Which can be used to create more complex Comperator, or used on its own
+ *
+ * All functions are thread safe, and lock free. Where the Collator / NumberFormat
+ * used internally are per thread, and only used when the ASCII fast paths do not apply.
  **/
 public class CompareUtils {
 	
@@ -46,7 +52,7 @@ public class CompareUtils {
 			return 1;
 		}
 		
-		return stringCompareCollator.compare(o1, o2);
+		return collatorCompare(o1, o2);
 	}
 	
 	/**
@@ -72,7 +78,7 @@ public class CompareUtils {
 			return 1;
 		}
 		
-		return stringCompareCollator.compare(o1, o2);
+		return collatorCompare(o1, o2);
 	}
 	
 	/**
@@ -115,6 +121,11 @@ public class CompareUtils {
 	 **/
 	public static int dynamicCompare(Object o1, Object o2) {
 		
+		// Number type comparision, without any string conversion
+		if (o1 instanceof Number && o2 instanceof Number) {
+			return numericCompare((Number) o1, (Number) o2);
+		}
+		
 		// String type comparision
 		if ( //
 		(o1 instanceof String && o2 instanceof String) || //
@@ -143,30 +154,76 @@ public class CompareUtils {
 		);
 	}
 	
+	/**
+	 *
+	 * Prepares a dynamicCompare against a fixed second object, where its numeric
+	 * and string representation is resolved once, instead of once per comparision.
+	 *
+	 * The returned function gives the same result as `dynamicCompare(o1, o2)`
+	 *
+	 * @param o2 - the second object to be compared, that is fixed.
+	 *
+	 * @return function taking in the first object, returning -1, 0, or 1 as per dynamicCompare
+	 **/
+	public static ToIntFunction<Object> compileDynamicCompare(Object o2) {
+		
+		// Null handling, nothing to precompute
+		if (o2 == null) {
+			return (o1) -> dynamicCompare(o1, null);
+		}
+		
+		// Precomputed values of o2
+		final boolean o2IsString = (o2 instanceof String);
+		final Number n2 = objectToNumberIfPossible(o2);
+		final String s2 = o2.toString();
+		
+		return (o1) -> {
+			// String type comparision
+			if (o2IsString && (o1 == null || o1 instanceof String)) {
+				return stringCompare((String) o1, s2);
+			}
+			
+			// Numeric comparision
+			Number n1 = objectToNumberIfPossible(o1);
+			if (n1 != null || n2 != null) {
+				return numericCompare(n1, n2);
+			}
+			
+			// fallsback to string
+			return stringCompare((o1 != null) ? o1.toString() : null, s2);
+		};
+	}
+	
 	//--------------------------------------------------------------------
 	// Utility functions / objects
 	//-----------------------------------------------------------------
 	
 	/**
-	 * Shared Collator for string compare
+	 * Collator for string compare, per thread as Collator.compare is synchronized
 	 **/
-	protected static Collator stringCompareCollator = RuleBasedCollator.getInstance(Locale.ENGLISH);
+	protected static final ThreadLocal<Collator> stringCompareCollator = ThreadLocal
+		.withInitial(() -> Collator.getInstance(Locale.ENGLISH));
 	
 	/**
-	 * Number instance for string to numeric
+	 * NumberFormat for string to numeric, per thread as NumberFormat is not thread safe.
+	 * Only used for non ASCII numeric strings, see objectToNumberIfPossible
 	 **/
-	protected static NumberFormat stringToNumberParser = NumberFormat
-		.getNumberInstance(Locale.ENGLISH);
+	protected static final ThreadLocal<NumberFormat> stringToNumberParser = ThreadLocal
+		.withInitial(() -> NumberFormat.getNumberInstance(Locale.ENGLISH));
 	
 	/**
 	 *
 	 * Conversion to numeric format, if possible. Else its null
 	 *
+	 * String values are parsed in the same way as an english NumberFormat.parse,
+	 * where the longest numeric prefix of the string is used (`12abc` is 12).
+	 * Without using exceptions, for the (more common) non numeric strings.
+	 *
 	 * @param  object to convert
 	 *
 	 * @return Number object. Else its null
 	 **/
-	protected static Number objectToNumberIfPossible(Object o) {
+	public static Number objectToNumberIfPossible(Object o) {
 		if (o == null) {
 			return null;
 		}
@@ -175,13 +232,251 @@ public class CompareUtils {
 			return (Number) o;
 		}
 		
-		try {
-			return stringToNumberParser.parse(o.toString());
-		} catch (ParseException e) {
-			return null; //silence ParseException
+		return stringToNumberIfPossible(o.toString());
+	}
+	
+	/**
+	 * Number parsing of a string, see objectToNumberIfPossible
+	 *
+	 * @param  string to parse
+	 *
+	 * @return Long if its a whole number within range, Double if its not. Else its null
+	 **/
+	protected static Number stringToNumberIfPossible(String s) {
+		int len = s.length();
+		if (len == 0) {
+			return null;
+		}
+		
+		// Quick rejection of non numeric strings, by the first character
+		char first = s.charAt(0);
+		if (first >= 0x80 || first == 'N') {
+			// Non ASCII digits, infinity or NaN
+			return parseWithNumberFormat(s);
+		}
+		if (!(isAsciiDigit(first) || first == '-' || first == '.' || first == ',')) {
+			return null;
+		}
+		
+		// Scan the numeric prefix, into its digits, decimal point and exponent
+		StringBuilder num = null;
+		boolean negative = (first == '-');
+		int i = negative ? 1 : 0;
+		int digits = 0;
+		long wholeValue = 0;
+		boolean decimal = false;
+		
+		for (; i < len; ++i) {
+			char c = s.charAt(i);
+			if (isAsciiDigit(c)) {
+				++digits;
+				if (num != null) {
+					num.append(c);
+				} else if (digits <= 18) {
+					wholeValue = wholeValue * 10 + (c - '0');
+				} else {
+					num = new StringBuilder(len).append(wholeValue).append(c);
+				}
+			} else if (c == ',' && !decimal) {
+				// Grouping separator, is ignored
+			} else if (c == '.' && !decimal) {
+				decimal = true;
+				if (num == null) {
+					num = new StringBuilder(len).append(wholeValue);
+				}
+				num.append(c);
+			} else {
+				break;
+			}
+		}
+		
+		// Exponent, is only used if followed by digits
+		if (digits > 0 && i + 1 < len && s.charAt(i) == 'E') {
+			int e = i + 1;
+			if (s.charAt(e) == '-') {
+				++e;
+			}
+			int expStart = e;
+			while (e < len && isAsciiDigit(s.charAt(e))) {
+				++e;
+			}
+			if (e > expStart) {
+				if (e - expStart > 9) {
+					return parseWithNumberFormat(s);
+				}
+				if (num == null) {
+					num = new StringBuilder(len).append(wholeValue);
+				}
+				num.append(s, i, e);
+				i = e;
+			}
+		}
+		
+		// Non ASCII digits after the prefix, leave it to NumberFormat
+		if (i < len && s.charAt(i) >= 0x80) {
+			return parseWithNumberFormat(s);
+		}
+		if (digits == 0) {
+			return null;
+		}
+		
+		// Whole number, within long range
+		if (num == null) {
+			if (negative && wholeValue == 0) {
+				return -0.0d;
+			}
+			return Long.valueOf(negative ? -wholeValue : wholeValue);
+		}
+		
+		// Decimal, exponent, or large numbers
+		BigDecimal value = new BigDecimal(num.toString());
+		if (value.signum() == 0) {
+			if (negative) {
+				return -0.0d;
+			}
+			return 0L;
+		}
+		if (negative) {
+			value = value.negate();
+		}
+		BigDecimal stripped = value.stripTrailingZeros();
+		if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= 19) {
+			BigInteger whole = stripped.toBigInteger();
+			if (whole.bitLength() < 64) {
+				return whole.longValue();
+			}
+		}
+		return value.doubleValue();
+	}
+	
+	/**
+	 * Number parsing, using the thread's NumberFormat (without ParseException)
+	 *
+	 * @param  string to parse
+	 *
+	 * @return Number object. Else its null
+	 **/
+	protected static Number parseWithNumberFormat(String s) {
+		ParsePosition pos = new ParsePosition(0);
+		Number ret = stringToNumberParser.get().parse(s, pos);
+		return (pos.getIndex() == 0) ? null : ret;
+	}
+	
+	/**
+	 * @param  character to check
+	 *
+	 * @return true if its an ASCII 0-9 digit
+	 **/
+	protected static boolean isAsciiDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+	
+	/**
+	 *
+	 * Gets the collation key of the string, used by stringCompare.
+	 * Where two strings are equal in stringCompare, if and only if their keys are equal.
+	 *
+	 * @param  string to get the key of
+	 *
+	 * @return CollationKey of the string
+	 **/
+	public static CollationKey stringCollationKey(String o) {
+		return stringCompareCollator.get().getCollationKey(o);
+	}
+	
+	/**
+	 * Collator ordering of two non null strings, used by stringCompare.
+	 *
+	 * Strings of only ASCII letters and digits are compared directly, in the same order
+	 * as the english Collator. That is case insensitively first, with digits before letters,
+	 * then shorter strings first, and finally lowercase before uppercase.
+	 *
+	 * @param o1 - the first string to be compared.
+	 * @param o2 - the second string to be compared.
+	 *
+	 * @return -1, 0, or 1 as the first argument is less than, equal to, or greater than the second
+	 **/
+	protected static int collatorCompare(String o1, String o2) {
+		if (o1.equals(o2)) {
+			return 0;
+		}
+		
+		int len1 = o1.length();
+		int len2 = o2.length();
+		int minLen = Math.min(len1, len2);
+		int caseResult = 0;
+		
+		for (int i = 0; i < minLen; ++i) {
+			char c1 = o1.charAt(i);
+			char c2 = o2.charAt(i);
+			if (!isAsciiAlphanumeric(c1) || !isAsciiAlphanumeric(c2)) {
+				return slowCollatorCompare(o1, o2);
+			}
+			if (c1 == c2) {
+				continue;
+			}
+			
+			// Case insensitive difference, decides the order
+			char l1 = (c1 <= 'Z' && c1 >= 'A') ? (char) (c1 + 32) : c1;
+			char l2 = (c2 <= 'Z' && c2 >= 'A') ? (char) (c2 + 32) : c2;
+			if (l1 != l2) {
+				return (l1 < l2) ? -1 : 1;
+			}
+			
+			// Case difference, which is only used if all else is equal
+			if (caseResult == 0) {
+				caseResult = (c1 > c2) ? -1 : 1;
+			}
+		}
+		
+		// Remaining characters, needs to be checked for the slow path
+		for (int i = minLen; i < len1; ++i) {
+			if (!isAsciiAlphanumeric(o1.charAt(i))) {
+				return slowCollatorCompare(o1, o2);
+			}
+		}
+		for (int i = minLen; i < len2; ++i) {
+			if (!isAsciiAlphanumeric(o2.charAt(i))) {
+				return slowCollatorCompare(o1, o2);
+			}
+		}
+		
+		if (len1 != len2) {
+			return (len1 < len2) ? -1 : 1;
 		}
+		return caseResult;
+	}
+	
+	/**
+	 * Collator ordering of two strings, using the thread's Collator
+	 *
+	 * @param o1 - the first string to be compared.
+	 * @param o2 - the second string to be compared.
+	 *
+	 * @return -1, 0, or 1 as the first argument is less than, equal to, or greater than the second
+	 **/
+	protected static int slowCollatorCompare(String o1, String o2) {
+		return Integer.signum(stringCompareCollator.get().compare(o1, o2));
+	}
+	
+	/**
+	 * @param  character to check
+	 *
+	 * @return true if its an ASCII letter or digit
+	 **/
+	protected static boolean isAsciiAlphanumeric(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
 	}
 	
+	/**
+	 *
+	 * SQL LIKE comparision, of the string value against the LIKE pattern (see LikePattern)
+	 *
+	 * @param o1 - the value to be compared.
+	 * @param o2 - the LIKE pattern to compare with.
+	 *
+	 * @return 0 if the value matches the pattern, -1 / 1 on null values, or 1 if it does not match
+	 **/
 	public static int stringLikeCompare(Object o1, Object o2) {
 		// Null handling
 		if (o1 == null) {
@@ -195,10 +490,7 @@ public class CompareUtils {
 			return 1;
 		}
 		
-		Pattern p = Pattern.compile(o2.toString().replaceAll("%", ".*"));
-		Matcher m = p.matcher(o1.toString());
-		
-		if (m.matches()) {
+		if (LikePattern.cached(o2.toString(), false).matches(o1.toString())) {
 			return 0;
 		}
 		
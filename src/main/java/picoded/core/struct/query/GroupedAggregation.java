@@ -0,0 +1,145 @@
+package picoded.core.struct.query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.internal.AggregationUtils;
+import picoded.core.struct.query.internal.ParallelUtils;
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Aggregation, grouped by one or more field values. Similar to SQL GROUP BY.
+ *
+ * ```
+ * Map<List<Object>, BigDecimal[]> res = Aggregation.build(new String[] { "count(*)", "sum(price)" })
+ * 	.groupBy("region", "product").compute(collection);
+ * ```
+ *
+ * Each group is keyed by the list of its group field values (in the groupBy order),
+ * where a missing field value is grouped as null, and numeric values are normalized
+ * as BigDecimal (so Integer 1, Long 1 and Double 1.0 are the same group, keyed as 1).
+ * Groups are returned in the order they were first seen in the collection.
+ **/
+public class GroupedAggregation {
+	
+	//--------------------------------------------------------------------
+	// Protected constructor
+	//--------------------------------------------------------------------
+	
+	// The aggregation to compute for each group
+	protected Aggregation aggregation = null;
+	
+	// Field names to group by
+	protected String[] groupFields = null;
+	
+	/**
+	 * Protected internal constructor, use Aggregation.groupBy instead
+	 *
+	 * @param  aggregation to compute for each group
+	 * @param  groupFields to group by
+	 */
+	protected GroupedAggregation(Aggregation aggregation, String[] groupFields) {
+		// Ensure input safety
+		if (groupFields == null || groupFields.length <= 0) {
+			throw new RuntimeException("No group by fields given.");
+		}
+		
+		this.aggregation = aggregation;
+		this.groupFields = groupFields.clone();
+	}
+	
+	/**
+	 * @return  the field names to group by
+	 */
+	public String[] groupFields() {
+		return groupFields.clone();
+	}
+	
+	//--------------------------------------------------------------------
+	// Grouped aggregation computation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compute and get the aggregation result of each group, in a single pass
+	 *
+	 * @param  dataSet to compute on
+	 *
+	 * @return  map of group key, to the BigDecimal array of the aggregation result
+	 */
+	public Map<List<Object>, BigDecimal[]> compute(Collection<?> dataSet) {
+		return compute(dataSet, null);
+	}
+	
+	/**
+	 * Filter the collection, and compute the aggregation result of each group, in a single pass
+	 *
+	 * @param  dataSet to compute on
+	 * @param  filter  to test each value with, null to compute on all values
+	 *
+	 * @return  map of group key, to the BigDecimal array of the aggregation result
+	 */
+	public Map<List<Object>, BigDecimal[]> compute(Collection<?> dataSet,
+		Predicate<Object> filter) {
+		// 1. Ensure input safety
+		if (dataSet == null) {
+			throw new RuntimeException("No dataSet given.");
+		}
+		
+		// 2. Compute the group table, and reduce it
+		MapReduceBase[] template = aggregation.prepareMapReduceBaseArray();
+		return AggregationUtils.reduceGroupedMapReduceBase(AggregationUtils
+			.computeGroupedMapReduceBase(template, aggregation.fieldNames, groupFields, dataSet,
+				filter));
+	}
+	
+	/**
+	 * Compute and get the aggregation result of each group,
+	 * in parallel using the common ForkJoinPool
+	 *
+	 * @param  dataSet to compute on
+	 *
+	 * @return  map of group key, to the BigDecimal array of the aggregation result
+	 */
+	public Map<List<Object>, BigDecimal[]> computeParallel(Collection<?> dataSet) {
+		return computeParallel(dataSet, null, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Filter the collection, and compute the aggregation result of each group,
+	 * in parallel using the given ForkJoinPool. Where each task builds its own group table,
+	 * which are then merged together.
+	 *
+	 * Falls back to the single threaded compute, if any aggregation function
+	 * does not support merging of partial results.
+	 *
+	 * @param  dataSet to compute on
+	 * @param  filter  to test each value with, null to compute on all values
+	 * @param  pool    to compute with
+	 *
+	 * @return  map of group key, to the BigDecimal array of the aggregation result
+	 */
+	public Map<List<Object>, BigDecimal[]> computeParallel(Collection<?> dataSet,
+		Predicate<Object> filter, ForkJoinPool pool) {
+		// 1. Ensure input safety
+		if (dataSet == null) {
+			throw new RuntimeException("No dataSet given.");
+		}
+		
+		// 2. Fallback to single threaded compute, if merging is not supported
+		MapReduceBase[] template = aggregation.prepareMapReduceBaseArray();
+		for (MapReduceBase base : template) {
+			if (!base.isMergeable()) {
+				return compute(dataSet, filter);
+			}
+		}
+		
+		// 3. Compute the group tables in parallel, and return the result
+		return ParallelUtils.groupedAggregate(pool, ParallelUtils.randomAccessList(dataSet), filter,
+			template, aggregation.fieldNames, groupFields);
+	}
+	
+}
@@ -0,0 +1,222 @@
+package picoded.core.struct.query;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Aggregation of the values matching a query, maintained incrementally as values are
+ * added, removed, or updated. Without recomputing the aggregation over the whole collection.
+ *
+ * ```
+ * MaterializedAggregation agg = Aggregation.build(new String[] { "count(*)", "sum(price)" })
+ * 	.materialize(Query.build("region = ?", new Object[] { "asia" }));
+ * agg.addAll(collection);
+ * agg.add(newRow);
+ * agg.remove(oldRow);
+ * BigDecimal[] res = agg.result();
+ * ```
+ *
+ * Count, sum and avg are updated by adding / subtracting the value,
+ * while min and max are kept in an ordered multiset of the values. See MapReduceBase.setInvertibleMode.
+ *
+ * Values are tracked by their object identity, along with the field values they were
+ * aggregated with. Modifications to a value after it was added, needs to be followed up
+ * with an `update(value)` call for the aggregation to reflect the changes.
+ *
+ * The result is equal in value to the Aggregation.compute result of the matching values,
+ * but may differ in its BigDecimal scale (after values are removed).
+ *
+ * Note that this class is not thread safe.
+ **/
+public class MaterializedAggregation {
+	
+	//--------------------------------------------------------------------
+	// Protected constructor
+	//--------------------------------------------------------------------
+	
+	// The aggregation to maintain
+	protected Aggregation aggregation = null;
+	
+	// The query to filter the values with, null for all values
+	protected Query query = null;
+	
+	// The compiled query filter
+	protected Predicate<Object> filter = null;
+	
+	// The invertible MapReduceBase of each aggregation term
+	protected MapReduceBase[] mapreduceArray = null;
+	
+	// The field values each matching value was aggregated with
+	protected Map<Object, Object[]> trackedValues = new IdentityHashMap<Object, Object[]>();
+	
+	// The cached result, null if it needs to be reduced again
+	protected BigDecimal[] result = null;
+	
+	/**
+	 * Protected internal constructor, use Aggregation.materialize instead
+	 *
+	 * @param  aggregation to maintain
+	 * @param  query       to filter the values with, null for all values
+	 */
+	protected MaterializedAggregation(Aggregation aggregation, Query query) {
+		this.aggregation = aggregation;
+		this.query = query;
+		this.filter = (query == null) ? null : query.compile();
+		
+		// Initialize the MapReduceBase array, in invertible mode
+		mapreduceArray = aggregation.prepareMapReduceBaseArray();
+		for (MapReduceBase base : mapreduceArray) {
+			base.setInvertibleMode(true);
+		}
+	}
+	
+	/**
+	 * @return  the aggregation terms
+	 */
+	public String[] aggregationTerms() {
+		return aggregation.termsArray.clone();
+	}
+	
+	/**
+	 * @return  the query to filter the values with, null for all values
+	 */
+	public Query query() {
+		return query;
+	}
+	
+	/**
+	 * Checks if the materialized aggregation is of the given terms and query,
+	 * where queries are compared by their query string and arguments.
+	 *
+	 * @param  aggregationTerms to compare
+	 * @param  queryClause      to compare, can be null
+	 *
+	 * @return  true if its the same aggregation terms and query
+	 */
+	public boolean matches(String[] aggregationTerms, Query queryClause) {
+		if (!Arrays.equals(aggregation.termsArray, aggregationTerms)) {
+			return false;
+		}
+		if (query == null || queryClause == null) {
+			return query == queryClause;
+		}
+		return query == queryClause
+			|| (query.toString().equals(queryClause.toString()) && query.queryArgumentsMap()
+				.equals(queryClause.queryArgumentsMap()));
+	}
+	
+	//--------------------------------------------------------------------
+	// Incremental maintenance
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Adds the value into the aggregation, if it matches the query
+	 *
+	 * @param  value to add
+	 *
+	 * @return  true if the value matched, and was added. False if it was already added.
+	 */
+	public boolean add(Object value) {
+		if (trackedValues.containsKey(value) || (filter != null && !filter.test(value))) {
+			return false;
+		}
+		
+		// Extract and map the field values, tracking them for removal
+		Object[] fieldValues = new Object[mapreduceArray.length];
+		for (int i = 0; i < mapreduceArray.length; ++i) {
+			fieldValues[i] = mapreduceArray[i].extractValue(value, aggregation.fieldNames[i]);
+			mapreduceArray[i].mapValue(fieldValues[i]);
+		}
+		trackedValues.put(value, fieldValues);
+		result = null;
+		return true;
+	}
+	
+	/**
+	 * Adds all the values into the aggregation, which matches the query
+	 *
+	 * @param  values to add
+	 */
+	public void addAll(Iterable<?> values) {
+		for (Object value : values) {
+			add(value);
+		}
+	}
+	
+	/**
+	 * Removes the value from the aggregation, using the field values it was added with
+	 *
+	 * @param  value to remove
+	 *
+	 * @return  true if the value was removed, false if it was never added
+	 */
+	public boolean remove(Object value) {
+		Object[] fieldValues = trackedValues.remove(value);
+		if (fieldValues == null) {
+			return false;
+		}
+		for (int i = 0; i < mapreduceArray.length; ++i) {
+			mapreduceArray[i].unmapValue(fieldValues[i]);
+		}
+		result = null;
+		return true;
+	}
+	
+	/**
+	 * Update the aggregation of the value, after it was modified.
+	 * Where it is added / removed if it now matches / no longer matches the query.
+	 *
+	 * @param  value to update
+	 *
+	 * @return  true if the value matches the query
+	 */
+	public boolean update(Object value) {
+		remove(value);
+		return add(value);
+	}
+	
+	/**
+	 * Removes all values from the aggregation
+	 */
+	public void clear() {
+		trackedValues.clear();
+		for (MapReduceBase base : mapreduceArray) {
+			base.reset();
+		}
+		result = null;
+	}
+	
+	/**
+	 * @return  the number of matching values in the aggregation
+	 */
+	public int size() {
+		return trackedValues.size();
+	}
+	
+	//--------------------------------------------------------------------
+	// Aggregation result
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Get the current aggregation result, without recomputing it over the values
+	 *
+	 * @return  BigDecimal array of the corresponding aggregation result
+	 */
+	public BigDecimal[] result() {
+		BigDecimal[] ret = result;
+		if (ret == null) {
+			ret = new BigDecimal[mapreduceArray.length];
+			for (int i = 0; i < mapreduceArray.length; ++i) {
+				ret[i] = mapreduceArray[i].reduce();
+			}
+			result = ret;
+		}
+		return ret.clone();
+	}
+	
+}
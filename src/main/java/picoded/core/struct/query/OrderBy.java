@@ -2,12 +2,16 @@ package picoded.core.struct.query;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Locale;
 
+import picoded.core.conv.NestedObjectPath;
 import picoded.core.struct.MutablePair;
 import picoded.core.struct.query.internal.QueryUtils;
 
@@ -154,10 +158,92 @@ public class OrderBy<T> implements Comparator<T>, Serializable {
 		return resSet;
 	}
 	
+	//--------------------------------------------------------------------
+	// Field value fetching
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compiled field paths, of the respective comparision configuration
+	 **/
+	protected transient NestedObjectPath[] _fieldPaths = null;
+	
+	/**
+	 * Gets the field value used for sorting, supporting nested field paths (such as `a.b[2].c`)
+	 *
+	 * @param  value to get the field value from
+	 * @param  idx of the comparision configuration
+	 *
+	 * @return  the field value
+	 **/
+	protected Object getFieldValue(T value, int idx) {
+		String field = _comparisionConfig.get(idx).getLeft();
+		if (field == null || "this".equalsIgnoreCase(field)) {
+			return value;
+		}
+		
+		// Compiled path, recompiled if the field name was changed
+		NestedObjectPath[] paths = _fieldPaths;
+		if (paths == null || paths.length != _comparisionConfig.size()) {
+			paths = new NestedObjectPath[_comparisionConfig.size()];
+			_fieldPaths = paths;
+		}
+		NestedObjectPath path = paths[idx];
+		if (path == null || !field.equals(path.path())) {
+			path = NestedObjectPath.compile(field);
+			paths[idx] = path;
+		}
+		return path.fetch(value);
+	}
+	
 	//--------------------------------------------------------------------
 	// Comparator implmentation
 	//--------------------------------------------------------------------
 	
+	/**
+	 * Sort order of the value types, where null is always the smallest
+	 **/
+	protected static final int TYPE_NULL = 0;
+	protected static final int TYPE_NUMBER = 1;
+	protected static final int TYPE_STRING = 2;
+	protected static final int TYPE_OTHER = 3;
+	
+	/**
+	 * @param  value to get the type of
+	 *
+	 * @return  the value type sort order
+	 **/
+	protected static int valueType(Object value) {
+		if (value == null) {
+			return TYPE_NULL;
+		}
+		if (value instanceof Number) {
+			return TYPE_NUMBER;
+		}
+		return (value instanceof String) ? TYPE_STRING : TYPE_OTHER;
+	}
+	
+	/**
+	 * Compares two sort values, as a total order.
+	 *
+	 * dynamicCompare is not transitive across mixed value types (for example 10 > "9"
+	 * numerically, while "10" < "9" as strings), which breaks the sort, and the top K heap.
+	 * As such, values of different types are ordered by their type first (null, number,
+	 * string, then others), while values of the same type are compared with dynamicCompare.
+	 *
+	 * @param  o1  the first value to be compared.
+	 * @param  o2  the second value to be compared.
+	 *
+	 * @return  negative, zero, or positive, as per the comparator interface
+	 **/
+	protected static int sortCompare(Object o1, Object o2) {
+		int t1 = valueType(o1);
+		int t2 = valueType(o2);
+		if (t1 != t2) {
+			return Integer.compare(t1, t2);
+		}
+		return CompareUtils.dynamicCompare(o1, o2);
+	}
+	
 	/**
 	 * Dynamic comparator setup
 	 *
@@ -172,11 +258,13 @@ public class OrderBy<T> implements Comparator<T>, Serializable {
 		/**
 		 * Scan and compare, and return the differences
 		 **/
-		for (MutablePair<String, OrderType> comparePair : _comparisionConfig) {
-			Object left = QueryUtils.getFieldValue(o1, comparePair.getLeft());
-			Object right = QueryUtils.getFieldValue(o2, comparePair.getLeft());
+		int len = _comparisionConfig.size();
+		for (int i = 0; i < len; ++i) {
+			MutablePair<String, OrderType> comparePair = _comparisionConfig.get(i);
+			Object left = getFieldValue(o1, i);
+			Object right = getFieldValue(o2, i);
 			
-			int diff = CompareUtils.dynamicCompare(left, right);
+			int diff = sortCompare(left, right);
 			
 			// Skip if equals
 			if (diff == 0) {
@@ -191,6 +279,134 @@ public class OrderBy<T> implements Comparator<T>, Serializable {
 			//}
 		}
 		
-		return CompareUtils.dynamicCompare(o1, o2); //fallback
+		return sortCompare(o1, o2); //fallback
+	}
+	
+	//--------------------------------------------------------------------
+	// Decorated sorting implmentation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Value decorated with its precomputed sort keys, and original position.
+	 * Used to avoid fetching the field values on every comparision.
+	 **/
+	protected static class SortEntry<T> {
+		protected final Object[] keys;
+		protected final T value;
+		protected final int index;
+		
+		protected SortEntry(Object[] keys, T value, int index) {
+			this.keys = keys;
+			this.value = value;
+			this.index = index;
+		}
+	}
+	
+	/**
+	 * Decorate the value with its sort keys
+	 *
+	 * @param  value to decorate
+	 * @param  index position of the value
+	 *
+	 * @return  the decorated sort entry
+	 **/
+	protected SortEntry<T> decorate(T value, int index) {
+		int len = _comparisionConfig.size();
+		Object[] keys = new Object[len];
+		for (int i = 0; i < len; ++i) {
+			keys[i] = getFieldValue(value, i);
+		}
+		return new SortEntry<T>(keys, value, index);
+	}
+	
+	/**
+	 * Compare two decorated values, this is equivalent to compare(o1, o2),
+	 * with the original position as the final tie breaker (for a stable sort)
+	 *
+	 * @param  a  the first entry to be compared.
+	 * @param  b  the second entry to be compared.
+	 *
+	 * @return  negative, zero, or positive, as per the comparator interface
+	 **/
+	protected int compareEntry(SortEntry<T> a, SortEntry<T> b) {
+		int len = a.keys.length;
+		for (int i = 0; i < len; ++i) {
+			int diff = sortCompare(a.keys[i], b.keys[i]);
+			if (diff != 0) {
+				return (_comparisionConfig.get(i).getRight() == OrderType.ASC) ? diff : -diff;
+			}
+		}
+		
+		int diff = sortCompare(a.value, b.value); //fallback
+		if (diff != 0) {
+			return diff;
+		}
+		return Integer.compare(a.index, b.index);
+	}
+	
+	/**
+	 * Sorts the list in place, with each field value fetched only once per element.
+	 * This gives the same (stable) result as Collections.sort(list, this)
+	 *
+	 * @param  list to sort, must be modifiable
+	 **/
+	public void sort(List<T> list) {
+		// Decorate
+		List<SortEntry<T>> entries = new ArrayList<SortEntry<T>>(list.size());
+		int pos = 0;
+		for (T value : list) {
+			entries.add(decorate(value, pos++));
+		}
+		
+		// Sort
+		entries.sort(this::compareEntry);
+		
+		// Undecorate
+		ListIterator<T> iter = list.listIterator();
+		for (SortEntry<T> entry : entries) {
+			iter.next();
+			iter.set(entry.value);
+		}
+	}
+	
+	/**
+	 * Gets the first K values, in sorted order, without sorting all the values.
+	 * Using a bounded heap of K decorated values.
+	 *
+	 * This gives the same result as sorting all the values, and taking the first K.
+	 *
+	 * @param  values to sort
+	 * @param  k  number of values to return
+	 *
+	 * @return  sorted list, of up to K values
+	 **/
+	public List<T> topK(Iterable<T> values, int k) {
+		if (k <= 0) {
+			return new ArrayList<T>();
+		}
+		
+		// Max heap (reversed order), of the smallest K values so far
+		Comparator<SortEntry<T>> entryComparator = this::compareEntry;
+		PriorityQueue<SortEntry<T>> heap = new PriorityQueue<SortEntry<T>>(Math.min(k, 1024),
+			entryComparator.reversed());
+		
+		int pos = 0;
+		for (T value : values) {
+			SortEntry<T> entry = decorate(value, pos++);
+			if (heap.size() < k) {
+				heap.add(entry);
+			} else if (compareEntry(entry, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(entry);
+			}
+		}
+		
+		// Drain the heap, from the largest to the smallest, then reverse it
+		ArrayList<T> ret = new ArrayList<T>(heap.size());
+		while (!heap.isEmpty()) {
+			ret.add(heap.poll().value);
+		}
+		Collections.reverse(ret);
+		return ret;
 	}
 }
@@ -0,0 +1,328 @@
+package picoded.core.struct.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import picoded.core.struct.MutablePair;
+import picoded.core.struct.query.internal.QueryFilter;
+import picoded.core.struct.query.metrics.QueryMetrics;
+
+/**
+ * A query string that is parsed once, and reused with different arguments.
+ *
+ * Unlike Query.build, the positional (?) or named (:name) arguments are bound on each call,
+ * and applied on the shared query template using Query.compile(Map). Without parsing the
+ * query string, or copying its query tree. As the template, and the default argument map
+ * are never modified, the same PreparedQuery can be safely used across multiple threads.
+ *
+ * ```
+ * PreparedQuery prepared = PreparedQuery.prepare("name = ? AND age > ?");
+ * List<Map<String,Object>> res = prepared.search(list, new Object[] { "john", 21 });
+ * ```
+ **/
+public class PreparedQuery {
+	
+	//
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The original query string
+	 **/
+	protected final String queryString;
+	
+	/**
+	 * The parsed query template, without any argument map
+	 **/
+	protected final Query template;
+	
+	/**
+	 * The number of positional (?) arguments in the query
+	 **/
+	protected final int argumentCount;
+	
+	/**
+	 * The default (named) argument map, used as the base of all bound arguments
+	 **/
+	protected final Map<String, Object> defaultArgumentMap;
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Setup the prepared query, with its parsed template
+	 *
+	 * @param   the original query string
+	 * @param   the parsed query template
+	 * @param   the number of positional (?) arguments in the query
+	 * @param   default named argument map, can be null
+	 **/
+	protected PreparedQuery(String queryString, Query template, int argumentCount,
+		Map<String, Object> defaultArgMap) {
+		this.queryString = queryString;
+		this.template = template;
+		this.argumentCount = argumentCount;
+		if (defaultArgMap == null || defaultArgMap.isEmpty()) {
+			this.defaultArgumentMap = Collections.emptyMap();
+		} else {
+			this.defaultArgumentMap = Collections.unmodifiableMap(new HashMap<String, Object>(
+				defaultArgMap));
+		}
+	}
+	
+	/**
+	 * Prepare the query string, for reuse with different arguments
+	 *
+	 * @param   query string to parse
+	 *
+	 * @return  the prepared query
+	 **/
+	public static PreparedQuery prepare(String queryString) {
+		return prepare(queryString, null);
+	}
+	
+	/**
+	 * Prepare the query string, for reuse with different arguments
+	 *
+	 * @param   query string to parse
+	 * @param   default named argument map, this is copied
+	 *
+	 * @return  the prepared query
+	 **/
+	public static PreparedQuery prepare(String queryString, Map<String, Object> defaultArgMap) {
+		if (queryString == null) {
+			throw new RuntimeException("Missing query string to prepare");
+		}
+		MutablePair<Query, Integer> parsed = QueryFilter.cachedQueryTemplate(queryString);
+		return new PreparedQuery(queryString, parsed.getLeft(), parsed.getRight().intValue(),
+			defaultArgMap);
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the original query string
+	 **/
+	public String queryString() {
+		return queryString;
+	}
+	
+	/**
+	 * @return  the shared query template (without arguments), which should not be modified
+	 **/
+	public Query template() {
+		return template;
+	}
+	
+	/**
+	 * @return  the number of positional (?) arguments in the query
+	 **/
+	public int argumentCount() {
+		return argumentCount;
+	}
+	
+	/**
+	 * @return  the (unmodifiable) default named argument map
+	 **/
+	public Map<String, Object> defaultArgumentMap() {
+		return defaultArgumentMap;
+	}
+	
+	/**
+	 * The query string, of the query template
+	 **/
+	@Override
+	public String toString() {
+		return template.toString();
+	}
+	
+	//
+	// Argument binding
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Builds a new argument map, of the default arguments with the positional arguments
+	 *
+	 * @param   positional (?) arguments, which must match the argument count
+	 *
+	 * @return  the argument map to use
+	 **/
+	public Map<String, Object> arguments(Object[] argArr) {
+		return arguments(argArr, null);
+	}
+	
+	/**
+	 * Builds a new argument map, of the default arguments with the named arguments
+	 *
+	 * @param   named arguments, can be null
+	 *
+	 * @return  the argument map to use
+	 **/
+	public Map<String, Object> arguments(Map<String, Object> namedArgs) {
+		return arguments(null, namedArgs);
+	}
+	
+	/**
+	 * Builds a new argument map, of the default arguments, with the named and positional arguments.
+	 * Neither the default, nor the given named arguments map is modified.
+	 *
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 * @param   named arguments, can be null
+	 *
+	 * @return  the argument map to use
+	 **/
+	public Map<String, Object> arguments(Object[] argArr, Map<String, Object> namedArgs) {
+		Map<String, Object> ret = new HashMap<String, Object>(defaultArgumentMap);
+		if (namedArgs != null) {
+			ret.putAll(namedArgs);
+		}
+		return QueryFilter.bindArguments(ret, argArr, argumentCount);
+	}
+	
+	/**
+	 * Builds a standalone query, bounded to the given arguments.
+	 *
+	 * This copies the query template (without parsing it again), and should only be used
+	 * where a bounded query object is required (such as for index planning). Otherwise,
+	 * use compile with the arguments directly.
+	 *
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  the bound query
+	 **/
+	public Query bind(Object[] argArr) {
+		return QueryFilter.bindQuery(template, arguments(argArr));
+	}
+	
+	/**
+	 * Builds a standalone query, bounded to the given arguments
+	 *
+	 * @param   named arguments, can be null
+	 *
+	 * @return  the bound query
+	 **/
+	public Query bind(Map<String, Object> namedArgs) {
+		return QueryFilter.bindQuery(template, arguments(namedArgs));
+	}
+	
+	//
+	// Query execution
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compiles the query, against the given positional arguments
+	 *
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  Predicate testing each value
+	 **/
+	public Predicate<Object> compile(Object[] argArr) {
+		return template.compile(arguments(argArr));
+	}
+	
+	/**
+	 * Compiles the query, against the given named arguments
+	 *
+	 * @param   named arguments, can be null
+	 *
+	 * @return  Predicate testing each value
+	 **/
+	public Predicate<Object> compile(Map<String, Object> namedArgs) {
+		return template.compile(arguments(namedArgs));
+	}
+	
+	/**
+	 * Test a single value, against the given positional arguments.
+	 * Use compile instead, when testing multiple values.
+	 *
+	 * @param   the object to test against
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  boolean indicating true / false
+	 **/
+	public boolean test(Object t, Object[] argArr) {
+		return template.test(t, arguments(argArr));
+	}
+	
+	/**
+	 * Test a single value, against the given named arguments
+	 *
+	 * @param   the object to test against
+	 * @param   named arguments, can be null
+	 *
+	 * @return  boolean indicating true / false
+	 **/
+	public boolean test(Object t, Map<String, Object> namedArgs) {
+		return template.test(t, arguments(namedArgs));
+	}
+	
+	/**
+	 * Searches the collection, against the given positional arguments
+	 *
+	 * @param   collection to search
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  list of matching values, in the collection order
+	 **/
+	public <V> List<V> search(Collection<V> list, Object[] argArr) {
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = compile(argArr);
+		List<V> ret = new ArrayList<V>();
+		for (V val : list) {
+			if (compiled.test(val)) {
+				ret.add(val);
+			}
+		}
+		if (start != QueryMetrics.DISABLED) {
+			QueryMetrics.record("search", this, argArr, start, list.size(), ret.size());
+		}
+		return ret;
+	}
+	
+	/**
+	 * Searches the collection lazily, against the given positional arguments.
+	 * Without building the resulting list.
+	 *
+	 * @param   collection to search
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  filtered stream of matching values
+	 **/
+	public <V> Stream<V> stream(Collection<V> list, Object[] argArr) {
+		return list.stream().filter(compile(argArr));
+	}
+	
+	/**
+	 * Counts the number of matching values, against the given positional arguments.
+	 * Without building the resulting list.
+	 *
+	 * @param   values to count
+	 * @param   positional (?) arguments, which must match the argument count, can be null
+	 *
+	 * @return  number of matching values
+	 **/
+	public long count(Iterable<?> list, Object[] argArr) {
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = compile(argArr);
+		long scanned = 0;
+		long ret = 0;
+		for (Object val : list) {
+			++scanned;
+			if (compiled.test(val)) {
+				++ret;
+			}
+		}
+		QueryMetrics.record("count", this, argArr, start, scanned, ret);
+		return ret;
+	}
+	
+}
@@ -7,13 +7,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import picoded.core.struct.ArrayListMap;
+import picoded.core.struct.query.internal.ParallelUtils;
 import picoded.core.struct.query.internal.QueryFilter;
+import picoded.core.struct.query.metrics.QueryMetrics;
+import picoded.core.struct.query.planner.QueryOptimizer;
 
 /**
  * Representas a query condition, that can be used as a java Predicate against a collection
@@ -73,6 +79,55 @@ public interface Query extends Predicate<Object> {
 	 **/
 	boolean test(Object t, Map<String, Object> argMap);
 	
+	//--------------------------------------------------------------------
+	// Query compilation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compiles the query into a specialized Predicate, against its cached argument map.
+	 *
+	 * Field names, argument values and comparision setup are resolved once during
+	 * compilation, instead of once per tested object. As such any changes to the
+	 * argument map after compilation will not be reflected in the returned Predicate.
+	 *
+	 * [to override on extension]
+	 *
+	 * @return  Predicate equivalent to test(Object)
+	 **/
+	default Predicate<Object> compile() {
+		return this::test;
+	}
+	
+	/**
+	 * Compiles the query into a specialized Predicate, against the specified value map.
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   the argument map, if applicable
+	 *
+	 * @return  Predicate equivalent to test(Object, argMap)
+	 **/
+	default Predicate<Object> compile(Map<String, Object> argMap) {
+		return (t) -> test(t, argMap);
+	}
+	
+	//--------------------------------------------------------------------
+	// Query optimization
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Rewrites the query, removing its redundant structure (see QueryOptimizer).
+	 * Such as nested AND / OR, duplicated conditions, NOT(NOT(x)), overlapping ranges
+	 * on the same field, and always true / false subtrees (as Constant TRUE / FALSE).
+	 *
+	 * The optimized query gives the same result as this query, against its default argument map.
+	 *
+	 * @return  the optimized query
+	 **/
+	default Query optimize() {
+		return QueryOptimizer.optimize(this);
+	}
+	
 	//--------------------------------------------------------------------
 	// Public accessors
 	//--------------------------------------------------------------------
@@ -99,6 +154,16 @@ public interface Query extends Predicate<Object> {
 		return null;
 	}
 	
+	/**
+	 * Gets all the argument names, in the order they are used in the query string.
+	 * This is the argument name by default, while conditions such as IN / BETWEEN
+	 * have multiple arguments, and IS NULL has none.
+	 **/
+	default String[] argumentNames() {
+		String name = argumentName();
+		return (name != null) ? new String[] { name } : new String[0];
+	}
+	
 	/**
 	 * Gets the default argument map
 	 **/
@@ -239,7 +304,10 @@ public interface Query extends Predicate<Object> {
 		if (isBasicOperator()) {
 			
 			// Push basic operator args to return output
-			ret.add(this.defaultArgumentValue());
+			Map<String, Object> argMap = defaultArgumentMap();
+			for (String name : argumentNames()) {
+				ret.add((argMap != null) ? argMap.get(name) : null);
+			}
 			
 		} else if (isCombinationOperator()) {
 			
@@ -275,7 +343,10 @@ public interface Query extends Predicate<Object> {
 		if (isBasicOperator()) {
 			
 			// Push basic operator args to return output
-			ret.put(this.argumentName(), this.defaultArgumentValue());
+			Map<String, Object> argMap = defaultArgumentMap();
+			for (String name : argumentNames()) {
+				ret.put(name, (argMap != null) ? argMap.get(name) : null);
+			}
 			
 		} else if (isCombinationOperator()) {
 			
@@ -319,12 +390,24 @@ public interface Query extends Predicate<Object> {
 	 * Searches using the query, and returns the resulting set
 	 **/
 	default <V> List<V> search(Collection<V> list) {
+		// Constant query, without testing each value
+		if (type() == QueryType.FALSE) {
+			return new ArrayList<V>();
+		} else if (type() == QueryType.TRUE) {
+			return new ArrayList<V>(list);
+		}
+		
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = compile();
 		List<V> ret = new ArrayList<V>();
 		for (V val : list) {
-			if (test(val)) {
+			if (compiled.test(val)) {
 				ret.add(val);
 			}
 		}
+		if (start != QueryMetrics.DISABLED) {
+			QueryMetrics.record("search", this, start, list.size(), ret.size());
+		}
 		return ret;
 	}
 	
@@ -348,14 +431,24 @@ public interface Query extends Predicate<Object> {
 	 * Searches using the query, and returns the resulting set
 	 **/
 	default <K, V> List<V> search(Map<K, V> set) {
+		// Constant query, without testing each value
+		if (type() == QueryType.FALSE || type() == QueryType.TRUE) {
+			return search(set.values());
+		}
+		
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = compile();
 		List<V> ret = new ArrayList<V>();
 		//for (K key : set.keySet()) {
 		for (Entry<K, V> entry : set.entrySet()) {
 			V val = entry.getValue();
-			if (test(val)) {
+			if (compiled.test(val)) {
 				ret.add(val);
 			}
 		}
+		if (start != QueryMetrics.DISABLED) {
+			QueryMetrics.record("search", this, start, set.size(), ret.size());
+		}
 		return ret;
 	}
 	
@@ -375,6 +468,106 @@ public interface Query extends Predicate<Object> {
 		return search(set, new OrderBy<V>(orderBy));
 	}
 	
+	//--------------------------------------------------------------------
+	// Lazy query searching
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Searches using the query, and returns a lazily filtered iterator of the results.
+	 * Without building the resulting list.
+	 **/
+	default <V> Iterator<V> iterator(Iterable<V> list) {
+		return QueryUtils.filterIterator(list.iterator(), compile());
+	}
+	
+	/**
+	 * Searches using the query, and returns a lazily filtered iterator of the results.
+	 * Without building the resulting list.
+	 **/
+	default <K, V> Iterator<V> iterator(Map<K, V> set) {
+		return iterator(set.values());
+	}
+	
+	/**
+	 * Searches using the query, and returns a lazily filtered stream of the results.
+	 * Without building the resulting list.
+	 **/
+	default <V> Stream<V> stream(Collection<V> list) {
+		return list.stream().filter(compile());
+	}
+	
+	/**
+	 * Searches using the query, and returns a lazily filtered stream of the results.
+	 * Without building the resulting list.
+	 **/
+	default <K, V> Stream<V> stream(Map<K, V> set) {
+		return stream(set.values());
+	}
+	
+	/**
+	 * Counts the number of matching values, without building the resulting list.
+	 **/
+	default long count(Iterable<?> list) {
+		// Constant query, without testing each value
+		if (type() == QueryType.FALSE) {
+			return 0;
+		} else if (type() == QueryType.TRUE && list instanceof Collection) {
+			return ((Collection<?>) list).size();
+		}
+		
+		long start = QueryMetrics.start();
+		Predicate<Object> compiled = compile();
+		long scanned = 0;
+		long ret = 0;
+		for (Object val : list) {
+			++scanned;
+			if (compiled.test(val)) {
+				++ret;
+			}
+		}
+		QueryMetrics.record("count", this, start, scanned, ret);
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------
+	// Parallel query searching
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Searches using the query in parallel, with the common ForkJoinPool,
+	 * and returns the resulting set (in the same order as the collection)
+	 **/
+	default <V> List<V> parallelSearch(Collection<V> list) {
+		return parallelSearch(list, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Searches using the query in parallel, with the given ForkJoinPool,
+	 * and returns the resulting set (in the same order as the collection)
+	 **/
+	default <V> List<V> parallelSearch(Collection<V> list, ForkJoinPool pool) {
+		if (type() == QueryType.FALSE || type() == QueryType.TRUE) {
+			return search(list);
+		}
+		return ParallelUtils.search(pool, ParallelUtils.randomAccessList(list), compile());
+	}
+	
+	/**
+	 * Searches using the query in parallel, with the common ForkJoinPool,
+	 * and returns the resulting set
+	 **/
+	default <K, V> List<V> parallelSearch(Map<K, V> set) {
+		return parallelSearch(set, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Searches using the query in parallel, with the given ForkJoinPool,
+	 * and returns the resulting set
+	 **/
+	default <K, V> List<V> parallelSearch(Map<K, V> set, ForkJoinPool pool) {
+		return parallelSearch(set.values(), pool);
+	}
+	
 	//--------------------------------------------------------------------
 	// Aggregation on search
 	//--------------------------------------------------------------------
@@ -427,6 +620,59 @@ public interface Query extends Predicate<Object> {
 		return aggregation(collectionObj, Aggregation.build(new String[] { singleAggregationTerm }))[0];
 	}
 	
+	/**
+	 * Searches using the query, and perform the stated aggregation in parallel,
+	 * with the given ForkJoinPool. Where the query filter and aggregation map phase
+	 * is done together for each split of the collection.
+	 * 
+	 * @param  collectionObj,  either using a map, list or collection class
+	 * @param  aggregationObj, used to compute the result
+	 * @param  pool,           to compute with
+	 * 
+	 * @return  BigDecimal[] array of the aggregation result
+	 **/
+	default BigDecimal[] parallelAggregation(Object collectionObj, Aggregation aggregationObj,
+		ForkJoinPool pool) {
+		
+		// 1. Get the collection to aggregate on, based on its collection type
+		Collection<Object> aggregationData = QueryUtils.valuesCollection(collectionObj);
+		
+		// 2. Perform the filtered aggregation computation
+		return aggregationObj.computeParallel(aggregationData, compile(), pool);
+	}
+	
+	/**
+	 * Searches using the query, and perform the stated aggregation in parallel,
+	 * with the common ForkJoinPool
+	 * 
+	 * @param  collectionObj,    either using a map, list or collection class
+	 * @param  aggregationTerms, used to compute the result
+	 * 
+	 * @return  BigDecimal[] array of the aggregation result
+	 **/
+	default BigDecimal[] parallelAggregation(Object collectionObj, String[] aggregationTerms) {
+		return parallelAggregation(collectionObj, Aggregation.build(aggregationTerms),
+			ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Searches using the query, and perform the stated grouped aggregation in a single pass
+	 * 
+	 * @param  collectionObj,  either using a map, list or collection class
+	 * @param  aggregationObj, used to compute the result of each group
+	 * 
+	 * @return  map of group key, to the BigDecimal[] array of the aggregation result
+	 **/
+	default Map<List<Object>, BigDecimal[]> groupedAggregation(Object collectionObj,
+		GroupedAggregation aggregationObj) {
+		
+		// 1. Get the collection to aggregate on, based on its collection type
+		Collection<Object> aggregationData = QueryUtils.valuesCollection(collectionObj);
+		
+		// 2. Perform the filtered grouped aggregation computation
+		return aggregationObj.compute(aggregationData, compile());
+	}
+	
 	//--------------------------------------------------------------------
 	// Name value pair extraction from query
 	//--------------------------------------------------------------------
@@ -29,7 +29,19 @@ public enum QueryType {
 	
 	MORE_THAN(30), MORE_THAN_OR_EQUALS(31),
 	
-	LIKE(40);
+	LIKE(40), ILIKE(41),
+	
+	IN(50),
+	
+	BETWEEN(60),
+	
+	IS_NULL(70), IS_NOT_NULL(71),
+	
+	//--------------------------------------------------------------------
+	// Constant types
+	//--------------------------------------------------------------------
+	
+	TRUE(80), FALSE(81);
 	
 	//////////////////////////////////////////////////////////////////////
 	//
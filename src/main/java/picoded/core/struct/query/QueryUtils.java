@@ -2,6 +2,10 @@ package picoded.core.struct.query;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import picoded.core.struct.query.metrics.QueryMetrics;
 
 /**
  * Collection of query utility functions, used to query a collection and sort its results
@@ -68,6 +72,32 @@ public class QueryUtils {
 		return inList;
 	}
 	
+	/**
+	 * Takes a stream of values, and lazily apply the offset / limit,
+	 * with the same rules as offsetList.
+	 * 
+	 * @param stream  to offset / limit
+	 * @param offset  result to return from, use -1 to ignore
+	 * @param limit   number of results to return at max, use -1 to ignore
+	 * 
+	 * @return  stream of the result chosen (if any)
+	 */
+	public static <V> Stream<V> offsetStream(Stream<V> stream, int offset, int limit) {
+		// No offset / limit applied
+		if (offset < 1 && limit < 1) {
+			return stream;
+		}
+		
+		// Apply the offset, and limit (if any)
+		if (offset > 0) {
+			stream = stream.skip(offset);
+		}
+		if (limit >= 0) {
+			stream = stream.limit(limit);
+		}
+		return stream;
+	}
+	
 	/**
 	 * Takes a list and sort by the orderBy string
 	 * 
@@ -97,12 +127,12 @@ public class QueryUtils {
 			
 			// Lets try to sort the list
 			try {
-				Collections.sort(inList, sorter);
+				sorter.sort(inList);
 			} catch (UnsupportedOperationException e) {
 				// Ok sorting failed, lets try again as array list
 				// As it might have been read only
 				inList = new ArrayList<V>(inList);
-				Collections.sort(inList, sorter);
+				sorter.sort(inList);
 			}
 		}
 		
@@ -123,10 +153,196 @@ public class QueryUtils {
 	 **/
 	public static <V> List<V> sortAndOffsetList(List<V> list, String orderByStr, int offset,
 		int limit) {
+		// Only the first (offset + limit) values are needed, use the bounded heap
+		if (list != null && orderByStr != null && (orderByStr = orderByStr.trim()).length() > 0) {
+			long start = QueryMetrics.start();
+			List<V> ret;
+			int topK = topKSize(offset, limit);
+			if (topK >= 0 && topK < list.size() && topK <= topKThreshold) {
+				List<V> topList = new OrderBy<V>(orderByStr).topK(list, topK);
+				ret = offsetList(topList, offset, limit);
+			} else {
+				ret = offsetList(sortList(list, orderByStr), offset, limit);
+			}
+			if (start != QueryMetrics.DISABLED) {
+				QueryMetrics.record("sort", "ORDER BY " + orderByStr, null, start, list.size(), ret
+					.size());
+			}
+			return ret;
+		}
+		
 		List<V> sortedList = sortList(list, orderByStr);
 		return offsetList(sortedList, offset, limit);
 	}
 	
+	//--------------------------------------------------------------------
+	// Filter, sort, and offset in a single pass
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Maximum number of values (offset + limit), where a bounded heap is used
+	 * to get the first sorted values, instead of sorting the full list.
+	 **/
+	public static final int DEFAULT_TOPK_THRESHOLD = 10000;
+	
+	/**
+	 * Maximum number of values (offset + limit), where a bounded heap is used
+	 **/
+	protected static volatile int topKThreshold = DEFAULT_TOPK_THRESHOLD;
+	
+	/**
+	 * Set the maximum number of values (offset + limit), where a bounded heap is used
+	 * to get the first sorted values, instead of sorting the full list.
+	 * 
+	 * @param  threshold to use, 0 to always sort the full list
+	 */
+	public static void setTopKThreshold(int threshold) {
+		topKThreshold = Math.max(0, threshold);
+	}
+	
+	/**
+	 * Get the number of values needed from the start of the list,
+	 * for the given offset / limit, as per offsetList
+	 * 
+	 * @param offset  result to return from, use -1 to ignore
+	 * @param limit   number of results to return at max, use -1 to ignore
+	 * 
+	 * @return  number of values needed, or -1 if all values are needed
+	 */
+	protected static int topKSize(int offset, int limit) {
+		// No offset / limit applied
+		if (offset < 1 && limit < 1) {
+			return -1;
+		}
+		// No limit, all values are needed
+		if (limit < 0) {
+			return -1;
+		}
+		// Offset with a blank limit, no values are needed
+		long ret = (long) Math.max(offset, 0) + limit;
+		return (ret > Integer.MAX_VALUE) ? -1 : (int) ret;
+	}
+	
+	/**
+	 * Filter, sort and limit the values, without building the full filtered list where possible.
+	 * 
+	 * + Without orderBy, stops once enough values are found for the offset and limit
+	 * + With orderBy and a small (offset + limit), keeps only the first values in a bounded heap
+	 * + Otherwise, filters the full list and sorts it
+	 * 
+	 * This gives the same result as filtering into a list, and calling sortAndOffsetList.
+	 * 
+	 * @param   values to filter
+	 * @param   filter to test each value with, null to include all values
+	 * @param   orderByStr string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  filtered and sorted list
+	 **/
+	public static <V> List<V> filterSortAndOffset(Iterable<V> values, Predicate<Object> filter,
+		String orderByStr, int offset, int limit) {
+		boolean hasOrderBy = orderByStr != null && orderByStr.trim().length() > 0;
+		int topK = topKSize(offset, limit);
+		
+		// Iterable of the filtered values
+		Iterable<V> filtered = values;
+		if (filter != null) {
+			filtered = () -> filterIterator(values.iterator(), filter);
+		}
+		
+		// Sorting with a limit, using the bounded heap
+		if (hasOrderBy && topK >= 0 && topK <= topKThreshold) {
+			List<V> topList = new OrderBy<V>(orderByStr).topK(filtered, topK);
+			return offsetList(topList, offset, limit);
+		}
+		
+		// Without sorting, stop once enough values are found
+		List<V> ret = new ArrayList<V>();
+		if (!hasOrderBy && topK >= 0) {
+			int skip = Math.max(offset, 0);
+			if (topK <= skip) {
+				return ret;
+			}
+			for (V val : filtered) {
+				if (skip > 0) {
+					--skip;
+					continue;
+				}
+				ret.add(val);
+				if (ret.size() >= limit) {
+					break;
+				}
+			}
+			return ret;
+		}
+		
+		// Full filter, and sort
+		for (V val : filtered) {
+			ret.add(val);
+		}
+		return sortAndOffsetList(ret, orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Iterator wrapper, returning only the values which passes the filter
+	 * 
+	 * @param  iter    to wrap
+	 * @param  filter  to test each value with
+	 * 
+	 * @return  filtered iterator
+	 */
+	public static <V> Iterator<V> filterIterator(Iterator<V> iter, Predicate<Object> filter) {
+		return new Iterator<V>() {
+			V nextVal = null;
+			boolean hasNextVal = false;
+			
+			@Override
+			public boolean hasNext() {
+				while (!hasNextVal && iter.hasNext()) {
+					V val = iter.next();
+					if (filter.test(val)) {
+						nextVal = val;
+						hasNextVal = true;
+					}
+				}
+				return hasNextVal;
+			}
+			
+			@Override
+			public V next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				hasNextVal = false;
+				return nextVal;
+			}
+		};
+	}
+	
+	/**
+	 * Gets the collection of values to aggregate on, from either a map, collection or array
+	 * 
+	 * @param  collectionObj  either using a map, list or collection class
+	 * 
+	 * @return  collection of values (of the map), null if not a supported collection type
+	 */
+	public static Collection<Object> valuesCollection(Object collectionObj) {
+		if (collectionObj instanceof Map) {
+			collectionObj = ((Map<?, ?>) collectionObj).values();
+		}
+		if (collectionObj instanceof Collection) {
+			// Values are only read, as such the element type does not matter
+			@SuppressWarnings("unchecked")
+			Collection<Object> ret = (Collection<Object>) collectionObj;
+			return ret;
+		}
+		if (collectionObj instanceof Object[]) {
+			return Arrays.asList((Object[]) collectionObj);
+		}
+		return null;
+	}
+	
 	/**
 	 * Utility funciton, used to sort and limit the result of a list
 	 *
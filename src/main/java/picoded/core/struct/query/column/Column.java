@@ -0,0 +1,185 @@
+package picoded.core.struct.query.column;
+
+import java.util.AbstractMap;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Values of a single field, stored by their row id, for a ColumnTable.
+ *
+ * Each column implementation stores a set of value types (such as long values),
+ * and refuses any other value type, where the ColumnTable will then replace it
+ * with an ObjectColumn. Null values are stored as missing values.
+ *
+ * Conditions and aggregations are evaluated column at a time, without the row maps.
+ * By default this is done by testing each value individually, which implementations
+ * should override with a faster primitive / dictionary based evaluation where possible.
+ **/
+public abstract class Column {
+	
+	/**
+	 * The field name of the column
+	 **/
+	protected final String fieldName;
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public Column(String inFieldName) {
+		fieldName = inFieldName;
+	}
+	
+	/**
+	 * Creates a blank column, which supports the given value type
+	 *
+	 * @param  field name of the column
+	 * @param  value to support, not null
+	 *
+	 * @return  blank column
+	 **/
+	public static Column forValue(String fieldName, Object value) {
+		if (LongColumn.isSupported(value)) {
+			return new LongColumn(fieldName);
+		} else if (value instanceof Double) {
+			return new DoubleColumn(fieldName);
+		} else if (value instanceof String) {
+			return new StringColumn(fieldName);
+		}
+		return new ObjectColumn(fieldName);
+	}
+	
+	//--------------------------------------------------------------------
+	// Value storage
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the field name of the column
+	 **/
+	public String fieldName() {
+		return fieldName;
+	}
+	
+	/**
+	 * Gets the value of the row
+	 *
+	 * @param  row id to get
+	 *
+	 * @return  the value, null if its missing
+	 **/
+	public abstract Object get(int rowId);
+	
+	/**
+	 * @param  row id to check
+	 *
+	 * @return  true if the row value is missing
+	 **/
+	public boolean isNull(int rowId) {
+		return get(rowId) == null;
+	}
+	
+	/**
+	 * Sets the value of the row, if the value type is supported
+	 *
+	 * @param  row id to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  false, if the value type is not supported (and was not set)
+	 **/
+	public abstract boolean set(int rowId, Object value);
+	
+	/**
+	 * Removes all the values
+	 **/
+	public abstract void clear();
+	
+	//--------------------------------------------------------------------
+	// Column at a time evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Single field map, used to test a condition against a single column value.
+	 * Without building the full row map.
+	 **/
+	protected static class ValueMap extends AbstractMap<String, Object> {
+		
+		/**
+		 * The field name, and its current value
+		 **/
+		protected final String key;
+		protected Object value = null;
+		
+		/**
+		 * @param  field name of the map
+		 **/
+		protected ValueMap(String inKey) {
+			key = inKey;
+		}
+		
+		@Override
+		public Object get(Object k) {
+			return key.equals(k) ? value : null;
+		}
+		
+		@Override
+		public boolean containsKey(Object k) {
+			return value != null && key.equals(k);
+		}
+		
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			if (value == null) {
+				return Collections.emptySet();
+			}
+			return Collections.singleton(new AbstractMap.SimpleImmutableEntry<String, Object>(key,
+				value));
+		}
+	}
+	
+	/**
+	 * Tests the basic condition (on this column field) against the candidate rows,
+	 * and returns the matching rows.
+	 *
+	 * The condition must only depend on the field value, which is the case for
+	 * the basic conditions on a plain field name (that is not a `_key` / `_val` wildcard).
+	 *
+	 * @param  condition to test
+	 * @param  argMap    argument map to test with
+	 * @param  candidates row id's to test
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	public BitSet filter(Query condition, Map<String, Object> argMap, BitSet candidates) {
+		Predicate<Object> test = condition.compile(argMap);
+		ValueMap map = new ValueMap(fieldName);
+		BitSet ret = new BitSet();
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			map.value = get(i);
+			if (test.test(map)) {
+				ret.set(i);
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Maps the values of the selected rows into the aggregation function,
+	 * where missing values are mapped as null.
+	 *
+	 * @param  base      aggregation function to map into
+	 * @param  selection row id's to map
+	 **/
+	public void aggregate(MapReduceBase base, BitSet selection) {
+		for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+			base.mapValue(get(i));
+		}
+	}
+	
+}
@@ -0,0 +1,492 @@
+package picoded.core.struct.query.column;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.condition.And;
+import picoded.core.struct.query.condition.ConditionBase;
+import picoded.core.struct.query.condition.Constant;
+import picoded.core.struct.query.condition.Not;
+import picoded.core.struct.query.condition.Or;
+
+/**
+ * Columnar store of map rows, where the values of each field are stored in a Column,
+ * instead of a map for each row. And rows are presented as lightweight map views.
+ *
+ * ```
+ * ColumnTable table = new ColumnTable();
+ * table.addRow(row);
+ * BitSet matches = table.filter(Query.build("name = ? AND age > ?", new Object[] { "bob", 10 }));
+ * Map<String,Object> first = table.row(matches.nextSetBit(0));
+ * ```
+ *
+ * Queries are evaluated column at a time, where the AND / OR / NOT combinations are
+ * combined as row id sets, and the basic conditions on a plain field name are tested
+ * by the field column. Other conditions (such as nested field paths) are tested row at a time.
+ *
+ * Note that null values are stored as missing values, and integer values are returned as Long
+ * (see LongColumn). Row id's are stable till `compact()` is called.
+ *
+ * Note that this class is not thread safe.
+ **/
+public class ColumnTable {
+	
+	/**
+	 * Columns, by their field name
+	 **/
+	protected Map<String, Column> columns = new LinkedHashMap<String, Column>();
+	
+	/**
+	 * Number of row id's used, including removed rows
+	 **/
+	protected int rowCount = 0;
+	
+	/**
+	 * Row id's which are not removed, and its count
+	 **/
+	protected BitSet liveRows = new BitSet();
+	protected int liveCount = 0;
+	
+	//--------------------------------------------------------------------
+	// Row handling
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  number of rows, excluding removed rows
+	 **/
+	public int size() {
+		return liveCount;
+	}
+	
+	/**
+	 * @return  number of row id's used, including removed rows
+	 **/
+	public int rowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * @return  row id's which are not removed (do not modify)
+	 **/
+	public BitSet liveRows() {
+		return liveRows;
+	}
+	
+	/**
+	 * @param  row id to check
+	 *
+	 * @return  true if the row exists, and is not removed
+	 **/
+	public boolean isLive(int rowId) {
+		return rowId >= 0 && liveRows.get(rowId);
+	}
+	
+	/**
+	 * Adds a row, storing its values into the columns
+	 *
+	 * @param  row to add
+	 *
+	 * @return  row id of the added row
+	 **/
+	public int addRow(Map<String, ?> row) {
+		int rowId = rowCount++;
+		liveRows.set(rowId);
+		++liveCount;
+		for (Map.Entry<String, ?> entry : row.entrySet()) {
+			set(rowId, entry.getKey(), entry.getValue());
+		}
+		return rowId;
+	}
+	
+	/**
+	 * Removes a row, its row id is not reused till compact()
+	 *
+	 * @param  row id to remove
+	 *
+	 * @return  true if the row was removed
+	 **/
+	public boolean removeRow(int rowId) {
+		if (!isLive(rowId)) {
+			return false;
+		}
+		for (Column column : columns.values()) {
+			column.set(rowId, null);
+		}
+		liveRows.clear(rowId);
+		--liveCount;
+		return true;
+	}
+	
+	/**
+	 * Removes all rows
+	 **/
+	public void clear() {
+		columns = new LinkedHashMap<String, Column>();
+		rowCount = 0;
+		liveRows = new BitSet();
+		liveCount = 0;
+	}
+	
+	/**
+	 * Removes the gaps left by removed rows, this changes the row id's,
+	 * where row views obtained before compaction should not be used.
+	 **/
+	public void compact() {
+		if (liveCount == rowCount) {
+			return;
+		}
+		Map<String, Column> oldColumns = columns;
+		BitSet oldLiveRows = liveRows;
+		clear();
+		rowCount = liveCount = oldLiveRows.cardinality();
+		liveRows.set(0, rowCount);
+		
+		// Copy the live row values, column by column
+		for (Column column : oldColumns.values()) {
+			int newId = 0;
+			for (int i = oldLiveRows.nextSetBit(0); i >= 0; i = oldLiveRows.nextSetBit(i + 1)) {
+				set(newId++, column.fieldName(), column.get(i));
+			}
+		}
+	}
+	
+	//--------------------------------------------------------------------
+	// Value handling
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the columns, by their field name
+	 **/
+	public Map<String, Column> columns() {
+		return columns;
+	}
+	
+	/**
+	 * @param  field name of the column
+	 *
+	 * @return  the column, null if the field was never set
+	 **/
+	public Column column(String fieldName) {
+		return columns.get(fieldName);
+	}
+	
+	/**
+	 * Gets the value of a row field
+	 *
+	 * @param  row id to get
+	 * @param  field name to get
+	 *
+	 * @return  the value, null if its missing
+	 **/
+	public Object get(int rowId, String fieldName) {
+		Column column = columns.get(fieldName);
+		return (column == null) ? null : column.get(rowId);
+	}
+	
+	/**
+	 * Sets the value of a row field, replacing the column with an ObjectColumn
+	 * if the value type is not supported by the existing column.
+	 *
+	 * @param  row id to set
+	 * @param  field name to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  the previous value
+	 **/
+	public Object set(int rowId, String fieldName, Object value) {
+		Column column = columns.get(fieldName);
+		if (column == null) {
+			if (value == null) {
+				return null;
+			}
+			column = Column.forValue(fieldName, value);
+			columns.put(fieldName, column);
+		}
+		
+		Object ret = column.get(rowId);
+		if (!column.set(rowId, value)) {
+			column = new ObjectColumn(column, rowCount);
+			column.set(rowId, value);
+			columns.put(fieldName, column);
+		}
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------
+	// Row view
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Map view of a single row, reading and writing directly from the columns
+	 **/
+	public class RowView extends AbstractMap<String, Object> {
+		
+		/**
+		 * The row id of the view
+		 **/
+		protected int rowId;
+		
+		/**
+		 * @param  row id of the view
+		 **/
+		protected RowView(int inRowId) {
+			rowId = inRowId;
+		}
+		
+		/**
+		 * @return  the row id of the view
+		 **/
+		public int rowId() {
+			return rowId;
+		}
+		
+		/**
+		 * @return  the table of the view
+		 **/
+		public ColumnTable table() {
+			return ColumnTable.this;
+		}
+		
+		@Override
+		public Object get(Object key) {
+			return (key instanceof String) ? ColumnTable.this.get(rowId, (String) key) : null;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+		
+		@Override
+		public Object put(String key, Object value) {
+			if (!isLive(rowId)) {
+				throw new IllegalStateException("Row was removed : " + rowId);
+			}
+			return set(rowId, key, value);
+		}
+		
+		@Override
+		public Object remove(Object key) {
+			if (!(key instanceof String) || !columns.containsKey(key)) {
+				return null;
+			}
+			return set(rowId, (String) key, null);
+		}
+		
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return entryIterator();
+				}
+				
+				@Override
+				public int size() {
+					int ret = 0;
+					for (Column column : columns.values()) {
+						if (!column.isNull(rowId)) {
+							++ret;
+						}
+					}
+					return ret;
+				}
+			};
+		}
+		
+		/**
+		 * @return  iterator of the (non null) row values
+		 **/
+		protected Iterator<Map.Entry<String, Object>> entryIterator() {
+			Iterator<Column> iter = columns.values().iterator();
+			return new Iterator<Map.Entry<String, Object>>() {
+				Column next = null;
+				Column last = null;
+				
+				@Override
+				public boolean hasNext() {
+					while (next == null && iter.hasNext()) {
+						Column column = iter.next();
+						if (!column.isNull(rowId)) {
+							next = column;
+						}
+					}
+					return next != null;
+				}
+				
+				@Override
+				public Map.Entry<String, Object> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					last = next;
+					next = null;
+					return new AbstractMap.SimpleImmutableEntry<String, Object>(last.fieldName(),
+						last.get(rowId));
+				}
+				
+				@Override
+				public void remove() {
+					if (last == null) {
+						throw new IllegalStateException();
+					}
+					set(rowId, last.fieldName(), null);
+					last = null;
+				}
+			};
+		}
+	}
+	
+	/**
+	 * @param  row id of the view
+	 *
+	 * @return  map view of the row
+	 **/
+	public RowView row(int rowId) {
+		return new RowView(rowId);
+	}
+	
+	//--------------------------------------------------------------------
+	// Query evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the rows matching the query, evaluated column at a time
+	 *
+	 * @param  query to test, null to match all rows
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	public BitSet filter(Query query) {
+		BitSet candidates = (BitSet) liveRows.clone();
+		if (query == null) {
+			return candidates;
+		}
+		return filter(query, query.defaultArgumentMap(), candidates);
+	}
+	
+	/**
+	 * Gets the rows matching the query, against the given argument map (instead of its default),
+	 * evaluated column at a time
+	 *
+	 * @param  query  to test, null to match all rows
+	 * @param  argMap argument map to test with
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	public BitSet filter(Query query, Map<String, Object> argMap) {
+		BitSet candidates = (BitSet) liveRows.clone();
+		if (query == null) {
+			return candidates;
+		}
+		return filter(query, argMap, candidates);
+	}
+	
+	/**
+	 * Indicates if the basic conditions on the field, can be tested against its column values
+	 * only. This excludes the `this` / `_key` / `_val` fields, and nested field paths.
+	 *
+	 * The blank field name, is used by nested field paths when a field is missing,
+	 * hence its column (if any) also excludes all fields.
+	 *
+	 * @param  field name to check
+	 *
+	 * @return  true if its a plain field name
+	 **/
+	public boolean isColumnField(String fieldName) {
+		if (fieldName == null || fieldName.isEmpty() || "this".equalsIgnoreCase(fieldName)
+			|| "_key".equalsIgnoreCase(fieldName) || "_val".equalsIgnoreCase(fieldName)) {
+			return false;
+		}
+		if (!fieldName.equals(fieldName.trim()) || fieldName.indexOf('.') >= 0
+			|| fieldName.indexOf('[') >= 0 || fieldName.indexOf(']') >= 0) {
+			return false;
+		}
+		return !columns.containsKey("");
+	}
+	
+	/**
+	 * Gets the candidate rows matching the query
+	 *
+	 * @param  query      to test
+	 * @param  argMap     argument map to test with
+	 * @param  candidates row id's to test
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	protected BitSet filter(Query query, Map<String, Object> argMap, BitSet candidates) {
+		if (candidates.isEmpty()) {
+			return new BitSet();
+		}
+		Class<?> queryClass = query.getClass();
+		
+		// Constant TRUE / FALSE
+		if (query instanceof Constant) {
+			return ((Constant) query).value() ? (BitSet) candidates.clone() : new BitSet();
+		}
+		
+		// Combinations, where the blank combination is a failure
+		if (queryClass == And.class || queryClass == Or.class || queryClass == Not.class) {
+			List<Query> children = query.childrenQuery();
+			if (children.isEmpty()) {
+				return new BitSet();
+			}
+			
+			// AND, tests each child against the remaining matches
+			if (queryClass == And.class) {
+				BitSet ret = candidates;
+				for (Query child : children) {
+					ret = filter(child, argMap, ret);
+				}
+				return ret;
+			}
+			
+			// OR / NOT, tests each child against the rows not yet matched
+			BitSet matched = new BitSet();
+			BitSet remaining = (BitSet) candidates.clone();
+			for (Query child : children) {
+				BitSet childMatched = filter(child, argMap, remaining);
+				matched.or(childMatched);
+				remaining.andNot(childMatched);
+			}
+			return (queryClass == Or.class) ? matched : remaining;
+		}
+		
+		// Basic condition, on a column field
+		if (query instanceof ConditionBase && isColumnField(query.fieldName())) {
+			Column column = columns.get(query.fieldName());
+			if (column != null) {
+				return column.filter(query, argMap, candidates);
+			}
+			
+			// Field without any values
+			if (query.compile(argMap).test(Collections.emptyMap())) {
+				return (BitSet) candidates.clone();
+			}
+			return new BitSet();
+		}
+		
+		// Fallback to testing the row views
+		Predicate<Object> test = query.compile(argMap);
+		RowView row = new RowView(0);
+		BitSet ret = new BitSet();
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			row.rowId = i;
+			if (test.test(row)) {
+				ret.set(i);
+			}
+		}
+		return ret;
+	}
+	
+}
@@ -0,0 +1,101 @@
+package picoded.core.struct.query.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Column of Double values, stored as a primitive double array.
+ *
+ * Float values are not included, as their string representation (used in some
+ * comparisons and conversions) differs from their double value.
+ **/
+public class DoubleColumn extends NumericColumn {
+	
+	/**
+	 * Values by their row id, of the rows with a value
+	 **/
+	protected double[] values = new double[16];
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public DoubleColumn(String inFieldName) {
+		super(inFieldName);
+	}
+	
+	//--------------------------------------------------------------------
+	// Value storage
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @param  row id to get
+	 *
+	 * @return  the value as a Double, null if its missing
+	 **/
+	@Override
+	public Object get(int rowId) {
+		return present.get(rowId) ? Double.valueOf(values[rowId]) : null;
+	}
+	
+	@Override
+	protected double doubleValue(int rowId) {
+		return values[rowId];
+	}
+	
+	/**
+	 * Sets the value of the row, if its a Double
+	 *
+	 * @param  row id to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  false, if the value type is not supported
+	 **/
+	@Override
+	public boolean set(int rowId, Object value) {
+		if (value == null) {
+			present.clear(rowId);
+			return true;
+		}
+		if (!(value instanceof Double)) {
+			return false;
+		}
+		if (rowId >= values.length) {
+			values = Arrays.copyOf(values, Math.max(rowId + 1, values.length * 2));
+		}
+		values[rowId] = ((Double) value).doubleValue();
+		present.set(rowId);
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		values = new double[16];
+		present = new BitSet();
+	}
+	
+	//--------------------------------------------------------------------
+	// Column at a time evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Maps the primitive values of the selected rows into the aggregation function
+	 *
+	 * @param  base      aggregation function to map into
+	 * @param  selection row id's to map
+	 **/
+	@Override
+	public void aggregate(MapReduceBase base, BitSet selection) {
+		for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+			if (present.get(i)) {
+				base.mapDouble(values[i]);
+			} else {
+				base.mapValue(null);
+			}
+		}
+	}
+	
+}
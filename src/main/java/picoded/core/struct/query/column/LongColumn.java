@@ -0,0 +1,119 @@
+package picoded.core.struct.query.column;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Column of Long / Integer / Short / Byte values, stored as a primitive long array.
+ *
+ * Note that all values are returned as Long, regardless of the integer type they were set with.
+ **/
+public class LongColumn extends NumericColumn {
+	
+	/**
+	 * Values by their row id, of the rows with a value
+	 **/
+	protected long[] values = new long[16];
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public LongColumn(String inFieldName) {
+		super(inFieldName);
+	}
+	
+	/**
+	 * @param  value to check
+	 *
+	 * @return  true if the value can be stored as a long
+	 **/
+	public static boolean isSupported(Object value) {
+		return value instanceof Long || value instanceof Integer || value instanceof Short
+			|| value instanceof Byte;
+	}
+	
+	//--------------------------------------------------------------------
+	// Value storage
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @param  row id to get
+	 *
+	 * @return  the value as a Long, null if its missing
+	 **/
+	@Override
+	public Object get(int rowId) {
+		return present.get(rowId) ? Long.valueOf(values[rowId]) : null;
+	}
+	
+	/**
+	 * @param  row id to get, which must have a value
+	 *
+	 * @return  the primitive value
+	 **/
+	public long longValue(int rowId) {
+		return values[rowId];
+	}
+	
+	@Override
+	protected double doubleValue(int rowId) {
+		return values[rowId];
+	}
+	
+	/**
+	 * Sets the value of the row, if its a Long / Integer / Short / Byte
+	 *
+	 * @param  row id to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  false, if the value type is not supported
+	 **/
+	@Override
+	public boolean set(int rowId, Object value) {
+		if (value == null) {
+			present.clear(rowId);
+			return true;
+		}
+		if (!isSupported(value)) {
+			return false;
+		}
+		if (rowId >= values.length) {
+			values = Arrays.copyOf(values, Math.max(rowId + 1, values.length * 2));
+		}
+		values[rowId] = ((Number) value).longValue();
+		present.set(rowId);
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		values = new long[16];
+		present = new BitSet();
+	}
+	
+	//--------------------------------------------------------------------
+	// Column at a time evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Maps the primitive values of the selected rows into the aggregation function
+	 *
+	 * @param  base      aggregation function to map into
+	 * @param  selection row id's to map
+	 **/
+	@Override
+	public void aggregate(MapReduceBase base, BitSet selection) {
+		for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+			if (present.get(i)) {
+				base.mapLong(values[i]);
+			} else {
+				base.mapValue(null);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,191 @@
+package picoded.core.struct.query.column;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import picoded.core.conv.NestedObjectFetch;
+import picoded.core.struct.query.CompareUtils;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.condition.Between;
+import picoded.core.struct.query.condition.Equals;
+import picoded.core.struct.query.condition.IsNotNull;
+import picoded.core.struct.query.condition.IsNull;
+import picoded.core.struct.query.condition.LessThan;
+import picoded.core.struct.query.condition.LessThanOrEquals;
+import picoded.core.struct.query.condition.MoreThan;
+import picoded.core.struct.query.condition.MoreThanOrEquals;
+import picoded.core.struct.query.condition.NotEquals;
+
+/**
+ * Column of primitive number values, with a bitmap of the non null rows.
+ *
+ * Comparison conditions are evaluated on the primitive values, in the same way as
+ * CompareUtils.dynamicCompare of a number field value. That is the double value
+ * comparison against the argument number value, where a non numeric argument
+ * is always smaller than the field value.
+ **/
+public abstract class NumericColumn extends Column {
+	
+	/**
+	 * Rows with a (non null) value
+	 **/
+	protected BitSet present = new BitSet();
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public NumericColumn(String inFieldName) {
+		super(inFieldName);
+	}
+	
+	/**
+	 * @param  row id to get, which must have a value
+	 *
+	 * @return  the row value, as a double
+	 **/
+	protected abstract double doubleValue(int rowId);
+	
+	/**
+	 * @param  row id to check
+	 *
+	 * @return  true if the row value is missing
+	 **/
+	@Override
+	public boolean isNull(int rowId) {
+		return !present.get(rowId);
+	}
+	
+	/**
+	 * @return  rows with a (non null) value
+	 **/
+	public BitSet present() {
+		return present;
+	}
+	
+	//--------------------------------------------------------------------
+	// Column at a time evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the argument values of a basic condition, in the argument names order
+	 *
+	 * @param  condition to get the values of
+	 * @param  argMap    argument map to get the values from
+	 *
+	 * @return  argument values
+	 **/
+	protected static Object[] argumentValues(Query condition, Map<String, Object> argMap) {
+		String[] names = condition.argumentNames();
+		Object[] ret = new Object[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			if (argMap != null && names[i] != null) {
+				ret[i] = NestedObjectFetch.fetchObject(argMap, names[i], null);
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Compares the field value against the argument, as per CompareUtils.dynamicCompare
+	 *
+	 * @param  value of the field
+	 * @param  arg   number value of the argument, null if its not numeric
+	 *
+	 * @return  -1, 0, or 1 as the value is less than, equal to, or greater than the argument
+	 **/
+	protected static int compare(double value, Number arg) {
+		if (arg == null) {
+			return 1;
+		}
+		return Double.compare(value, arg.doubleValue());
+	}
+	
+	/**
+	 * Tests the comparison result, for the condition type
+	 *
+	 * @param  type of the comparison condition
+	 * @param  compare result
+	 *
+	 * @return  true if the condition passes
+	 **/
+	protected static boolean testCompare(QueryType type, int diff) {
+		switch (type) {
+			case EQUALS:
+				return diff == 0;
+			case NOT_EQUALS:
+				return diff != 0;
+			case LESS_THAN:
+				return diff < 0;
+			case LESS_THAN_OR_EQUALS:
+				return diff <= 0;
+			case MORE_THAN:
+				return diff > 0;
+			default:
+				return diff >= 0;
+		}
+	}
+	
+	/**
+	 * Tests the basic condition against the candidate rows, with the primitive values
+	 * for the IS NULL, IS NOT NULL, and comparison conditions.
+	 *
+	 * @param  condition to test
+	 * @param  argMap    argument map to test with
+	 * @param  candidates row id's to test
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	@Override
+	public BitSet filter(Query condition, Map<String, Object> argMap, BitSet candidates) {
+		Class<?> conditionClass = condition.getClass();
+		BitSet rows = (BitSet) candidates.clone();
+		
+		// Missing values
+		if (conditionClass == IsNull.class) {
+			rows.andNot(present);
+			return rows;
+		}
+		rows.and(present);
+		if (conditionClass == IsNotNull.class) {
+			return rows;
+		}
+		
+		// Comparison against the argument values, where null arguments always fails
+		boolean isBetween = (conditionClass == Between.class);
+		if (!(isBetween || conditionClass == Equals.class || conditionClass == NotEquals.class
+			|| conditionClass == LessThan.class || conditionClass == LessThanOrEquals.class
+			|| conditionClass == MoreThan.class || conditionClass == MoreThanOrEquals.class)) {
+			return super.filter(condition, argMap, candidates);
+		}
+		Object[] args = argumentValues(condition, argMap);
+		for (Object arg : args) {
+			if (arg == null) {
+				return new BitSet();
+			}
+		}
+		
+		BitSet ret = new BitSet();
+		Number arg = CompareUtils.objectToNumberIfPossible(args[0]);
+		if (isBetween) {
+			Number upper = CompareUtils.objectToNumberIfPossible(args[1]);
+			for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+				double value = doubleValue(i);
+				if (compare(value, arg) >= 0 && compare(value, upper) <= 0) {
+					ret.set(i);
+				}
+			}
+		} else {
+			QueryType type = condition.type();
+			for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+				if (testCompare(type, compare(doubleValue(i), arg))) {
+					ret.set(i);
+				}
+			}
+		}
+		return ret;
+	}
+	
+}
@@ -0,0 +1,77 @@
+package picoded.core.struct.query.column;
+
+import java.util.Arrays;
+
+/**
+ * Column of any value type, stored as an object array.
+ *
+ * Used for values without a primitive column (such as nested maps, or booleans),
+ * or a column with mixed value types.
+ **/
+public class ObjectColumn extends Column {
+	
+	/**
+	 * Values by their row id, null for missing values
+	 **/
+	protected Object[] values = new Object[16];
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public ObjectColumn(String inFieldName) {
+		super(inFieldName);
+	}
+	
+	/**
+	 * Constructor, with the values of another column
+	 *
+	 * @param  column to copy the values of
+	 * @param  rowCount number of rows to copy
+	 **/
+	public ObjectColumn(Column column, int rowCount) {
+		super(column.fieldName());
+		values = new Object[Math.max(rowCount, 16)];
+		for (int i = 0; i < rowCount; ++i) {
+			values[i] = column.get(i);
+		}
+	}
+	
+	//--------------------------------------------------------------------
+	// Value storage
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @param  row id to get
+	 *
+	 * @return  the value, null if its missing
+	 **/
+	@Override
+	public Object get(int rowId) {
+		return (rowId < values.length) ? values[rowId] : null;
+	}
+	
+	/**
+	 * Sets the value of the row, all value types are supported
+	 *
+	 * @param  row id to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  true
+	 **/
+	@Override
+	public boolean set(int rowId, Object value) {
+		if (rowId >= values.length) {
+			values = Arrays.copyOf(values, Math.max(rowId + 1, values.length * 2));
+		}
+		values[rowId] = value;
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		values = new Object[16];
+	}
+	
+}
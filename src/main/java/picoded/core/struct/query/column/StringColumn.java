@@ -0,0 +1,171 @@
+package picoded.core.struct.query.column;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.Query;
+
+/**
+ * Dictionary encoded column of String values, where each distinct string is stored once,
+ * and each row stores the int code of its value (-1 for missing values).
+ *
+ * Conditions are tested once per distinct value, instead of once per row.
+ **/
+public class StringColumn extends Column {
+	
+	/**
+	 * Value codes by their row id, -1 for missing values
+	 **/
+	protected int[] codes = newCodes(16);
+	
+	/**
+	 * Distinct values, by their code
+	 **/
+	protected List<String> dictionary = new ArrayList<String>();
+	
+	/**
+	 * Distinct values, to their code
+	 **/
+	protected Map<String, Integer> codeMap = new HashMap<String, Integer>();
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name of the column
+	 **/
+	public StringColumn(String inFieldName) {
+		super(inFieldName);
+	}
+	
+	/**
+	 * @param  length of the code array
+	 *
+	 * @return  code array, filled with -1
+	 **/
+	protected static int[] newCodes(int length) {
+		int[] ret = new int[length];
+		Arrays.fill(ret, -1);
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------
+	// Value storage
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @param  row id to get
+	 *
+	 * @return  the value, null if its missing
+	 **/
+	@Override
+	public Object get(int rowId) {
+		int code = (rowId < codes.length) ? codes[rowId] : -1;
+		return (code < 0) ? null : dictionary.get(code);
+	}
+	
+	/**
+	 * @param  row id to get
+	 *
+	 * @return  the value code, -1 if its missing
+	 **/
+	public int code(int rowId) {
+		return (rowId < codes.length) ? codes[rowId] : -1;
+	}
+	
+	/**
+	 * @return  number of distinct values
+	 **/
+	public int distinctCount() {
+		return dictionary.size();
+	}
+	
+	/**
+	 * Sets the value of the row, if its a String
+	 *
+	 * @param  row id to set
+	 * @param  value to set, null to remove the value
+	 *
+	 * @return  false, if the value type is not supported
+	 **/
+	@Override
+	public boolean set(int rowId, Object value) {
+		if (value != null && !(value instanceof String)) {
+			return false;
+		}
+		if (rowId >= codes.length) {
+			int oldLength = codes.length;
+			codes = Arrays.copyOf(codes, Math.max(rowId + 1, oldLength * 2));
+			Arrays.fill(codes, oldLength, codes.length, -1);
+		}
+		if (value == null) {
+			codes[rowId] = -1;
+			return true;
+		}
+		
+		// Get the value code, adding it to the dictionary if needed
+		Integer code = codeMap.get(value);
+		if (code == null) {
+			code = dictionary.size();
+			dictionary.add((String) value);
+			codeMap.put((String) value, code);
+		}
+		codes[rowId] = code;
+		return true;
+	}
+	
+	@Override
+	public void clear() {
+		codes = newCodes(16);
+		dictionary = new ArrayList<String>();
+		codeMap = new HashMap<String, Integer>();
+	}
+	
+	//--------------------------------------------------------------------
+	// Column at a time evaluation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Tests the basic condition against the candidate rows,
+	 * where the condition is tested once for each distinct value (as it is first seen).
+	 *
+	 * @param  condition to test
+	 * @param  argMap    argument map to test with
+	 * @param  candidates row id's to test
+	 *
+	 * @return  new set of the matching row id's
+	 **/
+	@Override
+	public BitSet filter(Query condition, Map<String, Object> argMap, BitSet candidates) {
+		Predicate<Object> test = condition.compile(argMap);
+		ValueMap map = new ValueMap(fieldName);
+		
+		// Result of the missing value, and each distinct value (0 for untested)
+		boolean nullResult = test.test(map);
+		byte[] results = new byte[dictionary.size()];
+		
+		BitSet ret = new BitSet();
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			int code = (i < codes.length) ? codes[i] : -1;
+			boolean match;
+			if (code < 0) {
+				match = nullResult;
+			} else {
+				if (results[code] == 0) {
+					map.value = dictionary.get(code);
+					results[code] = test.test(map) ? (byte) 1 : (byte) 2;
+				}
+				match = (results[code] == 1);
+			}
+			if (match) {
+				ret.set(i);
+			}
+		}
+		return ret;
+	}
+	
+}
@@ -0,0 +1,5 @@
+/**
+ * Columnar storage of map rows, where each field is stored as a primitive / dictionary
+ * encoded column, and queries and aggregations are evaluated column at a time.
+ **/
+package picoded.core.struct.query.column;
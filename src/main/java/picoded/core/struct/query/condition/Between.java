@@ -0,0 +1,161 @@
+package picoded.core.struct.query.condition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import picoded.core.struct.query.CompareUtils;
+import picoded.core.struct.query.QueryType;
+
+/**
+ * SQL BETWEEN condition, where the field value is within the lower and upper values (inclusive).
+ *
+ * This is the same result as `field >= :lower AND field <= :upper`, done as a single range check.
+ * Where null values, on either side, always fails the test.
+ **/
+public class Between extends ConditionBase {
+	
+	/**
+	 * The upper bound argument name, the lower bound being the argument name
+	 **/
+	protected String _upperArgName = null;
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constructor with the field name, and default arguments
+	 *
+	 * @param   default field to test
+	 * @param   default lower bound argument name
+	 * @param   default upper bound argument name
+	 * @param   default argument map to get test values
+	 **/
+	public Between(String field, String lowerArgName, String upperArgName,
+		Map<String, Object> defaultArgMap) {
+		super(field, lowerArgName, defaultArgMap);
+		_upperArgName = upperArgName;
+	}
+	
+	//
+	// Required overwrites
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets both the lower and upper bound values
+	 *
+	 * @param   argument map to get the values from
+	 * @param   ignored, as both argument names are used
+	 *
+	 * @return  array of the lower and upper bound value
+	 **/
+	@Override
+	protected Object getArgumentValue(Map<String, Object> argMap, String argName) {
+		return new Object[] { super.getArgumentValue(argMap, _argName),
+			super.getArgumentValue(argMap, _upperArgName) };
+	}
+	
+	/**
+	 * Tests if the field value is within the bounds
+	 *
+	 * @param   the object to test against
+	 * @param   array of the lower and upper bound value
+	 *
+	 * @return  boolean indicating success or failure
+	 **/
+	@Override
+	protected boolean testValues(Object fieldValue, Object argValue) {
+		if (fieldValue == null || !(argValue instanceof Object[])) {
+			return false;
+		}
+		Object[] bounds = (Object[]) argValue;
+		if (bounds[0] == null || bounds[1] == null) {
+			return false;
+		}
+		return CompareUtils.dynamicCompare(fieldValue, bounds[0]) >= 0
+			&& CompareUtils.dynamicCompare(fieldValue, bounds[1]) <= 0;
+	}
+	
+	/**
+	 * Compiles the value test, against fixed bound values
+	 *
+	 * @param   array of the lower and upper bound value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		if (!(argValue instanceof Object[])) {
+			return (fieldValue) -> false;
+		}
+		Object[] bounds = (Object[]) argValue;
+		if (bounds[0] == null || bounds[1] == null) {
+			return (fieldValue) -> false;
+		}
+		ToIntFunction<Object> lower = CompareUtils.compileDynamicCompare(bounds[0]);
+		ToIntFunction<Object> upper = CompareUtils.compileDynamicCompare(bounds[1]);
+		return (fieldValue) -> fieldValue != null && lower.applyAsInt(fieldValue) >= 0
+			&& upper.applyAsInt(fieldValue) <= 0;
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the lower and upper bound argument names
+	 **/
+	@Override
+	public String[] argumentNames() {
+		return new String[] { _argName, _upperArgName };
+	}
+	
+	/**
+	 * Gets the upper bound argument name
+	 **/
+	public String upperArgumentName() {
+		return _upperArgName;
+	}
+	
+	/**
+	 * The operator symbol support
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return "BETWEEN";
+	}
+	
+	/**
+	 * Gets the query type
+	 **/
+	@Override
+	public QueryType type() {
+		return QueryType.BETWEEN;
+	}
+	
+	/**
+	 * The query string
+	 **/
+	@Override
+	public String toString() {
+		return "\"" + fieldName() + "\" " + operatorSymbol() + " :" + _argName + " AND :"
+			+ _upperArgName;
+	}
+	
+	/**
+	 * Extract out the respective query keys, and both bound values
+	 **/
+	@Override
+	public Map<String, List<Object>> keyValuesMap(Map<String, List<Object>> mapToReturn) {
+		if (mapToReturn.get(_fieldName) == null) {
+			mapToReturn.put(_fieldName, new ArrayList<Object>());
+		}
+		mapToReturn.get(_fieldName).add((_argMap != null) ? _argMap.get(_argName) : null);
+		mapToReturn.get(_fieldName).add((_argMap != null) ? _argMap.get(_upperArgName) : null);
+		return mapToReturn;
+	}
+	
+}
@@ -3,6 +3,7 @@ package picoded.core.struct.query.condition;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import picoded.core.struct.query.Query;
 import picoded.core.struct.query.QueryType;
@@ -28,9 +29,13 @@ public class CombinationBase implements Query {
 	protected List<Query> _children = null;
 	
 	/**
-	 * The constructed argument map
+	 * The constructed (default) argument map, used by test(Object) and compile().
+	 *
+	 * This is never modified by the query, nor replaced after construction. Other argument
+	 * values are bound per call instead, with test(Object, Map) or compile(Map),
+	 * such that a single query can be safely used across threads with different arguments.
 	 **/
-	protected Map<String, Object> _argMap = null;
+	protected final Map<String, Object> _argMap;
 	
 	//
 	// Constructor Setup
@@ -110,6 +115,112 @@ public class CombinationBase implements Query {
 		return result;
 	}
 	
+	//
+	// Query compilation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compiles the query against its cached argument map
+	 *
+	 * @return  Predicate equivalent to test(Object)
+	 **/
+	@Override
+	public Predicate<Object> compile() {
+		return compile(_argMap);
+	}
+	
+	/**
+	 * Compiles the query against the specified value map.
+	 *
+	 * Nested combinations of the same class, such as And(And(a,b),c),
+	 * are flattened into a single combination of their compiled children.
+	 *
+	 * @param   the argument map, if applicable
+	 *
+	 * @return  Predicate equivalent to test(Object, argMap)
+	 **/
+	@Override
+	public Predicate<Object> compile(Map<String, Object> argMap) {
+		List<Predicate<Object>> compiledChildren = new ArrayList<Predicate<Object>>();
+		compileChildren(this, argMap, compiledChildren);
+		
+		// Generic arrays cannot be created directly, the raw array only holds Predicate<Object>
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Predicate<Object>[] childArr = compiledChildren.toArray(new Predicate[compiledChildren
+			.size()]);
+		return compileCombination(childArr);
+	}
+	
+	/**
+	 * Compiles the children of the given combination, flattening nested combinations
+	 * of the same class (and which are not blank) into the return list.
+	 *
+	 * @param   combination to compile the children of
+	 * @param   the argument map, if applicable
+	 * @param   list of compiled children to append into
+	 **/
+	protected void compileChildren(Query combination, Map<String, Object> argMap,
+		List<Predicate<Object>> ret) {
+		for (Query child : combination.childrenQuery()) {
+			if (isFlattenable(child)) {
+				compileChildren(child, argMap, ret);
+			} else {
+				ret.add(child.compile(argMap));
+			}
+		}
+	}
+	
+	/**
+	 * Indicates if the child combination can be flattened into the current combination.
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   child query to check
+	 *
+	 * @return  true if the child is a non blank combination of the same class
+	 **/
+	protected boolean isFlattenable(Query child) {
+		return child.getClass() == getClass() && !child.childrenQuery().isEmpty();
+	}
+	
+	/**
+	 * Combines the compiled children into a single predicate.
+	 * This is the compiled equivalent of test, and is an AND operation by default.
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   compiled children predicates
+	 *
+	 * @return  combined predicate
+	 **/
+	protected Predicate<Object> compileCombination(Predicate<Object>[] children) {
+		// Blank combination is a failure
+		if (children.length == 0) {
+			return (t) -> false;
+		}
+		
+		// Single child, is the child itself
+		if (children.length == 1) {
+			return children[0];
+		}
+		
+		// Common two children case, without the iteration loop
+		if (children.length == 2) {
+			Predicate<Object> left = children[0];
+			Predicate<Object> right = children[1];
+			return (t) -> left.test(t) && right.test(t);
+		}
+		
+		return (t) -> {
+			for (Predicate<Object> child : children) {
+				if (!child.test(t)) {
+					return false; //breaks and return false on first failure
+				}
+			}
+			return true;
+		};
+	}
+	
 	//
 	// Public accessors
 	//--------------------------------------------------------------------
@@ -140,6 +251,14 @@ public class CombinationBase implements Query {
 		return _children;
 	}
 	
+	/**
+	 * Gets the default argument map
+	 **/
+	@Override
+	public Map<String, Object> defaultArgumentMap() {
+		return _argMap;
+	}
+	
 	//
 	// String handling
 	//--------------------------------------------------------------------
@@ -3,12 +3,16 @@ package picoded.core.struct.query.condition;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 import picoded.core.conv.NestedObjectFetch;
+import picoded.core.conv.NestedObjectPath;
 import picoded.core.conv.GenericConvert;
+import picoded.core.struct.query.CompareUtils;
 import picoded.core.struct.query.Query;
 import picoded.core.struct.query.QueryType;
-import picoded.core.struct.query.internal.QueryUtils;
 
 /**
  * Acts as the base for all conditional types,
@@ -29,14 +33,22 @@ public class ConditionBase implements Query {
 	 * The field name, this/null is reserved to refering to itself
 	 **/
 	protected String _fieldName = null;
+	/**
+	 * The compiled field path, used to fetch nested field values (such as `a.b[2].c`)
+	 **/
+	protected NestedObjectPath _fieldPath = null;
 	/**
 	 * The constructed argument name
 	 **/
 	protected String _argName = null;
 	/**
-	 * The constructed argument map
+	 * The constructed (default) argument map, used by test(Object) and compile().
+	 *
+	 * This is never modified by the query, nor replaced after construction. Other argument
+	 * values are bound per call instead, with test(Object, Map) or compile(Map),
+	 * such that a single query can be safely used across threads with different arguments.
 	 **/
-	protected Map<String, Object> _argMap = null;
+	protected final Map<String, Object> _argMap;
 	
 	//
 	// Constructor Setup
@@ -51,6 +63,7 @@ public class ConditionBase implements Query {
 	 **/
 	public ConditionBase(String field, String argName, Map<String, Object> defaultArgMap) {
 		_fieldName = field;
+		_fieldPath = NestedObjectPath.compile(field);
 		_argName = argName;
 		_argMap = defaultArgMap;
 	}
@@ -59,6 +72,20 @@ public class ConditionBase implements Query {
 	// Core protected functions
 	//--------------------------------------------------------------------
 	
+	/**
+	 * Gets the field value to test, this/null refers to the object itself
+	 *
+	 * @param   object to extract out the field value
+	 *
+	 * @return  The extracted object
+	 **/
+	protected Object getFieldValue(Object t) {
+		if (_fieldName == null || "this".equalsIgnoreCase(_fieldName)) {
+			return t;
+		}
+		return _fieldPath.fetch(t);
+	}
+	
 	/**
 	 * Gets the arg value to test
 	 *
@@ -139,9 +166,9 @@ public class ConditionBase implements Query {
 			}
 		}
 		
-		//System.out.println("> "+ QueryUtils.getFieldValue(t, _fieldName) +" = "+argValue);
+		//System.out.println("> "+ getFieldValue(t) +" = "+argValue);
 		// Get the target value to test, and test it
-		return testValues(QueryUtils.getFieldValue(t, _fieldName), argValue);
+		return testValues(getFieldValue(t), argValue);
 	}
 	
 	//
@@ -176,6 +203,107 @@ public class ConditionBase implements Query {
 		return getAndTestFieldValue(t, argMap);
 	}
 	
+	//
+	// Query compilation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Compiles the value test, against a fixed argument value.
+	 * This is the compiled equivalent of testValues
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   the argument actual value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		return (fieldValue) -> testValues(fieldValue, argValue);
+	}
+	
+	/**
+	 * Compiles a CompareUtils.dynamicCompare based value test, against a fixed argument value.
+	 * Where null values, on either side, always fails the test.
+	 *
+	 * @param   the argument actual value
+	 * @param   test to apply on the dynamicCompare result
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	protected Predicate<Object> compileCompareTest(Object argValue, IntPredicate compareResultTest) {
+		if (argValue == null) {
+			return (fieldValue) -> false;
+		}
+		ToIntFunction<Object> compare = CompareUtils.compileDynamicCompare(argValue);
+		return (fieldValue) -> fieldValue != null
+			&& compareResultTest.test(compare.applyAsInt(fieldValue));
+	}
+	
+	/**
+	 * Compiles the query against its cached argument map
+	 *
+	 * @return  Predicate equivalent to test(Object)
+	 **/
+	@Override
+	public Predicate<Object> compile() {
+		return compile(_argMap);
+	}
+	
+	/**
+	 * Compiles the query against the specified value map,
+	 * this is the compiled equivalent of getAndTestFieldValue
+	 *
+	 * @param   the argument map, if applicable
+	 *
+	 * @return  Predicate equivalent to test(Object, argMap)
+	 **/
+	@Override
+	@SuppressWarnings("unchecked")
+	public Predicate<Object> compile(Map<String, Object> argMap) {
+		
+		// Argument value, and its value test
+		Predicate<Object> valueTest = compileValueTest(getArgumentValue(argMap, _argName));
+		
+		// Wildcard search across all keys
+		if ("_key".equalsIgnoreCase(_fieldName)) {
+			return (t) -> {
+				if (t instanceof Map) {
+					for (Object key : ((Map<Object, Object>) t).keySet()) {
+						if (valueTest.test(key)) {
+							return true;
+						}
+					}
+					return false;
+				}
+				return valueTest.test(null);
+			};
+		}
+		
+		// Wildcard search across all values
+		if ("_val".equalsIgnoreCase(_fieldName)) {
+			return (t) -> {
+				if (t instanceof Map) {
+					for (Object val : ((Map<Object, Object>) t).values()) {
+						if (valueTest.test(val)) {
+							return true;
+						}
+					}
+					return false;
+				}
+				return valueTest.test(null);
+			};
+		}
+		
+		// Self refrencing field
+		if (_fieldName == null || "this".equalsIgnoreCase(_fieldName)) {
+			return valueTest;
+		}
+		
+		// Standard (possibly nested) field value extraction
+		final NestedObjectPath fieldPath = _fieldPath;
+		return (t) -> valueTest.test(fieldPath.fetch(t));
+	}
+	
 	//
 	// Public accessors
 	//--------------------------------------------------------------------
@@ -0,0 +1,143 @@
+package picoded.core.struct.query.condition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+/**
+ * Constant TRUE / FALSE query, which matches every (or no) object.
+ *
+ * This is used by Query.optimize(), to represent an always true / false subtree.
+ * And can be parsed from the `TRUE` and `FALSE` query string tokens.
+ **/
+public class Constant implements Query {
+	
+	/**
+	 * Constant query, which matches every object
+	 **/
+	public static final Constant TRUE = new Constant(true);
+	
+	/**
+	 * Constant query, which matches no object
+	 **/
+	public static final Constant FALSE = new Constant(false);
+	
+	/**
+	 * Gets the constant query of the given value
+	 *
+	 * @param   the constant value
+	 *
+	 * @return  TRUE or FALSE constant query
+	 **/
+	public static Constant of(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constant value
+	 **/
+	protected final boolean _value;
+	
+	/**
+	 * Protected constructor, use TRUE / FALSE instead
+	 *
+	 * @param   the constant value
+	 **/
+	protected Constant(boolean value) {
+		_value = value;
+	}
+	
+	/**
+	 * @return  the constant value
+	 **/
+	public boolean value() {
+		return _value;
+	}
+	
+	//
+	// Public test functions
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @param   the object to test against (ignored)
+	 *
+	 * @return  the constant value
+	 **/
+	@Override
+	public boolean test(Object t) {
+		return _value;
+	}
+	
+	/**
+	 * @param   the object to test against (ignored)
+	 * @param   the argument map (ignored)
+	 *
+	 * @return  the constant value
+	 **/
+	@Override
+	public boolean test(Object t, Map<String, Object> argMap) {
+		return _value;
+	}
+	
+	/**
+	 * @return  Predicate of the constant value
+	 **/
+	@Override
+	public Predicate<Object> compile() {
+		return _value ? (t) -> true : (t) -> false;
+	}
+	
+	/**
+	 * @param   the argument map (ignored)
+	 *
+	 * @return  Predicate of the constant value
+	 **/
+	@Override
+	public Predicate<Object> compile(Map<String, Object> argMap) {
+		return compile();
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the query type
+	 **/
+	@Override
+	public QueryType type() {
+		return _value ? QueryType.TRUE : QueryType.FALSE;
+	}
+	
+	/**
+	 * The operator symbol support
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return _value ? "TRUE" : "FALSE";
+	}
+	
+	/**
+	 * The query string
+	 **/
+	@Override
+	public String toString() {
+		return operatorSymbol();
+	}
+	
+	/**
+	 * Constant queries has no query keys, or values
+	 **/
+	@Override
+	public Map<String, List<Object>> keyValuesMap(Map<String, List<Object>> mapToReturn) {
+		return mapToReturn;
+	}
+	
+}
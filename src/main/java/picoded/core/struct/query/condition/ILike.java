@@ -0,0 +1,61 @@
+package picoded.core.struct.query.condition;
+
+import java.util.Map;
+
+import picoded.core.struct.query.QueryType;
+
+/**
+ * Case insensitive varient of the SQL LIKE condition
+ **/
+public class ILike extends Like {
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constructor with the field name, and default argument
+	 *
+	 * @param   default field to test
+	 * @param   default argument name to test against
+	 * @param   default argument map to get test value
+	 **/
+	public ILike(String field, String argName, Map<String, Object> defaultArgMap) {
+		super(field, argName, defaultArgMap);
+	}
+	
+	//
+	// Required overwrites
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Indicates if the pattern match is case insensitive
+	 *
+	 * @return  true
+	 **/
+	@Override
+	protected boolean isIgnoreCase() {
+		return true;
+	}
+	
+	/**
+	 * The operator symbol support
+	 *
+	 * [to override on extension]
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return "ILIKE";
+	}
+	
+	/**
+	 * Gets the query type
+	 *
+	 * [to override on extension]
+	 **/
+	@Override
+	public QueryType type() {
+		return QueryType.ILIKE;
+	}
+	
+}
@@ -0,0 +1,354 @@
+package picoded.core.struct.query.condition;
+
+import java.lang.reflect.Array;
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.CompareUtils;
+import picoded.core.struct.query.QueryType;
+
+/**
+ * SQL IN condition, where the field value equals any of the argument values.
+ *
+ * The argument values are prebuilt into hash sets, so that each test is a hash lookup,
+ * instead of an OR chain of Equals conditions. With the same result as the OR chain,
+ * where values are compared using CompareUtils.dynamicCompare, and null values never match.
+ *
+ * Collection and array argument values are expanded into their elements,
+ * as such `field IN ?` can be used with a single list argument.
+ *
+ * Note that the argument values are expected not to be modified while the query is in use.
+ **/
+public class In extends ConditionBase {
+	
+	/**
+	 * The argument names, of each value
+	 **/
+	protected String[] _argNames = null;
+	
+	/**
+	 * The last value set, reused for the same argument values
+	 **/
+	protected volatile ValueSet lastValueSet = null;
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constructor with the field name, and default arguments
+	 *
+	 * @param   default field to test
+	 * @param   default argument names to test against
+	 * @param   default argument map to get test values
+	 **/
+	public In(String field, String[] argNames, Map<String, Object> defaultArgMap) {
+		super(field, (argNames.length > 0) ? argNames[0] : null, defaultArgMap);
+		_argNames = argNames;
+	}
+	
+	//
+	// Value set
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Hash set of the argument values, matching the same values as CompareUtils.dynamicCompare == 0
+	 *
+	 * + String field values, match String arguments by their collation key.
+	 * + All other values match by their numeric value, if either side is numeric,
+	 *   else the collation key of its string value.
+	 **/
+	public static class ValueSet {
+		
+		/**
+		 * The raw argument values, used to check if the set can be reused
+		 **/
+		protected final Object[] arguments;
+		
+		/**
+		 * The expanded non null values
+		 **/
+		protected final List<Object> values = new ArrayList<Object>();
+		
+		/**
+		 * String values, used when all String values are ASCII alphanumeric,
+		 * where collation equality is the same as String equality
+		 **/
+		protected final Set<String> asciiStrings = new HashSet<String>();
+		protected boolean allAsciiStrings = true;
+		
+		/**
+		 * Collation keys of the String values
+		 **/
+		protected final Set<CollationKey> stringKeys = new HashSet<CollationKey>();
+		
+		/**
+		 * Value keys (see valueKey) of the non String values, and all values
+		 **/
+		protected final Set<Object> nonStringKeys = new HashSet<Object>();
+		protected final Set<Object> allKeys = new HashSet<Object>();
+		
+		/**
+		 * Build the set of argument values
+		 *
+		 * @param  arguments values, where collections and arrays are expanded
+		 **/
+		public ValueSet(Object[] arguments) {
+			this.arguments = arguments;
+			for (Object arg : arguments) {
+				addValue(arg);
+			}
+		}
+		
+		/**
+		 * Adds the value, expanding collections and arrays
+		 *
+		 * @param  value to add
+		 **/
+		protected void addValue(Object value) {
+			if (value == null) {
+				return;
+			}
+			if (value instanceof Collection) {
+				for (Object item : (Collection<?>) value) {
+					addValue(item);
+				}
+				return;
+			}
+			if (value.getClass().isArray()) {
+				int len = Array.getLength(value);
+				for (int i = 0; i < len; ++i) {
+					addValue(Array.get(value, i));
+				}
+				return;
+			}
+			
+			values.add(value);
+			Object key = valueKey(value);
+			allKeys.add(key);
+			if (value instanceof String) {
+				String str = (String) value;
+				stringKeys.add(CompareUtils.stringCollationKey(str));
+				if (isAsciiAlphanumeric(str)) {
+					asciiStrings.add(str);
+				} else {
+					allAsciiStrings = false;
+				}
+			} else {
+				nonStringKeys.add(key);
+			}
+		}
+		
+		/**
+		 * @return  the expanded non null values
+		 **/
+		public List<Object> values() {
+			return values;
+		}
+		
+		/**
+		 * @param  raw argument values
+		 *
+		 * @return  true if the arguments are the same (by reference) as this set was built with
+		 **/
+		public boolean isSameArguments(Object[] other) {
+			if (other.length != arguments.length) {
+				return false;
+			}
+			for (int i = 0; i < other.length; ++i) {
+				if (other[i] != arguments[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		
+		/**
+		 * @param  field value to check
+		 *
+		 * @return  true if the field value equals any of the values, false for null
+		 **/
+		public boolean contains(Object fieldValue) {
+			if (fieldValue == null) {
+				return false;
+			}
+			if (fieldValue instanceof String) {
+				String str = (String) fieldValue;
+				if (allAsciiStrings && isAsciiAlphanumeric(str)) {
+					if (asciiStrings.contains(str)) {
+						return true;
+					}
+				} else if (stringKeys.contains(CompareUtils.stringCollationKey(str))) {
+					return true;
+				}
+				return !nonStringKeys.isEmpty() && nonStringKeys.contains(valueKey(str));
+			}
+			return allKeys.contains(valueKey(fieldValue));
+		}
+		
+		/**
+		 * Value key used for non String comparision, the numeric value as a Double if possible,
+		 * else the collation key of its string value
+		 *
+		 * @param  value to get the key of
+		 *
+		 * @return  key of the value
+		 **/
+		protected static Object valueKey(Object value) {
+			Number num = CompareUtils.objectToNumberIfPossible(value);
+			if (num != null) {
+				return Double.valueOf(num.doubleValue());
+			}
+			return CompareUtils.stringCollationKey(value.toString());
+		}
+		
+		/**
+		 * @param  string to check
+		 *
+		 * @return  true if its only ASCII letters and digits
+		 **/
+		protected static boolean isAsciiAlphanumeric(String str) {
+			int len = str.length();
+			for (int i = 0; i < len; ++i) {
+				char c = str.charAt(i);
+				if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Gets the value set of the argument map, reusing the last value set if the
+	 * argument values are the same
+	 *
+	 * @param   argument map to get the values from
+	 *
+	 * @return  the value set
+	 **/
+	public ValueSet valueSet(Map<String, Object> argMap) {
+		Object[] arguments = new Object[_argNames.length];
+		if (argMap != null) {
+			for (int i = 0; i < _argNames.length; ++i) {
+				arguments[i] = super.getArgumentValue(argMap, _argNames[i]);
+			}
+		}
+		
+		ValueSet ret = lastValueSet;
+		if (ret == null || !ret.isSameArguments(arguments)) {
+			ret = new ValueSet(arguments);
+			lastValueSet = ret;
+		}
+		return ret;
+	}
+	
+	//
+	// Required overwrites
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the value set of all the arguments
+	 *
+	 * @param   argument map to get the values from
+	 * @param   ignored, as all argument names are used
+	 *
+	 * @return  the value set
+	 **/
+	@Override
+	protected Object getArgumentValue(Map<String, Object> argMap, String argName) {
+		return valueSet(argMap);
+	}
+	
+	/**
+	 * Tests if the field value is in the value set
+	 *
+	 * @param   the object to test against
+	 * @param   the value set, or a single value
+	 *
+	 * @return  boolean indicating success or failure
+	 **/
+	@Override
+	protected boolean testValues(Object fieldValue, Object argValue) {
+		ValueSet set = (argValue instanceof ValueSet) ? (ValueSet) argValue : new ValueSet(
+			new Object[] { argValue });
+		return set.contains(fieldValue);
+	}
+	
+	/**
+	 * Compiles the value test, against the value set
+	 *
+	 * @param   the value set
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		ValueSet set = (argValue instanceof ValueSet) ? (ValueSet) argValue : new ValueSet(
+			new Object[] { argValue });
+		return set::contains;
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets all the argument names
+	 **/
+	@Override
+	public String[] argumentNames() {
+		return _argNames.clone();
+	}
+	
+	/**
+	 * The operator symbol support
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return "IN";
+	}
+	
+	/**
+	 * Gets the query type
+	 **/
+	@Override
+	public QueryType type() {
+		return QueryType.IN;
+	}
+	
+	/**
+	 * The query string
+	 **/
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		ret.append("\"").append(fieldName()).append("\" ").append(operatorSymbol()).append(" (");
+		for (int i = 0; i < _argNames.length; ++i) {
+			if (i > 0) {
+				ret.append(", ");
+			}
+			ret.append(":").append(_argNames[i]);
+		}
+		return ret.append(")").toString();
+	}
+	
+	/**
+	 * Extract out the respective query keys, and each of its values
+	 **/
+	@Override
+	public Map<String, List<Object>> keyValuesMap(Map<String, List<Object>> mapToReturn) {
+		if (mapToReturn.get(_fieldName) == null) {
+			mapToReturn.put(_fieldName, new ArrayList<Object>());
+		}
+		mapToReturn.get(_fieldName).addAll(valueSet(_argMap).values());
+		return mapToReturn;
+	}
+	
+}
@@ -0,0 +1,77 @@
+package picoded.core.struct.query.condition;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.QueryType;
+
+/**
+ * SQL IS NOT NULL condition, where the field value is not null (that is, it exists).
+ * This has no argument value.
+ **/
+public class IsNotNull extends IsNull {
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constructor with the field name
+	 *
+	 * @param   default field to test
+	 * @param   default argument map, unused
+	 **/
+	public IsNotNull(String field, Map<String, Object> defaultArgMap) {
+		super(field, defaultArgMap);
+	}
+	
+	//
+	// Required overwrites
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Tests if the field value is not null
+	 *
+	 * @param   the object to test against
+	 * @param   unused argument value
+	 *
+	 * @return  boolean indicating success or failure
+	 **/
+	@Override
+	protected boolean testValues(Object fieldValue, Object argValue) {
+		return fieldValue != null;
+	}
+	
+	/**
+	 * Compiles the value test
+	 *
+	 * @param   unused argument value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		return (fieldValue) -> fieldValue != null;
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The operator symbol support
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return "IS NOT NULL";
+	}
+	
+	/**
+	 * Gets the query type
+	 **/
+	@Override
+	public QueryType type() {
+		return QueryType.IS_NOT_NULL;
+	}
+	
+}
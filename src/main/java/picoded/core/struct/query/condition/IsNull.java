@@ -0,0 +1,106 @@
+package picoded.core.struct.query.condition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.QueryType;
+
+/**
+ * SQL IS NULL condition, where the field value is null (or does not exist).
+ * This has no argument value.
+ **/
+public class IsNull extends ConditionBase {
+	
+	//
+	// Constructor Setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The constructor with the field name
+	 *
+	 * @param   default field to test
+	 * @param   default argument map, unused
+	 **/
+	public IsNull(String field, Map<String, Object> defaultArgMap) {
+		super(field, null, defaultArgMap);
+	}
+	
+	//
+	// Required overwrites
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Tests if the field value is null
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   the object to test against
+	 * @param   unused argument value
+	 *
+	 * @return  boolean indicating success or failure
+	 **/
+	@Override
+	protected boolean testValues(Object fieldValue, Object argValue) {
+		return fieldValue == null;
+	}
+	
+	/**
+	 * Compiles the value test
+	 *
+	 * [to override on extension]
+	 *
+	 * @param   unused argument value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		return (fieldValue) -> fieldValue == null;
+	}
+	
+	//
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The operator symbol support
+	 *
+	 * [to override on extension]
+	 **/
+	@Override
+	public String operatorSymbol() {
+		return "IS NULL";
+	}
+	
+	/**
+	 * Gets the query type
+	 *
+	 * [to override on extension]
+	 **/
+	@Override
+	public QueryType type() {
+		return QueryType.IS_NULL;
+	}
+	
+	/**
+	 * The query string
+	 **/
+	@Override
+	public String toString() {
+		return "\"" + fieldName() + "\" " + operatorSymbol();
+	}
+	
+	/**
+	 * Extract out the respective query keys, without any values
+	 **/
+	@Override
+	public Map<String, List<Object>> keyValuesMap(Map<String, List<Object>> mapToReturn) {
+		if (mapToReturn.get(_fieldName) == null) {
+			mapToReturn.put(_fieldName, new ArrayList<Object>());
+		}
+		return mapToReturn;
+	}
+	
+}
@@ -1,12 +1,24 @@
 package picoded.core.struct.query.condition;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
-import picoded.core.struct.query.CompareUtils;
 import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.internal.LikePattern;
 
+/**
+ * SQL LIKE condition, where `%` matches any sequence of characters, and `_` any single character.
+ *
+ * The pattern is compiled once per argument value (see LikePattern),
+ * with common shapes such as `abc%`, `%abc` and `%abc%` matched without regex.
+ **/
 public class Like extends ConditionBase {
 	
+	/**
+	 * The last compiled pattern, reused for the same argument value
+	 **/
+	protected volatile LikePattern lastPattern = null;
+	
 	//
 	// Constructor Setup
 	//--------------------------------------------------------------------
@@ -43,10 +55,55 @@ public class Like extends ConditionBase {
 		if (argValue == null || fieldValue == null) {
 			return false;
 		} //else {
-		return CompareUtils.stringLikeCompare(fieldValue, argValue) == 0;
+		return getPattern(argValue.toString()).matches(fieldValue.toString());
 		//}
 	}
 	
+	/**
+	 * Gets the compiled pattern, reusing the last pattern if its the same argument value,
+	 * else from the LikePattern cache
+	 *
+	 * @param   the LIKE pattern
+	 *
+	 * @return  compiled pattern
+	 **/
+	protected LikePattern getPattern(String pattern) {
+		LikePattern ret = lastPattern;
+		if (ret == null || !ret.pattern().equals(pattern)) {
+			ret = LikePattern.cached(pattern, isIgnoreCase());
+			lastPattern = ret;
+		}
+		return ret;
+	}
+	
+	/**
+	 * Indicates if the pattern match is case insensitive
+	 *
+	 * [to override on extension]
+	 *
+	 * @return  false
+	 **/
+	protected boolean isIgnoreCase() {
+		return false;
+	}
+	
+	/**
+	 * Compiles the value test, against a fixed argument value.
+	 * Where the pattern is compiled once.
+	 *
+	 * @param   the argument actual value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		if (argValue == null) {
+			return (fieldValue) -> false;
+		}
+		LikePattern pattern = LikePattern.compile(argValue.toString(), isIgnoreCase());
+		return (fieldValue) -> fieldValue != null && pattern.matches(fieldValue.toString());
+	}
+	
 	/**
 	 * The operator symbol support
 	 *
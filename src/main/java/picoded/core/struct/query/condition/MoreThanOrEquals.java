@@ -1,6 +1,7 @@
 package picoded.core.struct.query.condition;
 
 import java.util.Map;
+import java.util.function.Predicate;
 
 import picoded.core.struct.query.CompareUtils;
 import picoded.core.struct.query.QueryType;
@@ -46,6 +47,19 @@ public class MoreThanOrEquals extends ConditionBase {
 		//}
 	}
 	
+	/**
+	 * Compiles the value test, against a fixed argument value.
+	 * This is the compiled equivalent of testValues
+	 *
+	 * @param   the argument actual value
+	 *
+	 * @return  predicate testing the field value
+	 **/
+	@Override
+	protected Predicate<Object> compileValueTest(Object argValue) {
+		return compileCompareTest(argValue, (diff) -> diff >= 0);
+	}
+	
 	/**
 	 * The operator symbol support
 	 *
@@ -1,6 +1,7 @@
 package picoded.core.struct.query.condition;
 
 import java.util.*;
+import java.util.function.Predicate;
 import picoded.core.struct.query.*;
 
 public class Not extends CombinationBase {
@@ -51,6 +52,48 @@ public class Not extends CombinationBase {
 		return result;
 	}
 	
+	/**
+	 * Nested NOT combinations are never flattened, as NOT(NOT(x)) is not NOT(x)
+	 *
+	 * @param   child query to check
+	 *
+	 * @return  false
+	 **/
+	@Override
+	protected boolean isFlattenable(Query child) {
+		return false;
+	}
+	
+	/**
+	 * Combines the compiled children into a single predicate,
+	 * which fails on the first child success
+	 *
+	 * @param   compiled children predicates
+	 *
+	 * @return  combined predicate
+	 **/
+	@Override
+	protected Predicate<Object> compileCombination(Predicate<Object>[] children) {
+		// Blank combination is a failure
+		if (children.length == 0) {
+			return (t) -> false;
+		}
+		
+		// Single child, is the child inverse
+		if (children.length == 1) {
+			return children[0].negate();
+		}
+		
+		return (t) -> {
+			for (Predicate<Object> child : children) {
+				if (child.test(t)) {
+					return false; //breaks and return false on first failure
+				}
+			}
+			return true;
+		};
+	}
+	
 	/**
 	 * Gets the query type
 	 *
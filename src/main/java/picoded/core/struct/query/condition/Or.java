@@ -1,6 +1,7 @@
 package picoded.core.struct.query.condition;
 
 import java.util.*;
+import java.util.function.Predicate;
 import picoded.core.struct.query.*;
 
 public class Or extends CombinationBase {
@@ -61,6 +62,43 @@ public class Or extends CombinationBase {
 		return false;
 	}
 	
+	/**
+	 * Combines the compiled children into a single predicate,
+	 * which succeeds on the first child success
+	 *
+	 * @param   compiled children predicates
+	 *
+	 * @return  combined predicate
+	 **/
+	@Override
+	protected Predicate<Object> compileCombination(Predicate<Object>[] children) {
+		// Blank combination is a failure
+		if (children.length == 0) {
+			return (t) -> false;
+		}
+		
+		// Single child, is the child itself
+		if (children.length == 1) {
+			return children[0];
+		}
+		
+		// Common two children case, without the iteration loop
+		if (children.length == 2) {
+			Predicate<Object> left = children[0];
+			Predicate<Object> right = children[1];
+			return (t) -> left.test(t) || right.test(t);
+		}
+		
+		return (t) -> {
+			for (Predicate<Object> child : children) {
+				if (child.test(t)) {
+					return true; //succeds on first success
+				}
+			}
+			return false;
+		};
+	}
+	
 	/**
 	 * Gets the query type
 	 *
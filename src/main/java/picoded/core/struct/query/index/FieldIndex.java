@@ -0,0 +1,367 @@
+package picoded.core.struct.query.index;
+
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import picoded.core.conv.NestedObjectPath;
+import picoded.core.struct.query.CompareUtils;
+
+/**
+ * Secondary index of a single field, of row id's to their field value.
+ *
+ * As the query conditions uses CompareUtils.dynamicCompare, where a String can be
+ * compared either as a string, or as a number (depending on the argument type).
+ * Values are indexed into the following buckets
+ *
+ * + Number values, by their double value
+ * + String values, by their collation key
+ * + String values which can be parsed as a number, by their parsed double value
+ * + String values which cannot be parsed as a number
+ * + Any other non null values, which is always returned as a candidate
+ *
+ * Null values are not indexed, as the comparision conditions never matches a null field value.
+ *
+ * The candidates returned by an index, is a superset of the matching rows,
+ * as such the query should still be tested against each candidate.
+ **/
+public abstract class FieldIndex {
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The field name indexed
+	 **/
+	protected final String fieldName;
+	
+	/**
+	 * The compiled field path, used to fetch the (possibly nested) field value,
+	 * the same way as the query conditions
+	 **/
+	protected final NestedObjectPath fieldPath;
+	
+	/**
+	 * Number values, by their double value
+	 **/
+	protected final Map<Double, RowIdList> numberMap;
+	
+	/**
+	 * String values, by their collation key
+	 **/
+	protected final Map<CollationKey, RowIdList> stringMap;
+	
+	/**
+	 * String values which can be parsed as a number, by their parsed double value
+	 **/
+	protected final Map<Double, RowIdList> parsedStringMap;
+	
+	/**
+	 * String values which cannot be parsed as a number
+	 **/
+	protected final RowIdList nonNumericStrings = new RowIdList();
+	
+	/**
+	 * Any other non null values
+	 **/
+	protected final RowIdList otherValues = new RowIdList();
+	
+	/**
+	 * The indexed value of each row id, used for removal
+	 **/
+	protected final List<Object> indexedValues = new ArrayList<Object>();
+	
+	/**
+	 * Number of non null values indexed
+	 **/
+	protected int indexedCount = 0;
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name to index
+	 **/
+	public FieldIndex(String fieldName) {
+		this.fieldName = fieldName;
+		fieldPath = NestedObjectPath.compile(fieldName);
+		numberMap = newKeyMap();
+		stringMap = newKeyMap();
+		parsedStringMap = newKeyMap();
+	}
+	
+	/**
+	 * Map implementation used for the index buckets
+	 *
+	 * [to override on extension]
+	 *
+	 * @return  blank map
+	 **/
+	protected abstract <K> Map<K, RowIdList> newKeyMap();
+	
+	//--------------------------------------------------------------------
+	// Index maintenance
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the field name indexed
+	 **/
+	public String fieldName() {
+		return fieldName;
+	}
+	
+	/**
+	 * Fetch the (possibly nested) field value of the row to index
+	 *
+	 * @param  row to fetch the value from
+	 *
+	 * @return  the field value
+	 **/
+	public Object fieldValue(Object row) {
+		return fieldPath.fetch(row);
+	}
+	
+	/**
+	 * @return  number of non null values indexed
+	 **/
+	public int indexedCount() {
+		return indexedCount;
+	}
+	
+	/**
+	 * Gets the bucket for the key, creating it if needed
+	 **/
+	protected static <K> RowIdList bucket(Map<K, RowIdList> map, K key) {
+		RowIdList ret = map.get(key);
+		if (ret == null) {
+			ret = new RowIdList();
+			map.put(key, ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Removes the row id from the bucket, and the bucket itself if its blank
+	 **/
+	protected static <K> void unbucket(Map<K, RowIdList> map, K key, int rowId) {
+		RowIdList list = map.get(key);
+		if (list != null) {
+			list.remove(rowId);
+			if (list.size() == 0) {
+				map.remove(key);
+			}
+		}
+	}
+	
+	/**
+	 * Index the row field value
+	 *
+	 * @param  row id to index
+	 * @param  field value of the row
+	 **/
+	public void add(int rowId, Object value) {
+		// Remove any existing value
+		remove(rowId);
+		
+		// Track the indexed value
+		while (indexedValues.size() <= rowId) {
+			indexedValues.add(null);
+		}
+		indexedValues.set(rowId, value);
+		
+		// Null values are not indexed
+		if (value == null) {
+			return;
+		}
+		++indexedCount;
+		
+		if (value instanceof Number) {
+			bucket(numberMap, ((Number) value).doubleValue()).add(rowId);
+		} else if (value instanceof String) {
+			bucket(stringMap, CompareUtils.stringCollationKey((String) value)).add(rowId);
+			Number parsed = CompareUtils.objectToNumberIfPossible(value);
+			if (parsed != null) {
+				bucket(parsedStringMap, parsed.doubleValue()).add(rowId);
+			} else {
+				nonNumericStrings.add(rowId);
+			}
+		} else {
+			otherValues.add(rowId);
+		}
+	}
+	
+	/**
+	 * Remove the row from the index, using its previously indexed value
+	 *
+	 * @param  row id to remove
+	 **/
+	public void remove(int rowId) {
+		if (rowId >= indexedValues.size()) {
+			return;
+		}
+		Object value = indexedValues.get(rowId);
+		indexedValues.set(rowId, null);
+		
+		// Null values are not indexed
+		if (value == null) {
+			return;
+		}
+		--indexedCount;
+		
+		if (value instanceof Number) {
+			unbucket(numberMap, ((Number) value).doubleValue(), rowId);
+		} else if (value instanceof String) {
+			unbucket(stringMap, CompareUtils.stringCollationKey((String) value), rowId);
+			Number parsed = CompareUtils.objectToNumberIfPossible(value);
+			if (parsed != null) {
+				unbucket(parsedStringMap, parsed.doubleValue(), rowId);
+			} else {
+				nonNumericStrings.remove(rowId);
+			}
+		} else {
+			otherValues.remove(rowId);
+		}
+	}
+	
+	/**
+	 * Clears the whole index
+	 **/
+	public void clear() {
+		numberMap.clear();
+		stringMap.clear();
+		parsedStringMap.clear();
+		nonNumericStrings.clear();
+		otherValues.clear();
+		indexedValues.clear();
+		indexedCount = 0;
+	}
+	
+	//--------------------------------------------------------------------
+	// Candidate lookup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Adds the bucket to the candidate list, if its not null
+	 **/
+	protected static void addCandidate(List<RowIdList> ret, RowIdList list) {
+		if (list != null && list.size() > 0) {
+			ret.add(list);
+		}
+	}
+	
+	/**
+	 * Adds all the buckets to the candidate list
+	 **/
+	protected static void addCandidates(List<RowIdList> ret, Collection<RowIdList> lists) {
+		for (RowIdList list : lists) {
+			addCandidate(ret, list);
+		}
+	}
+	
+	/**
+	 * Gets the candidate rows, which may be equal to the argument value
+	 *
+	 * @param  argument value, to compare with
+	 *
+	 * @return  list of candidate row id's, null if the argument is not supported by the index
+	 **/
+	public List<RowIdList> equalsCandidates(Object arg) {
+		List<RowIdList> ret = new ArrayList<RowIdList>();
+		if (arg == null) {
+			return ret;
+		}
+		
+		if (arg instanceof Number) {
+			double key = ((Number) arg).doubleValue();
+			addCandidate(ret, numberMap.get(key));
+			addCandidate(ret, parsedStringMap.get(key));
+		} else if (arg instanceof String) {
+			addCandidate(ret, stringMap.get(CompareUtils.stringCollationKey((String) arg)));
+			Number parsed = CompareUtils.objectToNumberIfPossible(arg);
+			if (parsed != null) {
+				addCandidate(ret, numberMap.get(parsed.doubleValue()));
+			}
+		} else {
+			return null;
+		}
+		
+		addCandidate(ret, otherValues);
+		return ret;
+	}
+	
+	/**
+	 * Gets the candidate rows, which may not be equal to the argument value.
+	 * This is all non null values, excluding those known to be equal.
+	 *
+	 * @param  argument value, to compare with
+	 *
+	 * @return  list of candidate row id's, null if the argument is not supported by the index
+	 **/
+	public List<RowIdList> notEqualsCandidates(Object arg) {
+		List<RowIdList> ret = new ArrayList<RowIdList>();
+		if (arg == null) {
+			return ret;
+		}
+		
+		if (arg instanceof Number) {
+			Double key = ((Number) arg).doubleValue();
+			addCandidatesExcept(ret, numberMap, key);
+			addCandidatesExcept(ret, parsedStringMap, key);
+			addCandidate(ret, nonNumericStrings);
+		} else if (arg instanceof String) {
+			addCandidatesExcept(ret, stringMap, CompareUtils.stringCollationKey((String) arg));
+			Number parsed = CompareUtils.objectToNumberIfPossible(arg);
+			addCandidatesExcept(ret, numberMap, (parsed != null) ? parsed.doubleValue() : null);
+		} else {
+			return null;
+		}
+		
+		addCandidate(ret, otherValues);
+		return ret;
+	}
+	
+	/**
+	 * Adds all the buckets to the candidate list, except for the given key
+	 **/
+	protected static <K> void addCandidatesExcept(List<RowIdList> ret, Map<K, RowIdList> map,
+		K except) {
+		for (Map.Entry<K, RowIdList> entry : map.entrySet()) {
+			if (except == null || !except.equals(entry.getKey())) {
+				addCandidate(ret, entry.getValue());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the candidate rows, which may be within the range of the argument value
+	 *
+	 * [to override on extension]
+	 *
+	 * @param  argument value, to compare with
+	 * @param  true for less than (or equals), false for more than (or equals)
+	 * @param  true if equal values are included
+	 *
+	 * @return  list of candidate row id's, null if range lookup is not supported by the index
+	 **/
+	public List<RowIdList> rangeCandidates(Object arg, boolean lessThan, boolean inclusive) {
+		return null;
+	}
+	
+	/**
+	 * Counts the total number of row id's in the candidate list,
+	 * this is the upper bound of the rows matched
+	 *
+	 * @param  list of candidate row id's
+	 *
+	 * @return  total number of row id's
+	 **/
+	public static int candidateCount(List<RowIdList> candidates) {
+		int ret = 0;
+		for (RowIdList list : candidates) {
+			ret += list.size();
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,30 @@
+package picoded.core.struct.query.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash based field index, supporting Equals and NotEquals lookups
+ **/
+public class HashFieldIndex extends FieldIndex {
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name to index
+	 **/
+	public HashFieldIndex(String fieldName) {
+		super(fieldName);
+	}
+	
+	/**
+	 * Map implementation used for the index buckets
+	 *
+	 * @return  blank HashMap
+	 **/
+	@Override
+	protected <K> Map<K, RowIdList> newKeyMap() {
+		return new HashMap<K, RowIdList>();
+	}
+	
+}
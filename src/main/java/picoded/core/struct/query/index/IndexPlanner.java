@@ -0,0 +1,246 @@
+package picoded.core.struct.query.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import picoded.core.conv.NestedObjectFetch;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.condition.Between;
+import picoded.core.struct.query.condition.Equals;
+import picoded.core.struct.query.condition.In;
+import picoded.core.struct.query.condition.LessThan;
+import picoded.core.struct.query.condition.LessThanOrEquals;
+import picoded.core.struct.query.condition.MoreThan;
+import picoded.core.struct.query.condition.MoreThanOrEquals;
+import picoded.core.struct.query.condition.NotEquals;
+
+/**
+ * Picks the most selective field index, to get the candidate rows of a query.
+ *
+ * + Basic conditions, uses the field index of the condition (if any)
+ * + IN conditions, uses the union of the equals candidates of each value
+ * + AND combinations, uses the child with the least number of candidates
+ * + OR combinations, uses the union of all children candidates (only if every child is indexable)
+ * + Constant FALSE, has no candidates
+ * + Everything else, falls back to a full scan
+ *
+ * As the candidates are a superset of the matching rows, the query needs to be
+ * tested against each candidate row.
+ **/
+public class IndexPlanner {
+	
+	protected IndexPlanner() {
+		throw new IllegalAccessError("Utility class");
+	}
+	
+	/**
+	 * Gets the candidate row id's for the query
+	 *
+	 * @param  query to get the candidates for
+	 * @param  field indexes to use
+	 *
+	 * @return  list of candidate row id's, null if a full scan is needed
+	 **/
+	public static List<RowIdList> candidates(Query query, Map<String, FieldIndex> indexes) {
+		// Quick exit, when no indexed field is used in the query
+		if (query == null || indexes.isEmpty()) {
+			return null;
+		}
+		if (query.type() == QueryType.FALSE) {
+			return new ArrayList<RowIdList>();
+		}
+		boolean hasIndexedField = false;
+		for (String field : query.fieldQueryMap().keySet()) {
+			if (indexes.containsKey(field)) {
+				hasIndexedField = true;
+				break;
+			}
+		}
+		if (!hasIndexedField) {
+			return null;
+		}
+		
+		return queryCandidates(query, indexes);
+	}
+	
+	/**
+	 * Recursively gets the candidate row id's for the query
+	 *
+	 * @param  query to get the candidates for
+	 * @param  field indexes to use
+	 *
+	 * @return  list of candidate row id's, null if a full scan is needed
+	 **/
+	protected static List<RowIdList> queryCandidates(Query query, Map<String, FieldIndex> indexes) {
+		if (query.isBasicOperator()) {
+			return conditionCandidates(query, indexes);
+		}
+		
+		// Constant FALSE has no candidates
+		if (query.type() == QueryType.FALSE) {
+			return new ArrayList<RowIdList>();
+		}
+		
+		if (!query.isCombinationOperator()) {
+			return null;
+		}
+		
+		// AND combination, the most selective child
+		if (query.type() == QueryType.AND) {
+			List<RowIdList> best = null;
+			int bestCount = Integer.MAX_VALUE;
+			for (Query child : query.childrenQuery()) {
+				List<RowIdList> childCandidates = queryCandidates(child, indexes);
+				if (childCandidates != null) {
+					int count = FieldIndex.candidateCount(childCandidates);
+					if (count < bestCount) {
+						best = childCandidates;
+						bestCount = count;
+					}
+				}
+			}
+			return best;
+		}
+		
+		// OR combination, the union of all children
+		if (query.type() == QueryType.OR) {
+			List<RowIdList> ret = new ArrayList<RowIdList>();
+			for (Query child : query.childrenQuery()) {
+				List<RowIdList> childCandidates = queryCandidates(child, indexes);
+				if (childCandidates == null) {
+					return null;
+				}
+				ret.addAll(childCandidates);
+			}
+			return ret;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the candidate row id's for a basic condition
+	 *
+	 * @param  condition to get the candidates for
+	 * @param  field indexes to use
+	 *
+	 * @return  list of candidate row id's, null if a full scan is needed
+	 **/
+	protected static List<RowIdList> conditionCandidates(Query cond, Map<String, FieldIndex> indexes) {
+		FieldIndex index = indexes.get(cond.fieldName());
+		if (index == null) {
+			return null;
+		}
+		
+		// Argument value, as per ConditionBase.getArgumentValue
+		Object arg = null;
+		if (cond.defaultArgumentMap() != null && cond.argumentName() != null) {
+			arg = NestedObjectFetch.fetchObject(cond.defaultArgumentMap(), cond.argumentName(), null);
+		}
+		
+		// Only the known condition classes are used, as extended classes may change the test
+		Class<?> condClass = cond.getClass();
+		if (condClass == Equals.class) {
+			return index.equalsCandidates(arg);
+		} else if (condClass == NotEquals.class) {
+			return index.notEqualsCandidates(arg);
+		} else if (condClass == LessThan.class) {
+			return index.rangeCandidates(arg, true, false);
+		} else if (condClass == LessThanOrEquals.class) {
+			return index.rangeCandidates(arg, true, true);
+		} else if (condClass == MoreThan.class) {
+			return index.rangeCandidates(arg, false, false);
+		} else if (condClass == MoreThanOrEquals.class) {
+			return index.rangeCandidates(arg, false, true);
+		} else if (condClass == In.class) {
+			return inCandidates((In) cond, index);
+		} else if (condClass == Between.class) {
+			return betweenCandidates((Between) cond, arg, index);
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the candidate row id's for an IN condition, the union of each value equals candidates
+	 *
+	 * @param  condition to get the candidates for
+	 * @param  field index to use
+	 *
+	 * @return  list of candidate row id's, null if a full scan is needed
+	 **/
+	protected static List<RowIdList> inCandidates(In cond, FieldIndex index) {
+		List<RowIdList> ret = new ArrayList<RowIdList>();
+		for (Object value : cond.valueSet(cond.defaultArgumentMap()).values()) {
+			List<RowIdList> valueCandidates = index.equalsCandidates(value);
+			if (valueCandidates == null) {
+				return null;
+			}
+			ret.addAll(valueCandidates);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Gets the candidate row id's for a BETWEEN condition, using the range of the more selective bound
+	 *
+	 * @param  condition to get the candidates for
+	 * @param  lower bound argument value
+	 * @param  field index to use
+	 *
+	 * @return  list of candidate row id's, null if a full scan is needed
+	 **/
+	protected static List<RowIdList> betweenCandidates(Between cond, Object lower, FieldIndex index) {
+		Object upper = null;
+		if (cond.defaultArgumentMap() != null && cond.upperArgumentName() != null) {
+			upper = NestedObjectFetch.fetchObject(cond.defaultArgumentMap(), cond.upperArgumentName(),
+				null);
+		}
+		if (lower == null || upper == null) {
+			return new ArrayList<RowIdList>();
+		}
+		
+		List<RowIdList> lowerCandidates = index.rangeCandidates(lower, false, true);
+		List<RowIdList> upperCandidates = index.rangeCandidates(upper, true, true);
+		if (lowerCandidates == null || upperCandidates == null) {
+			return (lowerCandidates != null) ? lowerCandidates : upperCandidates;
+		}
+		return (FieldIndex.candidateCount(lowerCandidates) <= FieldIndex
+			.candidateCount(upperCandidates)) ? lowerCandidates : upperCandidates;
+	}
+	
+	/**
+	 * Merge the candidate row id's, into a sorted array without duplicates
+	 *
+	 * @param  list of candidate row id's
+	 *
+	 * @return  sorted array of unique row id's
+	 **/
+	public static int[] mergeCandidates(List<RowIdList> candidates) {
+		// Single list, is already sorted and unique
+		if (candidates.size() == 1) {
+			RowIdList list = candidates.get(0);
+			int[] ret = new int[list.size()];
+			list.copyInto(ret, 0);
+			return ret;
+		}
+		
+		// Copy, sort, and remove duplicates
+		int[] all = new int[FieldIndex.candidateCount(candidates)];
+		int pos = 0;
+		for (RowIdList list : candidates) {
+			pos = list.copyInto(all, pos);
+		}
+		Arrays.sort(all);
+		
+		int len = 0;
+		for (int i = 0; i < all.length; ++i) {
+			if (len == 0 || all[len - 1] != all[i]) {
+				all[len++] = all[i];
+			}
+		}
+		return Arrays.copyOf(all, len);
+	}
+}
@@ -0,0 +1,109 @@
+package picoded.core.struct.query.index;
+
+import java.util.Arrays;
+
+/**
+ * Compact, sorted list of int row id's, without any boxing.
+ *
+ * As row id's are generally added in increasing order, adding is an append in most cases.
+ **/
+public class RowIdList {
+	
+	/**
+	 * Sorted row id's, up till size
+	 **/
+	protected int[] ids = new int[2];
+	
+	/**
+	 * Number of row id's stored
+	 **/
+	protected int size = 0;
+	
+	/**
+	 * Adds the row id, if its not already in the list
+	 *
+	 * @param  row id to add
+	 **/
+	public void add(int id) {
+		// Append, the most common case
+		if (size == 0 || ids[size - 1] < id) {
+			ensureCapacity(size + 1);
+			ids[size++] = id;
+			return;
+		}
+		
+		// Insert in sorted order (if not already added)
+		int pos = Arrays.binarySearch(ids, 0, size, id);
+		if (pos >= 0) {
+			return;
+		}
+		pos = -(pos + 1);
+		ensureCapacity(size + 1);
+		System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+		ids[pos] = id;
+		++size;
+	}
+	
+	/**
+	 * Removes the row id
+	 *
+	 * @param  row id to remove
+	 *
+	 * @return true if it was removed
+	 **/
+	public boolean remove(int id) {
+		int pos = Arrays.binarySearch(ids, 0, size, id);
+		if (pos < 0) {
+			return false;
+		}
+		System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+		--size;
+		return true;
+	}
+	
+	/**
+	 * Removes all the row id's
+	 **/
+	public void clear() {
+		ids = new int[2];
+		size = 0;
+	}
+	
+	/**
+	 * @return number of row id's stored
+	 **/
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @param  position in the list
+	 *
+	 * @return row id at the position
+	 **/
+	public int get(int pos) {
+		return ids[pos];
+	}
+	
+	/**
+	 * Copy the row id's into the given array
+	 *
+	 * @param  array to copy into
+	 * @param  position of the array to copy into
+	 *
+	 * @return position after the last copied row id
+	 **/
+	public int copyInto(int[] dest, int destPos) {
+		System.arraycopy(ids, 0, dest, destPos, size);
+		return destPos + size;
+	}
+	
+	/**
+	 * Ensure the internal array can hold the given size
+	 **/
+	protected void ensureCapacity(int minSize) {
+		if (ids.length < minSize) {
+			ids = Arrays.copyOf(ids, Math.max(minSize, ids.length * 2));
+		}
+	}
+}
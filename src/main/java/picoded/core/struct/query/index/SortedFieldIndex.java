@@ -0,0 +1,93 @@
+package picoded.core.struct.query.index;
+
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import picoded.core.struct.query.CompareUtils;
+
+/**
+ * Sorted (navigable) field index, supporting Equals, NotEquals,
+ * and the LessThan / MoreThan range lookups
+ **/
+public class SortedFieldIndex extends FieldIndex {
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  field name to index
+	 **/
+	public SortedFieldIndex(String fieldName) {
+		super(fieldName);
+	}
+	
+	/**
+	 * Map implementation used for the index buckets
+	 *
+	 * @return  blank TreeMap
+	 **/
+	@Override
+	protected <K> Map<K, RowIdList> newKeyMap() {
+		return new TreeMap<K, RowIdList>();
+	}
+	
+	/**
+	 * Gets the head or tail of the sorted map
+	 **/
+	protected static <K> NavigableMap<K, RowIdList> range(Map<K, RowIdList> map, K key,
+		boolean lessThan, boolean inclusive) {
+		NavigableMap<K, RowIdList> navMap = (NavigableMap<K, RowIdList>) map;
+		if (lessThan) {
+			return navMap.headMap(key, inclusive);
+		}
+		return navMap.tailMap(key, inclusive);
+	}
+	
+	/**
+	 * Gets the candidate rows, which may be within the range of the argument value
+	 *
+	 * Note that for CompareUtils.dynamicCompare, non numeric strings are lesser then
+	 * any number, while numbers are larger then any non numeric string.
+	 *
+	 * @param  argument value, to compare with
+	 * @param  true for less than (or equals), false for more than (or equals)
+	 * @param  true if equal values are included
+	 *
+	 * @return  list of candidate row id's, null if the argument is not supported by the index
+	 **/
+	@Override
+	public List<RowIdList> rangeCandidates(Object arg, boolean lessThan, boolean inclusive) {
+		List<RowIdList> ret = new ArrayList<RowIdList>();
+		if (arg == null) {
+			return ret;
+		}
+		
+		if (arg instanceof Number) {
+			Double key = ((Number) arg).doubleValue();
+			addCandidates(ret, range(numberMap, key, lessThan, inclusive).values());
+			addCandidates(ret, range(parsedStringMap, key, lessThan, inclusive).values());
+			if (lessThan) {
+				addCandidate(ret, nonNumericStrings);
+			}
+		} else if (arg instanceof String) {
+			CollationKey key = CompareUtils.stringCollationKey((String) arg);
+			addCandidates(ret, range(stringMap, key, lessThan, inclusive).values());
+			
+			Number parsed = CompareUtils.objectToNumberIfPossible(arg);
+			if (parsed != null) {
+				addCandidates(ret, range(numberMap, parsed.doubleValue(), lessThan, inclusive).values());
+			} else if (!lessThan) {
+				addCandidates(ret, numberMap.values());
+			}
+		} else {
+			return null;
+		}
+		
+		addCandidate(ret, otherValues);
+		return ret;
+	}
+	
+}
@@ -0,0 +1,6 @@
+/**
+ * Secondary index structures, used to reduce the number of records
+ * a query needs to test against, in an indexed query collection.
+ **/
+package picoded.core.struct.query.index;
+
@@ -1,11 +1,16 @@
 package picoded.core.struct.query.internal;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import picoded.core.conv.GenericConvert;
+import picoded.core.conv.NestedObjectPath;
 import picoded.core.struct.MutablePair;
 import picoded.core.struct.query.mapreduce.*;
 
@@ -40,6 +45,11 @@ public class AggregationUtils {
 		map.put("min", new Min());
 		map.put("sum", new Sum());
 		map.put("avg", new Avg());
+		map.put("countDistinct", new CountDistinct());
+		map.put("percentile", new Percentile());
+		map.put("median", new Median());
+		map.put("variance", new Variance());
+		map.put("stddev", new StdDev());
 		
 		// Save the implementation map for reuse
 		_mapReduceBaseImplementation = map;
@@ -88,6 +98,35 @@ public class AggregationUtils {
 		return new MutablePair<String[], String[]>(funcNames, fieldNames);
 	}
 	
+	/**
+	 * Split out the optional parameter of each aggregation field term, such as `percentile(price, 90)`.
+	 * Where the parameter follows the last comma of the field term, for functions which accepts
+	 * a parameter only (see MapReduceBase.acceptsParameter). Other field terms are left as it is,
+	 * so that field names containing a comma still works.
+	 * 
+	 * @param  implmentationMap   mapReduceBase implmentations to use
+	 * @param  funcNames   of the aggregation terms
+	 * @param  fieldNames  of the aggregation terms, updated to exclude the parameter
+	 * 
+	 * @return  parameter of each aggregation term, null for terms without one
+	 */
+	public static String[] extractAggregationParameters(
+		Map<String, MapReduceBase> implmentationMap, String[] funcNames, String[] fieldNames) {
+		String[] ret = new String[fieldNames.length];
+		for (int i = 0; i < fieldNames.length; ++i) {
+			MapReduceBase base = implmentationMap.get(funcNames[i]);
+			if (base == null || !base.acceptsParameter()) {
+				continue;
+			}
+			int comma = fieldNames[i].lastIndexOf(',');
+			if (comma >= 0) {
+				ret[i] = fieldNames[i].substring(comma + 1).trim();
+				fieldNames[i] = fieldNames[i].substring(0, comma).trim();
+			}
+		}
+		return ret;
+	}
+	
 	/**
 	 * Given a function name array, return an array of the respective MapReduceBase implementation
 	 * 
@@ -153,4 +192,178 @@ public class AggregationUtils {
 		// 4. return the array of BigDecimal's
 		return ret;
 	}
-}
\ No newline at end of file
+	
+	//---------------------------------------
+	//
+	// Grouped aggregation
+	//
+	//---------------------------------------
+	
+	/**
+	 * Get the group key of a single data map, as a list of the group field values.
+	 * 
+	 * @param  mapData      to extract the group field values from
+	 * @param  groupFields  field names to group by
+	 * 
+	 * @return  list of group field values (which may contain null)
+	 */
+	public static List<Object> groupKey(Object mapData, String[] groupFields) {
+		return groupKey(mapData, compileGroupFields(groupFields));
+	}
+	
+	/**
+	 * Get the group key of a single data map, using the compiled group field paths.
+	 * 
+	 * @param  mapData      to extract the group field values from
+	 * @param  groupPaths   compiled field paths to group by
+	 * 
+	 * @return  list of group field values (which may contain null)
+	 */
+	public static List<Object> groupKey(Object mapData, NestedObjectPath[] groupPaths) {
+		Object[] ret = new Object[groupPaths.length];
+		for (int i = 0; i < groupPaths.length; ++i) {
+			ret[i] = groupKeyValue(groupPaths[i].fetch(mapData));
+		}
+		return Arrays.asList(ret);
+	}
+	
+	/**
+	 * Normalize the group field value, where numeric values are converted to BigDecimal
+	 * without trailing zeros. So that equal numbers of different types (such as Integer 1,
+	 * Long 1, and Double 1.0) are grouped together, as a single BigDecimal 1 key.
+	 * 
+	 * @param  value  group field value to normalize
+	 * 
+	 * @return  normalized group field value
+	 */
+	protected static Object groupKeyValue(Object value) {
+		if (!(value instanceof Number)) {
+			return value;
+		}
+		// NaN / Infinity, cannot be represented as BigDecimal
+		if ((value instanceof Double || value instanceof Float)
+			&& !Double.isFinite(((Number) value).doubleValue())) {
+			return value;
+		}
+		return GenericConvert.toBigDecimal(value, null).stripTrailingZeros();
+	}
+	
+	/**
+	 * Compile the group field names, into their nested field paths
+	 * 
+	 * @param  groupFields  field names to group by
+	 * 
+	 * @return  compiled field paths
+	 */
+	public static NestedObjectPath[] compileGroupFields(String[] groupFields) {
+		NestedObjectPath[] ret = new NestedObjectPath[groupFields.length];
+		for (int i = 0; i < groupFields.length; ++i) {
+			ret[i] = NestedObjectPath.compile(groupFields[i]);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Given a dataset, compute the MapReduceBase of each group in a single pass,
+	 * using a hash table of the group key, to the group MapReduceBase array.
+	 * 
+	 * Groups are kept in the order they are first seen.
+	 * 
+	 * @param  template     MapReduceBase array, used to create the array for each group
+	 * @param  fieldNames   fieldNames to the respective template, to extract values from
+	 * @param  groupFields  field names to group by
+	 * @param  dataSet      dataset to extract values from to compute
+	 * @param  filter       to test each value with, null to compute on all values
+	 * 
+	 * @return  map of group key, to the MapReduceBase array (not yet reduced)
+	 */
+	public static Map<List<Object>, MapReduceBase[]> computeGroupedMapReduceBase(
+		MapReduceBase[] template, String[] fieldNames, String[] groupFields, Iterable<?> dataSet,
+		Predicate<Object> filter) {
+		Map<List<Object>, MapReduceBase[]> ret = new LinkedHashMap<List<Object>, MapReduceBase[]>();
+		NestedObjectPath[] groupPaths = compileGroupFields(groupFields);
+		int len = template.length;
+		
+		for (Object mapDataObj : dataSet) {
+			if (filter != null && !filter.test(mapDataObj)) {
+				continue;
+			}
+			
+			// Get the group MapReduceBase array, initializing it if needed
+			Map<String, Object> mapData = GenericConvert.toStringMap(mapDataObj);
+			List<Object> key = groupKey(mapData, groupPaths);
+			MapReduceBase[] group = ret.get(key);
+			if (group == null) {
+				group = newMapReduceBaseArray(template);
+				ret.put(key, group);
+			}
+			
+			// Map the values
+			for (int i = 0; i < len; ++i) {
+				group[i].map(mapData, fieldNames[i]);
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Merge the partial group table into the given group table.
+	 * Requires all MapReduceBase to support merging.
+	 * 
+	 * @param  into   group table to merge into
+	 * @param  other  partial group table to merge
+	 * 
+	 * @return  the merged group table
+	 */
+	public static Map<List<Object>, MapReduceBase[]> mergeGroupedMapReduceBase(
+		Map<List<Object>, MapReduceBase[]> into, Map<List<Object>, MapReduceBase[]> other) {
+		for (Map.Entry<List<Object>, MapReduceBase[]> entry : other.entrySet()) {
+			MapReduceBase[] group = into.get(entry.getKey());
+			if (group == null) {
+				into.put(entry.getKey(), entry.getValue());
+				continue;
+			}
+			MapReduceBase[] otherGroup = entry.getValue();
+			for (int i = 0; i < group.length; ++i) {
+				group[i].merge(otherGroup[i]);
+			}
+		}
+		return into;
+	}
+	
+	/**
+	 * Reduce the group table, into the BigDecimal results of each group
+	 * 
+	 * @param  groups  group table to reduce
+	 * 
+	 * @return  map of group key, to the BigDecimal array of results
+	 */
+	public static Map<List<Object>, BigDecimal[]> reduceGroupedMapReduceBase(
+		Map<List<Object>, MapReduceBase[]> groups) {
+		Map<List<Object>, BigDecimal[]> ret = new LinkedHashMap<List<Object>, BigDecimal[]>();
+		for (Map.Entry<List<Object>, MapReduceBase[]> entry : groups.entrySet()) {
+			MapReduceBase[] group = entry.getValue();
+			BigDecimal[] res = new BigDecimal[group.length];
+			for (int i = 0; i < group.length; ++i) {
+				res[i] = group[i].reduce();
+			}
+			ret.put(entry.getKey(), res);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Initialize a new blank instance, of each MapReduceBase in the template
+	 * 
+	 * @param  template MapReduceBase array to copy
+	 * 
+	 * @return  new MapReduceBase array
+	 */
+	public static MapReduceBase[] newMapReduceBaseArray(MapReduceBase[] template) {
+		MapReduceBase[] ret = new MapReduceBase[template.length];
+		for (int i = 0; i < template.length; ++i) {
+			ret[i] = template[i].newInstance();
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,286 @@
+package picoded.core.struct.query.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import picoded.core.struct.ConcurrentLRUCache;
+
+/**
+ * Compiled SQL LIKE pattern, used by the LIKE / ILIKE conditions.
+ *
+ * + `%` matches any sequence of characters (including none)
+ * + `_` matches any single character
+ * + `\` escapes the next character, to match a literal `%`, `_` or `\`
+ * + All other characters are matched literally
+ *
+ * Common pattern shapes are matched without regex, using the respective String operations.
+ *
+ * + `abc`   : equals
+ * + `abc%`  : startsWith
+ * + `%abc`  : endsWith
+ * + `%abc%` : contains (indexOf)
+ * + `ab%c`  : startsWith and endsWith
+ * + `%`     : matches everything
+ *
+ * While any other pattern is compiled once into a regex Pattern.
+ *
+ * ```
+ * LikePattern pattern = LikePattern.cached("tom%", false);
+ * pattern.matches("tommy"); // true
+ * ```
+ **/
+public class LikePattern {
+	
+	/**
+	 * Matching strategy, used for the pattern
+	 **/
+	public enum Shape {
+		EQUALS, PREFIX, SUFFIX, CONTAINS, PREFIX_SUFFIX, ANY, REGEX
+	}
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The original LIKE pattern
+	 **/
+	protected final String pattern;
+	
+	/**
+	 * Indicates if its a case insensitive (ILIKE) pattern
+	 **/
+	protected final boolean ignoreCase;
+	
+	/**
+	 * Matching strategy used
+	 **/
+	protected final Shape shape;
+	
+	/**
+	 * The compiled string test
+	 **/
+	protected final Predicate<String> matcher;
+	
+	/**
+	 * Protected constructor, use compile or cached instead
+	 *
+	 * @param  pattern    original LIKE pattern
+	 * @param  ignoreCase true for a case insensitive match
+	 * @param  shape      matching strategy used
+	 * @param  matcher    compiled string test
+	 **/
+	protected LikePattern(String pattern, boolean ignoreCase, Shape shape,
+		Predicate<String> matcher) {
+		this.pattern = pattern;
+		this.ignoreCase = ignoreCase;
+		this.shape = shape;
+		this.matcher = matcher;
+	}
+	
+	//--------------------------------------------------------------------
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the original LIKE pattern
+	 **/
+	public String pattern() {
+		return pattern;
+	}
+	
+	/**
+	 * @return  true if its a case insensitive (ILIKE) pattern
+	 **/
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+	
+	/**
+	 * @return  matching strategy used
+	 **/
+	public Shape shape() {
+		return shape;
+	}
+	
+	/**
+	 * @param  value to test
+	 *
+	 * @return  true if the value matches the pattern, false for null values
+	 **/
+	public boolean matches(String value) {
+		return value != null && matcher.test(value);
+	}
+	
+	//--------------------------------------------------------------------
+	// Pattern cache
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Default number of compiled patterns to cache, for each case sensitivity
+	 **/
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+	
+	/**
+	 * Cache of case sensitive, and case insensitive, compiled patterns
+	 **/
+	protected static final ConcurrentLRUCache<String, LikePattern> likeCache = new ConcurrentLRUCache<String, LikePattern>(
+		DEFAULT_CACHE_SIZE);
+	protected static final ConcurrentLRUCache<String, LikePattern> ilikeCache = new ConcurrentLRUCache<String, LikePattern>(
+		DEFAULT_CACHE_SIZE);
+	
+	/**
+	 * Gets the compiled pattern from the cache, compiling it if needed
+	 *
+	 * @param  pattern    LIKE pattern to compile
+	 * @param  ignoreCase true for a case insensitive match
+	 *
+	 * @return  compiled pattern
+	 **/
+	public static LikePattern cached(String pattern, boolean ignoreCase) {
+		if (ignoreCase) {
+			return ilikeCache.computeIfAbsent(pattern, (p) -> compile(p, true));
+		}
+		return likeCache.computeIfAbsent(pattern, (p) -> compile(p, false));
+	}
+	
+	//--------------------------------------------------------------------
+	// Pattern compilation
+	//--------------------------------------------------------------------
+	
+	// Wildcard tokens, in the parsed pattern
+	protected static final Object ANY_SEQUENCE = new Object();
+	protected static final Object ANY_CHAR = new Object();
+	
+	/**
+	 * Parse the pattern into a list of literal strings, and wildcard tokens.
+	 * Where consecutive % wildcards are merged into one.
+	 *
+	 * @param  pattern to parse
+	 *
+	 * @return  list of String literals, ANY_SEQUENCE and ANY_CHAR tokens
+	 **/
+	protected static List<Object> parse(String pattern) {
+		List<Object> ret = new ArrayList<Object>();
+		StringBuilder literal = new StringBuilder();
+		int len = pattern.length();
+		for (int i = 0; i < len; ++i) {
+			char c = pattern.charAt(i);
+			if (c == '\\' && i + 1 < len) {
+				literal.append(pattern.charAt(++i));
+			} else if (c == '%' || c == '_') {
+				if (literal.length() > 0) {
+					ret.add(literal.toString());
+					literal.setLength(0);
+				}
+				if (c == '_') {
+					ret.add(ANY_CHAR);
+				} else if (ret.isEmpty() || ret.get(ret.size() - 1) != ANY_SEQUENCE) {
+					ret.add(ANY_SEQUENCE);
+				}
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0 || ret.isEmpty()) {
+			ret.add(literal.toString());
+		}
+		return ret;
+	}
+	
+	/**
+	 * Compiles the LIKE pattern, without caching
+	 *
+	 * @param  pattern    LIKE pattern to compile
+	 * @param  ignoreCase true for a case insensitive match
+	 *
+	 * @return  compiled pattern
+	 **/
+	public static LikePattern compile(String pattern, boolean ignoreCase) {
+		if (pattern == null) {
+			throw new IllegalArgumentException("Null LIKE pattern");
+		}
+		
+		List<Object> tokens = parse(pattern);
+		int size = tokens.size();
+		Object first = tokens.get(0);
+		Object last = tokens.get(size - 1);
+		
+		// Pattern shapes, which can be matched without regex
+		if (!tokens.contains(ANY_CHAR)) {
+			if (size == 1 && first == ANY_SEQUENCE) {
+				return new LikePattern(pattern, ignoreCase, Shape.ANY, (s) -> true);
+			}
+			if (size == 1) {
+				String lit = (String) first;
+				return new LikePattern(pattern, ignoreCase, Shape.EQUALS, ignoreCase ? (s) -> s
+					.equalsIgnoreCase(lit) : (s) -> s.equals(lit));
+			}
+			if (size == 2 && last == ANY_SEQUENCE) {
+				String lit = (String) first;
+				return new LikePattern(pattern, ignoreCase, Shape.PREFIX, (s) -> s.regionMatches(
+					ignoreCase, 0, lit, 0, lit.length()));
+			}
+			if (size == 2 && first == ANY_SEQUENCE) {
+				String lit = (String) last;
+				return new LikePattern(pattern, ignoreCase, Shape.SUFFIX, (s) -> s.regionMatches(
+					ignoreCase, s.length() - lit.length(), lit, 0, lit.length()));
+			}
+			if (size == 3 && first == ANY_SEQUENCE && last == ANY_SEQUENCE) {
+				String lit = (String) tokens.get(1);
+				return new LikePattern(pattern, ignoreCase, Shape.CONTAINS, ignoreCase ? (s) -> containsIgnoreCase(
+					s, lit) : (s) -> s.contains(lit));
+			}
+			if (size == 3 && tokens.get(1) == ANY_SEQUENCE) {
+				String prefix = (String) first;
+				String suffix = (String) last;
+				int minLength = prefix.length() + suffix.length();
+				return new LikePattern(pattern, ignoreCase, Shape.PREFIX_SUFFIX, (s) -> s.length() >= minLength
+					&& s.regionMatches(ignoreCase, 0, prefix, 0, prefix.length())
+					&& s.regionMatches(ignoreCase, s.length() - suffix.length(), suffix, 0, suffix
+						.length()));
+			}
+		}
+		
+		// Fallback to regex, with the literals quoted
+		StringBuilder regex = new StringBuilder();
+		for (Object token : tokens) {
+			if (token == ANY_SEQUENCE) {
+				regex.append(".*");
+			} else if (token == ANY_CHAR) {
+				regex.append('.');
+			} else if (((String) token).length() > 0) {
+				regex.append(Pattern.quote((String) token));
+			}
+		}
+		int flags = Pattern.DOTALL;
+		if (ignoreCase) {
+			flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+		}
+		Pattern compiled = Pattern.compile(regex.toString(), flags);
+		return new LikePattern(pattern, ignoreCase, Shape.REGEX, (s) -> compiled.matcher(s)
+			.matches());
+	}
+	
+	/**
+	 * Case insensitive contains, without lowercasing the string
+	 *
+	 * @param  s   string to search in
+	 * @param  lit literal to search for
+	 *
+	 * @return  true if the literal is found
+	 **/
+	protected static boolean containsIgnoreCase(String s, String lit) {
+		int litLength = lit.length();
+		int end = s.length() - litLength;
+		for (int i = 0; i <= end; ++i) {
+			if (s.regionMatches(true, i, lit, 0, litLength)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
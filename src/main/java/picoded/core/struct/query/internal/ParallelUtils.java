@@ -0,0 +1,351 @@
+package picoded.core.struct.query.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import picoded.core.conv.GenericConvert;
+import picoded.core.struct.query.mapreduce.MapReduceBase;
+
+/**
+ * Collection of utility functions, used to split query searches and aggregation
+ * across a ForkJoinPool.
+ *
+ * The input is split into ranges of (at least) the split threshold size, where each range
+ * is filtered (and mapped for aggregation) seperately, before being combined in order.
+ *
+ * Note that the query predicate, and the values being searched,
+ * should not be modified while the parallel search is in progress.
+ **/
+public class ParallelUtils {
+	
+	protected ParallelUtils() {
+		throw new IllegalAccessError("Utility class");
+	}
+	
+	//---------------------------------------
+	//
+	// Split threshold
+	//
+	//---------------------------------------
+	
+	/**
+	 * Default minimum number of values, to process in a single task
+	 **/
+	public static final int DEFAULT_SPLIT_THRESHOLD = 4096;
+	
+	/**
+	 * Minimum number of values, to process in a single task
+	 **/
+	protected static volatile int splitThreshold = DEFAULT_SPLIT_THRESHOLD;
+	
+	/**
+	 * @return  minimum number of values, to process in a single task
+	 **/
+	public static int splitThreshold() {
+		return splitThreshold;
+	}
+	
+	/**
+	 * Set the minimum number of values, to process in a single task.
+	 * Datasets smaller then this are processed in the calling thread.
+	 *
+	 * @param  threshold to use, minimum of 1
+	 **/
+	public static void setSplitThreshold(int threshold) {
+		splitThreshold = Math.max(1, threshold);
+	}
+	
+	/**
+	 * Get the collection as a random access list, used for splitting.
+	 * Copying it to a list if needed.
+	 *
+	 * @param  collection to convert
+	 *
+	 * @return  random access list of the collection
+	 **/
+	public static <V> List<V> randomAccessList(Collection<V> collection) {
+		if (collection instanceof List && collection instanceof RandomAccess) {
+			return (List<V>) collection;
+		}
+		return new ArrayList<V>(collection);
+	}
+	
+	//---------------------------------------
+	//
+	// Parallel search
+	//
+	//---------------------------------------
+	
+	/**
+	 * Filter the list using the predicate, in parallel.
+	 * Results are returned in the same order as the list.
+	 *
+	 * @param  pool to run the search with
+	 * @param  list to search
+	 * @param  filter predicate to test each value with
+	 *
+	 * @return  list of values, which matched the filter
+	 **/
+	public static <V> List<V> search(ForkJoinPool pool, List<V> list, Predicate<Object> filter) {
+		int threshold = splitThreshold;
+		if (list.size() <= threshold) {
+			return new SearchTask<V>(list, filter, 0, list.size(), threshold).compute();
+		}
+		return pool.invoke(new SearchTask<V>(list, filter, 0, list.size(), threshold));
+	}
+	
+	/**
+	 * Fork join task, of a search over a range of the list
+	 **/
+	protected static class SearchTask<V> extends RecursiveTask<List<V>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		protected final List<V> list;
+		protected final Predicate<Object> filter;
+		protected final int start;
+		protected final int end;
+		protected final int threshold;
+		
+		protected SearchTask(List<V> list, Predicate<Object> filter, int start, int end,
+			int threshold) {
+			this.list = list;
+			this.filter = filter;
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected List<V> compute() {
+			// Search the range directly
+			if (end - start <= threshold) {
+				List<V> ret = new ArrayList<V>();
+				for (int i = start; i < end; ++i) {
+					V val = list.get(i);
+					if (filter.test(val)) {
+						ret.add(val);
+					}
+				}
+				return ret;
+			}
+			
+			// Split the range, and combine in order
+			int mid = (start + end) >>> 1;
+			SearchTask<V> left = new SearchTask<V>(list, filter, start, mid, threshold);
+			left.fork();
+			List<V> rightRes = new SearchTask<V>(list, filter, mid, end, threshold).compute();
+			List<V> ret = left.join();
+			ret.addAll(rightRes);
+			return ret;
+		}
+	}
+	
+	//---------------------------------------
+	//
+	// Parallel aggregation
+	//
+	//---------------------------------------
+	
+	/**
+	 * Filter and aggregate the list in parallel, using the MapReduceBase array.
+	 * Where each task map its own range into new MapReduceBase instances,
+	 * which is then merged together.
+	 *
+	 * All MapReduceBase provided must support merging.
+	 *
+	 * @param  pool           to run the aggregation with
+	 * @param  list           to aggregate
+	 * @param  filter         predicate to test each value with, null to aggregate all values
+	 * @param  mapreduceArray to use as the template of each task
+	 * @param  fieldNames     fieldNames to the respective mapreduceArray, to extract values from
+	 *
+	 * @return  BigDecimal array of results
+	 **/
+	public static BigDecimal[] aggregate(ForkJoinPool pool, List<?> list, Predicate<Object> filter,
+		MapReduceBase[] mapreduceArray, String[] fieldNames) {
+		// Validate that the partial results can be merged
+		for (MapReduceBase base : mapreduceArray) {
+			if (!base.isMergeable()) {
+				throw new RuntimeException("MapReduceBase does not support merging : "
+					+ base.getClass().getName());
+			}
+		}
+		
+		// Compute the partial results, in parallel if needed
+		int threshold = splitThreshold;
+		AggregateTask task = new AggregateTask(list, filter, mapreduceArray, fieldNames, 0,
+			list.size(), threshold);
+		MapReduceBase[] merged = (list.size() <= threshold) ? task.compute() : pool.invoke(task);
+		
+		// Reduce the merged result
+		BigDecimal[] ret = new BigDecimal[merged.length];
+		for (int i = 0; i < merged.length; ++i) {
+			ret[i] = merged[i].reduce();
+		}
+		return ret;
+	}
+	
+	/**
+	 * Fork join task, of the map phase over a range of the list
+	 **/
+	protected static class AggregateTask extends RecursiveTask<MapReduceBase[]> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		protected final List<?> list;
+		protected final Predicate<Object> filter;
+		protected final MapReduceBase[] template;
+		protected final String[] fieldNames;
+		protected final int start;
+		protected final int end;
+		protected final int threshold;
+		
+		protected AggregateTask(List<?> list, Predicate<Object> filter, MapReduceBase[] template,
+			String[] fieldNames, int start, int end, int threshold) {
+			this.list = list;
+			this.filter = filter;
+			this.template = template;
+			this.fieldNames = fieldNames;
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected MapReduceBase[] compute() {
+			int len = template.length;
+			
+			// Map the range directly, into new instances
+			if (end - start <= threshold) {
+				MapReduceBase[] ret = new MapReduceBase[len];
+				for (int i = 0; i < len; ++i) {
+					ret[i] = template[i].newInstance();
+				}
+				for (int r = start; r < end; ++r) {
+					Object val = list.get(r);
+					if (filter != null && !filter.test(val)) {
+						continue;
+					}
+					Map<String, Object> mapData = GenericConvert.toStringMap(val);
+					for (int i = 0; i < len; ++i) {
+						ret[i].map(mapData, fieldNames[i]);
+					}
+				}
+				return ret;
+			}
+			
+			// Split the range, and merge the partial results
+			int mid = (start + end) >>> 1;
+			AggregateTask left = new AggregateTask(list, filter, template, fieldNames, start, mid,
+				threshold);
+			left.fork();
+			MapReduceBase[] rightRes = new AggregateTask(list, filter, template, fieldNames, mid,
+				end, threshold).compute();
+			MapReduceBase[] ret = left.join();
+			for (int i = 0; i < len; ++i) {
+				ret[i].merge(rightRes[i]);
+			}
+			return ret;
+		}
+	}
+	
+	//---------------------------------------
+	//
+	// Parallel grouped aggregation
+	//
+	//---------------------------------------
+	
+	/**
+	 * Filter and aggregate the list by groups in parallel, using the MapReduceBase array.
+	 * Where each task builds its own partial group table, which is then merged together.
+	 *
+	 * All MapReduceBase provided must support merging.
+	 *
+	 * @param  pool           to run the aggregation with
+	 * @param  list           to aggregate
+	 * @param  filter         predicate to test each value with, null to aggregate all values
+	 * @param  mapreduceArray to use as the template of each group
+	 * @param  fieldNames     fieldNames to the respective mapreduceArray, to extract values from
+	 * @param  groupFields    field names to group by
+	 *
+	 * @return  map of group key, to the BigDecimal array of results
+	 **/
+	public static Map<List<Object>, BigDecimal[]> groupedAggregate(ForkJoinPool pool,
+		List<?> list, Predicate<Object> filter, MapReduceBase[] mapreduceArray,
+		String[] fieldNames, String[] groupFields) {
+		// Validate that the partial results can be merged
+		for (MapReduceBase base : mapreduceArray) {
+			if (!base.isMergeable()) {
+				throw new RuntimeException("MapReduceBase does not support merging : "
+					+ base.getClass().getName());
+			}
+		}
+		
+		// Compute the partial group tables, in parallel if needed
+		int threshold = splitThreshold;
+		GroupedAggregateTask task = new GroupedAggregateTask(list, filter, mapreduceArray,
+			fieldNames, groupFields, 0, list.size(), threshold);
+		Map<List<Object>, MapReduceBase[]> merged = (list.size() <= threshold) ? task.compute()
+			: pool.invoke(task);
+		
+		// Reduce the merged result
+		return AggregationUtils.reduceGroupedMapReduceBase(merged);
+	}
+	
+	/**
+	 * Fork join task, of the grouped map phase over a range of the list
+	 **/
+	protected static class GroupedAggregateTask extends
+		RecursiveTask<Map<List<Object>, MapReduceBase[]>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		protected final List<?> list;
+		protected final Predicate<Object> filter;
+		protected final MapReduceBase[] template;
+		protected final String[] fieldNames;
+		protected final String[] groupFields;
+		protected final int start;
+		protected final int end;
+		protected final int threshold;
+		
+		protected GroupedAggregateTask(List<?> list, Predicate<Object> filter,
+			MapReduceBase[] template, String[] fieldNames, String[] groupFields, int start, int end,
+			int threshold) {
+			this.list = list;
+			this.filter = filter;
+			this.template = template;
+			this.fieldNames = fieldNames;
+			this.groupFields = groupFields;
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected Map<List<Object>, MapReduceBase[]> compute() {
+			// Map the range directly, into a new group table
+			if (end - start <= threshold) {
+				return AggregationUtils.computeGroupedMapReduceBase(template, fieldNames,
+					groupFields, list.subList(start, end), filter);
+			}
+			
+			// Split the range, and merge the partial group tables (in order)
+			int mid = (start + end) >>> 1;
+			GroupedAggregateTask left = new GroupedAggregateTask(list, filter, template,
+				fieldNames, groupFields, start, mid, threshold);
+			left.fork();
+			Map<List<Object>, MapReduceBase[]> rightRes = new GroupedAggregateTask(list, filter,
+				template, fieldNames, groupFields, mid, end, threshold).compute();
+			return AggregationUtils.mergeGroupedMapReduceBase(left.join(), rightRes);
+		}
+	}
+}
@@ -7,10 +7,17 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import picoded.core.struct.ConcurrentLRUCache;
 import picoded.core.struct.MutablePair;
 import picoded.core.struct.query.Query;
 import picoded.core.struct.query.condition.And;
+import picoded.core.struct.query.condition.Between;
+import picoded.core.struct.query.condition.Constant;
 import picoded.core.struct.query.condition.Equals;
+import picoded.core.struct.query.condition.ILike;
+import picoded.core.struct.query.condition.In;
+import picoded.core.struct.query.condition.IsNotNull;
+import picoded.core.struct.query.condition.IsNull;
 import picoded.core.struct.query.condition.LessThan;
 import picoded.core.struct.query.condition.LessThanOrEquals;
 import picoded.core.struct.query.condition.Like;
@@ -39,13 +46,20 @@ import picoded.core.struct.query.condition.Or;
  * which are linked and reduced till there is only 1 query token.
  *
  * 1) Scan for basic comparision operators, this is found using the compare operators such as =, <=, >
- *    and build the Query tokens to replace the string tokens.
+ *    and build the Query tokens to replace the string tokens. Along with the multi token operators
+ *    `IN ( :a, :b )`, `BETWEEN :a AND :b`, `IS NULL` and `IS NOT NULL`,
+ *    and the `TRUE` / `FALSE` constants
  * 2) Scans for an isolated enclosed bracket ( query ), that has no inner enclosed bracket string tokens.
  *    In event the the whole list does not contains inner bracket, the whole token set is chosen
  * 3) Inside the isolated token set, does a combination merger of all the various Query tokens,
  *    Forming a single large token, per isolated enclosed bracket token set.
  * 4) Step 2 & 3 is looped till there is only 1 token left, which is returned
  *
+ * # Query template cache
+ *
+ * The result of the above steps, is cached as a query template (without arguments) by its query string.
+ * As such repeated query strings only needs its arguments to be bound, see buildQuery.
+ *
  * @TODO: Optimize this class, generally this whole set of
  *        filters are NOT string modification optimized.
  **/
@@ -109,6 +123,35 @@ public class QueryFilter {
 		return baseMap;
 	}
 	
+	/**
+	 * Converts the argument array to its named map format, after validating
+	 * the argument array length against the number of ? arguments in the query
+	 *
+	 * @param  named map to build on and return, creates a HashMap if null
+	 * @param  arguments array to convert from
+	 * @param  number of ? arguments found in the query string
+	 *
+	 * @return  the returned named map
+	 **/
+	public static Map<String, Object> bindArguments(Map<String, Object> baseMap, Object[] argArr,
+		int argReplacmentCount) {
+		// Ensures argument map
+		if (baseMap == null) {
+			baseMap = new HashMap<String, Object>();
+		}
+		
+		// Validate the argument count
+		int argArrCount = (argArr != null) ? argArr.length : argReplacmentCount;
+		if (argArrCount != argReplacmentCount) {
+			throw new RuntimeException("Query string argument count (" + argReplacmentCount
+				+ "), and argument array length mismatched (" + argArrCount + ")");
+		}
+		if (argReplacmentCount > 0) {
+			baseMap = argumentsArrayToMap(baseMap, argArr);
+		}
+		return baseMap;
+	}
+	
 	//
 	// Step 2)
 	//
@@ -168,7 +211,7 @@ public class QueryFilter {
 		Map<String, Object> baseMap, //
 		Object[] argArr //
 	) { //
-	
+		
 		// Ensures argument map
 		//----------------------------------------------------------
 		if (baseMap == null) {
@@ -178,16 +221,7 @@ public class QueryFilter {
 		// Prepare conversion of argument array to argument map
 		//----------------------------------------------------------
 		MutablePair<String, Integer> argReplacment = filterQueryArguments(query);
-		
-		int argReplacmentCount = argReplacment.getRight().intValue();
-		int argArrCount = (argArr != null) ? argArr.length : argReplacmentCount;
-		if (argArrCount != argReplacmentCount) {
-			throw new RuntimeException("Query string argument count (" + argReplacmentCount
-				+ "), and argument array length mismatched (" + argArrCount + ")");
-		}
-		if (argReplacmentCount > 0) {
-			baseMap = argumentsArrayToMap(baseMap, argArr);
-		}
+		baseMap = bindArguments(baseMap, argArr, argReplacment.getRight().intValue());
 		
 		// Refactoring the query, and enfocting its whitespace
 		//----------------------------------------------------------
@@ -230,12 +264,17 @@ public class QueryFilter {
 	 * Basic query operator tokens to search for
 	 **/
 	protected static List<String> basicOperators = Arrays.asList(new String[] { //
-		"=", "<", ">", "<=", ">=", "LIKE", "!=" }); //
+		"=", "<", ">", "<=", ">=", "LIKE", "ILIKE", "!=" }); //
 	/**
 	 * Extended query tokens to search for
 	 **/
 	protected static List<String> combinationOperators = Arrays.asList(new String[] { //
 		"AND", "OR", "NOT" }); //
+	/**
+	 * Multi token query operators to search for
+	 **/
+	protected static List<String> multiTokenOperators = Arrays.asList(new String[] { //
+		"IN", "BETWEEN", "IS" }); //
 	
 	/**
 	 * Extract out the string, and build the basic query
@@ -267,6 +306,21 @@ public class QueryFilter {
 				continue; // next
 			}
 			
+			// Found a multi token operator (IN, BETWEEN, IS), pushes it.
+			// Only in the operator position, after a field name token, as IN / IS
+			// following AND / OR / NOT or a bracket, are field names instead.
+			if ((a + 1) < tokenLength && isFieldNameToken(token[a])
+				&& multiTokenOperators.contains(token[a + 1].toUpperCase(Locale.ENGLISH))) {
+				a = multiTokenQuery(ret, token, a, paramMap);
+				continue; // next
+			}
+			
+			// Constant TRUE / FALSE token, which is not a field name
+			if ("TRUE".equalsIgnoreCase(token[a]) || "FALSE".equalsIgnoreCase(token[a])) {
+				ret.add(Constant.of("TRUE".equalsIgnoreCase(token[a])));
+				continue; // next
+			}
+			
 			// Failed operator find, push token to return list
 			ret.add(token[a]);
 		}
@@ -276,6 +330,135 @@ public class QueryFilter {
 		return ret;
 	}
 	
+	/**
+	 * Indicates if the token can be a field name, that is not a bracket,
+	 * or a combination operator (AND, OR, NOT)
+	 *
+	 * @param  token to check
+	 *
+	 * @return  true if its a possible field name
+	 **/
+	protected static boolean isFieldNameToken(String token) {
+		return !"(".equals(token) && !")".equals(token)
+			&& !combinationOperators.contains(token.toUpperCase(Locale.ENGLISH));
+	}
+	
+	/**
+	 * Builds the multi token query, at the given field name token position.
+	 *
+	 * + `field IN ( :a , :b , ... )` or `field IN :a`
+	 * + `field BETWEEN :a AND :b`
+	 * + `field IS NULL` or `field IS NOT NULL`
+	 *
+	 * @param  list to add the built query into
+	 * @param  token array containing the original query
+	 * @param  field name token position
+	 * @param  parameter map to use as default
+	 *
+	 * @return  the last token position used by the query
+	 **/
+	protected static int multiTokenQuery(List<Object> ret, String[] token, int pos,
+		Map<String, Object> paramMap) {
+		String field = QueryUtils.unwrapFieldName(token[pos]);
+		String operator = token[pos + 1].toUpperCase(Locale.ENGLISH);
+		int a = pos + 2;
+		
+		if ("IN".equals(operator)) {
+			// Single argument, expected to be a collection / array
+			if (!"(".equals(tokenAt(token, a, operator))) {
+				String[] argNames = new String[] { namedParameter(token, a, operator) };
+				ret.add(new In(field, argNames, paramMap));
+				return a;
+			}
+			
+			// Bracketed argument list, seperated by commas. As commas are not
+			// split into their own tokens, it may be attached to the named argument
+			List<String> argNames = new ArrayList<String>();
+			while (true) {
+				String namedParam = tokenAt(token, ++a, operator);
+				boolean hasComma = namedParam.length() > 1 && namedParam.endsWith(",");
+				if (hasComma) {
+					namedParam = namedParam.substring(0, namedParam.length() - 1);
+				}
+				argNames.add(namedParameter(namedParam, operator));
+				String next = hasComma ? "," : tokenAt(token, ++a, operator);
+				if (")".equals(next)) {
+					break;
+				} else if (!",".equals(next)) {
+					throw new RuntimeException("Unexpected IN token, expected ',' or ')' : " + next);
+				}
+			}
+			ret.add(new In(field, argNames.toArray(new String[0]), paramMap));
+			return a;
+		} else if ("BETWEEN".equals(operator)) {
+			String lower = namedParameter(token, a, operator);
+			if (!"AND".equalsIgnoreCase(tokenAt(token, a + 1, operator))) {
+				throw new RuntimeException("Unexpected BETWEEN token, expected 'AND' : "
+					+ token[a + 1]);
+			}
+			String upper = namedParameter(token, a + 2, operator);
+			ret.add(new Between(field, lower, upper, paramMap));
+			return a + 2;
+		}
+		
+		// IS NULL, or IS NOT NULL
+		String next = tokenAt(token, a, operator);
+		if ("NULL".equalsIgnoreCase(next)) {
+			ret.add(new IsNull(field, paramMap));
+			return a;
+		} else if ("NOT".equalsIgnoreCase(next)
+			&& "NULL".equalsIgnoreCase(tokenAt(token, a + 1, operator))) {
+			ret.add(new IsNotNull(field, paramMap));
+			return a + 1;
+		}
+		throw new RuntimeException("Unexpected IS token, expected 'NULL' or 'NOT NULL' : " + next);
+	}
+	
+	/**
+	 * Gets the token at the given position, throwing on an unexpected end of tokens
+	 *
+	 * @param  token array containing the original query
+	 * @param  token position
+	 * @param  operator token being processed
+	 *
+	 * @return  the token
+	 **/
+	protected static String tokenAt(String[] token, int pos, String operator) {
+		if (pos >= token.length) {
+			throw new RuntimeException("Unexpected end of operator token : " + operator);
+		}
+		return token[pos];
+	}
+	
+	/**
+	 * Gets the named parameter at the given position, without its : prefix
+	 *
+	 * @param  token array containing the original query
+	 * @param  token position
+	 * @param  operator token being processed
+	 *
+	 * @return  the named parameter
+	 **/
+	protected static String namedParameter(String[] token, int pos, String operator) {
+		return namedParameter(tokenAt(token, pos, operator), operator);
+	}
+	
+	/**
+	 * Gets the named parameter of the token, without its : prefix
+	 *
+	 * @param  named parameter token
+	 * @param  operator token being processed
+	 *
+	 * @return  the named parameter
+	 **/
+	protected static String namedParameter(String namedParam, String operator) {
+		if (!namedParam.startsWith(":")) {
+			throw new RuntimeException("Unexpected named parameter set: " + operator + " "
+				+ namedParam);
+		}
+		return namedParam.substring(1);
+	}
+	
 	/**
 	 * Refactor the query to one that is easily parsed by a tokenizer
 	 *
@@ -298,6 +481,27 @@ public class QueryFilter {
 		namedParam = namedParam.substring(1);
 		//}
 		
+		Query ret = basicQuery(operator, field, namedParam, paramsMap);
+		if (ret != null) {
+			return ret;
+		}
+		
+		throw new RuntimeException("Unknown operator set found: " + before + " " + operator + " "
+			+ after);
+	}
+	
+	/**
+	 * Builds the basic query, for the given operator
+	 *
+	 * @param  operator token used to choose the query
+	 * @param  field name to test (without any wrappers)
+	 * @param  named argument used (without the : prefix)
+	 * @param  parameter map to use as default
+	 *
+	 * @return  built query, null if the operator is not supported
+	 **/
+	public static Query basicQuery(String operator, String field, String namedParam,
+		Map<String, Object> paramsMap) {
 		if ("=".equals(operator)) {
 			return new Equals(field, namedParam, paramsMap);
 			
@@ -314,12 +518,39 @@ public class QueryFilter {
 			return new MoreThanOrEquals(field, namedParam, paramsMap);
 		} else if ("LIKE".equals(operator)) {
 			return new Like(field, namedParam, paramsMap);
+		} else if ("ILIKE".equals(operator)) {
+			return new ILike(field, namedParam, paramsMap);
 		} else if ("!=".equals(operator)) {
 			return new NotEquals(field, namedParam, paramsMap);
 		}
-		
-		throw new RuntimeException("Unknown operator set found: " + before + " " + operator + " "
-			+ after);
+		return null;
+	}
+	
+	/**
+	 * Builds the basic query, for the given operator, and all of its named arguments.
+	 * This supports the multi argument operators (such as IN / BETWEEN), along with basicQuery.
+	 *
+	 * @param  operator symbol used to choose the query
+	 * @param  field name to test (without any wrappers)
+	 * @param  named arguments used (without the : prefix)
+	 * @param  parameter map to use as default
+	 *
+	 * @return  built query, null if the operator is not supported
+	 **/
+	public static Query basicQuery(String operator, String field, String[] namedParams,
+		Map<String, Object> paramsMap) {
+		if ("IN".equals(operator)) {
+			return new In(field, namedParams, paramsMap);
+		} else if ("BETWEEN".equals(operator)) {
+			return (namedParams.length == 2) ? new Between(field, namedParams[0], namedParams[1],
+				paramsMap) : null;
+		} else if ("IS NULL".equals(operator)) {
+			return new IsNull(field, paramsMap);
+		} else if ("IS NOT NULL".equals(operator)) {
+			return new IsNotNull(field, paramsMap);
+		}
+		return (namedParams.length == 1) ? basicQuery(operator, field, namedParams[0], paramsMap)
+			: null;
 	}
 	
 	//
@@ -548,10 +779,121 @@ public class QueryFilter {
 		Map<String, Object> baseMap, //
 		Object[] argArr //
 	) { //
-		MutablePair<String, Map<String, Object>> refac = refactorQuery(query, baseMap, argArr);
-		String[] querySplit = splitRefactoredQuery(refac.getLeft());
-		List<Object> tokenArr = buildBasicQuery(querySplit, refac.getRight());
-		return collapseQueryTokens(tokenArr, refac.getRight());
+		// Get the parsed query template, from cache if possible
+		MutablePair<Query, Integer> template = cachedQueryTemplate(query);
+		
+		// Bind the arguments, to a copy of the template.
+		// Without modifying the given base map, which may be shared by the caller.
+		if (baseMap != null && argArr != null && argArr.length > 0) {
+			baseMap = new HashMap<String, Object>(baseMap);
+		}
+		Map<String, Object> paramMap = bindArguments(baseMap, argArr, template.getRight()
+			.intValue());
+		return bindQuery(template.getLeft(), paramMap);
+	}
+	
+	/**
+	 * Gets the parsed query template, from the query template cache if possible,
+	 * else parse and cache it.
+	 *
+	 * The returned template is shared, and should never be modified.
+	 *
+	 * @param  the query string to parse
+	 *
+	 * @return  the query template, and the amount of ? arguments in the query
+	 **/
+	public static MutablePair<Query, Integer> cachedQueryTemplate(String query) {
+		ConcurrentLRUCache<String, MutablePair<Query, Integer>> cache = queryTemplateCache;
+		MutablePair<Query, Integer> template = cache.get(query);
+		if (template == null) {
+			template = buildQueryTemplate(query);
+			cache.put(query, template);
+		}
+		return template;
+	}
+	
+	//---------------------------------
+	//
+	// Parsed query template, and its cache
+	//
+	//---------------------------------
+	
+	/**
+	 * Default number of parsed query templates to cache
+	 **/
+	public static final int DEFAULT_QUERY_TEMPLATE_CACHE_SIZE = 1000;
+	
+	/**
+	 * Parsed query template cache, of the query string, to its template and ? argument count
+	 **/
+	protected static volatile ConcurrentLRUCache<String, MutablePair<Query, Integer>> queryTemplateCache = new ConcurrentLRUCache<String, MutablePair<Query, Integer>>(
+		DEFAULT_QUERY_TEMPLATE_CACHE_SIZE);
+	
+	/**
+	 * Gets the parsed query template cache, for its hit / miss / eviction statistics
+	 *
+	 * @return  the query template cache
+	 **/
+	public static ConcurrentLRUCache<String, MutablePair<Query, Integer>> queryTemplateCache() {
+		return queryTemplateCache;
+	}
+	
+	/**
+	 * Replace the parsed query template cache, with a new (empty) cache of the given size
+	 *
+	 * @param  maximum number of query templates to cache, 0 disables the cache
+	 **/
+	public static void setQueryTemplateCacheSize(int size) {
+		queryTemplateCache = new ConcurrentLRUCache<String, MutablePair<Query, Integer>>(size);
+	}
+	
+	/**
+	 * Parse the query string into a query template, without any argument map.
+	 * This does the full string, and token processing steps.
+	 *
+	 * @param  the query string to parse
+	 *
+	 * @return  the query template, and the amount of ? arguments in the query
+	 **/
+	public static MutablePair<Query, Integer> buildQueryTemplate(String query) {
+		MutablePair<String, Integer> argReplacment = filterQueryArguments(query);
+		String resQuery = enforceRequiredWhitespace(argReplacment.getLeft());
+		String[] querySplit = splitRefactoredQuery(resQuery);
+		List<Object> tokenArr = buildBasicQuery(querySplit, null);
+		Query template = collapseQueryTokens(tokenArr, null);
+		return new MutablePair<Query, Integer>(template, argReplacment.getRight());
+	}
+	
+	/**
+	 * Builds a copy of the query template, using the given parameter map as default
+	 *
+	 * @param  query template to copy
+	 * @param  parameter map to use as default
+	 *
+	 * @return  the query bounded to the parameter map
+	 **/
+	public static Query bindQuery(Query template, Map<String, Object> paramMap) {
+		// Constant query, has no arguments
+		if (template instanceof Constant) {
+			return template;
+		}
+		
+		// Combination query, bind each children
+		if (template.isCombinationOperator()) {
+			List<Query> childList = new ArrayList<Query>();
+			for (Query child : template.childrenQuery()) {
+				childList.add(bindQuery(child, paramMap));
+			}
+			return combinationQuery(template.operatorSymbol(), childList, paramMap);
+		}
+		
+		// Basic query
+		Query ret = basicQuery(template.operatorSymbol(), template.fieldName(),
+			template.argumentNames(), paramMap);
+		if (ret == null) {
+			throw new RuntimeException("Unable to bind query template: " + template);
+		}
+		return ret;
 	}
 	
 	protected static Query processCombinationType(List<Object> tokens, Map<String, Object> paramMap,
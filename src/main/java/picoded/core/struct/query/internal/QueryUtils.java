@@ -4,6 +4,8 @@ import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.Map;
 
+import picoded.core.conv.NestedObjectPath;
+
 public class QueryUtils {
 	
 	protected QueryUtils() {
@@ -11,23 +13,19 @@ public class QueryUtils {
 	}
 	
 	/**
-	 * Gets the field value to test
+	 * Gets the field value to test, supporting nested field paths (such as `a.b[2].c`)
+	 * See NestedObjectFetch for the path format.
 	 *
 	 * @param   object to extract out the field value
 	 * @param   field name of extraction
 	 *
-	 * @TODO: Support FullyQualifiedDomainName extraction? With arrays even?
-	 *
 	 * @return  The extracted object
 	 **/
-	@SuppressWarnings("rawtypes")
 	public static Object getFieldValue(Object t, String field) {
 		if (field == null || "this".equalsIgnoreCase(field)) {
 			return t;
-		} else if (t instanceof Map) {
-			return ((Map) t).get(field);
 		}
-		return null;
+		return NestedObjectPath.compile(field).fetch(t);
 	}
 	
 	/**
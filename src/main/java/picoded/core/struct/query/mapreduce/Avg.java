@@ -19,6 +19,12 @@ public class Avg extends MapReduceBase {
 	 */
 	protected BigDecimal count = null;
 	
+	/**
+	 * Fast mode running sum, and count
+	 */
+	protected FastSum fastSum = new FastSum();
+	protected long fastCount = 0;
+	
 	/**
 	 * mapping function used to process a single value as it comes in
 	 * 
@@ -40,6 +46,77 @@ public class Avg extends MapReduceBase {
 		}
 	}
 	
+	/**
+	 * @return  true, as added values can be subtracted
+	 **/
+	public boolean isInvertible() {
+		return true;
+	}
+	
+	/**
+	 * unmapping function used to subtract a single value
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void unmap(BigDecimal val, Object rawVal) {
+		if (val != null) {
+			res = res.subtract(val);
+			count = count.subtract(BigDecimal.ONE);
+			// No values left, as per a blank average
+			if (count.signum() == 0) {
+				res = null;
+				count = null;
+			}
+		}
+	}
+	
+	/**
+	 * Fast mode mapping, of long / double values
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped
+	 */
+	protected boolean mapFast(Object rawVal) {
+		if (isLongValue(rawVal)) {
+			fastSum.add(((Number) rawVal).longValue());
+		} else if (isDoubleValue(rawVal)) {
+			fastSum.add(((Number) rawVal).doubleValue());
+		} else {
+			return false;
+		}
+		++fastCount;
+		return true;
+	}
+	
+	/**
+	 * Long value mapping, added up without boxing (which is exact)
+	 * 
+	 * @param  val to process
+	 */
+	public void mapLong(long val) {
+		if (invertibleMode) {
+			super.mapLong(val);
+			return;
+		}
+		fastSum.add(val);
+		++fastCount;
+	}
+	
+	/**
+	 * Double value mapping, added up without boxing in fast mode
+	 * 
+	 * @param  val to process
+	 */
+	public void mapDouble(double val) {
+		if (fastMode && Double.isFinite(val)) {
+			fastSum.add(val);
+			++fastCount;
+		} else {
+			super.mapDouble(val);
+		}
+	}
+	
 	/**
 	 * Returns the current calculation reduce-ed as a BigDecimal.
 	 * By default this simply returns a clone of the "res" object
@@ -47,7 +124,19 @@ public class Avg extends MapReduceBase {
 	 * @return  BigDecimal representing the current result
 	 */
 	public BigDecimal reduce() {
-		return res.divide(count, AVG_RESULT_MAX_SCALE, BigDecimal.ROUND_HALF_UP);
+		// Include any fast mode values
+		BigDecimal sum = res;
+		BigDecimal total = count;
+		if (fastCount > 0) {
+			sum = addNullable(sum, fastSum.result());
+			total = addNullable(total, BigDecimal.valueOf(fastCount));
+		}
+		
+		// No values to average
+		if (sum == null) {
+			return null;
+		}
+		return sum.divide(total, AVG_RESULT_MAX_SCALE, BigDecimal.ROUND_HALF_UP);
 	}
 	
 	/**
@@ -56,6 +145,36 @@ public class Avg extends MapReduceBase {
 	public void reset() {
 		res = null;
 		count = null;
+		fastSum.reset();
+		fastCount = 0;
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		// Add up the partial sum and count, if any
+		Avg otherAvg = (Avg) other;
+		if (otherAvg.res != null) {
+			if (res == null) {
+				res = otherAvg.res;
+				count = otherAvg.count;
+			} else {
+				res = res.add(otherAvg.res);
+				count = count.add(otherAvg.count);
+			}
+		}
+		fastSum.merge(otherAvg.fastSum);
+		fastCount += otherAvg.fastCount;
 	}
 	
 }
\ No newline at end of file
@@ -6,6 +6,12 @@ import java.math.BigDecimal;
  * Count function for MapReduceBase
  **/
 public class Count extends MapReduceBase {
+	
+	/**
+	 * Fast mode running count
+	 */
+	protected long fastCount = 0;
+	
 	/**
 	 * mapping function used to process a single value as it comes in
 	 * 
@@ -33,10 +39,130 @@ public class Count extends MapReduceBase {
 	public void map(Object inmap, String key) {
 		// Wildcard matching
 		if (key.equalsIgnoreCase("*")) {
-			map(BigDecimal.ONE, BigDecimal.ONE);
+			if (fastMode) {
+				++fastCount;
+			} else {
+				map(BigDecimal.ONE, BigDecimal.ONE);
+			}
 		} else {
 			super.map(inmap, key);
 		}
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * Extract the raw value to map, where the wildcard counts every map
+	 * 
+	 * @param  inmap map object, to extract the value from
+	 * @param  key   to extract value from
+	 * 
+	 * @return  the raw value, null if the field name does not exist
+	 */
+	public Object extractValue(Object inmap, String key) {
+		if (key.equalsIgnoreCase("*")) {
+			return BigDecimal.ONE;
+		}
+		return super.extractValue(inmap, key);
+	}
+	
+	/**
+	 * Fast mode mapping, counts any non null value
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true, as all values are counted
+	 */
+	protected boolean mapFast(Object rawVal) {
+		++fastCount;
+		return true;
+	}
+	
+	/**
+	 * Long value mapping, counted without boxing
+	 * 
+	 * @param  val to process
+	 */
+	public void mapLong(long val) {
+		if (invertibleMode) {
+			super.mapLong(val);
+			return;
+		}
+		++fastCount;
+	}
+	
+	/**
+	 * Double value mapping, counted without boxing in fast mode
+	 * 
+	 * @param  val to process
+	 */
+	public void mapDouble(double val) {
+		if (fastMode && Double.isFinite(val)) {
+			++fastCount;
+		} else {
+			super.mapDouble(val);
+		}
+	}
+	
+	/**
+	 * @return  true, as counted values can be removed
+	 **/
+	public boolean isInvertible() {
+		return true;
+	}
+	
+	/**
+	 * unmapping function used to remove a single counted value
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void unmap(BigDecimal val, Object rawVal) {
+		if (rawVal != null) {
+			res = res.subtract(BigDecimal.ONE);
+			// No values left, as per a blank count
+			if (res.signum() == 0) {
+				res = null;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the current count, including any fast mode values
+	 * 
+	 * @return  BigDecimal representing the current result
+	 */
+	public BigDecimal reduce() {
+		if (fastCount == 0) {
+			return res;
+		}
+		return addNullable(res, BigDecimal.valueOf(fastCount));
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations 
+	 */
+	public void reset() {
+		res = null;
+		fastCount = 0;
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		// Add up the partial count, if any
+		BigDecimal otherRes = other.res;
+		if (otherRes != null) {
+			res = (res == null) ? otherRes : res.add(otherRes);
+		}
+		fastCount += ((Count) other).fastCount;
+	}
+	
+}
@@ -0,0 +1,69 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.math.BigDecimal;
+
+/**
+ * Approximate count of distinct non null values function for MapReduceBase, using HyperLogLog.
+ * 
+ * Exact for up to 1024 distinct values. Numeric values (including numeric strings)
+ * are distinct by their number value, such that 1, 1.0 and "1" are counted once.
+ **/
+public class CountDistinct extends MapReduceBase {
+	
+	/**
+	 * Distinct value counter
+	 */
+	protected HyperLogLog counter = new HyperLogLog();
+	
+	/**
+	 * mapping function used to process a single value as it comes in
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void map(BigDecimal val, Object rawVal) {
+		if (rawVal == null) {
+			return;
+		}
+		if (val != null) {
+			// Prefix to differentiate numbers, from non numeric strings
+			counter.add(HyperLogLog.hash("#" + val.stripTrailingZeros().toPlainString()));
+		} else {
+			counter.add(HyperLogLog.hash("$" + rawVal.toString()));
+		}
+	}
+	
+	/**
+	 * Returns the current distinct count, null if there are no values (as per count)
+	 * 
+	 * @return  BigDecimal representing the current result
+	 */
+	public BigDecimal reduce() {
+		long estimate = counter.estimate();
+		return (estimate == 0) ? null : BigDecimal.valueOf(estimate);
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations
+	 */
+	public void reset() {
+		res = null;
+		counter.reset();
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		counter.merge(((CountDistinct) other).counter);
+	}
+	
+}
@@ -0,0 +1,101 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.math.BigDecimal;
+
+/**
+ * Running sum of primitive number values, used in the MapReduceBase fast mode.
+ * 
+ * + Long values are summed exactly, spilling into a BigDecimal on overflow
+ * + Double values are summed using compensated (Kahan-Babuska) summation
+ */
+public class FastSum {
+	
+	/**
+	 * Exact sum of long values, and its overflow spill
+	 */
+	protected long longSum = 0;
+	protected BigDecimal longSpill = null;
+	protected boolean hasLong = false;
+	
+	/**
+	 * Compensated sum of double values
+	 */
+	protected double doubleSum = 0.0;
+	protected double doubleComp = 0.0;
+	protected boolean hasDouble = false;
+	
+	/**
+	 * Adds a long value
+	 * 
+	 * @param  val to add
+	 */
+	public void add(long val) {
+		hasLong = true;
+		long sum = longSum + val;
+		
+		// Overflow, when both values have the same sign, which differs from the sum
+		if (((longSum ^ sum) & (val ^ sum)) < 0) {
+			longSpill = MapReduceBase.addNullable(longSpill, BigDecimal.valueOf(longSum));
+			sum = val;
+		}
+		longSum = sum;
+	}
+	
+	/**
+	 * Adds a double value
+	 * 
+	 * @param  val to add
+	 */
+	public void add(double val) {
+		hasDouble = true;
+		double sum = doubleSum + val;
+		if (Math.abs(doubleSum) >= Math.abs(val)) {
+			doubleComp += (doubleSum - sum) + val;
+		} else {
+			doubleComp += (val - sum) + doubleSum;
+		}
+		doubleSum = sum;
+	}
+	
+	/**
+	 * Merge the running sum of another instance
+	 * 
+	 * @param  other sum to merge
+	 */
+	public void merge(FastSum other) {
+		if (other.hasLong) {
+			longSpill = MapReduceBase.addNullable(longSpill, other.longSpill);
+			add(other.longSum);
+		}
+		if (other.hasDouble) {
+			add(other.doubleSum);
+			doubleComp += other.doubleComp;
+		}
+	}
+	
+	/**
+	 * @return  the sum as a BigDecimal, null if no values were added
+	 */
+	public BigDecimal result() {
+		BigDecimal ret = null;
+		if (hasLong) {
+			ret = MapReduceBase.addNullable(longSpill, BigDecimal.valueOf(longSum));
+		}
+		if (hasDouble) {
+			ret = MapReduceBase.addNullable(ret, BigDecimal.valueOf(doubleSum + doubleComp));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Reset the running sum
+	 */
+	public void reset() {
+		longSum = 0;
+		longSpill = null;
+		hasLong = false;
+		doubleSum = 0.0;
+		doubleComp = 0.0;
+		hasDouble = false;
+	}
+}
@@ -0,0 +1,202 @@
+package picoded.core.struct.query.mapreduce;
+
+/**
+ * HyperLogLog distinct value counter, used by CountDistinct.
+ * 
+ * + Up to EXACT_LIMIT distinct values, the value hashes are kept in a hash set, and counted exactly
+ * + Beyond that, the hashes are folded into 2^PRECISION registers (16KB), with a standard error of ~0.8%
+ * 
+ * Counters can be merged, where the result is the same as if all the values were added to a single counter.
+ */
+public class HyperLogLog {
+	
+	/**
+	 * Number of index bits, and registers
+	 */
+	protected static final int PRECISION = 14;
+	protected static final int REGISTER_COUNT = 1 << PRECISION;
+	
+	/**
+	 * Maximum number of distinct hashes, counted exactly
+	 */
+	protected static final int EXACT_LIMIT = 1024;
+	
+	/**
+	 * Open addressing hash set of the value hashes (0 for empty slots), grown as needed,
+	 * null once the counter switches to the registers
+	 */
+	protected long[] hashSet = new long[16];
+	protected int hashCount = 0;
+	
+	/**
+	 * The registers, of the max leading zero count (+1) of the hashes in each register
+	 */
+	protected byte[] registers = null;
+	
+	//------------------------------------------------------
+	//
+	//  Hashing
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * 64 bit hash of the string, using FNV-1a with a murmur3 finalizer for the bit mixing
+	 * 
+	 * @param  str to hash
+	 * 
+	 * @return  the hash, which is never 0
+	 */
+	public static long hash(String str) {
+		long h = 0xcbf29ce484222325L;
+		int len = str.length();
+		for (int i = 0; i < len; ++i) {
+			h ^= str.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		
+		// murmur3 fmix64
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (h == 0) ? 1 : h;
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Counting
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * Adds the value hash
+	 * 
+	 * @param  hash to add, see hash(String)
+	 */
+	public void add(long hash) {
+		if (hashSet != null) {
+			addExact(hash);
+			if (hashCount > EXACT_LIMIT) {
+				toRegisters();
+			}
+		} else {
+			addRegister(hash);
+		}
+	}
+	
+	/**
+	 * Adds the hash to the exact hash set
+	 */
+	protected void addExact(long hash) {
+		int mask = hashSet.length - 1;
+		int pos = (int) hash & mask;
+		while (hashSet[pos] != 0) {
+			if (hashSet[pos] == hash) {
+				return;
+			}
+			pos = (pos + 1) & mask;
+		}
+		hashSet[pos] = hash;
+		++hashCount;
+		
+		// Grow the hash set, keeping it at most half full
+		if (hashCount * 2 > hashSet.length && hashSet.length < EXACT_LIMIT * 2) {
+			long[] oldSet = hashSet;
+			hashSet = new long[oldSet.length * 2];
+			hashCount = 0;
+			for (long oldHash : oldSet) {
+				if (oldHash != 0) {
+					addExact(oldHash);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds the hash to its register
+	 */
+	protected void addRegister(long hash) {
+		int index = (int) (hash >>> (64 - PRECISION));
+		// Leading zeros of the remaining bits (with a stop bit), plus 1
+		byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+		if (registers[index] < rank) {
+			registers[index] = rank;
+		}
+	}
+	
+	/**
+	 * Switch from the exact hash set, to the registers
+	 */
+	protected void toRegisters() {
+		registers = new byte[REGISTER_COUNT];
+		for (long hash : hashSet) {
+			if (hash != 0) {
+				addRegister(hash);
+			}
+		}
+		hashSet = null;
+		hashCount = 0;
+	}
+	
+	/**
+	 * Merge the other counter into this counter
+	 * 
+	 * @param  other counter to merge
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.hashSet != null) {
+			for (long hash : other.hashSet) {
+				if (hash != 0) {
+					add(hash);
+				}
+			}
+			return;
+		}
+		if (hashSet != null) {
+			toRegisters();
+		}
+		for (int i = 0; i < REGISTER_COUNT; ++i) {
+			if (registers[i] < other.registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+	
+	/**
+	 * @return  the (estimated) number of distinct hashes
+	 */
+	public long estimate() {
+		if (hashSet != null) {
+			return hashCount;
+		}
+		
+		// Harmonic mean of the registers
+		double sum = 0.0;
+		int zeros = 0;
+		for (byte rank : registers) {
+			sum += 1.0 / (1L << rank);
+			if (rank == 0) {
+				++zeros;
+			}
+		}
+		double m = REGISTER_COUNT;
+		double estimate = (0.7213 / (1.0 + 1.079 / m)) * m * m / sum;
+		
+		// Small range correction, using linear counting
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log(m / zeros);
+		}
+		return Math.round(estimate);
+	}
+	
+	/**
+	 * Reset the counter
+	 */
+	public void reset() {
+		hashSet = new long[16];
+		hashCount = 0;
+		registers = null;
+	}
+	
+}
@@ -4,7 +4,7 @@ import java.math.BigDecimal;
 import java.util.Map;
 
 import picoded.core.conv.GenericConvert;
-import picoded.core.conv.NestedObjectFetch;
+import picoded.core.conv.NestedObjectPath;
 
 /**
  * Internal representation of a simple MapReduceBase class,
@@ -33,6 +33,11 @@ public abstract class MapReduceBase {
 	 */
 	public abstract void map(BigDecimal val, Object rawVal);
 	
+	/**
+	 * The compiled path, of the last key used by map(inmap, key)
+	 */
+	protected NestedObjectPath keyPath = null;
+	
 	/**
 	 * mapping function used to process a parameter in a map
 	 * 
@@ -40,18 +45,285 @@ public abstract class MapReduceBase {
 	 * @param  key   to extract value from
 	 */
 	public void map(Object inmap, String key) {
-		
-		// Val object extraction
-		Object valObj = NestedObjectFetch.fetchObject(inmap, key);
+		mapValue(extractValue(inmap, key));
+	}
+	
+	/**
+	 * Extract the raw value to map, of the parameter in a map
+	 * 
+	 * @param  inmap map object, to extract the value from
+	 * @param  key   to extract value from
+	 * 
+	 * @return  the raw value, null if the field name does not exist
+	 */
+	public Object extractValue(Object inmap, String key) {
+		// Val object extraction, reusing the compiled path of the last key
+		NestedObjectPath path = keyPath;
+		if (path == null || !key.equals(path.path())) {
+			path = NestedObjectPath.compile(key);
+			keyPath = path;
+		}
+		return path.fetch(inmap);
+	}
+	
+	/**
+	 * mapping function used to process a single raw value, as if it was extracted from a map.
+	 * Used when the values are not stored in maps (such as a columnar store)
+	 * 
+	 * @param  rawVal to process, null if the field name does not exist
+	 */
+	public void mapValue(Object rawVal) {
+		// Fast mode mapping, of primitive number values (if supported)
+		if (fastMode && rawVal != null && mapFast(rawVal)) {
+			return;
+		}
 		
 		// Null mapping
-		if (valObj == null) {
+		if (rawVal == null) {
 			map((BigDecimal) null, (Object) null);
 			return;
 		}
 		
 		// Non null mapping - assumes a value
-		map((BigDecimal) GenericConvert.toBigDecimal(valObj, null), (Object) valObj);
+		map((BigDecimal) GenericConvert.toBigDecimal(rawVal, null), (Object) rawVal);
+	}
+	
+	/**
+	 * mapping function used to process a single primitive long value,
+	 * gives the same result as mapValue of the boxed Long.
+	 * 
+	 * [to override on extension, to accumulate without boxing]
+	 * 
+	 * @param  val to process
+	 */
+	public void mapLong(long val) {
+		mapValue(Long.valueOf(val));
+	}
+	
+	/**
+	 * mapping function used to process a single primitive double value,
+	 * gives the same result as mapValue of the boxed Double.
+	 * 
+	 * [to override on extension, to accumulate without boxing]
+	 * 
+	 * @param  val to process
+	 */
+	public void mapDouble(double val) {
+		mapValue(Double.valueOf(val));
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Fast mode support
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * Fast mode, where primitive number values are accumulated as long / double,
+	 * instead of being converted into BigDecimal for every value.
+	 */
+	protected boolean fastMode = false;
+	
+	/**
+	 * Enable / disable fast mode, this should be done before any mapping.
+	 * Fast mode is not enabled, when invertible mode is enabled.
+	 * 
+	 * @param  enable fast mode if true
+	 */
+	public void setFastMode(boolean enable) {
+		fastMode = enable && !invertibleMode;
+	}
+	
+	/**
+	 * @return  true if fast mode is enabled
+	 */
+	public boolean isFastMode() {
+		return fastMode;
+	}
+	
+	/**
+	 * Fast mode mapping function, of a single non null raw value.
+	 * Used to accumulate primitive number values, without BigDecimal conversion.
+	 * 
+	 * [to override on extension]
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped, false to fallback to the BigDecimal mapping
+	 */
+	protected boolean mapFast(Object rawVal) {
+		return false;
+	}
+	
+	/**
+	 * Checks if the value is a primitive integer type (Long, Integer, Short, Byte)
+	 * 
+	 * @param   rawVal to check
+	 * 
+	 * @return  true if the value can be accumulated as a long
+	 */
+	protected static boolean isLongValue(Object rawVal) {
+		return rawVal instanceof Long || rawVal instanceof Integer || rawVal instanceof Short
+			|| rawVal instanceof Byte;
+	}
+	
+	/**
+	 * Checks if the value is a finite Double.
+	 * 
+	 * Float values are not included, as their BigDecimal conversion (by its string value)
+	 * differs from its double value.
+	 * 
+	 * @param   rawVal to check
+	 * 
+	 * @return  true if the value can be accumulated as a double
+	 */
+	protected static boolean isDoubleValue(Object rawVal) {
+		return rawVal instanceof Double && Double.isFinite(((Double) rawVal).doubleValue());
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Parameter support
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * The optional parameter of the aggregation term, such as the 0.9 in `percentile(price, 0.9)`
+	 */
+	protected String parameter = null;
+	
+	/**
+	 * Indicates if the aggregation term accepts a parameter, such as `percentile(price, 90)`.
+	 * Only such terms have the text after the last comma split out as the parameter,
+	 * so that field names with a comma works for all other terms.
+	 * 
+	 * [to override on extension, for classes which supports a parameter]
+	 * 
+	 * @return  true if a parameter is accepted
+	 */
+	public boolean acceptsParameter() {
+		return false;
+	}
+	
+	/**
+	 * Set the aggregation term parameter, this should be done before any mapping
+	 * 
+	 * [to override on extension, for classes which supports a parameter]
+	 * 
+	 * @param  param to set, null for none
+	 */
+	public void setParameter(String param) {
+		if (param != null) {
+			throw new RuntimeException("Aggregation parameter is not supported for : "
+				+ this.getClass().getName());
+		}
+		parameter = null;
+	}
+	
+	/**
+	 * @return  the aggregation term parameter, null if there is none
+	 */
+	public String parameter() {
+		return parameter;
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Invertible mode support
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * Invertible mode, where mapped values can be removed again with unmap,
+	 * used to maintain an aggregation incrementally as values are added and removed.
+	 */
+	protected boolean invertibleMode = false;
+	
+	/**
+	 * Indicates if the class supports the invertible mode
+	 * 
+	 * [to override on extension]
+	 * 
+	 * @return  true if invertible mode is supported
+	 */
+	public boolean isInvertible() {
+		return false;
+	}
+	
+	/**
+	 * Enable / disable invertible mode, this should be done before any mapping.
+	 * Fast mode is disabled when invertible mode is enabled.
+	 * 
+	 * @param  enable invertible mode if true
+	 */
+	public void setInvertibleMode(boolean enable) {
+		if (enable && !isInvertible()) {
+			throw new RuntimeException("Invertible mode is not supported for : "
+				+ this.getClass().getName());
+		}
+		invertibleMode = enable;
+		if (enable) {
+			fastMode = false;
+		}
+	}
+	
+	/**
+	 * @return  true if invertible mode is enabled
+	 */
+	public boolean isInvertibleMode() {
+		return invertibleMode;
+	}
+	
+	/**
+	 * unmapping function used to remove a single value, previously mapped with the same value.
+	 * Requires invertible mode to be enabled.
+	 * 
+	 * [to override on extension]
+	 * 
+	 * @param   value  value converted from rawVal, null if the field name does not exist
+	 * @param   rawVal extracted from the data map, null if the field name does not exist
+	 */
+	public void unmap(BigDecimal val, Object rawVal) {
+		throw new RuntimeException("Unmap is not supported for : " + this.getClass().getName());
+	}
+	
+	/**
+	 * unmapping function used to remove a single raw value, previously mapped with mapValue
+	 * 
+	 * @param  rawVal to remove, null if the field name does not exist
+	 */
+	public void unmapValue(Object rawVal) {
+		if (!invertibleMode) {
+			throw new RuntimeException("Unmap requires invertible mode : "
+				+ this.getClass().getName());
+		}
+		
+		// Null unmapping
+		if (rawVal == null) {
+			unmap(null, null);
+			return;
+		}
+		
+		// Non null unmapping - assumes a value
+		unmap(GenericConvert.toBigDecimal(rawVal, null), rawVal);
+	}
+	
+	/**
+	 * Adds up the BigDecimal values, where null values are skipped
+	 * 
+	 * @param   a value to add
+	 * @param   b value to add
+	 * 
+	 * @return  sum of the values, null if both are null
+	 */
+	protected static BigDecimal addNullable(BigDecimal a, BigDecimal b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return a.add(b);
 	}
 	
 	//------------------------------------------------------
@@ -103,7 +375,32 @@ public abstract class MapReduceBase {
 	}
 	
 	/**
-	 * Duplicate a "blank" instance of the current class object
+	 * Indicates if the partial calculation of this class can be merged,
+	 * used to split the computation across multiple threads
+	 * 
+	 * [to override on extension]
+	 * 
+	 * @return  true if merge is supported
+	 **/
+	public boolean isMergeable() {
+		return false;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance (of the same class),
+	 * into the current calculation. As if all the values of the other instance
+	 * was mapped into this instance.
+	 * 
+	 * [to override on extension]
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		throw new RuntimeException("Merge is not supported for : " + this.getClass().getName());
+	}
+	
+	/**
+	 * Duplicate a "blank" instance of the current class object (with the same fast / invertible mode)
 	 * Used to initialize calculators for each "run"
 	 * 
 	 * @return MapReduceBase instance clone
@@ -111,7 +408,13 @@ public abstract class MapReduceBase {
 	public MapReduceBase newInstance() {
 		try {
 			Class<? extends MapReduceBase> classObj = this.getClass();
-			return classObj.newInstance();
+			MapReduceBase ret = classObj.newInstance();
+			ret.fastMode = fastMode;
+			ret.invertibleMode = invertibleMode;
+			if (parameter != null) {
+				ret.setParameter(parameter);
+			}
+			return ret;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
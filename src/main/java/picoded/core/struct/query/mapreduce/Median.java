@@ -0,0 +1,32 @@
+package picoded.core.struct.query.mapreduce;
+
+/**
+ * Approximate median function for MapReduceBase, the 50th percentile.
+ * 
+ * Unlike Percentile, no aggregation parameter is accepted, so that a comma
+ * in the field name is kept as part of the field name, such as `median(a,b)`.
+ **/
+public class Median extends Percentile {
+	
+	/**
+	 * @return  false, as the quantile is fixed at the median
+	 */
+	public boolean acceptsParameter() {
+		return false;
+	}
+	
+	/**
+	 * Set the aggregation term parameter, only null is supported
+	 * 
+	 * @param  param to set, must be null
+	 */
+	public void setParameter(String param) {
+		if (param != null) {
+			throw new RuntimeException("Aggregation parameter is not supported for : "
+				+ this.getClass().getName());
+		}
+		quantile = 0.5;
+		parameter = null;
+	}
+	
+}
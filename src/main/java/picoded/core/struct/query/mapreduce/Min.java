@@ -1,17 +1,44 @@
 package picoded.core.struct.query.mapreduce;
 
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Min value function for MapReduceBase
  **/
 public class Min extends MapReduceBase {
+	
+	/**
+	 * Fast mode running min, of long and double values
+	 */
+	protected long fastLong = Long.MAX_VALUE;
+	protected boolean hasFastLong = false;
+	protected double fastDouble = Double.POSITIVE_INFINITY;
+	protected boolean hasFastDouble = false;
+	
+	/**
+	 * Invertible mode ordered multiset, of each value and its number of occurrences
+	 */
+	protected TreeMap<BigDecimal, Long> multiset = null;
+	
 	/**
 	 * mapping function used to process a single value as it comes in
 	 * 
 	 * @param   value used in mapping, this value is possible null if the parameter does not exist
 	 */
 	public void map(BigDecimal val, Object rawVal) {
+		// Invertible mode, tracks every value
+		if (invertibleMode) {
+			if (val != null) {
+				if (multiset == null) {
+					multiset = new TreeMap<BigDecimal, Long>();
+				}
+				multiset.merge(val, 1L, Long::sum);
+			}
+			return;
+		}
+		
 		// Only perform an action if a valid value was passed
 		if (val != null) {
 			if (res == null) {
@@ -23,4 +50,159 @@ public class Min extends MapReduceBase {
 			}
 		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * @return  true, as values can be removed in invertible mode
+	 **/
+	public boolean isInvertible() {
+		return true;
+	}
+	
+	/**
+	 * unmapping function used to remove a single value from the multiset
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void unmap(BigDecimal val, Object rawVal) {
+		if (!invertibleMode) {
+			throw new RuntimeException("Unmap requires invertible mode : " + this.getClass().getName());
+		}
+		if (val != null && multiset != null) {
+			multiset.computeIfPresent(val, (k, v) -> (v > 1) ? v - 1 : null);
+		}
+	}
+	
+	/**
+	 * Fast mode mapping, of long / double values
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped
+	 */
+	protected boolean mapFast(Object rawVal) {
+		if (isLongValue(rawVal)) {
+			fastLong = Math.min(fastLong, ((Number) rawVal).longValue());
+			hasFastLong = true;
+			return true;
+		}
+		if (isDoubleValue(rawVal)) {
+			fastDouble = Math.min(fastDouble, ((Number) rawVal).doubleValue());
+			hasFastDouble = true;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Long value mapping, compared without boxing (which is exact)
+	 * 
+	 * @param  val to process
+	 */
+	public void mapLong(long val) {
+		if (invertibleMode) {
+			super.mapLong(val);
+			return;
+		}
+		fastLong = Math.min(fastLong, val);
+		hasFastLong = true;
+	}
+	
+	/**
+	 * Double value mapping, compared without boxing in fast mode
+	 * 
+	 * @param  val to process
+	 */
+	public void mapDouble(double val) {
+		if (fastMode && Double.isFinite(val)) {
+			fastDouble = Math.min(fastDouble, val);
+			hasFastDouble = true;
+		} else {
+			super.mapDouble(val);
+		}
+	}
+	
+	/**
+	 * Returns the smaller of the two values, where null values are skipped
+	 */
+	protected static BigDecimal minNullable(BigDecimal a, BigDecimal b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		return a.min(b);
+	}
+	
+	/**
+	 * Returns the current min, including any fast mode values
+	 * 
+	 * @return  BigDecimal representing the current result
+	 */
+	public BigDecimal reduce() {
+		// Invertible mode, the smallest value in the multiset
+		if (invertibleMode) {
+			return (multiset == null || multiset.isEmpty()) ? null : multiset.firstKey();
+		}
+		
+		BigDecimal ret = res;
+		if (hasFastLong) {
+			ret = minNullable(ret, BigDecimal.valueOf(fastLong));
+		}
+		if (hasFastDouble) {
+			ret = minNullable(ret, BigDecimal.valueOf(fastDouble));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations 
+	 */
+	public void reset() {
+		res = null;
+		multiset = null;
+		fastLong = Long.MAX_VALUE;
+		hasFastLong = false;
+		fastDouble = Double.POSITIVE_INFINITY;
+		hasFastDouble = false;
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		Min otherMin = (Min) other;
+		
+		// Invertible mode, merge the multiset counts
+		if (otherMin.multiset != null) {
+			if (multiset == null) {
+				multiset = new TreeMap<BigDecimal, Long>();
+			}
+			for (Map.Entry<BigDecimal, Long> entry : otherMin.multiset.entrySet()) {
+				multiset.merge(entry.getKey(), entry.getValue(), Long::sum);
+			}
+		}
+		
+		// Take the smaller of the partial results, if any
+		res = minNullable(res, other.res);
+		
+		if (otherMin.hasFastLong) {
+			fastLong = Math.min(fastLong, otherMin.fastLong);
+			hasFastLong = true;
+		}
+		if (otherMin.hasFastDouble) {
+			fastDouble = Math.min(fastDouble, otherMin.fastDouble);
+			hasFastDouble = true;
+		}
+	}
+	
+}
@@ -0,0 +1,114 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.math.BigDecimal;
+
+/**
+ * Approximate percentile function for MapReduceBase, using a t-digest.
+ * 
+ * The percentile is given as the aggregation parameter, as a percentage from 0 to 100.
+ * Such as `percentile(price, 90)` for the 90th percentile, or `percentile(price, 99.9)`.
+ * Without a parameter, the median (50th percentile) is returned.
+ * 
+ * Exact (with linear interpolation between values) for small data sets,
+ * with the error growing towards the median for larger data sets.
+ **/
+public class Percentile extends MapReduceBase {
+	
+	/**
+	 * The quantile to return, between 0 and 1
+	 */
+	protected double quantile = 0.5;
+	
+	/**
+	 * Distribution of the values
+	 */
+	protected TDigest digest = new TDigest();
+	
+	/**
+	 * @return  true, as the aggregation parameter is accepted
+	 */
+	public boolean acceptsParameter() {
+		return true;
+	}
+	
+	/**
+	 * Set the percentile to return, as a percentage from 0 to 100
+	 * 
+	 * @param  param to set, null for the median
+	 */
+	public void setParameter(String param) {
+		if (param == null) {
+			quantile = 0.5;
+		} else {
+			double val = Double.parseDouble(param);
+			if (!(val >= 0.0 && val <= 100.0)) {
+				throw new RuntimeException("Invalid percentile (expected 0 to 100) : " + param);
+			}
+			quantile = val / 100.0;
+		}
+		parameter = param;
+	}
+	
+	/**
+	 * mapping function used to process a single value as it comes in
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void map(BigDecimal val, Object rawVal) {
+		if (val != null) {
+			digest.add(val.doubleValue());
+		}
+	}
+	
+	/**
+	 * Fast mode mapping, of long / double values without BigDecimal conversion
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped
+	 */
+	protected boolean mapFast(Object rawVal) {
+		if (isLongValue(rawVal) || isDoubleValue(rawVal)) {
+			digest.add(((Number) rawVal).doubleValue());
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the estimated percentile value
+	 * 
+	 * @return  BigDecimal representing the current result, null if there are no values
+	 */
+	public BigDecimal reduce() {
+		if (digest.size() <= 0) {
+			return null;
+		}
+		return BigDecimal.valueOf(digest.quantile(quantile));
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations
+	 */
+	public void reset() {
+		res = null;
+		digest.reset();
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		digest.merge(((Percentile) other).digest);
+	}
+	
+}
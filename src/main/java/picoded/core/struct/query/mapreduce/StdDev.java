@@ -0,0 +1,53 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Standard deviation function for MapReduceBase, the square root of the variance.
+ * Of the sample by default, or use `population` as the aggregation parameter, such as `stddev(price, population)`.
+ **/
+public class StdDev extends Variance {
+	
+	/**
+	 * Returns the current standard deviation
+	 * 
+	 * @return  BigDecimal representing the current result, null if there are not enough values
+	 */
+	public BigDecimal reduce() {
+		BigDecimal variance = super.reduce();
+		if (variance == null) {
+			return null;
+		}
+		return sqrt(variance);
+	}
+	
+	/**
+	 * Square root of a non negative value, using Newton's method
+	 * (as BigDecimal.sqrt is not available in java 8)
+	 * 
+	 * @param   val to square root
+	 * 
+	 * @return  square root, to RESULT_MAX_SCALE decimal places
+	 */
+	protected static BigDecimal sqrt(BigDecimal val) {
+		if (val.signum() <= 0) {
+			return BigDecimal.ZERO.setScale(RESULT_MAX_SCALE);
+		}
+		MathContext mc = new MathContext(val.precision() + RESULT_MAX_SCALE + 10);
+		BigDecimal two = BigDecimal.valueOf(2);
+		double guess = Math.sqrt(val.doubleValue());
+		BigDecimal x = (guess > 0.0 && Double.isFinite(guess)) ? new BigDecimal(guess, mc)
+			: BigDecimal.ONE;
+		for (int i = 0; i < 1000; ++i) {
+			BigDecimal next = x.add(val.divide(x, mc)).divide(two, mc);
+			if (next.compareTo(x) == 0) {
+				break;
+			}
+			x = next;
+		}
+		return x.setScale(RESULT_MAX_SCALE, RoundingMode.HALF_UP);
+	}
+	
+}
@@ -6,6 +6,17 @@ import java.math.BigDecimal;
  * Sum function for MapReduceBase
  **/
 public class Sum extends MapReduceBase {
+	
+	/**
+	 * Fast mode running sum
+	 */
+	protected FastSum fastSum = new FastSum();
+	
+	/**
+	 * Number of non null values in res, used to reset it on unmap
+	 */
+	protected long resCount = 0;
+	
 	/**
 	 * mapping function used to process a single value as it comes in
 	 * 
@@ -20,6 +31,115 @@ public class Sum extends MapReduceBase {
 			} else {
 				res = res.add(val);
 			}
+			++resCount;
+		}
+	}
+	
+	/**
+	 * @return  true, as added values can be subtracted
+	 **/
+	public boolean isInvertible() {
+		return true;
+	}
+	
+	/**
+	 * unmapping function used to subtract a single value
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void unmap(BigDecimal val, Object rawVal) {
+		if (val != null) {
+			res = res.subtract(val);
+			// No values left, as per a blank sum
+			if (--resCount == 0) {
+				res = null;
+			}
+		}
+	}
+	
+	/**
+	 * Fast mode mapping, of long / double values
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped
+	 */
+	protected boolean mapFast(Object rawVal) {
+		if (isLongValue(rawVal)) {
+			fastSum.add(((Number) rawVal).longValue());
+			return true;
+		}
+		if (isDoubleValue(rawVal)) {
+			fastSum.add(((Number) rawVal).doubleValue());
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Long value mapping, added up without boxing (which is exact)
+	 * 
+	 * @param  val to process
+	 */
+	public void mapLong(long val) {
+		if (invertibleMode) {
+			super.mapLong(val);
+			return;
+		}
+		fastSum.add(val);
+	}
+	
+	/**
+	 * Double value mapping, added up without boxing in fast mode
+	 * 
+	 * @param  val to process
+	 */
+	public void mapDouble(double val) {
+		if (fastMode && Double.isFinite(val)) {
+			fastSum.add(val);
+		} else {
+			super.mapDouble(val);
+		}
+	}
+	
+	/**
+	 * Returns the current sum, including any fast mode values
+	 * 
+	 * @return  BigDecimal representing the current result
+	 */
+	public BigDecimal reduce() {
+		return addNullable(res, fastSum.result());
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations 
+	 */
+	public void reset() {
+		res = null;
+		resCount = 0;
+		fastSum.reset();
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		// Add up the partial sum, if any
+		BigDecimal otherRes = other.res;
+		if (otherRes != null) {
+			res = (res == null) ? otherRes : res.add(otherRes);
 		}
+		resCount += ((Sum) other).resCount;
+		fastSum.merge(((Sum) other).fastSum);
 	}
-}
\ No newline at end of file
+	
+}
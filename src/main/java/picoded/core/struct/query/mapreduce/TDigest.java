@@ -0,0 +1,248 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest, of the distribution of double values, used by Percentile.
+ * 
+ * Values are buffered, and merged into weighted centroids (mean, weight) once the buffer is full.
+ * Where the centroid sizes are limited by the (arcsine) k1 scale function of the compression,
+ * such that centroids near the tails are small, giving accurate extreme quantiles.
+ * 
+ * Small data sets are kept as single value centroids, giving exact (interpolated) quantiles.
+ * Digests can be merged, by adding the centroids of the other digest.
+ */
+public class TDigest {
+	
+	/**
+	 * Compression, the approximate max number of centroids (x2)
+	 */
+	protected static final double COMPRESSION = 100.0;
+	
+	/**
+	 * Buffer size, of values to add before merging
+	 */
+	protected static final int BUFFER_SIZE = 500;
+	
+	/**
+	 * Merged centroids, sorted by their mean
+	 */
+	protected double[] means = new double[0];
+	protected double[] weights = new double[0];
+	
+	/**
+	 * Unmerged buffer of centroids
+	 */
+	protected double[] bufferMeans = new double[16];
+	protected double[] bufferWeights = new double[16];
+	protected int bufferSize = 0;
+	
+	/**
+	 * Total weight, and the min / max value
+	 */
+	protected double totalWeight = 0.0;
+	protected double min = Double.POSITIVE_INFINITY;
+	protected double max = Double.NEGATIVE_INFINITY;
+	
+	//------------------------------------------------------
+	//
+	//  Adding values
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * Adds a single value
+	 * 
+	 * @param  val to add
+	 */
+	public void add(double val) {
+		add(val, 1.0);
+	}
+	
+	/**
+	 * Adds a weighted centroid
+	 * 
+	 * @param  mean   of the centroid
+	 * @param  weight of the centroid
+	 */
+	protected void add(double mean, double weight) {
+		if (bufferSize == bufferMeans.length) {
+			if (bufferSize >= BUFFER_SIZE) {
+				compress();
+			} else {
+				bufferMeans = Arrays.copyOf(bufferMeans, bufferSize * 2);
+				bufferWeights = Arrays.copyOf(bufferWeights, bufferSize * 2);
+			}
+		}
+		bufferMeans[bufferSize] = mean;
+		bufferWeights[bufferSize] = weight;
+		++bufferSize;
+		totalWeight += weight;
+		min = Math.min(min, mean);
+		max = Math.max(max, mean);
+	}
+	
+	/**
+	 * Merge the other digest into this digest
+	 * 
+	 * @param  other digest to merge
+	 */
+	public void merge(TDigest other) {
+		for (int i = 0; i < other.means.length; ++i) {
+			add(other.means[i], other.weights[i]);
+		}
+		for (int i = 0; i < other.bufferSize; ++i) {
+			add(other.bufferMeans[i], other.bufferWeights[i]);
+		}
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Compression
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * The k1 scale function, of the quantile
+	 */
+	protected static double scale(double q) {
+		return COMPRESSION / (2.0 * Math.PI) * Math.asin(2.0 * q - 1.0);
+	}
+	
+	/**
+	 * The inverse k1 scale function, to its quantile
+	 */
+	protected static double scaleInverse(double k) {
+		double q = (Math.sin(k * (2.0 * Math.PI) / COMPRESSION) + 1.0) / 2.0;
+		return Math.max(0.0, Math.min(1.0, q));
+	}
+	
+	/**
+	 * Merge the buffered centroids into the sorted centroids
+	 */
+	protected void compress() {
+		if (bufferSize == 0) {
+			return;
+		}
+		
+		// Sort the existing and buffered centroids by their mean
+		int len = means.length + bufferSize;
+		Integer[] order = new Integer[len];
+		double[] allMeans = Arrays.copyOf(means, len);
+		double[] allWeights = Arrays.copyOf(weights, len);
+		System.arraycopy(bufferMeans, 0, allMeans, means.length, bufferSize);
+		System.arraycopy(bufferWeights, 0, allWeights, means.length, bufferSize);
+		for (int i = 0; i < len; ++i) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+		
+		// Merge adjacent centroids, while within the scale limit
+		double[] newMeans = new double[len];
+		double[] newWeights = new double[len];
+		int size = 0;
+		double weightSoFar = 0.0;
+		double limit = totalWeight * scaleInverse(scale(0.0) + 1.0);
+		double mean = allMeans[order[0]];
+		double weight = allWeights[order[0]];
+		for (int i = 1; i < len; ++i) {
+			double nextMean = allMeans[order[i]];
+			double nextWeight = allWeights[order[i]];
+			if (weightSoFar + weight + nextWeight <= limit) {
+				weight += nextWeight;
+				mean += (nextMean - mean) * nextWeight / weight;
+			} else {
+				newMeans[size] = mean;
+				newWeights[size] = weight;
+				++size;
+				weightSoFar += weight;
+				limit = totalWeight * scaleInverse(scale(weightSoFar / totalWeight) + 1.0);
+				mean = nextMean;
+				weight = nextWeight;
+			}
+		}
+		newMeans[size] = mean;
+		newWeights[size] = weight;
+		++size;
+		
+		means = Arrays.copyOf(newMeans, size);
+		weights = Arrays.copyOf(newWeights, size);
+		bufferSize = 0;
+	}
+	
+	//------------------------------------------------------
+	//
+	//  Quantile estimation
+	//
+	//------------------------------------------------------
+	
+	/**
+	 * @return  the total weight (number of values)
+	 */
+	public double size() {
+		return totalWeight;
+	}
+	
+	/**
+	 * Estimate the value at the quantile, interpolated between the centroid centers
+	 * 
+	 * @param  q quantile, between 0 and 1
+	 * 
+	 * @return  the estimated value, NaN if the digest is empty
+	 */
+	public double quantile(double q) {
+		compress();
+		int len = means.length;
+		if (len == 0) {
+			return Double.NaN;
+		}
+		if (len == 1) {
+			return means[0];
+		}
+		
+		// Target weight, with each centroid centered at the middle of its weight
+		double target = q * totalWeight;
+		double firstCenter = weights[0] / 2.0;
+		if (target <= firstCenter) {
+			return interpolate(min, means[0], (firstCenter <= 0.0) ? 1.0 : target / firstCenter);
+		}
+		
+		double center = firstCenter;
+		double weightSoFar = 0.0;
+		for (int i = 0; i < len - 1; ++i) {
+			weightSoFar += weights[i];
+			double nextCenter = weightSoFar + weights[i + 1] / 2.0;
+			if (target <= nextCenter) {
+				return interpolate(means[i], means[i + 1], (target - center) / (nextCenter - center));
+			}
+			center = nextCenter;
+		}
+		
+		// Between the last centroid center, and the max value
+		double lastHalf = totalWeight - center;
+		return interpolate(means[len - 1], max, (lastHalf <= 0.0) ? 1.0 : (target - center)
+			/ lastHalf);
+	}
+	
+	/**
+	 * Linear interpolation between a and b
+	 */
+	protected static double interpolate(double a, double b, double ratio) {
+		return a + (b - a) * ratio;
+	}
+	
+	/**
+	 * Reset the digest
+	 */
+	public void reset() {
+		means = new double[0];
+		weights = new double[0];
+		bufferSize = 0;
+		totalWeight = 0.0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+	
+}
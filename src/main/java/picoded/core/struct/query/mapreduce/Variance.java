@@ -0,0 +1,161 @@
+package picoded.core.struct.query.mapreduce;
+
+import java.math.BigDecimal;
+
+/**
+ * Variance function for MapReduceBase, of the sample by default.
+ * Use `population` as the aggregation parameter for the population variance, such as `variance(price, population)`.
+ * 
+ * Computed exactly from the BigDecimal count, sum and sum of squares. While in fast mode,
+ * long / double values are accumulated using Welford's algorithm (which is numerically stable,
+ * but not exact), and combined with the BigDecimal values on reduce.
+ * 
+ * The sample variance of less then 2 values, is null (as per SQL).
+ **/
+public class Variance extends MapReduceBase {
+	
+	// Limit the result to ~ 24 decimal places, as per avg
+	protected static final int RESULT_MAX_SCALE = 24;
+	
+	/**
+	 * Population variance (instead of the sample variance)
+	 */
+	protected boolean population = false;
+	
+	/**
+	 * Count, and sum of squares of the values (with the sum as res)
+	 */
+	protected long count = 0;
+	protected BigDecimal sumSquares = BigDecimal.ZERO;
+	
+	/**
+	 * Fast mode Welford count, mean and sum of squared differences from the mean
+	 */
+	protected long fastCount = 0;
+	protected double fastMean = 0.0;
+	protected double fastM2 = 0.0;
+	
+	/**
+	 * @return  true, as the aggregation parameter is accepted
+	 */
+	public boolean acceptsParameter() {
+		return true;
+	}
+	
+	/**
+	 * Set the variance type, either `sample` or `population`
+	 * 
+	 * @param  param to set, null for the sample variance
+	 */
+	public void setParameter(String param) {
+		if (param == null || param.equalsIgnoreCase("sample")) {
+			population = false;
+		} else if (param.equalsIgnoreCase("population")) {
+			population = true;
+		} else {
+			throw new RuntimeException("Invalid variance type (expected sample or population) : "
+				+ param);
+		}
+		parameter = param;
+	}
+	
+	/**
+	 * mapping function used to process a single value as it comes in
+	 * 
+	 * @param   value used in mapping, this value is possible null if the parameter does not exist
+	 */
+	public void map(BigDecimal val, Object rawVal) {
+		if (val != null) {
+			res = (res == null) ? val : res.add(val);
+			sumSquares = sumSquares.add(val.multiply(val));
+			++count;
+		}
+	}
+	
+	/**
+	 * Fast mode mapping, of long / double values using Welford's algorithm
+	 * 
+	 * @param   rawVal extracted from the data map, not null
+	 * 
+	 * @return  true if the value was mapped
+	 */
+	protected boolean mapFast(Object rawVal) {
+		if (isLongValue(rawVal) || isDoubleValue(rawVal)) {
+			double val = ((Number) rawVal).doubleValue();
+			++fastCount;
+			double delta = val - fastMean;
+			fastMean += delta / fastCount;
+			fastM2 += delta * (val - fastMean);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the current variance
+	 * 
+	 * @return  BigDecimal representing the current result, null if there are not enough values
+	 */
+	public BigDecimal reduce() {
+		// Include any fast mode values, as their sum and sum of squares
+		long n = count;
+		BigDecimal sum = (res == null) ? BigDecimal.ZERO : res;
+		BigDecimal sumSq = sumSquares;
+		if (fastCount > 0) {
+			BigDecimal fastSum = new BigDecimal(fastMean).multiply(BigDecimal.valueOf(fastCount));
+			n += fastCount;
+			sum = sum.add(fastSum);
+			sumSq = sumSq.add(new BigDecimal(fastM2)).add(fastSum.multiply(new BigDecimal(fastMean)));
+		}
+		if (n == 0 || (!population && n < 2)) {
+			return null;
+		}
+		
+		// (n * sumSq - sum^2) / (n * n) or (n * (n - 1))
+		BigDecimal bigN = BigDecimal.valueOf(n);
+		BigDecimal numerator = bigN.multiply(sumSq).subtract(sum.multiply(sum));
+		BigDecimal denominator = bigN.multiply(population ? bigN : BigDecimal.valueOf(n - 1));
+		return numerator.divide(denominator, RESULT_MAX_SCALE, BigDecimal.ROUND_HALF_UP);
+	}
+	
+	/**
+	 * Reset any running calculation, used to reset existing map operations
+	 */
+	public void reset() {
+		res = null;
+		count = 0;
+		sumSquares = BigDecimal.ZERO;
+		fastCount = 0;
+		fastMean = 0.0;
+		fastM2 = 0.0;
+	}
+	
+	/**
+	 * @return  true, as partial calculations can be merged
+	 **/
+	public boolean isMergeable() {
+		return true;
+	}
+	
+	/**
+	 * Merge the partial calculation of another instance
+	 * 
+	 * @param  other partial calculation to merge
+	 **/
+	public void merge(MapReduceBase other) {
+		Variance otherVar = (Variance) other;
+		res = addNullable(res, otherVar.res);
+		sumSquares = sumSquares.add(otherVar.sumSquares);
+		count += otherVar.count;
+		
+		// Combine the Welford partial results (Chan et al)
+		if (otherVar.fastCount > 0) {
+			long n = fastCount + otherVar.fastCount;
+			double delta = otherVar.fastMean - fastMean;
+			fastM2 += otherVar.fastM2 + delta * delta * fastCount * otherVar.fastCount / n;
+			fastMean += delta * otherVar.fastCount / n;
+			fastCount = n;
+		}
+	}
+	
+}
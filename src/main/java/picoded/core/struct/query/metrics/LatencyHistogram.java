@@ -0,0 +1,163 @@
+package picoded.core.struct.query.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe log-linear histogram of latency values (in nanoseconds).
+ *
+ * Each power of 2 range is split into 8 linear sub buckets, such that
+ * percentiles are within 12.5% of the actual value, with a fixed memory footprint.
+ **/
+public class LatencyHistogram {
+	
+	/**
+	 * Number of linear sub buckets per power of 2, as a power of 2
+	 **/
+	protected static final int SUB_BUCKET_BITS = 3;
+	protected static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * Total number of buckets, to cover all positive long values
+	 **/
+	protected static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	/**
+	 * Counts of each bucket
+	 **/
+	protected final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	
+	/**
+	 * Total count, sum and max of all values
+	 **/
+	protected final LongAdder count = new LongAdder();
+	protected final LongAdder total = new LongAdder();
+	protected final AtomicLong max = new AtomicLong();
+	
+	//--------------------------------------------------------------------
+	// Bucket index handling
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the bucket index of a value
+	 *
+	 * @param  value to get the bucket of, not negative
+	 *
+	 * @return  bucket index
+	 **/
+	protected static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+	
+	/**
+	 * Gets the highest value of a bucket
+	 *
+	 * @param  index of the bucket
+	 *
+	 * @return  highest value in the bucket
+	 **/
+	protected static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exp = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int sub = index % SUB_BUCKETS;
+		long width = 1L << (exp - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + sub) * width) + width - 1;
+	}
+	
+	//--------------------------------------------------------------------
+	// Recording, and reading values
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Record a single value
+	 *
+	 * @param  value to record, negative values are recorded as 0
+	 **/
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(bucketIndex(value));
+		count.increment();
+		total.add(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+	
+	/**
+	 * @return  number of recorded values
+	 **/
+	public long count() {
+		return count.sum();
+	}
+	
+	/**
+	 * @return  sum of all recorded values
+	 **/
+	public long total() {
+		return total.sum();
+	}
+	
+	/**
+	 * @return  highest recorded value
+	 **/
+	public long max() {
+		return max.get();
+	}
+	
+	/**
+	 * @return  mean of the recorded values, 0 if there are none
+	 **/
+	public double mean() {
+		long c = count();
+		return (c == 0) ? 0.0 : ((double) total()) / c;
+	}
+	
+	/**
+	 * Gets the (approximate) value at the given percentile.
+	 * The upper bound of the bucket is returned, limited to the max value.
+	 *
+	 * @param  percentile to get, between 0 and 1 (such as 0.99)
+	 *
+	 * @return  the value at the percentile, 0 if there are no values
+	 **/
+	public long percentile(double percentile) {
+		long c = 0;
+		for (int i = 0; i < BUCKETS; ++i) {
+			c += counts.get(i);
+		}
+		if (c == 0) {
+			return 0;
+		}
+		
+		long target = Math.max(1, (long) Math.ceil(percentile * c));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; ++i) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(bucketUpperBound(i), max());
+			}
+		}
+		return max();
+	}
+	
+	/**
+	 * Reset all recorded values
+	 **/
+	public void reset() {
+		for (int i = 0; i < BUCKETS; ++i) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+	
+}
@@ -0,0 +1,112 @@
+package picoded.core.struct.query.metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single recorded query execution, as reported to the QueryMetricsSink
+ **/
+public class QueryExecution {
+	
+	/**
+	 * Execution operation, such as `search`, `count`, `sort`, or `aggregate`
+	 **/
+	protected final String operation;
+	
+	/**
+	 * Query template, such as the query toSqlString, with its arguments as `?`
+	 **/
+	protected final String template;
+	
+	/**
+	 * Bound argument values, in the query component order
+	 **/
+	protected final List<Object> arguments;
+	
+	/**
+	 * Execution duration, in nanoseconds
+	 **/
+	protected final long durationNanos;
+	
+	/**
+	 * Number of rows scanned (tested, sorted, or aggregated)
+	 **/
+	protected final long rowsScanned;
+	
+	/**
+	 * Number of rows matched (or returned)
+	 **/
+	protected final long rowsMatched;
+	
+	/**
+	 * Constructor with the execution details
+	 *
+	 * @param  operation     executed
+	 * @param  template      of the query
+	 * @param  arguments     bound argument values, can be null
+	 * @param  durationNanos of the execution
+	 * @param  rowsScanned   number of rows scanned
+	 * @param  rowsMatched   number of rows matched
+	 **/
+	public QueryExecution(String operation, String template, List<Object> arguments,
+		long durationNanos, long rowsScanned, long rowsMatched) {
+		this.operation = operation;
+		this.template = template;
+		this.arguments = (arguments == null) ? Collections.emptyList() : arguments;
+		this.durationNanos = durationNanos;
+		this.rowsScanned = rowsScanned;
+		this.rowsMatched = rowsMatched;
+	}
+	
+	/**
+	 * @return  execution operation, such as `search`, `count`, `sort`, or `aggregate`
+	 **/
+	public String operation() {
+		return operation;
+	}
+	
+	/**
+	 * @return  query template, with its arguments as `?`
+	 **/
+	public String template() {
+		return template;
+	}
+	
+	/**
+	 * @return  bound argument values, in the query component order
+	 **/
+	public List<Object> arguments() {
+		return arguments;
+	}
+	
+	/**
+	 * @return  execution duration, in nanoseconds
+	 **/
+	public long durationNanos() {
+		return durationNanos;
+	}
+	
+	/**
+	 * @return  number of rows scanned
+	 **/
+	public long rowsScanned() {
+		return rowsScanned;
+	}
+	
+	/**
+	 * @return  number of rows matched
+	 **/
+	public long rowsMatched() {
+		return rowsMatched;
+	}
+	
+	/**
+	 * Execution summary, as used in the slow query log
+	 **/
+	@Override
+	public String toString() {
+		return operation + " (" + (durationNanos / 1000000.0) + "ms, scanned " + rowsScanned
+			+ ", matched " + rowsMatched + ") : " + template + " " + arguments;
+	}
+	
+}
@@ -0,0 +1,197 @@
+package picoded.core.struct.query.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import picoded.core.struct.query.PreparedQuery;
+import picoded.core.struct.query.Query;
+
+/**
+ * Optional instrumentation of query executions, such as Query.search, QueryUtils.sortAndOffsetList,
+ * and Aggregation.compute. Disabled by default, where its only cost is a single volatile read.
+ *
+ * + Executions are reported to the metrics sink, when set (such as QueryMetricsRegistry)
+ * + Executions slower then the slow query threshold are logged as warnings,
+ *   with the query toSqlString and its bound arguments
+ *
+ * ```
+ * long start = QueryMetrics.start();
+ * ... execute the query ...
+ * if (start != QueryMetrics.DISABLED) {
+ * 	QueryMetrics.record("search", query, start, rowsScanned, rowsMatched);
+ * }
+ * ```
+ *
+ * Guard the record call when its arguments are not free to compute (such as a collection size),
+ * so that they are skipped entirely while disabled.
+ **/
+public class QueryMetrics {
+	
+	/**
+	 * Start time returned by start, while the metrics are disabled
+	 **/
+	public static final long DISABLED = Long.MIN_VALUE;
+	
+	/**
+	 * Logger used for the slow query log
+	 **/
+	private static final Logger LOGGER = Logger.getLogger(QueryMetrics.class.getName());
+	
+	/**
+	 * Invalid constructor (throws exception)
+	 **/
+	protected QueryMetrics() {
+		throw new IllegalAccessError("Utility class");
+	}
+	
+	//--------------------------------------------------------------------
+	// Configuration
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The metrics sink, null if disabled
+	 **/
+	protected static volatile QueryMetricsSink sink = null;
+	
+	/**
+	 * Slow query threshold in nanoseconds, negative if disabled
+	 **/
+	protected static volatile long slowQueryThresholdNanos = -1;
+	
+	/**
+	 * Indicates if either the sink, or the slow query log is enabled
+	 **/
+	protected static volatile boolean enabled = false;
+	
+	/**
+	 * Set the metrics sink, to report all query executions to
+	 *
+	 * @param  newSink to use, null to disable
+	 **/
+	public static void setSink(QueryMetricsSink newSink) {
+		sink = newSink;
+		enabled = (sink != null || slowQueryThresholdNanos >= 0);
+	}
+	
+	/**
+	 * @return  the metrics sink, null if disabled
+	 **/
+	public static QueryMetricsSink sink() {
+		return sink;
+	}
+	
+	/**
+	 * Set the slow query threshold, where slower query executions are logged as warnings
+	 *
+	 * @param  thresholdMillis to log queries, negative to disable
+	 **/
+	public static void setSlowQueryThreshold(long thresholdMillis) {
+		slowQueryThresholdNanos = (thresholdMillis < 0) ? -1 : thresholdMillis * 1000000L;
+		enabled = (sink != null || slowQueryThresholdNanos >= 0);
+	}
+	
+	/**
+	 * @return  the slow query threshold in milliseconds, negative if disabled
+	 **/
+	public static long slowQueryThreshold() {
+		long threshold = slowQueryThresholdNanos;
+		return (threshold < 0) ? -1 : threshold / 1000000L;
+	}
+	
+	/**
+	 * @return  true, if query executions are being recorded
+	 **/
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	//--------------------------------------------------------------------
+	// Recording
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Gets the start time of a query execution
+	 *
+	 * @return  the current nano time, or DISABLED if the metrics are disabled
+	 **/
+	public static long start() {
+		return enabled ? System.nanoTime() : DISABLED;
+	}
+	
+	/**
+	 * Record the query execution, with the query toSqlString as its template
+	 *
+	 * @param  operation   executed, such as `search` or `count`
+	 * @param  query       executed, with its bound arguments
+	 * @param  startNanos  as returned by start
+	 * @param  rowsScanned number of rows scanned
+	 * @param  rowsMatched number of rows matched
+	 **/
+	public static void record(String operation, Query query, long startNanos, long rowsScanned,
+		long rowsMatched) {
+		if (startNanos == DISABLED) {
+			return;
+		}
+		long duration = System.nanoTime() - startNanos;
+		report(new QueryExecution(operation, query.toSqlString(), query.queryArgumentsList(),
+			duration, rowsScanned, rowsMatched));
+	}
+	
+	/**
+	 * Record the prepared query execution, with the query template toSqlString as its template
+	 *
+	 * @param  operation   executed, such as `search` or `count`
+	 * @param  prepared    query executed
+	 * @param  argArr      positional arguments used, can be null
+	 * @param  startNanos  as returned by start
+	 * @param  rowsScanned number of rows scanned
+	 * @param  rowsMatched number of rows matched
+	 **/
+	public static void record(String operation, PreparedQuery prepared, Object[] argArr,
+		long startNanos, long rowsScanned, long rowsMatched) {
+		if (startNanos == DISABLED) {
+			return;
+		}
+		long duration = System.nanoTime() - startNanos;
+		report(new QueryExecution(operation, prepared.template().toSqlString(),
+			(argArr == null) ? null : Arrays.asList(argArr), duration, rowsScanned, rowsMatched));
+	}
+	
+	/**
+	 * Record the query execution
+	 *
+	 * @param  operation   executed, such as `sort` or `aggregate`
+	 * @param  template    of the query
+	 * @param  arguments   bound argument values, can be null
+	 * @param  startNanos  as returned by start
+	 * @param  rowsScanned number of rows scanned
+	 * @param  rowsMatched number of rows matched
+	 **/
+	public static void record(String operation, String template, List<Object> arguments,
+		long startNanos, long rowsScanned, long rowsMatched) {
+		if (startNanos == DISABLED) {
+			return;
+		}
+		long duration = System.nanoTime() - startNanos;
+		report(new QueryExecution(operation, template, arguments, duration, rowsScanned,
+			rowsMatched));
+	}
+	
+	/**
+	 * Report the query execution, to the sink and slow query log
+	 *
+	 * @param  execution to report
+	 **/
+	protected static void report(QueryExecution execution) {
+		QueryMetricsSink currentSink = sink;
+		if (currentSink != null) {
+			currentSink.record(execution);
+		}
+		long threshold = slowQueryThresholdNanos;
+		if (threshold >= 0 && execution.durationNanos() >= threshold) {
+			LOGGER.warning("Slow query " + execution);
+		}
+	}
+	
+}
@@ -0,0 +1,217 @@
+package picoded.core.struct.query.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory QueryMetricsSink, collecting the latency histogram, and rows scanned / matched
+ * of each operation and query template. Used to find the query templates
+ * responsible for latency spikes.
+ *
+ * ```
+ * QueryMetricsRegistry registry = new QueryMetricsRegistry();
+ * QueryMetrics.setSink(registry);
+ * ...
+ * for (QueryMetricsRegistry.TemplateMetrics metrics : registry.slowest(10, 0.99)) {
+ *    System.out.println(metrics);
+ * }
+ * ```
+ **/
+public class QueryMetricsRegistry implements QueryMetricsSink {
+	
+	/**
+	 * Default maximum number of query templates to track
+	 **/
+	public static final int DEFAULT_MAX_TEMPLATES = 1000;
+	
+	/**
+	 * Template name used, for all templates past the maximum number of templates
+	 **/
+	public static final String OTHER_TEMPLATES = "<other>";
+	
+	//--------------------------------------------------------------------
+	// Template metrics
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Collected metrics of a single operation, and query template
+	 **/
+	public static class TemplateMetrics {
+		
+		protected final String operation;
+		protected final String template;
+		protected final LatencyHistogram latency = new LatencyHistogram();
+		protected final LongAdder rowsScanned = new LongAdder();
+		protected final LongAdder rowsMatched = new LongAdder();
+		
+		protected TemplateMetrics(String operation, String template) {
+			this.operation = operation;
+			this.template = template;
+		}
+		
+		/**
+		 * Record a single query execution
+		 **/
+		protected void record(QueryExecution execution) {
+			latency.record(execution.durationNanos());
+			rowsScanned.add(execution.rowsScanned());
+			rowsMatched.add(execution.rowsMatched());
+		}
+		
+		/**
+		 * @return  execution operation
+		 **/
+		public String operation() {
+			return operation;
+		}
+		
+		/**
+		 * @return  query template
+		 **/
+		public String template() {
+			return template;
+		}
+		
+		/**
+		 * @return  latency histogram, in nanoseconds
+		 **/
+		public LatencyHistogram latency() {
+			return latency;
+		}
+		
+		/**
+		 * @return  number of executions
+		 **/
+		public long executions() {
+			return latency.count();
+		}
+		
+		/**
+		 * @return  total number of rows scanned
+		 **/
+		public long rowsScanned() {
+			return rowsScanned.sum();
+		}
+		
+		/**
+		 * @return  total number of rows matched
+		 **/
+		public long rowsMatched() {
+			return rowsMatched.sum();
+		}
+		
+		/**
+		 * Metrics summary, with the latency in milliseconds
+		 **/
+		@Override
+		public String toString() {
+			return operation + " : " + template + " (executions " + executions() + ", p50 "
+				+ (latency.percentile(0.5) / 1000000.0) + "ms, p99 "
+				+ (latency.percentile(0.99) / 1000000.0) + "ms, max "
+				+ (latency.max() / 1000000.0) + "ms, scanned " + rowsScanned() + ", matched "
+				+ rowsMatched() + ")";
+		}
+	}
+	
+	//--------------------------------------------------------------------
+	// Constructor vars, and setup
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Collected metrics, by the operation and template
+	 **/
+	protected final Map<String, TemplateMetrics> metricsMap = new ConcurrentHashMap<String, TemplateMetrics>();
+	
+	/**
+	 * Maximum number of query templates to track
+	 **/
+	protected final int maxTemplates;
+	
+	/**
+	 * Registry, with the default maximum number of templates
+	 **/
+	public QueryMetricsRegistry() {
+		this(DEFAULT_MAX_TEMPLATES);
+	}
+	
+	/**
+	 * Registry, with the given maximum number of templates. Past this number, executions
+	 * of other templates are recorded together, under the OTHER_TEMPLATES template.
+	 *
+	 * @param  maxTemplates to track
+	 **/
+	public QueryMetricsRegistry(int maxTemplates) {
+		this.maxTemplates = maxTemplates;
+	}
+	
+	//--------------------------------------------------------------------
+	// Recording, and reading
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Record a single query execution
+	 *
+	 * @param  execution to record
+	 **/
+	@Override
+	public void record(QueryExecution execution) {
+		String operation = execution.operation();
+		String template = execution.template();
+		TemplateMetrics metrics = metricsMap.get(operation + "\n" + template);
+		if (metrics == null) {
+			if (metricsMap.size() >= maxTemplates) {
+				template = OTHER_TEMPLATES;
+			}
+			final String name = template;
+			metrics = metricsMap.computeIfAbsent(operation + "\n" + template,
+				(key) -> new TemplateMetrics(operation, name));
+		}
+		metrics.record(execution);
+	}
+	
+	/**
+	 * Get the metrics of the given operation, and template
+	 *
+	 * @param  operation executed
+	 * @param  template  of the query
+	 *
+	 * @return  the collected metrics, null if there are none
+	 **/
+	public TemplateMetrics metrics(String operation, String template) {
+		return metricsMap.get(operation + "\n" + template);
+	}
+	
+	/**
+	 * @return  all collected metrics
+	 **/
+	public List<TemplateMetrics> metrics() {
+		return new ArrayList<TemplateMetrics>(metricsMap.values());
+	}
+	
+	/**
+	 * Get the slowest query templates, by the latency at the given percentile
+	 *
+	 * @param  limit      number of templates to return
+	 * @param  percentile to compare the latency by, such as 0.99
+	 *
+	 * @return  the slowest templates first
+	 **/
+	public List<TemplateMetrics> slowest(int limit, double percentile) {
+		List<TemplateMetrics> ret = metrics();
+		Collections.sort(ret, (a, b) -> Long.compare(b.latency().percentile(percentile), a
+			.latency().percentile(percentile)));
+		return (ret.size() > limit) ? ret.subList(0, limit) : ret;
+	}
+	
+	/**
+	 * Clear all collected metrics
+	 **/
+	public void clear() {
+		metricsMap.clear();
+	}
+	
+}
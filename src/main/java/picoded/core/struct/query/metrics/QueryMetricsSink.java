@@ -0,0 +1,19 @@
+package picoded.core.struct.query.metrics;
+
+/**
+ * Pluggable sink of query executions, such as QueryMetricsRegistry,
+ * or an adapter to an external metrics system.
+ *
+ * Called synchronously on the querying thread, and possibly concurrently,
+ * hence implementations should be thread safe, and fast.
+ **/
+public interface QueryMetricsSink {
+	
+	/**
+	 * Record a single query execution
+	 *
+	 * @param  execution to record
+	 **/
+	void record(QueryExecution execution);
+	
+}
@@ -0,0 +1,5 @@
+/**
+ * Optional query execution metrics, of the latency and rows scanned / matched per query template,
+ * reported to a pluggable metrics sink, with a threshold based slow query log.
+ **/
+package picoded.core.struct.query.metrics;
@@ -0,0 +1,374 @@
+package picoded.core.struct.query.planner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import picoded.core.struct.query.CompareUtils;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.condition.In;
+
+/**
+ * Value statistics of a single field, used to estimate the selectivity of a condition.
+ *
+ * + Row, null, and distinct value counts (cardinality)
+ * + Min / max, and an equi-width histogram, of the numeric values
+ * + The exact frequency of each value, when the number of distinct values is small
+ *
+ * Where the exact value frequencies are known, the condition is tested against each
+ * distinct value instead, giving an exact selectivity for every condition type (including LIKE).
+ * Otherwise the histogram, and the distinct value count is used for the estimate.
+ **/
+public class FieldStatistics {
+	
+	//--------------------------------------------------------------------
+	// Default estimates, when no statistics can be used
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Default selectivity of an equality condition
+	 **/
+	public static final double DEFAULT_EQUALS_SELECTIVITY = 0.1;
+	
+	/**
+	 * Default selectivity of a range (less / more than) condition
+	 **/
+	public static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+	
+	/**
+	 * Default selectivity of a LIKE condition
+	 **/
+	public static final double DEFAULT_LIKE_SELECTIVITY = 0.25;
+	
+	/**
+	 * Default selectivity of any other condition
+	 **/
+	public static final double DEFAULT_SELECTIVITY = 0.5;
+	
+	/**
+	 * Gets the default selectivity of a basic condition, when no statistics can be used
+	 *
+	 * @param  type of the condition
+	 *
+	 * @return  default selectivity, between 0 and 1
+	 **/
+	public static double defaultSelectivity(QueryType type) {
+		if (type == QueryType.EQUALS || type == QueryType.IN || type == QueryType.IS_NULL) {
+			return DEFAULT_EQUALS_SELECTIVITY;
+		} else if (type == QueryType.NOT_EQUALS || type == QueryType.IS_NOT_NULL) {
+			return 1.0 - DEFAULT_EQUALS_SELECTIVITY;
+		} else if (type == QueryType.BETWEEN) {
+			return DEFAULT_RANGE_SELECTIVITY * DEFAULT_RANGE_SELECTIVITY;
+		} else if (type == QueryType.LESS_THAN || type == QueryType.LESS_THAN_OR_EQUALS
+			|| type == QueryType.MORE_THAN || type == QueryType.MORE_THAN_OR_EQUALS) {
+			return DEFAULT_RANGE_SELECTIVITY;
+		} else if (type == QueryType.LIKE || type == QueryType.ILIKE) {
+			return DEFAULT_LIKE_SELECTIVITY;
+		}
+		return DEFAULT_SELECTIVITY;
+	}
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The field name
+	 **/
+	protected final String fieldName;
+	
+	/**
+	 * Number of rows, including rows without the field
+	 **/
+	protected long rowCount = 0;
+	
+	/**
+	 * Number of rows, with a null (or missing) field value
+	 **/
+	protected long nullCount = 0;
+	
+	/**
+	 * Number of distinct non null values
+	 **/
+	protected long distinctCount = 0;
+	
+	/**
+	 * Number of rows, with a numeric (or numeric string) value
+	 **/
+	protected long numericCount = 0;
+	
+	/**
+	 * Min and max, of the numeric values
+	 **/
+	protected double min = Double.NaN;
+	protected double max = Double.NaN;
+	
+	/**
+	 * Equi-width histogram of the numeric values, between min and max
+	 **/
+	protected long[] histogram = new long[0];
+	
+	/**
+	 * Non null value, to its number of occurrences.
+	 * Used while collecting, and kept only if it is within the frequency limit.
+	 **/
+	protected Map<Object, Long> valueFrequencies = new HashMap<Object, Long>();
+	
+	/**
+	 * Constructor with the field name
+	 *
+	 * @param  fieldName of the statistics
+	 **/
+	public FieldStatistics(String fieldName) {
+		this.fieldName = fieldName;
+	}
+	
+	//--------------------------------------------------------------------
+	// Statistics collection
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Adds a single row field value, to the statistics
+	 *
+	 * @param  value of the field, can be null
+	 **/
+	protected void add(Object value) {
+		++rowCount;
+		if (value == null) {
+			++nullCount;
+			return;
+		}
+		valueFrequencies.merge(value, 1L, Long::sum);
+	}
+	
+	/**
+	 * Completes the statistics collection, building the histogram from the value frequencies
+	 *
+	 * @param  frequencyLimit   maximum number of distinct values, to keep the exact frequencies for
+	 * @param  histogramBuckets number of histogram buckets
+	 **/
+	protected void complete(int frequencyLimit, int histogramBuckets) {
+		distinctCount = valueFrequencies.size();
+		
+		// Min, max and count of the numeric values
+		Map<Object, Number> numbers = new HashMap<Object, Number>();
+		for (Map.Entry<Object, Long> entry : valueFrequencies.entrySet()) {
+			Number num = CompareUtils.objectToNumberIfPossible(entry.getKey());
+			if (num == null || Double.isNaN(num.doubleValue())) {
+				continue;
+			}
+			double val = num.doubleValue();
+			numbers.put(entry.getKey(), num);
+			numericCount += entry.getValue();
+			if (Double.isNaN(min) || val < min) {
+				min = val;
+			}
+			if (Double.isNaN(max) || val > max) {
+				max = val;
+			}
+		}
+		
+		// Equi-width histogram of the numeric values
+		if (numericCount > 0) {
+			histogram = new long[Math.max(1, histogramBuckets)];
+			for (Map.Entry<Object, Number> entry : numbers.entrySet()) {
+				histogram[bucket(entry.getValue().doubleValue())] += valueFrequencies.get(entry
+					.getKey());
+			}
+		}
+		
+		// Drop the value frequencies, if there are too many distinct values
+		if (distinctCount > frequencyLimit) {
+			valueFrequencies = null;
+		} else {
+			valueFrequencies = Collections.unmodifiableMap(valueFrequencies);
+		}
+	}
+	
+	/**
+	 * @param  value to get the histogram bucket of, between min and max
+	 *
+	 * @return  histogram bucket index
+	 **/
+	protected int bucket(double value) {
+		if (max <= min) {
+			return 0;
+		}
+		int ret = (int) ((value - min) / (max - min) * histogram.length);
+		return Math.max(0, Math.min(histogram.length - 1, ret));
+	}
+	
+	//--------------------------------------------------------------------
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the field name
+	 **/
+	public String fieldName() {
+		return fieldName;
+	}
+	
+	/**
+	 * @return  number of rows, including rows without the field
+	 **/
+	public long rowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * @return  number of rows, with a null (or missing) field value
+	 **/
+	public long nullCount() {
+		return nullCount;
+	}
+	
+	/**
+	 * @return  number of distinct non null values
+	 **/
+	public long distinctCount() {
+		return distinctCount;
+	}
+	
+	/**
+	 * @return  number of rows, with a numeric (or numeric string) value
+	 **/
+	public long numericCount() {
+		return numericCount;
+	}
+	
+	/**
+	 * @return  min of the numeric values, NaN if there is none
+	 **/
+	public double min() {
+		return min;
+	}
+	
+	/**
+	 * @return  max of the numeric values, NaN if there is none
+	 **/
+	public double max() {
+		return max;
+	}
+	
+	/**
+	 * @return  equi-width histogram counts of the numeric values, between min and max
+	 **/
+	public long[] histogram() {
+		return histogram.clone();
+	}
+	
+	/**
+	 * @return  non null value, to its number of occurrences, null if there were too many distinct values
+	 **/
+	public Map<Object, Long> valueFrequencies() {
+		return valueFrequencies;
+	}
+	
+	//--------------------------------------------------------------------
+	// Selectivity estimation
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Estimates the fraction of rows, which matches the basic condition on this field
+	 *
+	 * @param  condition to estimate, using its default argument map
+	 *
+	 * @return  estimated selectivity, between 0 and 1
+	 **/
+	public double selectivity(Query condition) {
+		if (rowCount <= 0) {
+			return 0.0;
+		}
+		
+		// Exact selectivity, by testing each distinct value (and null)
+		if (valueFrequencies != null) {
+			Predicate<Object> test = condition.compile();
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put(fieldName, null);
+			long matches = test.test(row) ? nullCount : 0;
+			for (Map.Entry<Object, Long> entry : valueFrequencies.entrySet()) {
+				row.put(fieldName, entry.getKey());
+				if (test.test(row)) {
+					matches += entry.getValue();
+				}
+			}
+			return (double) matches / rowCount;
+		}
+		
+		// Estimate using the distinct count, and histogram
+		double nonNull = (double) (rowCount - nullCount) / rowCount;
+		Object arg = condition.defaultArgumentValue();
+		QueryType type = condition.type();
+		if (type == QueryType.EQUALS) {
+			return (arg == null) ? 0.0 : nonNull / Math.max(1, distinctCount);
+		} else if (type == QueryType.NOT_EQUALS) {
+			return (arg == null) ? nonNull : nonNull * (1.0 - 1.0 / Math.max(1, distinctCount));
+		} else if (type == QueryType.LESS_THAN || type == QueryType.LESS_THAN_OR_EQUALS) {
+			return rangeSelectivity(arg, true);
+		} else if (type == QueryType.MORE_THAN || type == QueryType.MORE_THAN_OR_EQUALS) {
+			return rangeSelectivity(arg, false);
+		} else if (type == QueryType.IS_NULL) {
+			return 1.0 - nonNull;
+		} else if (type == QueryType.IS_NOT_NULL) {
+			return nonNull;
+		} else if (type == QueryType.IN) {
+			int valueCount = (condition instanceof In) ? ((In) condition).valueSet(
+				condition.defaultArgumentMap()).values().size() : condition.argumentNames().length;
+			return Math.min(nonNull, nonNull * valueCount / Math.max(1, distinctCount));
+		} else if (type == QueryType.BETWEEN) {
+			List<Object> bounds = condition.queryArgumentsList();
+			if (bounds.size() != 2 || bounds.get(0) == null || bounds.get(1) == null) {
+				return 0.0;
+			}
+			if (numericCount > 0 && CompareUtils.objectToNumberIfPossible(bounds.get(0)) != null
+				&& CompareUtils.objectToNumberIfPossible(bounds.get(1)) != null) {
+				return Math.max(0.0, rangeSelectivity(bounds.get(1), true)
+					- rangeSelectivity(bounds.get(0), true));
+			}
+		}
+		return nonNull * defaultSelectivity(type);
+	}
+	
+	/**
+	 * Estimates the fraction of rows within the range, using the numeric histogram
+	 *
+	 * @param  arg  argument value of the range
+	 * @param  less true if its the range less then the argument
+	 *
+	 * @return  estimated selectivity, between 0 and 1
+	 **/
+	protected double rangeSelectivity(Object arg, boolean less) {
+		Number num = CompareUtils.objectToNumberIfPossible(arg);
+		if (arg == null || num == null || numericCount <= 0) {
+			return DEFAULT_RANGE_SELECTIVITY;
+		}
+		
+		// Fraction of the numeric values, less then the argument
+		double val = num.doubleValue();
+		double lessFraction;
+		if (val <= min) {
+			lessFraction = 0.0;
+		} else if (val > max) {
+			lessFraction = 1.0;
+		} else {
+			// Full buckets before the argument, and interpolate its own bucket
+			int b = bucket(val);
+			long count = 0;
+			for (int i = 0; i < b; ++i) {
+				count += histogram[i];
+			}
+			double width = (max - min) / histogram.length;
+			double partial = (width > 0) ? (val - (min + b * width)) / width : 0.0;
+			lessFraction = (count + histogram[b] * Math.max(0.0, Math.min(1.0, partial)))
+				/ numericCount;
+		}
+		
+		double numeric = (double) numericCount / rowCount;
+		return numeric * (less ? lessFraction : 1.0 - lessFraction);
+	}
+	
+}
@@ -0,0 +1,709 @@
+package picoded.core.struct.query.planner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import picoded.core.conv.NestedObjectFetch;
+import picoded.core.struct.query.CompareUtils;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.condition.And;
+import picoded.core.struct.query.condition.Between;
+import picoded.core.struct.query.condition.Constant;
+import picoded.core.struct.query.condition.Equals;
+import picoded.core.struct.query.condition.ILike;
+import picoded.core.struct.query.condition.In;
+import picoded.core.struct.query.condition.IsNotNull;
+import picoded.core.struct.query.condition.IsNull;
+import picoded.core.struct.query.condition.LessThan;
+import picoded.core.struct.query.condition.LessThanOrEquals;
+import picoded.core.struct.query.condition.Like;
+import picoded.core.struct.query.condition.MoreThan;
+import picoded.core.struct.query.condition.MoreThanOrEquals;
+import picoded.core.struct.query.condition.Not;
+import picoded.core.struct.query.condition.NotEquals;
+import picoded.core.struct.query.condition.Or;
+
+/**
+ * Query tree rewrite pass, which removes redundant structure from a query,
+ * while giving the same result as the original query (against its default argument map).
+ *
+ * + Nested AND / OR combinations of the same type are flattened
+ * + Duplicated conditions, are removed
+ * + NOT is pushed down to the basic conditions (De Morgan), removing NOT(NOT(x))
+ * + Numeric range conditions on the same field, are merged into a single interval check
+ * + Always true / false subtrees are folded into Constant.TRUE / FALSE,
+ *   such as conditions with a null argument, `x AND NOT x`, and contradictory ranges
+ *
+ * ```
+ * Query query = Query.build("NOT(NOT(a >= ? AND a >= ?)) AND a <= ?", new Object[] { 1, 5, 10 });
+ * query.optimize().toString(); // "a" BETWEEN :1 AND :2
+ * ```
+ *
+ * As argument values are folded in, the optimized query should only be used with its
+ * default argument map. Only the known condition classes are rewritten, as extended classes
+ * may change the test.
+ **/
+public class QueryOptimizer {
+	
+	protected QueryOptimizer() {
+		throw new IllegalAccessError("Utility class");
+	}
+	
+	/**
+	 * Optimizes the query, see class description
+	 *
+	 * @param  query to optimize
+	 *
+	 * @return  the optimized query, which gives the same result
+	 **/
+	public static Query optimize(Query query) {
+		if (query == null) {
+			throw new RuntimeException("No query given.");
+		}
+		return rewrite(query);
+	}
+	
+	//--------------------------------------------------------------------
+	// Query rewriting
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Rewrites the query, and its children
+	 *
+	 * @param  query to rewrite
+	 *
+	 * @return  the rewritten query
+	 **/
+	protected static Query rewrite(Query query) {
+		Class<?> queryClass = query.getClass();
+		if (queryClass == And.class || queryClass == Or.class) {
+			List<Query> children = new ArrayList<Query>();
+			for (Query child : query.childrenQuery()) {
+				children.add(rewrite(child));
+			}
+			// Blank combination is a failure
+			if (children.isEmpty()) {
+				return Constant.FALSE;
+			}
+			return rewriteJunction(queryClass == And.class, children, query.defaultArgumentMap());
+		} else if (queryClass == Not.class) {
+			// NOT(a, b) is AND(NOT a, NOT b), where the blank combination is a failure
+			List<Query> children = new ArrayList<Query>();
+			for (Query child : query.childrenQuery()) {
+				children.add(negate(child));
+			}
+			if (children.isEmpty()) {
+				return Constant.FALSE;
+			}
+			return rewriteJunction(true, children, query.defaultArgumentMap());
+		} else if (query.isBasicOperator()) {
+			return foldCondition(query);
+		}
+		return query;
+	}
+	
+	/**
+	 * Gets the rewritten negation of the query, pushing the NOT down to the basic conditions
+	 *
+	 * @param  query to negate
+	 *
+	 * @return  the rewritten query, equivalent to NOT(query)
+	 **/
+	protected static Query negate(Query query) {
+		Class<?> queryClass = query.getClass();
+		List<Query> children = query.childrenQuery();
+		
+		if (query instanceof Constant) {
+			return Constant.of(!((Constant) query).value());
+		} else if (queryClass == And.class || queryClass == Or.class) {
+			// NOT of a blank combination (failure) is a success
+			if (children.isEmpty()) {
+				return Constant.TRUE;
+			}
+			List<Query> negated = new ArrayList<Query>();
+			for (Query child : children) {
+				negated.add(negate(child));
+			}
+			return rewriteJunction(queryClass == Or.class, negated, query.defaultArgumentMap());
+		} else if (queryClass == Not.class) {
+			// NOT(NOT(a, b)) is OR(a, b)
+			if (children.isEmpty()) {
+				return Constant.TRUE;
+			}
+			List<Query> rewritten = new ArrayList<Query>();
+			for (Query child : children) {
+				rewritten.add(rewrite(child));
+			}
+			return rewriteJunction(false, rewritten, query.defaultArgumentMap());
+		}
+		
+		Query rewritten = rewrite(query);
+		if (rewritten instanceof Constant) {
+			return Constant.of(!((Constant) rewritten).value());
+		}
+		
+		// IS NULL and IS NOT NULL are the exact inverse of each other (except for wildcard fields)
+		if (!isWildcardField(rewritten.fieldName())) {
+			if (rewritten.getClass() == IsNull.class) {
+				return new IsNotNull(rewritten.fieldName(), rewritten.defaultArgumentMap());
+			} else if (rewritten.getClass() == IsNotNull.class) {
+				return new IsNull(rewritten.fieldName(), rewritten.defaultArgumentMap());
+			}
+		}
+		return new Not(new ArrayList<Query>(Collections.singletonList(rewritten)), rewritten
+			.defaultArgumentMap());
+	}
+	
+	/**
+	 * Rewrites an AND / OR combination, of already rewritten children
+	 *
+	 * @param  isAnd    true for an AND combination, false for OR
+	 * @param  children already rewritten
+	 * @param  argMap   default argument map of the combination
+	 *
+	 * @return  the rewritten combination
+	 **/
+	protected static Query rewriteJunction(boolean isAnd, List<Query> children,
+		Map<String, Object> argMap) {
+		Class<?> junctionClass = isAnd ? And.class : Or.class;
+		Constant absorbing = Constant.of(!isAnd);
+		
+		// 1. Flatten nested combinations of the same type, and fold constants
+		List<Query> flat = new ArrayList<Query>();
+		for (Query child : children) {
+			List<Query> items = (child.getClass() == junctionClass) ? child.childrenQuery()
+				: Collections.singletonList(child);
+			for (Query item : items) {
+				if (item instanceof Constant) {
+					if (item.type() == absorbing.type()) {
+						return absorbing;
+					}
+					continue;
+				}
+				
+				// 2. Remove duplicates
+				if (indexOfEquivalent(flat, item) < 0) {
+					flat.add(item);
+				}
+			}
+		}
+		
+		// 3. `x AND NOT x` is always false, and `x OR NOT x` is always true
+		for (Query item : flat) {
+			if (item.getClass() == Not.class && item.childrenQuery().size() == 1
+				&& indexOfEquivalent(flat, item.childrenQuery().get(0)) >= 0) {
+				return absorbing;
+			}
+		}
+		
+		// 4. Merge the conditions on the same field
+		flat = isAnd ? mergeAndConditions(flat) : mergeOrConditions(flat);
+		if (flat == null) {
+			return absorbing;
+		}
+		
+		// 5. Build the combination
+		if (flat.isEmpty()) {
+			return Constant.of(isAnd);
+		} else if (flat.size() == 1) {
+			return flat.get(0);
+		}
+		return isAnd ? new And(flat, argMap) : new Or(flat, argMap);
+	}
+	
+	//--------------------------------------------------------------------
+	// Condition folding, and equivalence
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Condition classes, which always fails with a null argument value
+	 **/
+	protected static final Set<Class<?>> ARGUMENT_CONDITIONS = new HashSet<Class<?>>(Arrays.asList(
+		Equals.class, NotEquals.class, LessThan.class, LessThanOrEquals.class, MoreThan.class,
+		MoreThanOrEquals.class, Like.class, ILike.class, Between.class));
+	
+	/**
+	 * Condition classes, which always fails with a null field value
+	 **/
+	protected static final Set<Class<?>> NULL_REJECTING_CONDITIONS = new HashSet<Class<?>>(
+		Arrays.asList(Equals.class, NotEquals.class, LessThan.class, LessThanOrEquals.class,
+			MoreThan.class, MoreThanOrEquals.class, Like.class, ILike.class, Between.class,
+			In.class, IsNotNull.class));
+	
+	/**
+	 * Folds a basic condition into a constant, if its always false
+	 *
+	 * @param  condition to fold
+	 *
+	 * @return  Constant.FALSE, or the condition itself
+	 **/
+	protected static Query foldCondition(Query condition) {
+		Class<?> conditionClass = condition.getClass();
+		if (ARGUMENT_CONDITIONS.contains(conditionClass)) {
+			for (Object arg : argumentValues(condition)) {
+				if (arg == null) {
+					return Constant.FALSE;
+				}
+			}
+		}
+		if (conditionClass == Between.class) {
+			// Lower bound more than the upper bound
+			Number[] bounds = numericArguments(condition);
+			if (bounds != null && CompareUtils.numericCompare(bounds[0], bounds[1]) > 0) {
+				return Constant.FALSE;
+			}
+		} else if (conditionClass == In.class) {
+			In in = (In) condition;
+			if (in.valueSet(in.defaultArgumentMap()).values().isEmpty()) {
+				return Constant.FALSE;
+			}
+		}
+		return condition;
+	}
+	
+	/**
+	 * Gets the argument values of a basic condition, as per ConditionBase.getArgumentValue
+	 *
+	 * @param  condition to get the values of
+	 *
+	 * @return  argument values, in the argument names order
+	 **/
+	protected static Object[] argumentValues(Query condition) {
+		String[] names = condition.argumentNames();
+		Map<String, Object> argMap = condition.defaultArgumentMap();
+		Object[] ret = new Object[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			if (argMap != null && names[i] != null) {
+				ret[i] = NestedObjectFetch.fetchObject(argMap, names[i], null);
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Indicates if both queries gives the same result, by having the same class, field,
+	 * argument values, and equivalent children
+	 *
+	 * @param  a query to compare
+	 * @param  b query to compare
+	 *
+	 * @return  true if they are equivalent
+	 **/
+	protected static boolean isEquivalent(Query a, Query b) {
+		if (a == b) {
+			return true;
+		}
+		if (a.getClass() != b.getClass()) {
+			return false;
+		}
+		if (a instanceof Constant) {
+			return a.type() == b.type();
+		}
+		if (a.isBasicOperator()) {
+			return Objects.equals(a.fieldName(), b.fieldName())
+				&& Arrays.equals(argumentValues(a), argumentValues(b));
+		}
+		if (a.isCombinationOperator()) {
+			List<Query> aChildren = a.childrenQuery();
+			List<Query> bChildren = b.childrenQuery();
+			if (aChildren.size() != bChildren.size()) {
+				return false;
+			}
+			for (int i = 0; i < aChildren.size(); ++i) {
+				if (!isEquivalent(aChildren.get(i), bChildren.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @param  list  of queries to search
+	 * @param  query to search for
+	 *
+	 * @return  index of the first equivalent query, -1 if not found
+	 **/
+	protected static int indexOfEquivalent(List<Query> list, Query query) {
+		for (int i = 0; i < list.size(); ++i) {
+			if (isEquivalent(list.get(i), query)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Indicates if the field name is a _key / _val wildcard,
+	 * which tests against every map entry
+	 *
+	 * @param  fieldName to check
+	 *
+	 * @return  true if its a wildcard field
+	 **/
+	protected static boolean isWildcardField(String fieldName) {
+		return "_key".equalsIgnoreCase(fieldName) || "_val".equalsIgnoreCase(fieldName);
+	}
+	
+	/**
+	 * Groups the index of the known basic conditions, by their (non wildcard) field name
+	 *
+	 * @param  list of conditions
+	 *
+	 * @return  field name, to the index of its conditions
+	 **/
+	protected static Map<String, List<Integer>> conditionsByField(List<Query> list) {
+		Map<String, List<Integer>> ret = new LinkedHashMap<String, List<Integer>>();
+		for (int i = 0; i < list.size(); ++i) {
+			Query item = list.get(i);
+			Class<?> itemClass = item.getClass();
+			if (!item.isBasicOperator() || isWildcardField(item.fieldName())
+				|| !(NULL_REJECTING_CONDITIONS.contains(itemClass) || itemClass == IsNull.class)) {
+				continue;
+			}
+			ret.computeIfAbsent(item.fieldName(), (k) -> new ArrayList<Integer>()).add(i);
+		}
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------
+	// Numeric ranges
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Numeric bound of a range condition.
+	 *
+	 * With a Number argument value, the conditions compares numerically against the field value,
+	 * where non numeric field values are always less than the argument (see CompareUtils).
+	 * As such the bounds of the same field can be merged, by comparing their argument values.
+	 **/
+	protected static class Bound {
+		
+		/**
+		 * Argument value, and its name / map
+		 **/
+		protected Number value;
+		protected String argName;
+		protected Map<String, Object> argMap;
+		
+		/**
+		 * True if the bound excludes its value
+		 **/
+		protected boolean strict;
+		
+		/**
+		 * Condition of the bound
+		 **/
+		protected Query source;
+		
+		protected Bound(Query source, Number value, String argName, boolean strict) {
+			this.source = source;
+			this.value = value;
+			this.argName = argName;
+			this.argMap = source.defaultArgumentMap();
+			this.strict = strict;
+		}
+		
+		/**
+		 * Compares the bound values, where for equal values the strict bound is tighter
+		 *
+		 * @param  other bound to compare with
+		 * @param  lower true if these are lower bounds
+		 *
+		 * @return  true if this bound is tighter than the other bound
+		 **/
+		protected boolean isTighterThan(Bound other, boolean lower) {
+			int diff = CompareUtils.numericCompare(value, other.value);
+			if (diff == 0) {
+				return strict && !other.strict;
+			}
+			return lower ? diff > 0 : diff < 0;
+		}
+		
+		/**
+		 * @param  field to get the condition of
+		 * @param  lower true if its a lower bound
+		 *
+		 * @return  the condition of the bound alone
+		 **/
+		protected Query condition(String field, boolean lower) {
+			if (source.getClass() != Between.class) {
+				return source;
+			}
+			return lower ? new MoreThanOrEquals(field, argName, argMap) : new LessThanOrEquals(field,
+				argName, argMap);
+		}
+	}
+	
+	/**
+	 * Condition classes, which can be merged as a numeric range
+	 **/
+	protected static final Set<Class<?>> RANGE_CONDITIONS = new HashSet<Class<?>>(Arrays.asList(
+		Equals.class, LessThan.class, LessThanOrEquals.class, MoreThan.class,
+		MoreThanOrEquals.class, Between.class));
+	
+	/**
+	 * @param  condition to get the numeric argument values of
+	 *
+	 * @return  the argument values, null if any of them is not a Number
+	 **/
+	protected static Number[] numericArguments(Query condition) {
+		Object[] args = argumentValues(condition);
+		Number[] ret = new Number[args.length];
+		for (int i = 0; i < args.length; ++i) {
+			if (!(args[i] instanceof Number)) {
+				return null;
+			}
+			ret[i] = (Number) args[i];
+		}
+		return ret;
+	}
+	
+	/**
+	 * Merges the numeric range conditions of the same field, in an AND combination.
+	 * Into a single Equals, Between, or the tightest lower and upper bound conditions.
+	 *
+	 * @param  field      name of the conditions
+	 * @param  conditions on the same field
+	 *
+	 * @return  the merged conditions, null if its always false, or the conditions as it is
+	 **/
+	protected static List<Query> mergeAndRange(String field, List<Query> conditions) {
+		Bound lower = null;
+		Bound upper = null;
+		Query equals = null;
+		Number equalsValue = null;
+		
+		for (Query condition : conditions) {
+			Number[] args = numericArguments(condition);
+			Class<?> conditionClass = condition.getClass();
+			Bound newLower = null;
+			Bound newUpper = null;
+			if (conditionClass == Equals.class) {
+				if (equals != null && CompareUtils.numericCompare(equalsValue, args[0]) != 0) {
+					return null;
+				}
+				equals = condition;
+				equalsValue = args[0];
+			} else if (conditionClass == MoreThan.class || conditionClass == MoreThanOrEquals.class) {
+				newLower = new Bound(condition, args[0], condition.argumentName(),
+					conditionClass == MoreThan.class);
+			} else if (conditionClass == LessThan.class || conditionClass == LessThanOrEquals.class) {
+				newUpper = new Bound(condition, args[0], condition.argumentName(),
+					conditionClass == LessThan.class);
+			} else if (conditionClass == Between.class) {
+				String[] names = condition.argumentNames();
+				newLower = new Bound(condition, args[0], names[0], false);
+				newUpper = new Bound(condition, args[1], names[1], false);
+			}
+			
+			if (newLower != null && (lower == null || newLower.isTighterThan(lower, true))) {
+				lower = newLower;
+			}
+			if (newUpper != null && (upper == null || newUpper.isTighterThan(upper, false))) {
+				upper = newUpper;
+			}
+		}
+		
+		// Equals, which needs to be within the bounds
+		if (equals != null) {
+			if (lower != null) {
+				int diff = CompareUtils.numericCompare(equalsValue, lower.value);
+				if (diff < 0 || (diff == 0 && lower.strict)) {
+					return null;
+				}
+			}
+			if (upper != null) {
+				int diff = CompareUtils.numericCompare(equalsValue, upper.value);
+				if (diff > 0 || (diff == 0 && upper.strict)) {
+					return null;
+				}
+			}
+			return Collections.singletonList(equals);
+		}
+		
+		// Single bound
+		List<Query> ret = new ArrayList<Query>();
+		if (lower == null || upper == null) {
+			ret.add((lower != null) ? lower.condition(field, true) : upper.condition(field, false));
+			return ret;
+		}
+		
+		// Contradictory bounds
+		int diff = CompareUtils.numericCompare(lower.value, upper.value);
+		if (diff > 0 || (diff == 0 && (lower.strict || upper.strict))) {
+			return null;
+		}
+		
+		// Interval check
+		if (lower.source == upper.source) {
+			ret.add(lower.source);
+		} else if (!lower.strict && !upper.strict && lower.argMap == upper.argMap) {
+			ret.add(new Between(field, lower.argName, upper.argName, lower.argMap));
+		} else {
+			ret.add(lower.condition(field, true));
+			ret.add(upper.condition(field, false));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Merges the conditions on the same field, of an AND combination
+	 *
+	 * @param  list of rewritten conditions
+	 *
+	 * @return  the merged list, null if its always false
+	 **/
+	protected static List<Query> mergeAndConditions(List<Query> list) {
+		Set<Integer> removed = new HashSet<Integer>();
+		Map<Integer, List<Query>> inserted = new LinkedHashMap<Integer, List<Query>>();
+		
+		for (Map.Entry<String, List<Integer>> entry : conditionsByField(list).entrySet()) {
+			List<Integer> indexes = entry.getValue();
+			
+			// Null checks, where IS NULL fails with any other (null rejecting) condition,
+			// and IS NOT NULL is implied by them
+			List<Integer> isNull = new ArrayList<Integer>();
+			List<Integer> isNotNull = new ArrayList<Integer>();
+			List<Integer> range = new ArrayList<Integer>();
+			for (int idx : indexes) {
+				Query condition = list.get(idx);
+				Class<?> conditionClass = condition.getClass();
+				if (conditionClass == IsNull.class) {
+					isNull.add(idx);
+				} else if (conditionClass == IsNotNull.class) {
+					isNotNull.add(idx);
+				} else if (RANGE_CONDITIONS.contains(conditionClass)
+					&& numericArguments(condition) != null) {
+					range.add(idx);
+				}
+			}
+			int otherCount = indexes.size() - isNull.size() - isNotNull.size();
+			if (!isNull.isEmpty() && indexes.size() > isNull.size()) {
+				return null;
+			}
+			if (!isNotNull.isEmpty() && otherCount > 0) {
+				removed.addAll(isNotNull);
+			}
+			
+			// Numeric range merging
+			if (range.size() > 1) {
+				List<Query> conditions = new ArrayList<Query>();
+				for (int idx : range) {
+					conditions.add(list.get(idx));
+				}
+				List<Query> merged = mergeAndRange(entry.getKey(), conditions);
+				if (merged == null) {
+					return null;
+				}
+				removed.addAll(range);
+				inserted.put(range.get(0), merged);
+			}
+		}
+		return applyChanges(list, removed, inserted);
+	}
+	
+	/**
+	 * Merges the conditions on the same field, of an OR combination
+	 *
+	 * + `IS NULL OR IS NOT NULL` is always true
+	 * + Numeric lower (or upper) bounds are merged into the loosest bound
+	 *
+	 * @param  list of rewritten conditions
+	 *
+	 * @return  the merged list, null if its always true
+	 **/
+	protected static List<Query> mergeOrConditions(List<Query> list) {
+		Set<Integer> removed = new HashSet<Integer>();
+		Map<Integer, List<Query>> inserted = new LinkedHashMap<Integer, List<Query>>();
+		
+		for (Map.Entry<String, List<Integer>> entry : conditionsByField(list).entrySet()) {
+			boolean hasNull = false;
+			boolean hasNotNull = false;
+			Bound lower = null;
+			Bound upper = null;
+			List<Integer> lowerIndexes = new ArrayList<Integer>();
+			List<Integer> upperIndexes = new ArrayList<Integer>();
+			
+			for (int idx : entry.getValue()) {
+				Query condition = list.get(idx);
+				Class<?> conditionClass = condition.getClass();
+				hasNull = hasNull || conditionClass == IsNull.class;
+				hasNotNull = hasNotNull || conditionClass == IsNotNull.class;
+				
+				boolean isLower = (conditionClass == MoreThan.class
+					|| conditionClass == MoreThanOrEquals.class);
+				boolean isUpper = (conditionClass == LessThan.class
+					|| conditionClass == LessThanOrEquals.class);
+				Number[] args = (isLower || isUpper) ? numericArguments(condition) : null;
+				if (args == null) {
+					continue;
+				}
+				
+				// Loosest bound, is the one which is not tighter
+				boolean strict = (conditionClass == MoreThan.class
+					|| conditionClass == LessThan.class);
+				Bound bound = new Bound(condition, args[0], condition.argumentName(), strict);
+				if (isLower) {
+					lowerIndexes.add(idx);
+					if (lower == null || lower.isTighterThan(bound, true)) {
+						lower = bound;
+					}
+				} else {
+					upperIndexes.add(idx);
+					if (upper == null || upper.isTighterThan(bound, false)) {
+						upper = bound;
+					}
+				}
+			}
+			
+			if (hasNull && hasNotNull) {
+				return null;
+			}
+			if (lowerIndexes.size() > 1) {
+				removed.addAll(lowerIndexes);
+				inserted.put(lowerIndexes.get(0), Collections.singletonList(lower.source));
+			}
+			if (upperIndexes.size() > 1) {
+				removed.addAll(upperIndexes);
+				inserted.put(upperIndexes.get(0), Collections.singletonList(upper.source));
+			}
+		}
+		return applyChanges(list, removed, inserted);
+	}
+	
+	/**
+	 * Applies the removed, and inserted conditions to the list
+	 *
+	 * @param  list     of conditions
+	 * @param  removed  index of the conditions to remove
+	 * @param  inserted conditions to insert, at the index of a removed condition
+	 *
+	 * @return  the changed list
+	 **/
+	protected static List<Query> applyChanges(List<Query> list, Set<Integer> removed,
+		Map<Integer, List<Query>> inserted) {
+		if (removed.isEmpty()) {
+			return list;
+		}
+		List<Query> ret = new ArrayList<Query>();
+		for (int i = 0; i < list.size(); ++i) {
+			if (inserted.containsKey(i)) {
+				ret.addAll(inserted.get(i));
+			}
+			if (!removed.contains(i)) {
+				ret.add(list.get(i));
+			}
+		}
+		return ret;
+	}
+	
+}
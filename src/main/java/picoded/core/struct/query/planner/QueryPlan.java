@@ -0,0 +1,156 @@
+package picoded.core.struct.query.planner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import picoded.core.struct.query.Query;
+
+/**
+ * Planned query node, as returned by the QueryPlanner.
+ *
+ * Consisting of the (possibly reordered) query, with its estimated selectivity
+ * and per row evaluation cost, and the plan of each of its children.
+ **/
+public class QueryPlan {
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * The planned query, with its children in the evaluation order
+	 **/
+	protected final Query query;
+	
+	/**
+	 * Estimated fraction of rows that matches the query
+	 **/
+	protected final double selectivity;
+	
+	/**
+	 * Estimated evaluation cost per row, in relative units of a single equality test
+	 **/
+	protected final double cost;
+	
+	/**
+	 * Number of rows the estimate is based on, -1 if unknown
+	 **/
+	protected final long rowCount;
+	
+	/**
+	 * Plan of the children query, in the evaluation order
+	 **/
+	protected final List<QueryPlan> children;
+	
+	/**
+	 * Constructor with the planned values
+	 *
+	 * @param  query       planned
+	 * @param  selectivity estimated
+	 * @param  cost        estimated per row
+	 * @param  rowCount    the estimate is based on, -1 if unknown
+	 * @param  children    plans, in the evaluation order
+	 **/
+	public QueryPlan(Query query, double selectivity, double cost, long rowCount,
+		List<QueryPlan> children) {
+		this.query = query;
+		this.selectivity = selectivity;
+		this.cost = cost;
+		this.rowCount = rowCount;
+		this.children = (children == null) ? Collections.emptyList() : Collections
+			.unmodifiableList(new ArrayList<QueryPlan>(children));
+	}
+	
+	//--------------------------------------------------------------------
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  the planned query, with its children in the evaluation order
+	 **/
+	public Query query() {
+		return query;
+	}
+	
+	/**
+	 * @return  estimated fraction of rows that matches the query, between 0 and 1
+	 **/
+	public double selectivity() {
+		return selectivity;
+	}
+	
+	/**
+	 * @return  estimated evaluation cost per row, in relative units of a single equality test
+	 **/
+	public double cost() {
+		return cost;
+	}
+	
+	/**
+	 * @return  estimated number of matching rows, -1 if the row count is unknown
+	 **/
+	public long estimatedRowCount() {
+		return (rowCount < 0) ? -1 : Math.round(selectivity * rowCount);
+	}
+	
+	/**
+	 * @return  plan of the children query, in the evaluation order
+	 **/
+	public List<QueryPlan> children() {
+		return children;
+	}
+	
+	//--------------------------------------------------------------------
+	// Explain output
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Explains the plan, as an indented tree of each query node and its estimates,
+	 * with the children listed in the evaluation order.
+	 *
+	 * ```
+	 * AND  (selectivity=0.0143, cost=1.14, rows=14)
+	 *   "name" = :0  (selectivity=0.1429, cost=1.00, rows=143)
+	 *   "desc" LIKE :1  (selectivity=0.1000, cost=10.00, rows=100)
+	 * ```
+	 *
+	 * @return  the explain string
+	 **/
+	public String explain() {
+		StringBuilder ret = new StringBuilder();
+		explain(ret, 0);
+		return ret.toString();
+	}
+	
+	/**
+	 * Appends the explain lines of this node, and its children
+	 *
+	 * @param  ret   string builder to append into
+	 * @param  depth of the node, for indentation
+	 **/
+	protected void explain(StringBuilder ret, int depth) {
+		for (int i = 0; i < depth; ++i) {
+			ret.append("  ");
+		}
+		ret.append(query.isCombinationOperator() ? query.operatorSymbol() : query.toString());
+		ret.append(String.format(Locale.ROOT, "  (selectivity=%.4f, cost=%.2f", selectivity, cost));
+		if (rowCount >= 0) {
+			ret.append(", rows=").append(estimatedRowCount());
+		}
+		ret.append(")\n");
+		for (QueryPlan child : children) {
+			child.explain(ret, depth + 1);
+		}
+	}
+	
+	/**
+	 * @return  the explain string
+	 **/
+	@Override
+	public String toString() {
+		return explain();
+	}
+	
+}
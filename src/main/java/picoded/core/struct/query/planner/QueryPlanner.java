@@ -0,0 +1,310 @@
+package picoded.core.struct.query.planner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.condition.And;
+import picoded.core.struct.query.condition.Not;
+import picoded.core.struct.query.condition.Or;
+import picoded.core.struct.query.internal.LikePattern;
+
+/**
+ * Cost based query planner, which reorders the children of combinations
+ * by their estimated selectivity and evaluation cost, using the field statistics.
+ *
+ * ```
+ * QueryPlanner planner = new QueryPlanner(QueryStatistics.collect(collection));
+ * QueryPlan plan = planner.plan(Query.build("desc LIKE ? AND name = ?", args));
+ * plan.query().search(collection);
+ * System.out.println(plan.explain());
+ * ```
+ *
+ * As AND / OR combinations stops on the first failure / success, the expected cost is the least
+ * when the children are evaluated in order of their "rank". Where for AND combinations, the rank
+ * is cost / (1 - selectivity), and for OR (and NOT) combinations, the rank is cost / selectivity.
+ * So that cheap, and selective, conditions (such as equality) are tested before LIKE pattern tests.
+ *
+ * Nested AND / OR combinations of the same type are flattened, so that their children are
+ * reordered together. Only the And, Or, and Not classes are reordered, as extended classes may
+ * change the evaluation, and the planned query gives the same results as the original query.
+ *
+ * Without statistics, the planner falls back to the default selectivity of each condition type.
+ **/
+public class QueryPlanner {
+	
+	//--------------------------------------------------------------------
+	// Relative evaluation costs, per row
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Cost of an equality test, which all other costs are relative to
+	 **/
+	public static final double EQUALS_COST = 1.0;
+	
+	/**
+	 * Cost of a range (less / more than) test
+	 **/
+	public static final double RANGE_COST = 1.5;
+	
+	/**
+	 * Cost of a LIKE pattern test, which needs a regex
+	 **/
+	public static final double LIKE_COST = 10.0;
+	
+	/**
+	 * Cost of a LIKE pattern test, which is matched without regex (such as `abc%`)
+	 **/
+	public static final double LIKE_FAST_COST = 2.0;
+	
+	/**
+	 * Cost of any other condition test
+	 **/
+	public static final double DEFAULT_COST = 4.0;
+	
+	/**
+	 * Cost multiplier of a _key / _val wildcard condition, which tests every map entry
+	 **/
+	public static final double WILDCARD_COST_FACTOR = 8.0;
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Field statistics used for the estimates, can be null
+	 **/
+	protected final QueryStatistics statistics;
+	
+	/**
+	 * Constructor with the field statistics
+	 *
+	 * @param  statistics to estimate with, null to use the default estimates
+	 **/
+	public QueryPlanner(QueryStatistics statistics) {
+		this.statistics = statistics;
+	}
+	
+	/**
+	 * @return  field statistics used for the estimates, can be null
+	 **/
+	public QueryStatistics statistics() {
+		return statistics;
+	}
+	
+	//--------------------------------------------------------------------
+	// Query planning
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Plans the query, reordering its combinations children by their estimated rank
+	 *
+	 * @param  query to plan
+	 *
+	 * @return  the query plan, where plan.query() is the reordered query
+	 **/
+	public QueryPlan plan(Query query) {
+		if (query == null) {
+			throw new RuntimeException("No query given.");
+		}
+		if (query.isBasicOperator()) {
+			return planCondition(query);
+		}
+		if (query.isCombinationOperator()) {
+			return planCombination(query);
+		}
+		if (query.type() == QueryType.TRUE || query.type() == QueryType.FALSE) {
+			return new QueryPlan(query, (query.type() == QueryType.TRUE) ? 1.0 : 0.0, 0.0,
+				rowCount(), null);
+		}
+		return new QueryPlan(query, FieldStatistics.DEFAULT_SELECTIVITY, DEFAULT_COST,
+			rowCount(), null);
+	}
+	
+	/**
+	 * @return  number of rows of the statistics, -1 if unknown
+	 **/
+	protected long rowCount() {
+		return (statistics == null) ? -1 : statistics.rowCount();
+	}
+	
+	/**
+	 * Plans a basic condition
+	 *
+	 * @param  condition to plan
+	 *
+	 * @return  the condition plan
+	 **/
+	protected QueryPlan planCondition(Query condition) {
+		return new QueryPlan(condition, conditionSelectivity(condition), conditionCost(condition),
+			rowCount(), null);
+	}
+	
+	/**
+	 * Plans a combination, its children, and reorders them if possible
+	 *
+	 * @param  combination to plan
+	 *
+	 * @return  the combination plan
+	 **/
+	protected QueryPlan planCombination(Query combination) {
+		Class<?> combinationClass = combination.getClass();
+		QueryType type = combination.type();
+		boolean flattenable = (combinationClass == And.class || combinationClass == Or.class);
+		boolean reorderable = flattenable || combinationClass == Not.class;
+		
+		// 1. Plan each child, flattening nested combinations of the same class
+		List<Query> original = combination.childrenQuery();
+		List<QueryPlan> childPlans = new ArrayList<QueryPlan>();
+		boolean changed = false;
+		for (Query child : original) {
+			if (flattenable && child.getClass() == combinationClass
+				&& !child.childrenQuery().isEmpty()) {
+				childPlans.addAll(planCombination(child).children());
+				changed = true;
+			} else {
+				QueryPlan childPlan = plan(child);
+				changed = changed || (childPlan.query() != child);
+				childPlans.add(childPlan);
+			}
+		}
+		
+		// 2. Reorder the children by their rank (stable, for equal ranks)
+		if (reorderable) {
+			final boolean isAnd = (type == QueryType.AND);
+			Collections.sort(childPlans, Comparator.comparingDouble((QueryPlan p) -> rank(p,
+				isAnd)));
+			for (int i = 0; !changed && i < childPlans.size(); ++i) {
+				changed = (childPlans.get(i).query() != original.get(i));
+			}
+		}
+		
+		// 3. Rebuild the combination, if it was changed
+		Query planned = combination;
+		if (changed) {
+			List<Query> children = new ArrayList<Query>();
+			for (QueryPlan childPlan : childPlans) {
+				children.add(childPlan.query());
+			}
+			if (combinationClass == And.class) {
+				planned = new And(children, combination.defaultArgumentMap());
+			} else if (combinationClass == Or.class) {
+				planned = new Or(children, combination.defaultArgumentMap());
+			} else if (combinationClass == Not.class) {
+				planned = new Not(children, combination.defaultArgumentMap());
+			}
+		}
+		
+		// 4. Estimate the selectivity, and expected cost in the evaluation order
+		double selectivity = (type == QueryType.AND) ? 1.0 : 0.0;
+		double cost = 0.0;
+		double reach = 1.0;
+		for (QueryPlan childPlan : childPlans) {
+			cost += reach * childPlan.cost();
+			if (type == QueryType.AND) {
+				selectivity *= childPlan.selectivity();
+				reach *= childPlan.selectivity();
+			} else {
+				selectivity = 1.0 - (1.0 - selectivity) * (1.0 - childPlan.selectivity());
+				reach *= (1.0 - childPlan.selectivity());
+			}
+		}
+		if (childPlans.isEmpty()) {
+			// Blank combination is a failure
+			selectivity = 0.0;
+		} else if (type == QueryType.NOT) {
+			selectivity = 1.0 - selectivity;
+		}
+		return new QueryPlan(planned, selectivity, cost, rowCount(), childPlans);
+	}
+	
+	/**
+	 * Gets the rank of a child plan, where the lower rank should be evaluated first
+	 *
+	 * @param  plan  of the child
+	 * @param  isAnd true if its an AND combination child, else its an OR / NOT child
+	 *
+	 * @return  the rank
+	 **/
+	protected static double rank(QueryPlan plan, boolean isAnd) {
+		double skip = isAnd ? (1.0 - plan.selectivity()) : plan.selectivity();
+		return (skip <= 0.0) ? Double.POSITIVE_INFINITY : plan.cost() / skip;
+	}
+	
+	//--------------------------------------------------------------------
+	// Condition estimates
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Indicates if the field name refers to the row itself, or all its keys / values
+	 *
+	 * @param  fieldName to check
+	 *
+	 * @return  true if its a special field name
+	 **/
+	protected static boolean isSpecialField(String fieldName) {
+		return fieldName == null || "this".equalsIgnoreCase(fieldName)
+			|| "_key".equalsIgnoreCase(fieldName) || "_val".equalsIgnoreCase(fieldName);
+	}
+	
+	/**
+	 * Estimates the selectivity of a basic condition
+	 *
+	 * @param  condition to estimate
+	 *
+	 * @return  estimated selectivity, between 0 and 1
+	 **/
+	protected double conditionSelectivity(Query condition) {
+		String fieldName = condition.fieldName();
+		if (statistics == null || isSpecialField(fieldName)) {
+			return FieldStatistics.defaultSelectivity(condition.type());
+		}
+		
+		// Field statistics, if collected
+		FieldStatistics field = statistics.field(fieldName);
+		if (field != null) {
+			return field.selectivity(condition);
+		}
+		
+		// Field is missing in every row, test against the null value
+		if (statistics.isAllFields()) {
+			return condition.compile().test(Collections.emptyMap()) ? 1.0 : 0.0;
+		}
+		return FieldStatistics.defaultSelectivity(condition.type());
+	}
+	
+	/**
+	 * Estimates the per row evaluation cost of a basic condition
+	 *
+	 * @param  condition to estimate
+	 *
+	 * @return  estimated cost
+	 **/
+	protected double conditionCost(Query condition) {
+		QueryType type = condition.type();
+		double cost = DEFAULT_COST;
+		if (type == QueryType.EQUALS || type == QueryType.NOT_EQUALS || type == QueryType.IN
+			|| type == QueryType.IS_NULL || type == QueryType.IS_NOT_NULL) {
+			cost = EQUALS_COST;
+		} else if (type == QueryType.BETWEEN) {
+			cost = 2 * RANGE_COST;
+		} else if (type == QueryType.LESS_THAN || type == QueryType.LESS_THAN_OR_EQUALS
+			|| type == QueryType.MORE_THAN || type == QueryType.MORE_THAN_OR_EQUALS) {
+			cost = RANGE_COST;
+		} else if (type == QueryType.LIKE || type == QueryType.ILIKE) {
+			Object arg = condition.defaultArgumentValue();
+			cost = (arg != null && LikePattern.cached(arg.toString(), type == QueryType.ILIKE)
+				.shape() != LikePattern.Shape.REGEX) ? LIKE_FAST_COST : LIKE_COST;
+		}
+		
+		String fieldName = condition.fieldName();
+		if ("_key".equalsIgnoreCase(fieldName) || "_val".equalsIgnoreCase(fieldName)) {
+			cost *= WILDCARD_COST_FACTOR;
+		}
+		return cost;
+	}
+	
+}
@@ -0,0 +1,183 @@
+package picoded.core.struct.query.planner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import picoded.core.conv.NestedObjectPath;
+
+/**
+ * Per field value statistics of a collection of maps, used by the QueryPlanner.
+ *
+ * ```
+ * QueryStatistics stats = QueryStatistics.collect(collection);
+ * QueryPlan plan = new QueryPlanner(stats).plan(Query.build("name = ? AND age > ?", args));
+ * ```
+ *
+ * Statistics are a snapshot at the point of collection, and are not updated
+ * on changes to the collection. As they are only used to estimate the query cost,
+ * outdated statistics affects the query performance, but not its results.
+ **/
+public class QueryStatistics {
+	
+	/**
+	 * Default maximum number of distinct values, to keep the exact value frequencies for
+	 **/
+	public static final int DEFAULT_FREQUENCY_LIMIT = 256;
+	
+	/**
+	 * Default number of histogram buckets
+	 **/
+	public static final int DEFAULT_HISTOGRAM_BUCKETS = 32;
+	
+	//--------------------------------------------------------------------
+	// Constructor vars
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Number of rows
+	 **/
+	protected long rowCount = 0;
+	
+	/**
+	 * Field statistics, by their field name
+	 **/
+	protected Map<String, FieldStatistics> fields = new HashMap<String, FieldStatistics>();
+	
+	/**
+	 * Indicates if the statistics was collected for all fields,
+	 * where a field without statistics, is missing in every row
+	 **/
+	protected boolean allFields = false;
+	
+	/**
+	 * Protected constructor, use collect instead
+	 **/
+	protected QueryStatistics() {
+	}
+	
+	//--------------------------------------------------------------------
+	// Statistics collection
+	//--------------------------------------------------------------------
+	
+	/**
+	 * Collect the statistics of all fields, in a collection of maps
+	 *
+	 * @param  rows to collect from
+	 *
+	 * @return  collected statistics
+	 **/
+	public static QueryStatistics collect(Iterable<?> rows) {
+		return collect(rows, null, DEFAULT_FREQUENCY_LIMIT, DEFAULT_HISTOGRAM_BUCKETS);
+	}
+	
+	/**
+	 * Collect the statistics of the given fields, in a collection of maps
+	 *
+	 * @param  rows       to collect from
+	 * @param  fieldNames to collect, null to collect all fields
+	 *
+	 * @return  collected statistics
+	 **/
+	public static QueryStatistics collect(Iterable<?> rows, String[] fieldNames) {
+		return collect(rows, fieldNames, DEFAULT_FREQUENCY_LIMIT, DEFAULT_HISTOGRAM_BUCKETS);
+	}
+	
+	/**
+	 * Collect the statistics of the given fields, in a collection of maps
+	 *
+	 * @param  rows             to collect from
+	 * @param  fieldNames       to collect, null to collect all fields
+	 * @param  frequencyLimit   maximum number of distinct values, to keep the exact frequencies for
+	 * @param  histogramBuckets number of histogram buckets
+	 *
+	 * @return  collected statistics
+	 **/
+	public static QueryStatistics collect(Iterable<?> rows, String[] fieldNames,
+		int frequencyLimit, int histogramBuckets) {
+		// 1. Ensure input safety
+		if (rows == null) {
+			throw new RuntimeException("No rows given.");
+		}
+		
+		// 2. Find all the field names, if not given
+		Set<String> fieldSet = new HashSet<String>();
+		if (fieldNames != null) {
+			Collections.addAll(fieldSet, fieldNames);
+		} else {
+			for (Object row : rows) {
+				if (row instanceof Map) {
+					for (Object key : ((Map<?, ?>) row).keySet()) {
+						if (key != null) {
+							fieldSet.add(key.toString());
+						}
+					}
+				}
+			}
+		}
+		
+		// 3. Collect the field values of each row, where a non map row has no field value,
+		// with the (possibly nested) field value fetched the same way as the query conditions
+		QueryStatistics ret = new QueryStatistics();
+		ret.allFields = (fieldNames == null);
+		FieldStatistics[] statsArr = new FieldStatistics[fieldSet.size()];
+		NestedObjectPath[] pathArr = new NestedObjectPath[fieldSet.size()];
+		int idx = 0;
+		for (String field : fieldSet) {
+			statsArr[idx] = new FieldStatistics(field);
+			pathArr[idx] = NestedObjectPath.compile(field);
+			ret.fields.put(field, statsArr[idx]);
+			++idx;
+		}
+		for (Object row : rows) {
+			boolean isMap = (row instanceof Map);
+			for (int i = 0; i < statsArr.length; ++i) {
+				statsArr[i].add(isMap ? pathArr[i].fetch(row) : null);
+			}
+			++ret.rowCount;
+		}
+		
+		// 4. Complete the statistics
+		for (FieldStatistics stats : statsArr) {
+			stats.complete(frequencyLimit, histogramBuckets);
+		}
+		return ret;
+	}
+	
+	//--------------------------------------------------------------------
+	// Public accessors
+	//--------------------------------------------------------------------
+	
+	/**
+	 * @return  number of rows
+	 **/
+	public long rowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * @param  fieldName to get
+	 *
+	 * @return  the field statistics, null if it was not collected
+	 **/
+	public FieldStatistics field(String fieldName) {
+		return fields.get(fieldName);
+	}
+	
+	/**
+	 * @return  field statistics, by their field name
+	 **/
+	public Map<String, FieldStatistics> fields() {
+		return Collections.unmodifiableMap(fields);
+	}
+	
+	/**
+	 * @return  true if the statistics was collected for all fields
+	 **/
+	public boolean isAllFields() {
+		return allFields;
+	}
+	
+}
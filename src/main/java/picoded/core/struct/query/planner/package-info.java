@@ -0,0 +1,5 @@
+/**
+ * Cost based query planning, using per field statistics of a collection
+ * to reorder the query conditions by their estimated selectivity and cost.
+ **/
+package picoded.core.struct.query.planner;
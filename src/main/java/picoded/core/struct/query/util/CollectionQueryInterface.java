@@ -4,8 +4,10 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.PreparedQuery;
 
 /**
  * Utility interface, to provide a standardised interface to query
@@ -56,8 +58,28 @@ public interface CollectionQueryInterface<V extends Map<String, Object>> {
 	 **/
 	V[] query(String whereClause, Object[] whereValues, String orderByStr, int offset, int limit);
 	
+	/**
+	 * Performs a search query, and returns the respective DataObjects as a stream
+	 * 
+	 * By default this streams the query array result, as such the full array is built first.
+	 * Implementations should override this to lazily fetch / filter its values without
+	 * building the array.
+	 *
+	 * @param   where query statement
+	 * @param   where clause values array
+	 *
+	 * @return  The DataObject stream
+	 **/
+	default Stream<V> queryStream(String whereClause, Object[] whereValues) {
+		return Arrays.stream(query(whereClause, whereValues));
+	}
+	
 	/**
 	 * Performs a search query, and returns the respective DataObjects
+	 * 
+	 * By default this counts the queryStream result, which builds the full query array
+	 * unless queryStream is overridden. Implementations should override this to count
+	 * the matching values without building the array (such as a backend count query).
 	 *
 	 * @param   where query statement
 	 * @param   where clause values array
@@ -65,7 +87,55 @@ public interface CollectionQueryInterface<V extends Map<String, Object>> {
 	 * @return  The total count for the query
 	 **/
 	default long queryCount(String whereClause, Object[] whereValues) {
-		return query(whereClause, whereValues).length;
+		return queryStream(whereClause, whereValues).count();
+	}
+	
+	// Prepared query operations (to optimize on specific implementation)
+	//--------------------------------------------------------------------------
+	
+	/**
+	 * Performs a search query, with the prepared query and its arguments.
+	 * 
+	 * By default this uses the prepared query string (without its default named arguments),
+	 * implementations should override this to reuse the prepared query, without parsing
+	 * the query string again.
+	 *
+	 * @param   prepared where query statement
+	 * @param   where clause values array
+	 * @param   query string to sort the order by, use null to ignore
+	 * @param   offset of the result to display, use -1 to ignore
+	 * @param   number of objects to return max, use -1 to ignore
+	 *
+	 * @return  The DataObject[] array
+	 **/
+	default V[] query(PreparedQuery preparedClause, Object[] whereValues, String orderByStr,
+		int offset, int limit) {
+		return query(preparedClause.queryString(), whereValues, orderByStr, offset, limit);
+	}
+	
+	/**
+	 * Performs a search query, with the prepared query and its arguments, as a stream
+	 *
+	 * @param   prepared where query statement
+	 * @param   where clause values array
+	 *
+	 * @return  The DataObject stream
+	 **/
+	default Stream<V> queryStream(PreparedQuery preparedClause, Object[] whereValues) {
+		return queryStream(preparedClause.queryString(), whereValues);
+	}
+	
+	/**
+	 * Performs a search query, with the prepared query and its arguments,
+	 * and returns the total count
+	 *
+	 * @param   prepared where query statement
+	 * @param   where clause values array
+	 *
+	 * @return  The total count for the query
+	 **/
+	default long queryCount(PreparedQuery preparedClause, Object[] whereValues) {
+		return queryCount(preparedClause.queryString(), whereValues);
 	}
 	
 	// Aggregation operations (to optimize on specific implementation)
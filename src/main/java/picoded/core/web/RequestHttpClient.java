@@ -48,7 +48,12 @@ import picoded.core.common.EmptyArray;
  * 
  * 	/// Write timeout, this is for each chunk of the HTTP request operation (in ms)
  * 	/// default is 30 seconds
- * 	"writeTimeout" : 30 * 1000
+ * 	"writeTimeout" : 30 * 1000,
+ * 
+ * 	/// Binary JSON (smile) encoding of JSON request objects, with the response
+ * 	/// negotiated via the accept header, and decoded by its content type in toMap()
+ * 	/// The server must support the "application/x-jackson-smile" content type
+ * 	"binaryJSON" : false
  * }
  * ```
  **/
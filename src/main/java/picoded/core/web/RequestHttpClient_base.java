@@ -16,6 +16,7 @@ import picoded.core.conv.NestedObjectUtil;
 import picoded.core.conv.StringEscape;
 import picoded.core.conv.MapValueConv;
 import picoded.core.conv.ConvertJSON;
+import picoded.core.conv.ConvertSmile;
 import picoded.core.struct.GenericConvertHashMap;
 import picoded.core.struct.GenericConvertMap;
 import picoded.core.common.EmptyArray;
@@ -38,6 +39,11 @@ class RequestHttpClient_base {
 		.parse("application/json; charset=utf-8");
 	public static final MediaType MEDIATYPE_OCTETSTREAM = MediaType
 		.parse("application/octet-stream");
+	public static final MediaType MEDIATYPE_SMILE = MediaType.parse(ConvertSmile.CONTENT_TYPE);
+	
+	/// Accept header, used for binary JSON content negotiation
+	public static final String ACCEPT_SMILE_OR_JSON = ConvertSmile.CONTENT_TYPE
+		+ ", application/json;q=0.9";
 	
 	//------------------------------------------------
 	//
@@ -596,6 +602,23 @@ class RequestHttpClient_base {
 		return executeRequestBuilder(reqBuilder);
 	}
 	
+	/**
+	 * @param  headersMap [can be null] Headers map to check
+	 * @param  name       of the header, case insensitive
+	 *
+	 * @return true, if the header is present in the headers map
+	 **/
+	protected static boolean hasHeader(Map<String, String[]> headersMap, String name) {
+		if (headersMap != null) {
+			for (String key : headersMap.keySet()) {
+				if (name.equalsIgnoreCase(key)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Executes the json string request
 	 *
@@ -618,6 +641,20 @@ class RequestHttpClient_base {
 		Request.Builder reqBuilder = new Request.Builder().url(reqUrl);
 		reqBuilder = setupRequestHeaders(reqUrl, reqBuilder, cookiesMap, headersMap);
 		
+		// Binary JSON (smile) content negotiation, if enabled : the response is
+		// decoded according to its content type, in ResponseHttp.toMap()
+		boolean binaryJSON = config.getBoolean("binaryJSON", false);
+		if (binaryJSON && !hasHeader(headersMap, "Accept")) {
+			reqBuilder.header("Accept", ACCEPT_SMILE_OR_JSON);
+		}
+		
+		// Send the json object as smile, if enabled (json strings are sent as it is)
+		if (binaryJSON && jsonObj != null && !(jsonObj instanceof String)) {
+			RequestBody body = RequestBody.create(MEDIATYPE_SMILE, ConvertSmile.fromObject(jsonObj));
+			reqBuilder = reqBuilder.method(method, body);
+			return executeRequestBuilder(reqBuilder);
+		}
+		
 		// Normalize json object to jsonString
 		String jsonString = null;
 		if (jsonObj == null) {
@@ -1,5 +1,6 @@
 package picoded.core.web;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.File;
@@ -8,6 +9,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.*;
@@ -15,8 +18,10 @@ import picoded.core.conv.NestedObjectUtil;
 import picoded.core.conv.StringEscape;
 import picoded.core.conv.MapValueConv;
 import picoded.core.conv.ConvertJSON;
+import picoded.core.conv.ConvertSmile;
 import picoded.core.struct.GenericConvertHashMap;
 import picoded.core.struct.GenericConvertMap;
+import picoded.core.struct.ProxyGenericConvertMap;
 import picoded.core.common.EmptyArray;
 
 /**
@@ -71,6 +76,15 @@ class RequestHttpClient_response implements ResponseHttp {
 		return getResponseBody().byteStream();
 	}
 	
+	/** Cached raw response bytes, when read by toMap() */
+	protected byte[] _responseBytes = null;
+	
+	/** @return the response body charset, null if not specified */
+	protected Charset responseCharset() {
+		MediaType contentType = getResponseBody().contentType();
+		return (contentType == null) ? null : contentType.charset();
+	}
+	
 	/** Cached response string */
 	protected String _responseString = null;
 	
@@ -85,6 +99,13 @@ class RequestHttpClient_response implements ResponseHttp {
 			if (_responseString != null) {
 				return _responseString;
 			}
+			if (_responseBytes != null) {
+				// Decode the raw bytes already read by toMap(), with the body charset
+				Charset charset = responseCharset();
+				_responseString = new String(_responseBytes, (charset != null) ? charset
+					: StandardCharsets.UTF_8);
+				return _responseString;
+			}
 			_responseString = getResponseBody().string();
 			try {
 				close();
@@ -97,6 +118,66 @@ class RequestHttpClient_response implements ResponseHttp {
 		}
 	}
 	
+	/** Cached response map */
+	protected GenericConvertMap<String, Object> _responseMap = null;
+	
+	/**
+	 * Converts the result into a map, via JSON's, and closes the connection.
+	 *
+	 * If the response string was not read previously, the raw body bytes are read
+	 * and parsed directly, without decoding it as a string first. The raw bytes are kept,
+	 * so that toString() still returns the original body (even if its not JSON).
+	 *
+	 * Binary JSON (smile) response content type, is decoded as such.
+	 **/
+	@Override
+	public GenericConvertMap<String, Object> toMap() {
+		if (_responseMap != null) {
+			return _responseMap;
+		}
+		
+		// Parse from the response string if it was read, or if the body charset is not
+		// a unicode encoding (as auto detected by the JSON byte parser)
+		MediaType contentType = getResponseBody().contentType();
+		boolean isSmile = contentType != null
+			&& ConvertSmile.CONTENT_TYPE.equalsIgnoreCase(contentType.type() + "/"
+				+ contentType.subtype());
+		Charset charset = responseCharset();
+		if (_responseString != null || _close
+			|| (!isSmile && charset != null && !charset.name().startsWith("UTF-"))) {
+			return ResponseHttp.super.toMap();
+		}
+		
+		// Read the raw body bytes, blank (or single byte) response body is treated as null,
+		// as per the response string behaviour
+		try {
+			_responseBytes = getResponseBody().bytes();
+		} catch (IOException io) {
+			throw new RuntimeException(io);
+		} finally {
+			try {
+				close();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (_responseBytes.length <= 1) {
+			return null;
+		}
+		
+		// Binary JSON (smile) response, as negotiated by the request accept header
+		Map<String, Object> rMap = null;
+		if (isSmile) {
+			rMap = ConvertSmile.toMap(_responseBytes);
+		} else {
+			rMap = ConvertJSON.toMap(new ByteArrayInputStream(_responseBytes));
+		}
+		if (rMap != null) {
+			_responseMap = ProxyGenericConvertMap.ensure(rMap);
+		}
+		return _responseMap;
+	}
+	
 	/**
 	 * Gets the response code
 	 * Refer to https://en.wikipedia.org/wiki/List_of_HTTP_status_codes
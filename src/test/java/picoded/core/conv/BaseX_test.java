@@ -4,9 +4,13 @@ package picoded.core.conv;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 // Java reference
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigInteger;
+import java.util.Random;
 
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.After;
@@ -282,4 +286,85 @@ public class BaseX_test {
 		// Lets just call the check for encoding loss directly =.= for code coverage !
 		baseObj.checkForEncodingLoss(lotsOfBits, 2, 5, "coverage-test");
 	}
+	
+	//-----------------------------------------------
+	// Limb arithmetic, against BigInteger reference
+	//-----------------------------------------------
+	
+	/// BigInteger based encoding, as the reference implementation
+	protected static String referenceEncode(BaseX base, byte[] bArr) {
+		BigInteger charsetLength = BigInteger.valueOf(base.charset().length());
+		BigInteger value = new BigInteger(1, bArr);
+		StringBuilder ret = new StringBuilder();
+		for (int a = base.bitToStringLength(bArr.length * 8); a > 0; --a) {
+			BigInteger[] split = value.divideAndRemainder(charsetLength);
+			ret.append(base.charset().charAt(split[1].intValue()));
+			value = split[0];
+		}
+		return ret.reverse().toString();
+	}
+	
+	/// BigInteger based decoding value, as the reference implementation
+	protected static BigInteger referenceDecodeValue(BaseX base, String encoded) {
+		BigInteger charsetLength = BigInteger.valueOf(base.charset().length());
+		BigInteger value = BigInteger.ZERO;
+		for (char character : encoded.toCharArray()) {
+			value = value.multiply(charsetLength).add(
+				BigInteger.valueOf(base.charset().indexOf(character)));
+		}
+		return value;
+	}
+	
+	@Test
+	public void referenceEquivalence() {
+		Random random = new Random(25);
+		BaseX[] bases = new BaseX[] { baseObj, new BaseX("01"), new BaseX("0123456789abcdef"),
+			Base58.getInstance(), new BaseX("xyz") };
+		for (BaseX base : bases) {
+			for (int run = 0; run < testRunMultiplier; ++run) {
+				byte[] bArr = new byte[random.nextInt(stringAndByteMaxLength)];
+				random.nextBytes(bArr);
+				if (run % 5 == 0 && bArr.length > 0) {
+					bArr[0] = 0;
+				}
+				
+				String encoded = base.encode(bArr);
+				assertEquals(referenceEncode(base, bArr), encoded);
+				assertArrayEquals(bArr, base.decode(encoded, bArr.length));
+				
+				// Appending, and decoding into, part of a larger buffer
+				StringBuilder builder = new StringBuilder("prefix:");
+				base.encode(bArr, 0, bArr.length, builder);
+				assertEquals("prefix:" + encoded, builder.toString());
+				byte[] out = new byte[bArr.length + 4];
+				base.decode(encoded, out, 2, bArr.length, false);
+				assertArrayEquals(bArr, java.util.Arrays.copyOfRange(out, 2, bArr.length + 2));
+				
+				// Shorter byte length, is the value truncated (or an error if strict)
+				int byteLength = random.nextInt(bArr.length + 1);
+				BigInteger value = referenceDecodeValue(base, encoded);
+				BigInteger limit = BigInteger.ONE.shiftLeft(byteLength * 8);
+				byte[] truncated = base.decode(encoded, byteLength);
+				assertEquals(value.mod(limit), new BigInteger(1, truncated));
+				try {
+					base.decode(encoded, byteLength, false);
+					assertTrue(value.compareTo(limit) < 0);
+				} catch (IllegalArgumentException e) {
+					assertTrue(value.compareTo(limit) >= 0);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void invalidCharacterDecoding() {
+		try {
+			baseObj.decode("ABC!");
+			fail("Expected an invalid character exception");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Invalid character `!` for encoded string:ABC!", e.getMessage());
+		}
+		byte[] expected = baseObj.decode("BA");
+		assertArrayEquals(expected, baseObj.decode(new StringBuilder("BA"), new byte[expected.length]));
+	}
 }
@@ -5,6 +5,12 @@ import static org.junit.Assert.*;
 import org.junit.*;
 
 // Java libs used
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 // Apache lib used
@@ -397,4 +403,135 @@ public class ConvertJSON_test {
 		assertArrayEquals(new Object[] { "one", null, "two" },
 			ConvertJSON.toObjectArray("[\"one\",null,\"two\"]"));
 	}
+	
+	///
+	/// Streaming conversions
+	///
+	
+	protected static InputStream utf8Stream(String input) {
+		return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void streamConversion() {
+		Map<String, Object> map = ConvertJSON.toMap(utf8Stream("{ 'hello' : 'world', 'list' : [1,2] }"));
+		assertEquals("world", map.get("hello"));
+		assertEquals(Arrays.asList(1, 2), map.get("list"));
+		
+		assertEquals(map, ConvertJSON.toMap(new StringReader(ConvertJSON.fromMap(map))));
+		assertEquals(Arrays.asList("a", "b"), ConvertJSON.toList(utf8Stream("[\"a\",\"b\"]")));
+		assertEquals("\u00e9t\u00e9", ConvertJSON.toObject(utf8Stream("\"\u00e9t\u00e9\"")));
+		assertNull(ConvertJSON.toObject(new StringReader("null")));
+		
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ConvertJSON.writeTo(output, map);
+		assertEquals(ConvertJSON.fromMap(map), new String(output.toByteArray(), StandardCharsets.UTF_8));
+		
+		StringWriter writer = new StringWriter();
+		ConvertJSON.writeTo(writer, map, true);
+		assertEquals(ConvertJSON.fromObject(map, true), writer.toString());
+	}
+	
+	@Test
+	public void streamIsNotClosed() throws Exception {
+		StringWriter writer = new StringWriter();
+		ConvertJSON.writeTo(writer, Arrays.asList(1));
+		writer.write("!");
+		assertEquals("[1]!", writer.toString());
+		
+		StringReader reader = new StringReader("[1] [2]");
+		assertEquals(Arrays.asList(1), ConvertJSON.toList(reader));
+		reader.read();
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidStreamMap() {
+		ConvertJSON.toMap(utf8Stream("[1, 2]"));
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidBlankStream() {
+		ConvertJSON.toObject(utf8Stream(""));
+	}
+	
+	@Test
+	public void arrayIterator() {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 1000; ++i) {
+			json.append((i > 0) ? "," : "").append("{\"id\":").append(i).append(",\"tags\":[\"t").append(i)
+				.append("\"]}");
+		}
+		json.append("]");
+		
+		int count = 0;
+		try (ConvertJSON.ArrayIterator iterator = ConvertJSON.arrayIterator(utf8Stream(json.toString()))) {
+			while (iterator.hasNext()) {
+				Map<?, ?> element = (Map<?, ?>) iterator.next();
+				assertEquals(count, element.get("id"));
+				assertEquals(Arrays.asList("t" + count), element.get("tags"));
+				++count;
+			}
+		}
+		assertEquals(1000, count);
+		
+		List<Object> values = new ArrayList<Object>();
+		ConvertJSON.forEachArrayElement(new StringReader("[1, 'two', null, [3], {}]"), values::add);
+		assertEquals(Arrays.asList(1, "two", null, Arrays.asList(3), new HashMap<String, Object>()), values);
+		
+		values.clear();
+		ConvertJSON.forEachArrayElement(new StringReader("null"), values::add);
+		ConvertJSON.forEachArrayElement(new StringReader("[]"), values::add);
+		assertTrue(values.isEmpty());
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void arrayIteratorOfMap() {
+		ConvertJSON.arrayIterator(new StringReader("{}"));
+	}
+	
+	@Test(expected = NoSuchElementException.class)
+	public void arrayIteratorPastEnd() {
+		ConvertJSON.ArrayIterator iterator = ConvertJSON.arrayIterator(new StringReader("[1]"));
+		iterator.next();
+		iterator.next();
+	}
+	
+	///
+	/// Direct primitive array parsing
+	///
+	
+	@Test
+	public void largePrimitiveArrays() {
+		int[] ints = new int[1000];
+		for (int i = 0; i < ints.length; ++i) {
+			ints[i] = i * 7 - 500;
+		}
+		String json = ConvertJSON.fromArray(ints);
+		assertArrayEquals(ints, ConvertJSON.toIntArray(json));
+		assertEquals(1000, ConvertJSON.toLongArray(json).length);
+		assertEquals(-500.0, ConvertJSON.toDoubleArray(json)[0], 0.0);
+		assertEquals(6493.0f, ConvertJSON.toFloatArray(json)[999], 0.0f);
+		assertEquals(0, ConvertJSON.toIntArray("[]").length);
+	}
+	
+	@Test
+	public void mixedStringArray() {
+		assertArrayEquals(new String[] { "a", "1", "1.5", "true", null, "[1, 2]", "{b=2}" },
+			ConvertJSON.toStringArray("['a', 1, 1.5, true, null, [1,2], {'b':2}]"));
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidIntArrayElement() {
+		ConvertJSON.toIntArray("[1, 'two']");
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void unterminatedIntArray() {
+		ConvertJSON.toIntArray("[1, 2");
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidBlankArray() {
+		ConvertJSON.toLongArray("");
+	}
 }
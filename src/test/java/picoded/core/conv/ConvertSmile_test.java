@@ -0,0 +1,77 @@
+package picoded.core.conv;
+
+// Junit includes
+import static org.junit.Assert.*;
+import org.junit.*;
+
+// Java libs used
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * Test Case for picoded.core.conv.ConvertSmile
+ */
+public class ConvertSmile_test {
+	
+	/**
+	 * Invalid constructor test
+	 */
+	@Test(expected = IllegalAccessError.class)
+	public void invalidConstructor() throws Exception {
+		new ConvertSmile();
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidBlankSmile() {
+		ConvertSmile.toObject(new byte[0]);
+	}
+	
+	@Test(expected = ConvertJSON.InvalidFormatJSON.class)
+	public void invalidListToMap() {
+		ConvertSmile.toMap(ConvertSmile.fromList(Arrays.asList(1, 2)));
+	}
+	
+	/**
+	 * Map / list structure, as parsed from JSON
+	 */
+	protected Map<String, Object> sampleMap() {
+		return ConvertJSON.toMap("{ 'name' : 'hello', 'int' : 1, 'long' : 12345678901234, "
+			+ "'double' : 1.5, 'bool' : true, 'nil' : null, 'list' : [ 1, 'two', [ 3 ], { 'four' : 4 } ], "
+			+ "'nested' : { 'a' : { 'b' : [] }, 'unicode' : 'été' } }");
+	}
+	
+	@Test
+	public void mapRoundTrip() {
+		Map<String, Object> map = sampleMap();
+		byte[] smile = ConvertSmile.fromMap(map);
+		assertEquals(map, ConvertSmile.toMap(smile));
+		assertEquals(map, ConvertSmile.toObject(smile));
+		assertEquals(map, ConvertSmile.toCustomClass(smile, Map.class));
+		assertEquals(ConvertJSON.fromMap(map), ConvertJSON.fromMap(ConvertSmile.toMap(smile)));
+	}
+	
+	@Test
+	public void listRoundTrip() {
+		List<Object> list = ConvertJSON.toList("[ 1, 'two', null, [ 3 ], { 'four' : 4.5 } ]");
+		assertEquals(list, ConvertSmile.toList(ConvertSmile.fromList(list)));
+		assertNull(ConvertSmile.toObject(ConvertSmile.fromObject(null)));
+	}
+	
+	@Test
+	public void streamRoundTrip() throws Exception {
+		Map<String, Object> map = sampleMap();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ConvertSmile.writeTo(output, map);
+		assertEquals(map, ConvertSmile.toMap(new ByteArrayInputStream(output.toByteArray())));
+		assertEquals(map, ConvertSmile.toObject(new ByteArrayInputStream(output.toByteArray())));
+		assertEquals(map, ConvertSmile.toCustomClass(new ByteArrayInputStream(output
+			.toByteArray()), HashMap.class));
+		assertEquals(map, ConvertSmile.toCustomClass(output.toByteArray(), HashMap.class));
+		
+		List<Object> elements = new ArrayList<Object>();
+		ConvertSmile.forEachArrayElement(new ByteArrayInputStream(ConvertSmile.fromList(Arrays
+			.asList(map, map))), elements::add);
+		assertEquals(Arrays.asList(map, map), elements);
+	}
+}
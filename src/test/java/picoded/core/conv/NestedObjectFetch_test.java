@@ -105,6 +105,132 @@ public class NestedObjectFetch_test {
 		assertEquals("default", NestedObjectFetch.fetchObject(map, "key[key1]", "default"));
 	}
 	
+	//--------------------------------------------------------------------------------------------------
+	//
+	// Compiled path equivalence testing
+	//
+	//--------------------------------------------------------------------------------------------------
+	
+	/// The original (uncompiled) prefix / suffix search, used as the reference implementation
+	public static Object referenceFetchObject(Object base, String objectPath, Object fallback) {
+		if (base == null || !((base instanceof Map) || (base instanceof List))) {
+			return fallback;
+		}
+		Object ret = MapOrListUtil.getValue(base, objectPath, null);
+		if (ret != null) {
+			return ret;
+		}
+		if (objectPath == null || objectPath.length() <= 0) {
+			return fallback;
+		}
+		
+		String[] splitPath = splitObjectPath(objectPath);
+		for (int idx = splitPath.length; idx >= 0; --idx) {
+			Object nestedBase = MapOrListUtil.getValue(base,
+				String.join(".", ArrayConv.subarray(splitPath, 0, idx)));
+			if (nestedBase == null) {
+				continue;
+			}
+			ret = referenceFetchObject(nestedBase,
+				String.join(".", ArrayConv.subarray(splitPath, idx, splitPath.length)), null);
+			if (ret != null) {
+				return ret;
+			}
+		}
+		
+		String objectPathTrim = objectPath.trim();
+		if (!objectPath.equals(objectPathTrim)) {
+			return referenceFetchObject(base, objectPathTrim, fallback);
+		}
+		if (objectPath.startsWith(".")) {
+			return referenceFetchObject(base, objectPath.substring(1), fallback);
+		}
+		if (objectPath.startsWith("[")) {
+			int closingBracket = objectPath.indexOf("]", 1);
+			return referenceFetchObject(base, objectPath.substring(1, closingBracket)
+				+ objectPath.substring(closingBracket + 1), fallback);
+		}
+		return fallback;
+	}
+	
+	/// Random nested map / list, with dotted literal keys
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	protected static Object randomNestedObject(Random random, int depth) {
+		String[] keys = new String[] { "a", "b", "a.b", "b.a", "0", "1", "", "a.b.a" };
+		if (depth <= 0 || random.nextInt(4) == 0) {
+			return "v" + random.nextInt(100);
+		}
+		if (random.nextInt(3) == 0) {
+			List list = new ArrayList();
+			for (int i = random.nextInt(3); i >= 0; --i) {
+				list.add(randomNestedObject(random, depth - 1));
+			}
+			return list;
+		}
+		Map map = new HashMap();
+		for (int i = random.nextInt(4); i >= 0; --i) {
+			map.put(keys[random.nextInt(keys.length)], randomNestedObject(random, depth - 1));
+		}
+		return map;
+	}
+	
+	@Test
+	public void fetchObjectEquivalenceTest() {
+		Random random = new Random(21);
+		String[] parts = new String[] { "a", "b", "0", "1", "a.b", "[a]", "[0]", "['a.b']", " ",
+			".", "" };
+		for (int n = 0; n < 300; ++n) {
+			Object base = randomNestedObject(random, 5);
+			for (int p = 0; p < 20; ++p) {
+				StringBuilder path = new StringBuilder();
+				for (int i = random.nextInt(6); i >= 0; --i) {
+					String part = parts[random.nextInt(parts.length)];
+					path.append((path.length() > 0 && !part.startsWith("[")) ? "." : "").append(part);
+				}
+				String objectPath = path.toString();
+				
+				Object expected;
+				try {
+					expected = referenceFetchObject(base, objectPath, "default");
+				} catch (RuntimeException e) {
+					expected = e.getClass();
+				}
+				Object result;
+				try {
+					result = NestedObjectFetch.fetchObject(base, objectPath, "default");
+				} catch (RuntimeException e) {
+					result = e.getClass();
+				}
+				assertEquals(objectPath + " @ " + base, expected, result);
+			}
+		}
+	}
+	
+	/// Maps referenced under multiple dotted keys, which has an exponential
+	/// number of prefix / suffix interpration for a missing path
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test(timeout = 10000)
+	public void fetchObjectSharedNestedMapsTest() {
+		int depth = 60;
+		Map[] levels = new Map[depth + 2];
+		levels[depth] = new HashMap();
+		levels[depth].put("found", "value");
+		levels[depth + 1] = new HashMap();
+		for (int i = depth - 1; i >= 0; --i) {
+			levels[i] = new HashMap();
+			levels[i].put("k", levels[i + 1]);
+			levels[i].put("k.k", levels[i + 2]);
+		}
+		
+		StringBuilder path = new StringBuilder("k");
+		for (int i = 1; i < depth; ++i) {
+			path.append(".k");
+		}
+		assertEquals("value", NestedObjectFetch.fetchObject(levels[0], path + ".found"));
+		assertNull(NestedObjectFetch.fetchObject(levels[0], path + ".missing"));
+		assertNull(NestedObjectPath.compile(path + ".k.missing").fetch(levels[0]));
+	}
+	
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Test(expected = RuntimeException.class)
 	public void fetchObjectInvalidTest() {
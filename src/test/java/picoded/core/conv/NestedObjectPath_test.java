@@ -0,0 +1,103 @@
+package picoded.core.conv;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+import java.util.*;
+
+public class NestedObjectPath_test {
+	
+	@Before
+	public void setUp() {
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	//
+	// Fetch testing
+	//
+	//--------------------------------------------------------------------------------------------------
+	
+	@Test
+	public void fetchSimpleTest() {
+		Object base = ConvertJSON.toMap("{ \"a\" : { \"b.c\" : [1,2], \"0\":\"haha\" } }");
+		assertEquals(1, NestedObjectPath.compile("a.b.c[0]").fetch(base));
+		assertEquals(2, NestedObjectPath.compile("a[b.c][1]").fetch(base));
+		assertEquals("haha", NestedObjectPath.compile("a.0").fetch(base));
+		assertEquals("haha", NestedObjectPath.compile("a[0]").fetch(base));
+		assertNull(NestedObjectPath.compile("a.b.c[2]").fetch(base));
+		assertEquals("default", NestedObjectPath.compile("a.b.c[2]").fetch(base, "default"));
+	}
+	
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void fetchTest() {
+		assertNull(NestedObjectPath.compile(null).fetch(null));
+		assertEquals("default", NestedObjectPath.compile(null).fetch("string", "default"));
+		
+		Map map = new HashMap();
+		assertEquals("default", NestedObjectPath.compile(null).fetch(map, "default"));
+		assertEquals("default", NestedObjectPath.compile("").fetch(map, "default"));
+		map.put("key", "value");
+		assertEquals("value", NestedObjectPath.compile("key").fetch(map));
+		assertEquals("value", NestedObjectPath.compile(" key ").fetch(map));
+		assertEquals("value", NestedObjectPath.compile(".key").fetch(map));
+		map.put("key1", "value1");
+		assertEquals("value1", NestedObjectPath.compile("[key1]").fetch(map));
+		assertNull(NestedObjectPath.compile("[key2]").fetch(map));
+		assertNull(NestedObjectPath.compile("key.[key2]").fetch(map));
+	}
+	
+	/// Path which fails to parse, falls back to the literal key
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void fetchInvalidTest() {
+		Map map = new HashMap();
+		map.put("key", "value");
+		assertNull(NestedObjectPath.compile("[key1").fetch(map));
+		assertEquals("default", NestedObjectPath.compile("[key1").fetch(map, "default"));
+		map.put("[key1", "value1");
+		assertEquals("value1", NestedObjectPath.compile("[key1").fetch(map));
+	}
+	
+	/// NestedObjectFetch still throws, on a path which fails to parse
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test(expected = RuntimeException.class)
+	public void fetchObjectInvalidTest() {
+		Map map = new HashMap();
+		map.put("key", "value");
+		NestedObjectPath.compile("[key1").fetch(map);
+		NestedObjectFetch.fetchObject(map, "[key1");
+	}
+	
+	@Test
+	public void compileCacheTest() {
+		assertSame(NestedObjectPath.compile("a.b[1]"), NestedObjectPath.compile("a.b[1]"));
+		assertEquals("a.b[1]", NestedObjectPath.compile("a.b[1]").path());
+	}
+	
+	/// Compare against NestedObjectFetch, for various paths
+	@Test
+	public void nestedObjectFetchEquivalenceTest() {
+		Object base = ConvertJSON.toMap("{ " //
+			+ "\"a\" : { \"b.c\" : [1, { \"d\" : \"deep\" }], \"0\" : \"zero\", \"b\" : { \"c\" : [3] } }, " //
+			+ "\"a.b\" : { \"c\" : \"flat\" }, " //
+			+ "\"list\" : [ [10, 11], { \"x\" : \"y\" } ], " //
+			+ "\"\" : { \"a\" : \"blank\" }, " //
+			+ "\"k\" : \"v\" }");
+		
+		String[] paths = new String[] { "a", "a.b.c", "a.b.c[0]", "a.b.c[1].d", "a[b.c][1][d]",
+			"a.b.c.1.d", "a.0", "a[0]", "a.b", "a.b.c[5]", "list[0][1]", "list.1.x", "list[2]",
+			"list[-1]", "[list][0][0]", " k ", ".k", "[k]", "k.v", "a['b.c'][0]", "x.y.z", "",
+			"missing", "a.b.c.0" };
+		for (String path : paths) {
+			assertEquals(path, NestedObjectFetch.fetchObject(base, path), NestedObjectPath.compile(
+				path).fetch(base));
+		}
+	}
+	
+}
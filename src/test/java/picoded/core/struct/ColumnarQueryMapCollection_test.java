@@ -0,0 +1,207 @@
+package picoded.core.struct;
+
+import static org.junit.Assert.*;
+import static picoded.core.struct.QueryMapCollectionFixture.ids;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryUtils;
+import picoded.core.struct.query.column.ColumnTable;
+import picoded.core.struct.query.column.DoubleColumn;
+import picoded.core.struct.query.column.LongColumn;
+import picoded.core.struct.query.column.ObjectColumn;
+import picoded.core.struct.query.column.StringColumn;
+
+public class ColumnarQueryMapCollection_test {
+	
+	private ColumnarQueryMapCollection columnar = null;
+	private List<Map<String, Object>> plain = null;
+	
+	/// Row with long, double, string, mixed, and nested values
+	private Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("id", (long) i);
+		if (i % 4 != 0) {
+			ret.put("num", (long) (i % 50));
+		}
+		if (i % 6 != 0) {
+			ret.put("dbl", (i % 30) + 0.5);
+		}
+		ret.put("name", "name" + (i % 7));
+		switch (i % 3) {
+		case 0:
+			ret.put("mixed", (long) i);
+			break;
+		case 1:
+			ret.put("mixed", String.valueOf(i % 40));
+			break;
+		default:
+			ret.put("mixed", "str" + i);
+		}
+		Map<String, Object> nested = new HashMap<String, Object>();
+		nested.put("a", (long) (i % 10));
+		ret.put("info", nested);
+		return ret;
+	}
+	
+	@Before
+	public void setUp() {
+		columnar = new ColumnarQueryMapCollection();
+		plain = new ArrayList<Map<String, Object>>();
+		QueryMapCollectionFixture.fill(columnar, plain, 300, this::row);
+	}
+	
+	/// Asserts the columnar query, gives the same result as the plain list search
+	private void assertSameResult(String queryStr, Object[] args) {
+		QueryMapCollectionFixture.assertSameResult(columnar, plain, queryStr, args);
+	}
+	
+	@Test
+	public void columnTypesTest() {
+		ColumnTable table = columnar.table();
+		assertEquals(LongColumn.class, table.column("num").getClass());
+		assertEquals(DoubleColumn.class, table.column("dbl").getClass());
+		assertEquals(StringColumn.class, table.column("name").getClass());
+		assertEquals(7, ((StringColumn) table.column("name")).distinctCount());
+		assertEquals(ObjectColumn.class, table.column("mixed").getClass());
+		assertEquals(ObjectColumn.class, table.column("info").getClass());
+		
+		// Integer values are returned as Long
+		columnar.add(new HashMap<String, Object>() {
+			{
+				put("id", 1000);
+			}
+		});
+		assertEquals(Long.valueOf(1000), table.get(300, "id"));
+		assertEquals(LongColumn.class, table.column("id").getClass());
+	}
+	
+	@Test
+	public void queryEquivalenceTest() {
+		assertSameResult("name = ?", new Object[] { "name3" });
+		assertSameResult("name LIKE ?", new Object[] { "%3" });
+		assertSameResult("num = ?", new Object[] { 10 });
+		assertSameResult("num = ?", new Object[] { "10" });
+		assertSameResult("num > ?", new Object[] { "abc" });
+		assertSameResult("num != ?", new Object[] { 10 });
+		assertSameResult("num < ?", new Object[] { 10.5 });
+		assertSameResult("num BETWEEN ? AND ?", new Object[] { 10, "20" });
+		assertSameResult("dbl >= ?", new Object[] { 10 });
+		assertSameResult("dbl IS NULL", null);
+		assertSameResult("num IS NOT NULL", null);
+		assertSameResult("num IN (?, ?)", new Object[] { 5, "7" });
+		assertSameResult("mixed > ?", new Object[] { 20 });
+		assertSameResult("mixed = ?", new Object[] { "str5" });
+		assertSameResult("info.a = ?", new Object[] { 3 });
+		assertSameResult("missing IS NULL", null);
+		assertSameResult("missing = ?", new Object[] { 1 });
+		assertSameResult("_val = ?", new Object[] { "name3" });
+		assertSameResult("num > ? AND (name = ? OR dbl < ?)", new Object[] { 10, "name1", 5 });
+		assertSameResult("NOT(num > ? OR name = ?)", new Object[] { 10, "name1" });
+		assertSameResult("num = ?", new Object[] { null });
+		assertSameResult("FALSE OR num = ?", new Object[] { 3 });
+		
+		// Sort, offset and limit
+		Query query = Query.build("num > ?", new Object[] { 10 });
+		assertEquals(ids(query.search(plain).stream().sorted(
+			(a, b) -> Long.compare((Long) b.get("id"), (Long) a.get("id"))).skip(5).limit(10)
+			.collect(Collectors.toList())), ids(columnar.query(query, "id DESC", 5, 10)));
+		assertEquals(ids(query.search(plain).subList(5, 15)), ids(columnar.query(query, null, 5,
+			10)));
+		assertEquals(ids(query.search(plain).subList(5, 15)), columnar.queryStream(query, null, 5,
+			10).map((r) -> r.get("id")).collect(Collectors.toList()));
+	}
+	
+	@Test
+	public void randomQueryTest() {
+		Random rand = new Random(7);
+		String[] fields = new String[] { "num", "dbl", "name", "mixed", "info.a", "missing" };
+		String[] ops = new String[] { "=", "!=", "<", "<=", ">", ">=" };
+		Object[] values = new Object[] { 0, 5, 10.5, 25, "10", "name3", "str9", "abc" };
+		for (int i = 0; i < 300; ++i) {
+			List<Object> args = new ArrayList<Object>();
+			StringBuilder queryStr = new StringBuilder();
+			int count = 1 + rand.nextInt(3);
+			for (int c = 0; c < count; ++c) {
+				if (c > 0) {
+					queryStr.append(rand.nextBoolean() ? " AND " : " OR ");
+				}
+				queryStr.append(fields[rand.nextInt(fields.length)]).append(" ").append(
+					ops[rand.nextInt(ops.length)]).append(" ?");
+				args.add(values[rand.nextInt(values.length)]);
+			}
+			assertSameResult(queryStr.toString(), args.toArray());
+		}
+	}
+	
+	@Test
+	public void aggregationTest() {
+		String[] terms = new String[] { "count(*)", "count(num)", "sum(num)", "min(num)",
+			"max(num)", "avg(num)", "sum(dbl)", "max(dbl)", "sum(mixed)", "count(name)",
+			"sum(info.a)", "count(missing)" };
+		assertArrayEquals(QueryUtils.aggregate(new ArrayList<Object>(plain), terms), columnar
+			.aggregate(terms));
+		
+		Query query = Query.build("name = ? OR num > ?", new Object[] { "name3", 40 });
+		assertArrayEquals(QueryUtils.aggregate(new ArrayList<Object>(query.search(plain)), terms),
+			columnar.aggregate(terms, query));
+		assertEquals(new BigDecimal(query.search(plain).size()), columnar.aggregate(
+			new String[] { "count(*)" }, query)[0]);
+	}
+	
+	@Test
+	public void rowViewTest() {
+		Map<String, Object> view = columnar.query("id = ?", new Object[] { 5 }, null, -1, -1).get(0);
+		assertEquals(plain.get(5), view);
+		assertEquals(plain.get(5).hashCode(), view.hashCode());
+		assertFalse(view.containsKey("num") && plain.get(5).get("num") == null);
+		
+		// Changes are written to the columns
+		view.put("num", 1234L);
+		assertEquals(1, columnar.queryCount("num = ?", new Object[] { 1234 }));
+		view.put("num", "not a number");
+		assertEquals(ObjectColumn.class, columnar.table().column("num").getClass());
+		assertEquals(1, columnar.queryCount("num = ?", new Object[] { "not a number" }));
+		assertEquals(Long.valueOf(1), columnar.table().get(1, "num"));
+		view.remove("num");
+		assertFalse(view.containsKey("num"));
+		assertEquals(plain.get(5).size() - 1, view.size());
+	}
+	
+	@Test
+	public void removeAndCompactTest() {
+		Iterator<Map<String, Object>> iter = columnar.iterator();
+		while (iter.hasNext()) {
+			if (((Long) iter.next().get("id")) % 2 == 0) {
+				iter.remove();
+			}
+		}
+		assertEquals(150, columnar.size());
+		assertTrue(columnar.remove(columnar.query("id = ?", new Object[] { 1 }, null, -1, -1).get(
+			0)));
+		assertTrue(columnar.remove(plain.get(3)));
+		assertFalse(columnar.remove(plain.get(4)));
+		assertEquals(148, columnar.size());
+		
+		List<Object> before = ids(columnar.query("num > ?", new Object[] { 20 }, null, -1, -1));
+		columnar.compact();
+		assertEquals(148, columnar.table().rowCount());
+		assertEquals(before, ids(columnar.query("num > ?", new Object[] { 20 }, null, -1, -1)));
+		assertEquals(Long.valueOf(5), columnar.iterator().next().get("id"));
+		
+		columnar.clear();
+		assertEquals(0, columnar.size());
+		assertEquals(0, columnar.queryCount("num > ?", new Object[] { 20 }));
+	}
+}
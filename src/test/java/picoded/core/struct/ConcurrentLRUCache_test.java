@@ -0,0 +1,103 @@
+package picoded.core.struct;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentLRUCache_test {
+	
+	private ConcurrentLRUCache<String, String> cache = null;
+	
+	@Before
+	public void setUp() {
+		cache = new ConcurrentLRUCache<String, String>(3);
+	}
+	
+	@Test
+	public void getAndPutTest() {
+		assertNull(cache.get("a"));
+		cache.put("a", "A");
+		assertEquals("A", cache.get("a"));
+		assertEquals(1, cache.hitCount());
+		assertEquals(1, cache.missCount());
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	public void evictionTest() {
+		cache.put("a", "A");
+		cache.put("b", "B");
+		cache.put("c", "C");
+		
+		// Access "a", making "b" the least recently used
+		assertEquals("A", cache.get("a"));
+		cache.put("d", "D");
+		
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.evictionCount());
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.get("a"));
+		assertEquals("D", cache.get("d"));
+	}
+	
+	@Test
+	public void computeIfAbsentTest() {
+		AtomicInteger calls = new AtomicInteger();
+		assertEquals("A", cache.computeIfAbsent("a", (k) -> {
+			calls.incrementAndGet();
+			return "A";
+		}));
+		assertEquals("A", cache.computeIfAbsent("a", (k) -> {
+			calls.incrementAndGet();
+			return "X";
+		}));
+		assertEquals(1, calls.get());
+	}
+	
+	@Test
+	public void disabledCacheTest() {
+		cache = new ConcurrentLRUCache<String, String>(0);
+		cache.put("a", "A");
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void removeClearAndResetTest() {
+		cache.put("a", "A");
+		cache.put("b", "B");
+		cache.remove("a");
+		assertNull(cache.get("a"));
+		cache.clear();
+		assertEquals(0, cache.size());
+		
+		cache.resetStats();
+		assertEquals(0, cache.missCount());
+	}
+	
+	@Test
+	public void segmentedConcurrentTest() throws Exception {
+		ConcurrentLRUCache<Integer, Integer> segmented = new ConcurrentLRUCache<Integer, Integer>(256);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; ++t) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 2000; ++i) {
+					assertEquals(Integer.valueOf(i % 500), segmented.computeIfAbsent(i % 500, (k) -> k));
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		assertTrue(segmented.size() <= 256);
+		assertEquals(8000, segmented.hitCount() + segmented.missCount());
+	}
+}
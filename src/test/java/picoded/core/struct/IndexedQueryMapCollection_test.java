@@ -0,0 +1,234 @@
+package picoded.core.struct;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.Query;
+
+public class IndexedQueryMapCollection_test {
+	
+	private IndexedQueryMapCollection<Map<String, Object>> indexed = null;
+	private List<Map<String, Object>> plain = null;
+	
+	/// Row with mixed value types, to test the string / number comparision rules
+	private Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("id", i);
+		switch (i % 5) {
+		case 0:
+			ret.put("val", i);
+			break;
+		case 1:
+			ret.put("val", String.valueOf(i));
+			break;
+		case 2:
+			ret.put("val", "str" + i);
+			break;
+		case 3:
+			ret.put("val", i + 0.5);
+			break;
+		default:
+			// null value
+		}
+		ret.put("name", "name" + (i % 7));
+		Map<String, Object> nested = new HashMap<String, Object>();
+		nested.put("b", i % 10);
+		ret.put("a", nested);
+		return ret;
+	}
+	
+	@Before
+	public void setUp() {
+		indexed = new IndexedQueryMapCollection<Map<String, Object>>();
+		indexed.addHashIndex("name");
+		indexed.addSortedIndex("val");
+		plain = new ArrayList<Map<String, Object>>();
+		QueryMapCollectionFixture.fill(indexed, plain, 200, this::row);
+	}
+	
+	/// Asserts the indexed query, gives the same result as a full scan
+	private void assertSameResult(String queryStr, Object[] args) {
+		QueryMapCollectionFixture.assertSameResult(indexed, plain, queryStr, args);
+	}
+	
+	@Test
+	public void queryEquivalenceTest() {
+		assertSameResult("name = ?", new Object[] { "name3" });
+		assertSameResult("name != ?", new Object[] { "name3" });
+		assertSameResult("val = ?", new Object[] { 50 });
+		assertSameResult("val = ?", new Object[] { "51" });
+		assertSameResult("val = ?", new Object[] { "str52" });
+		assertSameResult("val != ?", new Object[] { 50 });
+		assertSameResult("val != ?", new Object[] { "str52" });
+		assertSameResult("val < ?", new Object[] { 100 });
+		assertSameResult("val <= ?", new Object[] { 100 });
+		assertSameResult("val > ?", new Object[] { "100" });
+		assertSameResult("val >= ?", new Object[] { 100.5 });
+		assertSameResult("val > ?", new Object[] { "str150" });
+		assertSameResult("val < ?", new Object[] { "str150" });
+		assertSameResult("val = ?", new Object[] { null });
+		assertSameResult("name = ? AND val > ?", new Object[] { "name2", 50 });
+		assertSameResult("name = ? OR val < ?", new Object[] { "name2", 50 });
+		assertSameResult("name = ? OR id < ?", new Object[] { "name2", 50 });
+		assertSameResult("id < ?", new Object[] { 50 });
+		assertSameResult("name IN (?, ?)", new Object[] { "name2", "name5" });
+		assertSameResult("val IN (?, ?, ?)", new Object[] { 50, "51", "str52" });
+		assertSameResult("val BETWEEN ? AND ?", new Object[] { 20, "60" });
+		assertSameResult("val BETWEEN ? AND ?", new Object[] { "str100", "str160" });
+		assertSameResult("val BETWEEN ? AND ?", new Object[] { null, 60 });
+		assertSameResult("val IS NULL OR name IN ?", new Object[] { new String[] { "name1" } });
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void nestedFieldTest() {
+		indexed.addHashIndex("a.b");
+		assertTrue(indexed.explain(Query.build("a.b = ?", new Object[] { 3 })).startsWith(
+			"INDEX SCAN"));
+		assertSameResult("a.b = ?", new Object[] { 3 });
+		assertSameResult("a.b IN (?, ?)", new Object[] { 3, "4" });
+		
+		indexed.addSortedIndex("a.b");
+		assertSameResult("a.b > ?", new Object[] { 3 });
+		assertSameResult("a.b <= ? AND name = ?", new Object[] { 6, "name2" });
+		
+		// Reindex of a modified nested value
+		Map<String, Object> r = plain.get(20);
+		((Map<String, Object>) r.get("a")).put("b", 100);
+		indexed.reindex(r);
+		assertSameResult("a.b > ?", new Object[] { 50 });
+	}
+	
+	@Test
+	public void removeAndReindexTest() {
+		Map<String, Object> r = plain.get(10);
+		assertTrue(indexed.remove(r));
+		plain.remove(r);
+		assertEquals(199, indexed.size());
+		assertSameResult("val = ?", new Object[] { 10 });
+		
+		r = plain.get(20);
+		r.put("name", "renamed");
+		indexed.reindex(r);
+		assertSameResult("name = ?", new Object[] { "renamed" });
+		assertEquals(1, indexed.query(Query.build("name = ?", new Object[] { "renamed" }), null,
+			-1, -1).size());
+	}
+	
+	@Test
+	public void compactionTest() {
+		// Removes enough rows to trigger compaction
+		for (int i = 0; i < 150; ++i) {
+			Map<String, Object> r = plain.remove(0);
+			assertTrue(indexed.remove(r));
+		}
+		assertEquals(50, indexed.size());
+		assertTrue(indexed.rows.size() < 200);
+		assertSameResult("val > ?", new Object[] { 160 });
+		assertSameResult("name = ?", new Object[] { "name1" });
+	}
+	
+	@Test
+	public void iteratorRemoveTest() {
+		indexed.removeIf((r) -> ((Integer) r.get("id")) % 2 == 0);
+		plain.removeIf((r) -> ((Integer) r.get("id")) % 2 == 0);
+		assertEquals(100, indexed.size());
+		assertEquals(plain, new ArrayList<Map<String, Object>>(indexed));
+		assertSameResult("name = ?", new Object[] { "name4" });
+	}
+	
+	@Test
+	public void queryStreamAndCountTest() {
+		Query query = Query.build("name = ? OR val > ?", new Object[] { "name2", 150 });
+		List<Map<String, Object>> expected = query.search(plain);
+		
+		assertEquals(expected.size(), indexed.queryCount(query));
+		assertEquals(expected.size(), indexed.queryCount("name = ? OR val > ?", new Object[] {
+			"name2", 150 }));
+		assertEquals(200, indexed.queryCount((Query) null));
+		
+		assertEquals(expected, indexed.queryStream(query, null, -1, -1).collect(
+			Collectors.toList()));
+		assertEquals(expected.subList(5, 15), indexed.queryStream(query, null, 5, 10).collect(
+			Collectors.toList()));
+		assertEquals(0, indexed.queryStream(query, null, 5, 0).count());
+		assertEquals(indexed.query(query, "val DESC", 3, 7), indexed.queryStream(query,
+			"val DESC", 3, 7).collect(Collectors.toList()));
+	}
+	
+	/// Asserts the aggregation results are equal in value
+	private void assertSameAggregation(BigDecimal[] expected, BigDecimal[] result) {
+		assertEquals(expected.length, result.length);
+		for (int i = 0; i < expected.length; ++i) {
+			if (expected[i] == null || result[i] == null) {
+				assertEquals("term " + i, expected[i], result[i]);
+			} else {
+				assertEquals("term " + i + " : " + expected[i] + " / " + result[i], 0, expected[i]
+					.compareTo(result[i]));
+			}
+		}
+	}
+	
+	@Test
+	public void materializedAggregationTest() {
+		String[] terms = new String[] { "count(*)", "count(val)", "sum(val)", "avg(val)",
+			"min(val)", "max(val)" };
+		Query query = Query.build("name != ?", new Object[] { "name3" });
+		indexed.materialize(terms, query);
+		indexed.materialize(terms, null);
+		assertSame(indexed.materialized(terms, query), indexed.materialize(terms, Query.build(
+			"name != ?", new Object[] { "name3" })));
+		assertNull(indexed.materialized(terms, Query.build("name != ?", new Object[] { "name4" })));
+		
+		// Random adds, removes and updates
+		Random rand = new Random(3);
+		for (int i = 0; i < 300; ++i) {
+			int op = rand.nextInt(4);
+			if (op == 0 || plain.isEmpty()) {
+				Map<String, Object> r = row(200 + i);
+				indexed.add(r);
+				plain.add(r);
+			} else if (op == 1) {
+				assertTrue(indexed.remove(plain.remove(rand.nextInt(plain.size()))));
+			} else {
+				Map<String, Object> r = plain.get(rand.nextInt(plain.size()));
+				r.put("val", rand.nextInt(1000) - 500);
+				r.put("name", "name" + rand.nextInt(7));
+				indexed.reindex(r);
+			}
+			
+			if (i % 10 == 0) {
+				assertSameAggregation(Aggregation.build(terms).compute(new ArrayList<Object>(query
+					.search(plain))), indexed.aggregate(terms, query));
+				assertSameAggregation(Aggregation.build(terms).compute(new ArrayList<Object>(plain)),
+					indexed.aggregate(terms));
+			}
+		}
+		
+		// Iterator removal, and clear
+		indexed.removeIf((r) -> ((Integer) r.get("id")) % 2 == 0);
+		plain.removeIf((r) -> ((Integer) r.get("id")) % 2 == 0);
+		assertSameAggregation(Aggregation.build(terms).compute(new ArrayList<Object>(plain)),
+			indexed.aggregate(terms));
+		indexed.clear();
+		assertArrayEquals(new BigDecimal[6], indexed.aggregate(terms, query));
+		
+		// Unregistered aggregations are recomputed
+		assertTrue(indexed.dematerialize(terms, query));
+		assertFalse(indexed.dematerialize(terms, query));
+		indexed.add(row(5));
+		assertSameAggregation(Aggregation.build(terms).compute(new ArrayList<Object>(indexed)),
+			indexed.aggregate(terms, query));
+	}
+}
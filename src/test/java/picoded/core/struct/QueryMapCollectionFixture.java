@@ -0,0 +1,42 @@
+package picoded.core.struct;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import picoded.core.struct.query.Query;
+
+/**
+ * Shared test fixture, of a QueryMapCollection implementation,
+ * against the plain list search of the same rows
+ **/
+public class QueryMapCollectionFixture {
+	
+	/// Adds the generated rows, into both the collection, and the plain list
+	public static <V> void fill(Collection<V> collection, List<V> plain, int count,
+		IntFunction<V> row) {
+		for (int i = 0; i < count; ++i) {
+			V r = row.apply(i);
+			collection.add(r);
+			plain.add(r);
+		}
+	}
+	
+	/// Id's of the rows
+	public static List<Object> ids(List<? extends Map<String, Object>> rows) {
+		return rows.stream().map((r) -> r.get("id")).collect(Collectors.toList());
+	}
+	
+	/// Asserts the collection query and count, gives the same result as the plain list search
+	public static <V extends Map<String, Object>> void assertSameResult(
+		QueryMapCollection<V> collection, List<V> plain, String queryStr, Object[] args) {
+		Query query = Query.build(queryStr, args);
+		List<V> expected = query.search(plain);
+		assertEquals(queryStr, ids(expected), ids(collection.query(query, "id", -1, -1)));
+		assertEquals(queryStr, expected.size(), collection.queryCount(query));
+	}
+}
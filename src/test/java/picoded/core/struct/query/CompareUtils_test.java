@@ -4,6 +4,14 @@ package picoded.core.struct.query;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
 
 import org.junit.After;
 // Test Case include
@@ -100,6 +108,72 @@ public class CompareUtils_test {
 	public void objectToNumberIfPossibleTest() {
 		assertNull(CompareUtils.objectToNumberIfPossible("a"));
 		assertNull(CompareUtils.objectToNumberIfPossible(null));
+		assertNull(CompareUtils.objectToNumberIfPossible(""));
+		assertNull(CompareUtils.objectToNumberIfPossible("-"));
+		assertNull(CompareUtils.objectToNumberIfPossible("+1"));
+		
+		// Same results as NumberFormat.parse
+		assertEquals(12L, CompareUtils.objectToNumberIfPossible("12"));
+		assertEquals(-12L, CompareUtils.objectToNumberIfPossible("-12"));
+		assertEquals(1000L, CompareUtils.objectToNumberIfPossible("1,000"));
+		assertEquals(1L, CompareUtils.objectToNumberIfPossible("1.0"));
+		assertEquals(1.5, CompareUtils.objectToNumberIfPossible("1.5"));
+		assertEquals(0.015, CompareUtils.objectToNumberIfPossible("1.5E-2"));
+		assertEquals(12L, CompareUtils.objectToNumberIfPossible("12abc"));
+		assertEquals(-0.0, CompareUtils.objectToNumberIfPossible("-0"));
+		assertEquals(9.223372036854776E18, CompareUtils
+			.objectToNumberIfPossible("9223372036854775808"));
+		assertEquals(Double.NaN, CompareUtils.objectToNumberIfPossible("NaN"));
+		assertEquals(12L, CompareUtils.objectToNumberIfPossible("\u0661\u0662"));
+	}
+	
+	@Test
+	public void stringCompareTest() {
+		// ASCII fast path, in the same order as the english collator
+		String[] ordered = new String[] { "", "0", "1", "10", "9", "a", "A", "ab", "aB", "Ab",
+			"AB", "abc", "b", "Z", "z1" };
+		for (int i = 0; i < ordered.length; ++i) {
+			for (int j = 0; j < ordered.length; ++j) {
+				assertEquals(ordered[i] + " vs " + ordered[j], Integer.compare(i, j), CompareUtils
+					.stringCompare(ordered[i], ordered[j]));
+			}
+		}
+		
+		// Collator path
+		assertEquals(1, CompareUtils.stringCompare("a b", "ab"));
+		assertEquals(-1, CompareUtils.stringCompare("\u00e9", "f"));
+	}
+	
+	@Test
+	public void concurrentCompareTest() throws Exception {
+		String[] samples = new String[] { "apple", "Apple", "1,000", "12.5", "caf\u00e9", "cafe",
+			"10abc", "-3" };
+		int[][] expected = new int[samples.length][samples.length];
+		for (int i = 0; i < samples.length; ++i) {
+			for (int j = 0; j < samples.length; ++j) {
+				expected[i][j] = CompareUtils.dynamicCompare(samples[i], samples[j]);
+			}
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int t = 0; t < 8; ++t) {
+			results.add(pool.submit(() -> {
+				for (int n = 0; n < 2000; ++n) {
+					int i = n % samples.length;
+					int j = (n / samples.length) % samples.length;
+					if (CompareUtils.dynamicCompare(samples[i], samples[j]) != expected[i][j]
+						|| !CompareUtils.objectToNumberIfPossible("1,000").equals(1000L)) {
+						return false;
+					}
+				}
+				return true;
+			}));
+		}
+		for (Future<Boolean> result : results) {
+			assertTrue(result.get());
+		}
+		pool.shutdown();
 	}
 	
 	@Test
@@ -107,6 +181,7 @@ public class CompareUtils_test {
 		assertEquals(0, CompareUtils.numericCompare(null, null));
 		assertEquals(1, CompareUtils.numericCompare(2, 1));
 		assertEquals(1, CompareUtils.numericCompare(2.2, 1));
+		assertEquals(-1, CompareUtils.dynamicCompare(2L, 2.5f));
 	}
 	
 	@Test
@@ -114,4 +189,17 @@ public class CompareUtils_test {
 		assertEquals(0, CompareUtils.dynamicCompare(null, null));
 		assertEquals(0, CompareUtils.dynamicCompare("a", "a"));
 	}
+	
+	@Test
+	public void compileDynamicCompareTest() {
+		Object[] samples = new Object[] { null, "a", "b", "A", "1", "10", "2.5", 1, 10, 2.5, 3L,
+			"10abc", true };
+		for (Object o2 : samples) {
+			ToIntFunction<Object> compiled = CompareUtils.compileDynamicCompare(o2);
+			for (Object o1 : samples) {
+				assertEquals(o1 + " vs " + o2, CompareUtils.dynamicCompare(o1, o2),
+					compiled.applyAsInt(o1));
+			}
+		}
+	}
 }
@@ -0,0 +1,86 @@
+package picoded.core.struct.query;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MaterializedAggregation_test {
+	
+	/// Map with a single value
+	private Map<String, Object> row(Object val) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("val", val);
+		return ret;
+	}
+	
+	@Test
+	public void addAndRemoveTest() {
+		MaterializedAggregation agg = Aggregation.build(
+			new String[] { "count(*)", "count(val)", "sum(val)", "avg(val)", "min(val)", "max(val)" })
+			.materialize(null);
+		assertArrayEquals(new BigDecimal[6], agg.result());
+		
+		Map<String, Object> a = row(5);
+		Map<String, Object> b = row(5);
+		Map<String, Object> c = row("-2.5");
+		Map<String, Object> d = row(null);
+		assertTrue(agg.add(a));
+		assertTrue(agg.add(b));
+		assertTrue(agg.add(c));
+		assertTrue(agg.add(d));
+		assertFalse(agg.add(a));
+		assertEquals(4, agg.size());
+		assertArrayEquals(new BigDecimal[] { new BigDecimal(4), new BigDecimal(3),
+			new BigDecimal("7.5"), new BigDecimal("2.500000000000000000000000"),
+			new BigDecimal("-2.5"), new BigDecimal(5) }, agg.result());
+		
+		// Duplicate max values are kept, till all of them are removed
+		assertTrue(agg.remove(a));
+		assertFalse(agg.remove(a));
+		assertEquals(new BigDecimal(5), agg.result()[5]);
+		assertTrue(agg.remove(b));
+		assertEquals(new BigDecimal("-2.5"), agg.result()[5]);
+		
+		// Removing all values, gives the blank result
+		assertTrue(agg.remove(c));
+		assertArrayEquals(new BigDecimal[] { BigDecimal.ONE, null, null, null, null, null }, agg
+			.result());
+		agg.clear();
+		assertArrayEquals(new BigDecimal[6], agg.result());
+	}
+	
+	@Test
+	public void updateWithQueryTest() {
+		MaterializedAggregation agg = Aggregation.build(new String[] { "sum(val)", "min(val)" })
+			.materialize(Query.build("val > ?", new Object[] { 0 }));
+		Map<String, Object> a = row(10);
+		Map<String, Object> b = row(-10);
+		assertTrue(agg.add(a));
+		assertFalse(agg.add(b));
+		assertEquals(new BigDecimal(10), agg.result()[0]);
+		
+		// Updates are removed with the previous value, and added if they still match
+		a.put("val", 3);
+		assertTrue(agg.update(a));
+		b.put("val", 4);
+		assertTrue(agg.update(b));
+		assertArrayEquals(new BigDecimal[] { new BigDecimal(7), new BigDecimal(3) }, agg.result());
+		a.put("val", -3);
+		assertFalse(agg.update(a));
+		assertArrayEquals(new BigDecimal[] { new BigDecimal(4), new BigDecimal(4) }, agg.result());
+		
+		assertTrue(agg.matches(new String[] { "sum(val)", "min(val)" }, Query.build("val > ?",
+			new Object[] { 0 })));
+		assertFalse(agg.matches(new String[] { "sum(val)", "min(val)" }, null));
+		assertFalse(agg.matches(new String[] { "sum(val)" }, agg.query()));
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void unmapWithoutInvertibleModeTest() {
+		new picoded.core.struct.query.mapreduce.Sum().unmapValue(1);
+	}
+}
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -144,4 +145,113 @@ public class OrderBy_test {
 		assertFalse(orderBy.replaceKeyName("left1", "right"));
 	}
 	
+	/// Mixed dataset with duplicate sort keys, and missing / string values
+	private List<Map<String, Object>> sortDataSet() {
+		List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 300; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("id", i);
+			row.put("group", (i * 7) % 13);
+			if (i % 4 == 0) {
+				row.put("val", "s" + (i % 17));
+			} else if (i % 4 == 1) {
+				row.put("val", i % 23);
+			}
+			ret.add(row);
+		}
+		return ret;
+	}
+	
+	@Test
+	public void decoratedSortTest() {
+		for (String orderByStr : new String[] { "val", "val DESC", "group ASC, val DESC",
+			"group DESC, id" }) {
+			OrderBy<Map<String, Object>> sorter = new OrderBy<Map<String, Object>>(orderByStr);
+			List<Map<String, Object>> expected = sortDataSet();
+			java.util.Collections.sort(expected, sorter);
+			
+			List<Map<String, Object>> sorted = sortDataSet();
+			sorter.sort(sorted);
+			assertEquals(orderByStr, expected, sorted);
+		}
+	}
+	
+	@Test
+	public void topKTest() {
+		for (String orderByStr : new String[] { "val", "val DESC", "group ASC, val DESC" }) {
+			OrderBy<Map<String, Object>> sorter = new OrderBy<Map<String, Object>>(orderByStr);
+			List<Map<String, Object>> expected = sortDataSet();
+			java.util.Collections.sort(expected, sorter);
+			
+			for (int k : new int[] { 1, 5, 20, 299, 300, 500 }) {
+				assertEquals(orderByStr + " " + k,
+					expected.subList(0, Math.min(k, expected.size())),
+					sorter.topK(sortDataSet(), k));
+			}
+			assertEquals(0, sorter.topK(sortDataSet(), 0).size());
+		}
+	}
+	
+	/// Random dataset, mixing numbers, numeric strings, and non numeric strings (like "1,000"),
+	/// where the dynamicCompare is not transitive across the value types
+	private List<Map<String, Object>> mixedTypeDataSet(Random rand) {
+		Object[] samples = new Object[] { "1,000", "abc", "" };
+		List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 200; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("id", i);
+			switch (rand.nextInt(4)) {
+			case 0:
+				row.put("b", rand.nextInt(2000));
+				break;
+			case 1:
+				row.put("b", String.valueOf(rand.nextInt(2000)));
+				break;
+			case 2:
+				row.put("b", samples[rand.nextInt(samples.length)]);
+				break;
+			default:
+				row.put("b", rand.nextDouble() * 2000);
+			}
+			ret.add(row);
+		}
+		return ret;
+	}
+	
+	@Test
+	public void mixedTypeTopKTest() {
+		for (int seed = 1; seed <= 20; ++seed) {
+			for (String orderByStr : new String[] { "b DESC", "b", "b, id DESC" }) {
+				OrderBy<Map<String, Object>> sorter = new OrderBy<Map<String, Object>>(orderByStr);
+				List<Map<String, Object>> expected = mixedTypeDataSet(new Random(seed));
+				sorter.sort(expected);
+				
+				for (int k : new int[] { 1, 5, 50 }) {
+					assertEquals(orderByStr + " " + seed + " " + k, expected.subList(0, k), sorter
+						.topK(mixedTypeDataSet(new Random(seed)), k));
+				}
+				assertEquals(orderByStr + " " + seed, expected.subList(2, 7), QueryUtils
+					.filterSortAndOffset(mixedTypeDataSet(new Random(seed)), null, orderByStr, 2, 5));
+			}
+		}
+	}
+	
+	@Test
+	public void filterSortAndOffsetTest() {
+		List<Map<String, Object>> dataSet = sortDataSet();
+		Query query = Query.build("group > ?", new Object[] { 3 });
+		List<Map<String, Object>> filtered = query.search(dataSet);
+		
+		int[][] offsetLimits = new int[][] { { -1, -1 }, { 0, 10 }, { 5, 10 }, { 5, -1 },
+			{ 5, 0 }, { 0, 0 }, { 250, 20 }, { 190, 20 } };
+		for (String orderByStr : new String[] { null, "val DESC, id" }) {
+			for (int[] ol : offsetLimits) {
+				List<Map<String, Object>> expected = QueryUtils.sortAndOffsetList(
+					new ArrayList<Map<String, Object>>(filtered), orderByStr, ol[0], ol[1]);
+				List<Map<String, Object>> result = QueryUtils.filterSortAndOffset(dataSet,
+					query.compile(), orderByStr, ol[0], ol[1]);
+				assertEquals(orderByStr + " " + ol[0] + "/" + ol[1], expected, result);
+			}
+		}
+	}
 }
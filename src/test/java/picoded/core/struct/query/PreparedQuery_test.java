@@ -0,0 +1,240 @@
+package picoded.core.struct.query;
+
+// Target test class
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Test Case include
+import org.junit.Test;
+
+import picoded.core.struct.ColumnarQueryMapCollection;
+import picoded.core.struct.IndexedQueryMapCollection;
+import picoded.core.struct.QueryMapCollection;
+import picoded.core.struct.query.internal.QueryFilter;
+
+///
+/// Test Case for picoded.core.struct.query.PreparedQuery
+///
+public class PreparedQuery_test {
+	
+	/// Generate a row
+	public static Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("name", "name" + (i % 10));
+		ret.put("num", i);
+		return ret;
+	}
+	
+	/// Generate a list of rows
+	public static List<Map<String, Object>> rows(int count) {
+		List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < count; ++i) {
+			ret.add(row(i));
+		}
+		return ret;
+	}
+	
+	//
+	// Basic usage
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void positionalArguments() {
+		PreparedQuery prepared = PreparedQuery.prepare("name = ? AND num > ?");
+		assertEquals(2, prepared.argumentCount());
+		assertEquals(Query.build("name = ? AND num > ?", new Object[] { "a", 1 }).toString(),
+			prepared.toString());
+		
+		List<Map<String, Object>> list = rows(100);
+		for (int i = 0; i < 10; ++i) {
+			Object[] args = new Object[] { "name" + i, 50 };
+			Query built = Query.build("name = ? AND num > ?", args);
+			assertEquals(built.search(list), prepared.search(list, args));
+			assertEquals(built.count(list), prepared.count(list, args));
+			assertEquals(built.search(list), prepared.stream(list, args).collect(
+				Collectors.toList()));
+			assertEquals(built.search(list), prepared.bind(args).search(list));
+		}
+		
+		assertTrue(prepared.test(row(55), new Object[] { "name5", 50 }));
+		assertFalse(prepared.test(row(45), new Object[] { "name5", 50 }));
+	}
+	
+	@Test
+	public void namedArguments() {
+		Map<String, Object> defaultArgs = new HashMap<String, Object>();
+		defaultArgs.put("min", 10);
+		PreparedQuery prepared = PreparedQuery.prepare("num >= :min AND num < :max", defaultArgs);
+		
+		// The default map is copied, and never modified
+		defaultArgs.put("min", 90);
+		Map<String, Object> namedArgs = new HashMap<String, Object>();
+		namedArgs.put("max", 20);
+		
+		Predicate<Object> compiled = prepared.compile(namedArgs);
+		assertTrue(compiled.test(row(10)));
+		assertTrue(compiled.test(row(19)));
+		assertFalse(compiled.test(row(9)));
+		assertFalse(compiled.test(row(20)));
+		assertEquals(1, namedArgs.size());
+		assertEquals(1, prepared.defaultArgumentMap().size());
+		
+		// Named arguments override the defaults
+		namedArgs.put("min", 15);
+		assertFalse(prepared.test(row(14), namedArgs));
+		assertTrue(prepared.test(row(15), namedArgs));
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void argumentCountMismatch() {
+		PreparedQuery.prepare("name = ?").compile(new Object[] { "a", "b" });
+	}
+	
+	@Test
+	public void templateIsNotModified() {
+		PreparedQuery prepared = PreparedQuery.prepare("num > ?");
+		prepared.compile(new Object[] { 5 });
+		assertNull(prepared.template().defaultArgumentMap());
+		
+		// Building the query, does not modify the given base map
+		Map<String, Object> baseMap = new HashMap<String, Object>();
+		baseMap.put("other", 1);
+		QueryFilter.buildQuery("num > ?", baseMap, new Object[] { 5 });
+		assertEquals(1, baseMap.size());
+	}
+	
+	//
+	// Concurrent binding
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void concurrentBinding() throws Exception {
+		PreparedQuery prepared = PreparedQuery.prepare("name = ? AND num >= ? AND name LIKE ?");
+		List<Map<String, Object>> list = rows(1000);
+		
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; ++t) {
+				final int thread = t;
+				results.add(pool.submit(() -> {
+					for (int i = 0; i < 200; ++i) {
+						int n = (thread + i) % 10;
+						Object[] args = new Object[] { "name" + n, i, "name" + n + "%" };
+						long expected = Query.build("name = ? AND num >= ?",
+							new Object[] { "name" + n, i }).count(list);
+						if (prepared.count(list, args) != expected) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> res : results) {
+				assertTrue(res.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	//
+	// Collection support
+	//--------------------------------------------------------------------
+	
+	/// Asserts the prepared query results, against the built query results
+	protected void assertCollection(QueryMapCollection<Map<String, Object>> collection) {
+		PreparedQuery prepared = PreparedQuery.prepare("name = ? AND num >= ?");
+		String[] terms = new String[] { "count(*)", "sum(num)" };
+		for (int i = 0; i < 10; ++i) {
+			Object[] args = new Object[] { "name" + i, i * 10 };
+			Query built = Query.build("name = ? AND num >= ?", args);
+			assertEquals(collection.query(built, "num DESC", 1, 5),
+				collection.query(prepared, args, "num DESC", 1, 5));
+			assertEquals(collection.queryStream(built, null, 2, -1).collect(Collectors.toList()),
+				collection.queryStream(prepared, args, null, 2, -1).collect(Collectors.toList()));
+			assertEquals(collection.queryCount(built), collection.queryCount(prepared, args));
+			
+			BigDecimal[] expected = collection.aggregate(terms, built);
+			BigDecimal[] result = collection.aggregate(terms, prepared, args);
+			assertEquals(0, expected[0].compareTo(result[0]));
+			assertEquals(0, expected[1].compareTo(result[1]));
+		}
+		assertEquals(collection.size(), collection.queryCount((PreparedQuery) null, null));
+	}
+	
+	/// Plain list collection, using the QueryMapCollection defaults
+	@SuppressWarnings("serial")
+	public static class ListCollection extends ArrayList<Map<String, Object>> implements
+		QueryMapCollection<Map<String, Object>> {
+	}
+	
+	/// List collection, with an overridden query, which only returns the first 10 matches
+	@SuppressWarnings("serial")
+	public static class LimitedCollection extends ListCollection {
+		public int queryCalls = 0;
+		
+		@Override
+		public List<Map<String, Object>> query(Query queryClause, String orderByStr, int offset,
+			int limit) {
+			++queryCalls;
+			List<Map<String, Object>> ret = super.query(queryClause, orderByStr, offset, limit);
+			return ret.subList(0, Math.min(10, ret.size()));
+		}
+	}
+	
+	@Test
+	public void overriddenQueryCollection() {
+		LimitedCollection collection = new LimitedCollection();
+		collection.addAll(rows(200));
+		Query built = Query.build("num >= ?", new Object[] { 0 });
+		PreparedQuery prepared = PreparedQuery.prepare("num >= ?");
+		Object[] args = new Object[] { 0 };
+		
+		// The stream, count and prepared defaults goes through the overridden query
+		assertEquals(10, collection.queryStream(built, null, -1, -1).count());
+		assertEquals(10, collection.queryCount(built));
+		assertEquals(10, collection.query(prepared, args, null, -1, -1).size());
+		assertEquals(10, collection.queryStream(prepared, args, null, -1, -1).count());
+		assertEquals(10, collection.queryCount(prepared, args));
+		assertEquals(0, BigDecimal.TEN.compareTo(collection.aggregate(
+			new String[] { "count(*)" }, prepared, args)[0]));
+		assertEquals(6, collection.queryCalls);
+	}
+	
+	@Test
+	public void listCollection() {
+		ListCollection collection = new ListCollection();
+		collection.addAll(rows(200));
+		assertCollection(collection);
+	}
+	
+	@Test
+	public void indexedCollection() {
+		IndexedQueryMapCollection<Map<String, Object>> collection = new IndexedQueryMapCollection<Map<String, Object>>();
+		collection.addAll(rows(200));
+		collection.addHashIndex("name");
+		collection.addSortedIndex("num");
+		assertCollection(collection);
+	}
+	
+	@Test
+	public void columnarCollection() {
+		ColumnarQueryMapCollection collection = new ColumnarQueryMapCollection();
+		collection.addAll(rows(200));
+		assertCollection(collection);
+	}
+}
@@ -6,11 +6,16 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.GroupedAggregation;
 import picoded.core.struct.query.Query;
+import picoded.core.struct.query.internal.ParallelUtils;
 
 import java.math.BigDecimal;
 
@@ -224,6 +229,353 @@ public class QueryAggregation_test {
 		assertEquals(4.5, res.doubleValue(), 0.0);
 	}
 	
+	//------------------------------------------
+	//
+	// PARALLEL
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testParallelAggregation() {
+		// Larger dataset, split into multiple tasks
+		List<Map<String, Object>> largeDataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 5000; ++i) {
+			largeDataSet.add(createSingleMap((i % 3 == 0) ? "bob" : "tom", i, i * 1.1,
+				(i % 7 == 0) ? null : String.valueOf(i)));
+		}
+		
+		String[] terms = new String[] { "count(*)", "count(stringVal)", "sum(intVal)",
+			"min(doubleVal)", "max(stringVal)", "avg(doubleVal)" };
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(100);
+			assertArrayEquals(queryBob.aggregation(largeDataSet, terms),
+				queryBob.parallelAggregation(largeDataSet, terms));
+			assertArrayEquals(queryAll.aggregation(largeDataSet, terms),
+				queryAll.parallelAggregation(largeDataSet, terms));
+			assertArrayEquals(Aggregation.build(terms).compute((List<Object>) (Object) largeDataSet),
+				Aggregation.build(terms).computeParallel((List<Object>) (Object) largeDataSet));
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	//------------------------------------------
+	//
+	// FAST MODE
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testFastModeAggregation() {
+		String[] terms = new String[] { "count(*)", "count(stringVal)", "sum(intVal)",
+			"min(intVal)", "max(doubleVal)", "min(stringVal)", "sum(stringVal)", "avg(intVal)" };
+		assertTrue(Aggregation.build(terms, true).isFastMode());
+		
+		// Exact results, for integer / string values, and min / max of doubles
+		assertArrayEquals(queryAll.aggregation(fullDataSet, terms),
+			queryAll.aggregation(fullDataSet, Aggregation.build(terms, true)));
+		assertArrayEquals(queryBob.aggregation(fullDataSet, terms),
+			queryBob.aggregation(fullDataSet, Aggregation.build(terms, true)));
+		
+		// Compensated double sum, and average
+		BigDecimal[] res = queryAll.aggregation(fullDataSet, Aggregation.build(new String[] {
+			"sum(doubleVal)", "avg(doubleVal)" }, true));
+		assertEquals(49.5, res[0].doubleValue(), 0.0000001);
+		assertEquals(4.95, res[1].doubleValue(), 0.0000001);
+	}
+	
+	@Test
+	public void testFastModeLongOverflow() {
+		List<Object> dataSet = new ArrayList<Object>();
+		for (int i = 0; i < 4; ++i) {
+			dataSet.add(createSingleMap("bob", i, i, "x"));
+			((Map<String, Object>) dataSet.get(i)).put("longVal", Long.MAX_VALUE - i);
+		}
+		String[] terms = new String[] { "sum(longVal)", "avg(longVal)", "max(longVal)" };
+		assertArrayEquals(Aggregation.build(terms).compute(dataSet), Aggregation.build(terms, true)
+			.compute(dataSet));
+	}
+	
+	@Test
+	public void testFastModeParallelAggregation() {
+		List<Map<String, Object>> largeDataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 5000; ++i) {
+			largeDataSet.add(createSingleMap((i % 3 == 0) ? "bob" : "tom", i, i * 0.5,
+				(i % 7 == 0) ? null : String.valueOf(i)));
+		}
+		
+		String[] terms = new String[] { "count(*)", "sum(intVal)", "min(doubleVal)",
+			"max(stringVal)", "avg(intVal)", "sum(doubleVal)" };
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(100);
+			assertArrayEquals(queryBob.aggregation(largeDataSet, terms), queryBob.parallelAggregation(
+				largeDataSet, Aggregation.build(terms, true), ForkJoinPool.commonPool()));
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	//------------------------------------------
+	//
+	// GROUP BY
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testGroupBy() {
+		String[] terms = new String[] { "count(*)", "sum(intVal)", "avg(doubleVal)" };
+		Map<List<Object>, BigDecimal[]> res = Aggregation.build(terms).groupBy("name").compute(
+			fullDataSet);
+		
+		// Groups in the order first seen
+		assertEquals(Arrays.asList(Arrays.asList("bob"), Arrays.asList("tom")),
+			new ArrayList<List<Object>>(res.keySet()));
+		assertArrayEquals(queryBob.aggregation(fullDataSet, terms), res.get(Arrays.asList("bob")));
+		assertArrayEquals(queryTom.aggregation(fullDataSet, terms), res.get(Arrays.asList("tom")));
+		
+		// Filtered, and multiple group fields
+		Map<List<Object>, BigDecimal[]> filtered = queryBob.groupedAggregation(fullDataSet,
+			Aggregation.build(new String[] { "count(*)" }).groupBy("name", "missing"));
+		assertEquals(1, filtered.size());
+		assertEquals(5, filtered.get(Arrays.asList("bob", null))[0].intValue());
+		
+		// Equal numbers of different types, are grouped together
+		List<Object> numericDataSet = new ArrayList<Object>();
+		for (Object num : new Object[] { 1, 1L, 1.0, new BigDecimal("1.00"), "1", 2.5, 2.50f }) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("num", num);
+			numericDataSet.add(row);
+		}
+		Map<List<Object>, BigDecimal[]> numeric = Aggregation.build(new String[] { "count(*)" })
+			.groupBy("num").compute(numericDataSet);
+		assertEquals(3, numeric.size());
+		assertEquals(4, numeric.get(Arrays.asList(BigDecimal.ONE))[0].intValue());
+		assertEquals(1, numeric.get(Arrays.asList("1"))[0].intValue());
+		assertEquals(2, numeric.get(Arrays.asList(new BigDecimal("2.5")))[0].intValue());
+	}
+	
+	@Test
+	public void testParallelGroupBy() {
+		List<Map<String, Object>> largeDataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 5000; ++i) {
+			largeDataSet.add(createSingleMap("name" + (i % 13), i, i * 0.5, String.valueOf(i % 5)));
+		}
+		
+		String[] terms = new String[] { "count(*)", "sum(intVal)", "min(doubleVal)",
+			"max(intVal)", "avg(intVal)" };
+		GroupedAggregation grouped = Aggregation.build(terms, true).groupBy("stringVal", "name");
+		Map<List<Object>, BigDecimal[]> expected = Aggregation.build(terms).groupBy("stringVal",
+			"name").compute(largeDataSet);
+		
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(100);
+			Map<List<Object>, BigDecimal[]> res = grouped.computeParallel(largeDataSet);
+			assertEquals(65, res.size());
+			assertEquals(new ArrayList<List<Object>>(expected.keySet()),
+				new ArrayList<List<Object>>(res.keySet()));
+			for (List<Object> key : expected.keySet()) {
+				assertArrayEquals(expected.get(key), res.get(key));
+			}
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	//------------------------------------------
+	//
+	// COUNT DISTINCT
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testCountDistinct() {
+		assertEquals(10, queryAll.singleAggregation(fullDataSet, "countDistinct(intVal)").intValue());
+		assertEquals(2, queryAll.singleAggregation(fullDataSet, "countDistinct(name)").intValue());
+		assertNull(queryAll.singleAggregation(fullDataSet, "countDistinct(missing)"));
+		
+		// Numbers are distinct by their value
+		List<Object> dataSet = new ArrayList<Object>();
+		dataSet.add(createSingleMap("a", 1, 1.0, "1"));
+		dataSet.add(createSingleMap("b", 2, 1.5, "1.50"));
+		BigDecimal[] res = Aggregation.build(
+			new String[] { "countDistinct(intVal)", "countDistinct(doubleVal)",
+				"countDistinct(stringVal)" }).compute(dataSet);
+		assertArrayEquals(new BigDecimal[] { new BigDecimal(2), new BigDecimal(2),
+			new BigDecimal(2) }, res);
+	}
+	
+	@Test
+	public void testCountDistinctApproximate() {
+		List<Map<String, Object>> largeDataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 60000; ++i) {
+			largeDataSet.add(createSingleMap("name" + (i % 3), i % 50000, i * 0.5, "str" + (i % 700)));
+		}
+		
+		String[] terms = new String[] { "countDistinct(intVal)", "countDistinct(stringVal)" };
+		BigDecimal[] res = Aggregation.build(terms).compute((List<Object>) (Object) largeDataSet);
+		assertEquals(50000, res[0].doubleValue(), 50000 * 0.03);
+		assertEquals(700, res[1].intValue());
+		
+		// Merged partial results, are the same as a single pass
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(1000);
+			assertArrayEquals(res, Aggregation.build(terms).computeParallel(
+				(List<Object>) (Object) largeDataSet));
+			Map<List<Object>, BigDecimal[]> expected = Aggregation.build(terms).groupBy("name")
+				.compute(largeDataSet);
+			Map<List<Object>, BigDecimal[]> grouped = Aggregation.build(terms).groupBy("name")
+				.computeParallel(largeDataSet);
+			for (List<Object> key : expected.keySet()) {
+				assertArrayEquals(expected.get(key), grouped.get(key));
+			}
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	//------------------------------------------
+	//
+	// PERCENTILE
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testPercentile() {
+		assertEquals(4.5, queryAll.singleAggregation(fullDataSet, "median(intVal)").doubleValue(),
+			0.0);
+		assertEquals(4.5, queryAll.singleAggregation(fullDataSet, "percentile(intVal)")
+			.doubleValue(), 0.0);
+		assertEquals(2.0, queryBob.singleAggregation(fullDataSet, "median(stringVal)")
+			.doubleValue(), 0.0);
+		assertEquals(0.0, queryAll.singleAggregation(fullDataSet, "percentile(intVal, 0)")
+			.doubleValue(), 0.0);
+		assertEquals(9.0, queryAll.singleAggregation(fullDataSet, "percentile(intVal, 100)")
+			.doubleValue(), 0.0);
+		assertEquals(4.5, queryAll.singleAggregation(fullDataSet, "percentile(intVal, 50)")
+			.doubleValue(), 0.0);
+		assertTrue(queryAll.singleAggregation(fullDataSet, "percentile(intVal, 1)")
+			.doubleValue() < 1.0);
+		assertNull(queryAll.singleAggregation(fullDataSet, "median(missing)"));
+	}
+	
+	@Test
+	public void testCommaFieldName() {
+		List<Object> dataSet = new ArrayList<Object>();
+		for (int i = 0; i < 10; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("a,b", i);
+			row.put("x", 0);
+			row.put("x, 90", i * 10);
+			dataSet.add(row);
+		}
+		
+		// Only terms which accepts a parameter, have it split out of the field name
+		BigDecimal[] res = Aggregation.build(new String[] { "sum(a,b)", "max(a,b)", "count(a,b)",
+			"percentile(a,b, 50)" }).compute(dataSet);
+		assertEquals(45, res[0].intValue());
+		assertEquals(9, res[1].intValue());
+		assertEquals(10, res[2].intValue());
+		assertEquals(4.5, res[3].doubleValue(), 0.0);
+		
+		// Median does not accept a parameter, the comma is part of the field name
+		res = Aggregation.build(new String[] { "median(a,b)", "median(x, 90)", "median(x)" })
+			.compute(dataSet);
+		assertEquals(4.5, res[0].doubleValue(), 0.0);
+		assertEquals(45.0, res[1].doubleValue(), 0.0);
+		assertEquals(0.0, res[2].doubleValue(), 0.0);
+	}
+	
+	@Test
+	public void testPercentileApproximate() {
+		List<Object> largeDataSet = new ArrayList<Object>();
+		for (int i = 0; i < 100000; ++i) {
+			// Shuffled order of the values 0 to 99999
+			int val = (int) ((i * 7919L) % 100000);
+			largeDataSet.add(createSingleMap("bob", val, val, String.valueOf(val)));
+		}
+		
+		String[] terms = new String[] { "median(intVal)", "percentile(intVal, 99)",
+			"percentile(doubleVal, 0.1)" };
+		BigDecimal[] res = Aggregation.build(terms).compute(largeDataSet);
+		assertEquals(50000, res[0].doubleValue(), 100000 * 0.01);
+		assertEquals(99000, res[1].doubleValue(), 100000 * 0.002);
+		assertEquals(100, res[2].doubleValue(), 100000 * 0.0005);
+		
+		// Merged partial results, are approximately the same
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(1000);
+			BigDecimal[] parallel = Aggregation.build(terms, true).computeParallel(largeDataSet);
+			assertEquals(50000, parallel[0].doubleValue(), 100000 * 0.01);
+			assertEquals(99000, parallel[1].doubleValue(), 100000 * 0.002);
+			assertEquals(100, parallel[2].doubleValue(), 100000 * 0.0005);
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	//------------------------------------------
+	//
+	// VARIANCE / STDDEV
+	//
+	//------------------------------------------
+	
+	@Test
+	public void testVariance() {
+		BigDecimal[] res = queryAll.aggregation(fullDataSet, new String[] { "variance(intVal)",
+			"variance(intVal, population)", "stddev(intVal)", "stddev(stringVal, population)" });
+		assertEquals(0, new BigDecimal("9.166666666666666666666667").compareTo(res[0]));
+		assertEquals(0, new BigDecimal("8.25").compareTo(res[1]));
+		assertEquals(3.0276503540974917, res[2].doubleValue(), 1e-15);
+		assertEquals(Math.sqrt(8.25), res[3].doubleValue(), 1e-15);
+		
+		// Not enough values for the sample variance
+		List<Object> single = new ArrayList<Object>();
+		single.add(createSingleMap("bob", 5, 5.0, "5"));
+		assertArrayEquals(new BigDecimal[] { null, BigDecimal.ZERO.setScale(24) }, Aggregation
+			.build(new String[] { "variance(intVal)", "stddev(intVal, population)" }).compute(
+				single));
+	}
+	
+	@Test
+	public void testVarianceMergeAndFastMode() {
+		List<Map<String, Object>> largeDataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 5000; ++i) {
+			largeDataSet.add(createSingleMap((i % 3 == 0) ? "bob" : "tom", i, i * 0.1 + 1e6,
+				String.valueOf(i % 17)));
+		}
+		
+		String[] terms = new String[] { "variance(intVal)", "stddev(doubleVal)",
+			"variance(stringVal, population)" };
+		BigDecimal[] expected = queryBob.aggregation(largeDataSet, terms);
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(100);
+			// Exact sums, gives the same result when merged
+			assertArrayEquals(expected, queryBob.parallelAggregation(largeDataSet, terms));
+			
+			// Welford's algorithm, in fast mode
+			BigDecimal[] fast = queryBob.parallelAggregation(largeDataSet, Aggregation.build(terms,
+				true), ForkJoinPool.commonPool());
+			for (int i = 0; i < terms.length; ++i) {
+				assertEquals(expected[i].doubleValue(), fast[i].doubleValue(), expected[i]
+					.doubleValue() * 1e-9);
+			}
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testInvalidParameter() {
+		Aggregation.build(new String[] { "percentile(intVal, 150)" }).compute(
+			(List<Object>) (Object) fullDataSet);
+	}
+	
 	/*
 	//------------------------------------------
 	//
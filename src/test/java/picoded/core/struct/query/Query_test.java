@@ -9,8 +9,13 @@ import static org.junit.Assert.assertNull;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 // Test Case include
 import org.junit.Before;
@@ -19,6 +24,7 @@ import org.junit.Test;
 
 import picoded.core.struct.ArrayListMap;
 import picoded.core.struct.ProxyGenericConvertMap;
+import picoded.core.struct.query.internal.ParallelUtils;
 
 ///
 /// Test Case for picoded.core.struct.query.condition.*
@@ -117,4 +123,247 @@ public class Query_test {
 	public void keyValuesMapTest() {
 		assertNotNull(Query.build("my = ?").keyValuesMap());
 	}
+	
+	//
+	// Compiled query test
+	//--------------------------------------------------------------------
+	
+	/// Sample data set, of mixed types
+	private List<Map<String, Object>> compileDataSet() {
+		List<Map<String, Object>> ret = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 50; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("name", (i % 3 == 0) ? "bob" : "tom" + (i % 7));
+			row.put("intVal", i);
+			row.put("strVal", Integer.toString(i % 11));
+			if (i % 5 != 0) {
+				row.put("optional", i * 1.5);
+			}
+			ret.add(row);
+		}
+		return ret;
+	}
+	
+	/// Asserts the compiled query gives the same result as the interpreted query
+	private void assertCompileEquivalent(String queryStr, Object[] args) {
+		Query queryObj = Query.build(queryStr, args);
+		Predicate<Object> compiled = queryObj.compile();
+		for (Map<String, Object> row : compileDataSet()) {
+			assertEquals(queryStr + " -> " + row, queryObj.test(row), compiled.test(row));
+		}
+		assertEquals(queryObj.test("bob"), compiled.test("bob"));
+		assertEquals(queryObj.test(null), compiled.test(null));
+	}
+	
+	@Test
+	public void compileEquivalence() {
+		assertCompileEquivalent("name = ?", new Object[] { "bob" });
+		assertCompileEquivalent("name != ?", new Object[] { "bob" });
+		assertCompileEquivalent("intVal < ? AND intVal >= ?", new Object[] { 30, 10 });
+		assertCompileEquivalent("intVal <= ? OR intVal > ?", new Object[] { "10", "40" });
+		assertCompileEquivalent("strVal > ? AND optional < ?", new Object[] { 5, 40 });
+		assertCompileEquivalent("optional = ?", new Object[] { null });
+		assertCompileEquivalent("name LIKE ?", new Object[] { "tom%" });
+		assertCompileEquivalent("_val = ?", new Object[] { "bob" });
+		assertCompileEquivalent("_key = ?", new Object[] { "optional" });
+		assertCompileEquivalent("((name = ? AND intVal > ?) AND strVal = ?) OR (intVal = ?)",
+			new Object[] { "bob", 10, "3", 1 });
+		assertCompileEquivalent("NOT (name = ? OR intVal < ?)", new Object[] { "bob", 20 });
+		assertCompileEquivalent("NOT (name = ?) AND NOT (intVal < ?)", new Object[] { "tom1", 20 });
+	}
+	
+	@Test
+	public void inBetweenNullQuery() {
+		assertCompileEquivalent("name IN (?, ?) AND intVal > ?", new Object[] { "bob", "tom3", 10 });
+		assertCompileEquivalent("strVal IN ?", new Object[] { new int[] { 1, 2, 3 } });
+		assertCompileEquivalent("intVal BETWEEN ? AND ? OR optional IS NULL", new Object[] { 10,
+			"20" });
+		assertCompileEquivalent("optional IS NOT NULL AND NOT (name IN (?))", new Object[] { "bob" });
+		
+		// Same results as the equivalent OR / AND queries
+		List<Map<String, Object>> dataSet = compileDataSet();
+		assertEquals(Query.build("name = ? OR name = ?", new Object[] { "bob", "tom3" }).search(
+			dataSet), Query.build("name IN (?,?)", new Object[] { "bob", "tom3" }).search(dataSet));
+		assertEquals(Query.build("intVal >= ? AND intVal <= ?", new Object[] { 10, 20 }).search(
+			dataSet), Query.build("intVal BETWEEN ? AND ?", new Object[] { 10, 20 }).search(dataSet));
+		assertEquals(10, Query.build("optional IS NULL").search(dataSet).size());
+		assertEquals(40, Query.build("optional IS NOT NULL").search(dataSet).size());
+	}
+	
+	/// Row with fields named as the query keywords, and with a comma
+	private Map<String, Object> keywordRow(int i) {
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("in", i);
+		row.put("is", "v" + (i % 3));
+		row.put("true", i % 2);
+		if (i % 4 != 0) {
+			row.put("false", i);
+		}
+		row.put("a,b", i % 5);
+		return row;
+	}
+	
+	@Test
+	public void keywordFieldNames() {
+		List<Map<String, Object>> dataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 20; ++i) {
+			dataSet.add(keywordRow(i));
+		}
+		
+		assertEquals(1, Query.build("in = ?", new Object[] { 3 }).search(dataSet).size());
+		assertEquals(7, Query.build("is = ?", new Object[] { "v0" }).search(dataSet).size());
+		assertEquals(10, Query.build("true = ?", new Object[] { 1 }).search(dataSet).size());
+		assertEquals(15, Query.build("false > ?", new Object[] { 0 }).search(dataSet).size());
+		assertEquals(4, Query.build("a,b = ?", new Object[] { 2 }).search(dataSet).size());
+		assertEquals(4, Query.build("\"a,b\" = ?", new Object[] { 2 }).search(dataSet).size());
+		
+		// Keyword field names, after the combination operators and brackets
+		assertEquals(5, Query.build("is = ? AND in > ?", new Object[] { "v1", 4 }).search(dataSet)
+			.size());
+		assertEquals(8, Query.build("in < ? OR (is = ? AND true = ?)", new Object[] { 6, "v2", 0 })
+			.search(dataSet).size());
+		assertEquals(19, Query.build("NOT in = ?", new Object[] { 3 }).search(dataSet).size());
+		
+		// Keyword field names, with the multi token operators
+		assertEquals(3, Query.build("in IN (?,?, ?)", new Object[] { 1, 2, 3 }).search(dataSet)
+			.size());
+		assertEquals(5, Query.build("false IS NULL").search(dataSet).size());
+		assertEquals(7, Query.build("true = ? AND is IN (?, ?)", new Object[] { 0, "v0", "v1" })
+			.search(dataSet).size());
+		assertEquals(3, Query.build("is IS NOT NULL AND in BETWEEN ? AND ?",
+			new Object[] { 5, 7 }).search(dataSet).size());
+		assertEquals(4, Query.build("a,b IN (?) OR FALSE", new Object[] { 4 }).search(dataSet)
+			.size());
+	}
+	
+	/// Flat field name, which is not a valid nested path
+	@Test
+	public void unclosedBracketFieldName() {
+		List<Map<String, Object>> dataSet = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 10; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("id", i);
+			if (i % 2 == 0) {
+				row.put("tag[a", i);
+			}
+			dataSet.add(row);
+		}
+		
+		assertEquals(1, Query.build("tag[a = ?", new Object[] { 4 }).search(dataSet).size());
+		assertEquals(5, Query.build("tag[a IS NULL").search(dataSet).size());
+		assertEquals(2, Query.build("tag[a > ? AND id < ?", new Object[] { 3, 7 }).search(dataSet)
+			.size());
+	}
+	
+	@Test
+	public void inBetweenNullRoundTrip() {
+		String[] queries = new String[] { "name IN (?, ?, ?)", "intVal BETWEEN ? AND ?",
+			"optional IS NULL", "optional IS NOT NULL",
+			"(name IN (?) OR intVal BETWEEN ? AND ?) AND optional IS NOT NULL" };
+		for (String queryStr : queries) {
+			Object[] args = new Object[queryStr.length() - queryStr.replace("?", "").length()];
+			for (int i = 0; i < args.length; ++i) {
+				args[i] = "v" + i;
+			}
+			Query query = Query.build(queryStr, args);
+			Query rebuilt = Query.build(query.toSqlString(), query.queryArgumentsArray());
+			assertEquals(query.toString(), rebuilt.toString());
+			assertEquals(query.toSqlString(), rebuilt.toSqlString());
+			assertEquals(query.queryArgumentsList(), rebuilt.queryArgumentsList());
+		}
+	}
+	
+	@Test
+	public void compileWithArgumentMap() {
+		Query queryObj = Query.build("name = :name AND intVal > :min");
+		Map<String, Object> argMap = new HashMap<String, Object>();
+		argMap.put("name", "bob");
+		argMap.put("min", 20);
+		
+		int matched = 0;
+		Predicate<Object> compiled = queryObj.compile(argMap);
+		for (Map<String, Object> row : compileDataSet()) {
+			assertEquals(queryObj.test(row, argMap), compiled.test(row));
+			if (compiled.test(row)) {
+				++matched;
+			}
+		}
+		assertEquals(10, matched);
+	}
+	
+	@Test
+	public void parallelSearch() {
+		List<Map<String, Object>> dataSet = compileDataSet();
+		Map<String, Map<String, Object>> dataMap = new HashMap<String, Map<String, Object>>();
+		for (Map<String, Object> row : dataSet) {
+			dataMap.put(row.get("intVal").toString(), row);
+		}
+		
+		Query queryObj = Query.build("name = ? OR intVal > ?", new Object[] { "bob", 30 });
+		int oldThreshold = ParallelUtils.splitThreshold();
+		try {
+			ParallelUtils.setSplitThreshold(4);
+			assertEquals(queryObj.search(dataSet), queryObj.parallelSearch(dataSet));
+			assertEquals(queryObj.search(new LinkedList<Map<String, Object>>(dataSet)),
+				queryObj.parallelSearch(new LinkedList<Map<String, Object>>(dataSet)));
+			assertEquals(queryObj.search(dataMap), queryObj.parallelSearch(dataMap,
+				ForkJoinPool.commonPool()));
+		} finally {
+			ParallelUtils.setSplitThreshold(oldThreshold);
+		}
+	}
+	
+	@Test
+	public void lazySearch() {
+		List<Map<String, Object>> dataSet = compileDataSet();
+		Query queryObj = Query.build("name = ? OR intVal > ?", new Object[] { "bob", 30 });
+		List<Map<String, Object>> expected = queryObj.search(dataSet);
+		
+		List<Map<String, Object>> iterated = new ArrayList<Map<String, Object>>();
+		Iterator<Map<String, Object>> iter = queryObj.iterator(dataSet);
+		while (iter.hasNext()) {
+			iterated.add(iter.next());
+		}
+		assertEquals(expected, iterated);
+		assertEquals(expected, queryObj.stream(dataSet).collect(Collectors.toList()));
+		assertEquals(expected.size(), queryObj.count(dataSet));
+	}
+	
+	@Test
+	public void nestedFieldQuery() {
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 10; ++i) {
+			Map<String, Object> item = new HashMap<String, Object>();
+			List<Object> tags = new ArrayList<Object>();
+			tags.add("tag" + i);
+			tags.add(i % 3);
+			Map<String, Object> profile = new HashMap<String, Object>();
+			profile.put("age", i * 10);
+			profile.put("tags", tags);
+			item.put("id", i);
+			item.put("profile", profile);
+			list.add(item);
+		}
+		
+		// Nested map, and list index paths
+		Query query = Query.build("profile.age > ? AND profile.tags[1] = ?", new Object[] { 40, 2 });
+		List<Map<String, Object>> res = query.search(list);
+		assertEquals(2, res.size());
+		assertEquals(5, res.get(0).get("id"));
+		assertEquals(8, res.get(1).get("id"));
+		
+		// Compiled predicate, gives the same result
+		Predicate<Object> compiled = query.compile();
+		for (Map<String, Object> item : list) {
+			assertEquals(query.test(item), compiled.test(item));
+		}
+		
+		// Nested order by
+		res = query.search(list, "profile.tags[0] DESC");
+		assertEquals(8, res.get(0).get("id"));
+		
+		// Missing paths, are null values
+		assertEquals(0, Query.build("profile.missing.age > ?", new Object[] { 0 }).search(list)
+			.size());
+	}
 }
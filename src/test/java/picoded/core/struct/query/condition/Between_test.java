@@ -0,0 +1,90 @@
+package picoded.core.struct.query.condition;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class Between_test {
+	
+	private Between between = null;
+	
+	@Before
+	public void setUp() {
+		
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	@Test
+	public void blankTest() {
+		assertNull(between);
+	}
+	
+	@Test
+	public void typeTest() {
+		between = construct();
+		assertEquals(QueryType.BETWEEN, between.type());
+	}
+	
+	@Test
+	public void operatorSymbolTest() {
+		between = construct();
+		assertEquals("BETWEEN", between.operatorSymbol());
+		assertEquals("\"key\" BETWEEN :min AND :max", between.toString());
+	}
+	
+	@Test
+	public void testValuesTest() {
+		between = construct();
+		assertFalse(between.testValues(null, null));
+		assertFalse(between.testValues(5, new Object[] { null, 10 }));
+		assertTrue(between.testValues(5, new Object[] { 1, 10 }));
+		assertTrue(between.testValues("10", new Object[] { 1, 10 }));
+		assertFalse(between.testValues(11, new Object[] { 1, 10 }));
+	}
+	
+	@Test
+	public void inclusiveRangeTest() {
+		between = construct();
+		for (int i = 0; i <= 12; ++i) {
+			Map<String, Object> row = new HashMap<>();
+			row.put("key", i);
+			assertEquals(i >= 1 && i <= 10, between.test(row));
+			assertEquals(i >= 1 && i <= 10, between.compile().test(row));
+		}
+	}
+	
+	@Test
+	public void queryBuildTest() {
+		Query query = Query.build("key BETWEEN ? AND ? AND name = ?", new Object[] { 1, 10, "a" });
+		assertEquals("\"key\" BETWEEN :0 AND :1 AND \"name\" = :2", query.toString());
+		
+		Map<String, Object> row = new HashMap<>();
+		row.put("key", 3);
+		row.put("name", "a");
+		assertTrue(query.test(row));
+		row.put("key", 30);
+		assertFalse(query.test(row));
+	}
+	
+	private Between construct() {
+		Map<String, Object> defaultArgMap = new HashMap<>();
+		defaultArgMap.put("min", 1);
+		defaultArgMap.put("max", 10);
+		return new Between("key", "min", "max", defaultArgMap);
+	}
+}
@@ -0,0 +1,71 @@
+package picoded.core.struct.query.condition;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class ILike_test {
+	
+	private ILike ilike = null;
+	
+	@Before
+	public void setUp() {
+		
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	@Test
+	public void blankTest() {
+		assertNull(ilike);
+	}
+	
+	@Test
+	public void typeTest() {
+		ilike = construct();
+		assertEquals(QueryType.ILIKE, ilike.type());
+	}
+	
+	@Test
+	public void testValuesTest() {
+		ilike = construct();
+		assertFalse(ilike.testValues(null, null));
+		assertTrue(ilike.testValues("Hello World", "hello%"));
+		assertTrue(ilike.testValues("Hello World", "%WORLD"));
+		assertFalse(ilike.testValues("Hello World", "world%"));
+	}
+	
+	@Test
+	public void operatorSymbolTest() {
+		ilike = construct();
+		assertEquals("ILIKE", ilike.operatorSymbol());
+	}
+	
+	@Test
+	public void queryBuildTest() {
+		Map<String, Object> row = new HashMap<>();
+		row.put("name", "Tommy");
+		assertTrue(Query.build("name ILIKE ?", new Object[] { "tom%" }).test(row));
+		assertFalse(Query.build("name LIKE ?", new Object[] { "tom%" }).test(row));
+		assertTrue(Query.build("name LIKE ?", new Object[] { "T_mmy" }).test(row));
+	}
+	
+	private ILike construct() {
+		Map<String, Object> defaultArgMap = new HashMap<>();
+		return new ILike("key", "myKey", defaultArgMap);
+	}
+}
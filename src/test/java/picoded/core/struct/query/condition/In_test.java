@@ -0,0 +1,117 @@
+package picoded.core.struct.query.condition;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class In_test {
+	
+	private In in = null;
+	
+	@Before
+	public void setUp() {
+		
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	@Test
+	public void blankTest() {
+		assertNull(in);
+	}
+	
+	@Test
+	public void typeTest() {
+		in = construct();
+		assertEquals(QueryType.IN, in.type());
+	}
+	
+	@Test
+	public void operatorSymbolTest() {
+		in = construct();
+		assertEquals("IN", in.operatorSymbol());
+		assertEquals("\"key\" IN (:0, :1)", in.toString());
+	}
+	
+	@Test
+	public void testValuesTest() {
+		in = construct();
+		assertFalse(in.testValues(null, null));
+		assertFalse(in.testValues(null, 1));
+		assertTrue(in.testValues("1", 1));
+		assertTrue(in.testValues(1.0, "1"));
+		assertFalse(in.testValues("a", 1));
+	}
+	
+	@Test
+	public void argumentsTest() {
+		in = construct();
+		assertTrue(in.test(row("hello")));
+		assertTrue(in.test(row(10)));
+		assertTrue(in.test(row("10")));
+		assertFalse(in.test(row("Hello")));
+		assertFalse(in.test(row(11)));
+		assertFalse(in.test(row(null)));
+		assertEquals(2, in.argumentNames().length);
+		assertEquals(Arrays.asList("hello", 10), in.queryArgumentsList());
+	}
+	
+	@Test
+	public void collectionArgumentTest() {
+		Query query = Query.build("key IN ?", new Object[] { Arrays.asList("a", "b", 3) });
+		assertTrue(query.test(row("b")));
+		assertTrue(query.test(row(3)));
+		assertFalse(query.test(row("c")));
+	}
+	
+	/// IN gives the same result as the equivalent OR chain of equals
+	@Test
+	public void orEquivalenceTest() {
+		Object[] args = new Object[] { "tom", 5, "2.5", "café", "B0B", null };
+		Object[] values = new Object[] { "tom", "Tom", 5, 5.0, "5", "05", 2.5, "2.50", "cafe",
+			"café", "CAFÉ", "B0B", "b0b", null, true, "x" };
+		Query in = Query.build("key IN (?, ?, ?, ?, ?, ?)", args);
+		Query or = Query.build("key = ? OR key = ? OR key = ? OR key = ? OR key = ? OR key = ?",
+			args);
+		for (Object value : values) {
+			assertEquals(String.valueOf(value), or.test(row(value)), in.test(row(value)));
+			assertEquals(String.valueOf(value), or.test(row(value)), in.compile().test(row(value)));
+		}
+	}
+	
+	@Test
+	public void keyValuesMapTest() {
+		in = construct();
+		List<Object> values = in.keyValuesMap().get("key");
+		assertEquals(Arrays.asList("hello", 10), values);
+	}
+	
+	private Map<String, Object> row(Object value) {
+		Map<String, Object> ret = new HashMap<>();
+		ret.put("key", value);
+		return ret;
+	}
+	
+	private In construct() {
+		Map<String, Object> defaultArgMap = new HashMap<>();
+		defaultArgMap.put("0", "hello");
+		defaultArgMap.put("1", 10);
+		return new In("key", new String[] { "0", "1" }, defaultArgMap);
+	}
+}
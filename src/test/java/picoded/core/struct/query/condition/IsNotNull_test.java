@@ -0,0 +1,69 @@
+package picoded.core.struct.query.condition;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class IsNotNull_test {
+	
+	private IsNotNull isNotNull = null;
+	
+	@Before
+	public void setUp() {
+		
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	@Test
+	public void blankTest() {
+		assertNull(isNotNull);
+	}
+	
+	@Test
+	public void typeTest() {
+		isNotNull = construct();
+		assertEquals(QueryType.IS_NOT_NULL, isNotNull.type());
+	}
+	
+	@Test
+	public void operatorSymbolTest() {
+		isNotNull = construct();
+		assertEquals("IS NOT NULL", isNotNull.operatorSymbol());
+		assertEquals("\"key\" IS NOT NULL", isNotNull.toString());
+	}
+	
+	@Test
+	public void testValuesTest() {
+		isNotNull = construct();
+		assertFalse(isNotNull.testValues(null, null));
+		assertTrue(isNotNull.testValues("", null));
+	}
+	
+	@Test
+	public void queryBuildTest() {
+		Map<String, Object> row = new HashMap<>();
+		row.put("name", "bob");
+		assertTrue(Query.build("name IS NOT NULL").test(row));
+		assertFalse(Query.build("key IS NOT NULL").test(row));
+		assertTrue(Query.build("NOT (key IS NOT NULL)").test(row));
+	}
+	
+	private IsNotNull construct() {
+		return new IsNotNull("key", new HashMap<>());
+	}
+}
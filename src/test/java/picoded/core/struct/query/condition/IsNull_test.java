@@ -0,0 +1,70 @@
+package picoded.core.struct.query.condition;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class IsNull_test {
+	
+	private IsNull isNull = null;
+	
+	@Before
+	public void setUp() {
+		
+	}
+	
+	@After
+	public void tearDown() {
+		
+	}
+	
+	@Test
+	public void blankTest() {
+		assertNull(isNull);
+	}
+	
+	@Test
+	public void typeTest() {
+		isNull = construct();
+		assertEquals(QueryType.IS_NULL, isNull.type());
+	}
+	
+	@Test
+	public void operatorSymbolTest() {
+		isNull = construct();
+		assertEquals("IS NULL", isNull.operatorSymbol());
+		assertEquals("\"key\" IS NULL", isNull.toString());
+		assertEquals(0, isNull.argumentNames().length);
+	}
+	
+	@Test
+	public void testValuesTest() {
+		isNull = construct();
+		assertTrue(isNull.testValues(null, null));
+		assertFalse(isNull.testValues("", null));
+	}
+	
+	@Test
+	public void queryBuildTest() {
+		Map<String, Object> row = new HashMap<>();
+		row.put("name", "bob");
+		assertTrue(Query.build("key IS NULL").test(row));
+		assertTrue(Query.build("key is null AND name = ?", new Object[] { "bob" }).test(row));
+		assertFalse(Query.build("name IS NULL").test(row));
+	}
+	
+	private IsNull construct() {
+		return new IsNull("key", new HashMap<>());
+	}
+}
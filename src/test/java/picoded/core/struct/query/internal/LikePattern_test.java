@@ -0,0 +1,90 @@
+package picoded.core.struct.query.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import picoded.core.struct.query.internal.LikePattern.Shape;
+
+public class LikePattern_test {
+	
+	/// Asserts the pattern shape, and its matches against the given values
+	private void assertLike(String pattern, boolean ignoreCase, Shape shape, String[] matches,
+		String[] nonMatches) {
+		LikePattern like = LikePattern.compile(pattern, ignoreCase);
+		assertEquals(pattern, shape, like.shape());
+		for (String value : matches) {
+			assertTrue(pattern + " -> " + value, like.matches(value));
+		}
+		for (String value : nonMatches) {
+			assertFalse(pattern + " -> " + value, like.matches(value));
+		}
+		assertFalse(like.matches(null));
+	}
+	
+	@Test
+	public void shapeTest() {
+		assertLike("abc", false, Shape.EQUALS, new String[] { "abc" }, new String[] { "ABC", "abcd",
+			"" });
+		assertLike("", false, Shape.EQUALS, new String[] { "" }, new String[] { "a" });
+		assertLike("abc%", false, Shape.PREFIX, new String[] { "abc", "abcdef" }, new String[] {
+			"ab", "xabc" });
+		assertLike("%abc", false, Shape.SUFFIX, new String[] { "abc", "xyzabc" }, new String[] {
+			"bc", "abcx" });
+		assertLike("%abc%", false, Shape.CONTAINS, new String[] { "abc", "xabcx" }, new String[] {
+			"ab", "aXbc" });
+		assertLike("ab%cd", false, Shape.PREFIX_SUFFIX, new String[] { "abcd", "abXXcd" },
+			new String[] { "abc", "abcdx", "bcd" });
+		assertLike("%", false, Shape.ANY, new String[] { "", "abc" }, new String[0]);
+		assertLike("%%", false, Shape.ANY, new String[] { "", "abc" }, new String[0]);
+		assertLike("a%b%c", false, Shape.REGEX, new String[] { "abc", "aXbXc" }, new String[] {
+			"acb", "ab" });
+	}
+	
+	@Test
+	public void wildcardTest() {
+		assertLike("a_c", false, Shape.REGEX, new String[] { "abc", "a_c", "a\nc" }, new String[] {
+			"ac", "abbc" });
+		assertLike("_%", false, Shape.REGEX, new String[] { "a", "abc" }, new String[] { "" });
+		assertLike("%a_c%", false, Shape.REGEX, new String[] { "xxabcxx" }, new String[] { "xxacxx" });
+		
+		// Multi line values are matched by %
+		assertLike("a%z", false, Shape.PREFIX_SUFFIX, new String[] { "a\nz" }, new String[0]);
+		assertLike("a%m%z", false, Shape.REGEX, new String[] { "a\nm\nz" }, new String[0]);
+	}
+	
+	@Test
+	public void literalTest() {
+		// Regex characters are matched literally
+		assertLike("a.c", false, Shape.EQUALS, new String[] { "a.c" }, new String[] { "abc" });
+		assertLike("(a+)%[b]_", false, Shape.REGEX, new String[] { "(a+)x[b]y" }, new String[] {
+			"aax[b]y" });
+		
+		// Escaped wildcards
+		assertLike("100\\%", false, Shape.EQUALS, new String[] { "100%" }, new String[] { "1000" });
+		assertLike("a\\_b%", false, Shape.PREFIX, new String[] { "a_bc" }, new String[] { "axbc" });
+		assertLike("a\\\\b", false, Shape.EQUALS, new String[] { "a\\b" }, new String[0]);
+		assertLike("a\\", false, Shape.EQUALS, new String[] { "a\\" }, new String[0]);
+	}
+	
+	@Test
+	public void ignoreCaseTest() {
+		assertLike("abc", true, Shape.EQUALS, new String[] { "abc", "ABC", "aBc" },
+			new String[] { "abcd" });
+		assertLike("abc%", true, Shape.PREFIX, new String[] { "ABCdef" }, new String[] { "xabc" });
+		assertLike("%abc", true, Shape.SUFFIX, new String[] { "xyzABC" }, new String[] { "ABCx" });
+		assertLike("%abc%", true, Shape.CONTAINS, new String[] { "xAbCx" }, new String[] { "AB" });
+		assertLike("ab%cd", true, Shape.PREFIX_SUFFIX, new String[] { "ABxCD" },
+			new String[] { "ABC" });
+		assertLike("a_c%", true, Shape.REGEX, new String[] { "ABCD" }, new String[] { "ACD" });
+	}
+	
+	@Test
+	public void cacheTest() {
+		LikePattern like = LikePattern.cached("tom%", false);
+		assertSame(like, LikePattern.cached("tom%", false));
+		assertNotSame(like, LikePattern.cached("tom%", true));
+		assertTrue(LikePattern.cached("tom%", true).isIgnoreCase());
+		assertEquals("tom%", like.pattern());
+	}
+}
@@ -262,4 +262,38 @@ public class QueryFilter_test {
 		child.add(query);
 		assertNotNull(QueryFilter.processCombinationType(tokens, null, child));
 	}
+	
+	//
+	// Query template cache
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void queryTemplateCacheTest() {
+		String queryStr = "cacheTestField = ? AND ( cacheTestNum > ? OR cacheTestNum < :min )";
+		long hits = QueryFilter.queryTemplateCache().hitCount();
+		
+		Map<String, Object> rowA = new HashMap<String, Object>();
+		rowA.put("cacheTestField", "a");
+		rowA.put("cacheTestNum", 5);
+		
+		Map<String, Object> paramMap = new HashMap<String, Object>();
+		paramMap.put("min", 0);
+		
+		// First build, then a cached build with different arguments
+		Query first = QueryFilter.buildQuery(queryStr, paramMap, new Object[] { "a", 1 });
+		Query second = QueryFilter.buildQuery(queryStr, null, new Object[] { "b", 1 });
+		
+		assertEquals(first.toString(), second.toString());
+		assertEquals(true, first.test(rowA));
+		assertEquals(false, second.test(rowA));
+		assertEquals("a", first.queryArgumentsMap().get("0"));
+		assertEquals("b", second.queryArgumentsMap().get("0"));
+		assertEquals(true, QueryFilter.queryTemplateCache().hitCount() > hits);
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void queryTemplateCacheArgumentMismatchTest() {
+		QueryFilter.buildQuery("mismatchField = ?", null, new Object[] { "a" });
+		QueryFilter.buildQuery("mismatchField = ?", null, new Object[] { "a", "b" });
+	}
 }
@@ -0,0 +1,202 @@
+package picoded.core.struct.query.metrics;
+
+// Target test class
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Test Case include
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Aggregation;
+import picoded.core.struct.query.PreparedQuery;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryUtils;
+
+///
+/// Test Case for picoded.core.struct.query.metrics.*
+///
+public class QueryMetrics_test {
+	
+	protected QueryMetricsRegistry registry = null;
+	protected List<Map<String, Object>> list = null;
+	
+	@Before
+	public void setUp() {
+		registry = new QueryMetricsRegistry();
+		QueryMetrics.setSink(registry);
+		
+		list = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 100; ++i) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("name", "name" + (i % 10));
+			row.put("num", i);
+			list.add(row);
+		}
+	}
+	
+	@After
+	public void tearDown() {
+		QueryMetrics.setSink(null);
+		QueryMetrics.setSlowQueryThreshold(-1);
+	}
+	
+	//
+	// Query executions
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void searchAndCount() {
+		Query query = Query.build("name = ? AND num >= ?", new Object[] { "name1", 50 });
+		assertEquals(5, query.search(list).size());
+		assertEquals(5, query.search(list).size());
+		assertEquals(5, query.count(list));
+		
+		QueryMetricsRegistry.TemplateMetrics search = registry.metrics("search",
+			query.toSqlString());
+		assertNotNull(search);
+		assertEquals(2, search.executions());
+		assertEquals(200, search.rowsScanned());
+		assertEquals(10, search.rowsMatched());
+		
+		QueryMetricsRegistry.TemplateMetrics count = registry.metrics("count", query.toSqlString());
+		assertEquals(1, count.executions());
+		assertEquals(100, count.rowsScanned());
+		assertEquals(5, count.rowsMatched());
+	}
+	
+	@Test
+	public void preparedQuery() {
+		PreparedQuery prepared = PreparedQuery.prepare("num < ?");
+		prepared.search(list, new Object[] { 10 });
+		prepared.count(list, new Object[] { 20 });
+		
+		String template = prepared.template().toSqlString();
+		assertEquals(10, registry.metrics("search", template).rowsMatched());
+		assertEquals(20, registry.metrics("count", template).rowsMatched());
+	}
+	
+	@Test
+	public void sortAndAggregate() {
+		QueryUtils.sortAndOffsetList(list, "num DESC", 0, 10);
+		QueryMetricsRegistry.TemplateMetrics sort = registry.metrics("sort", "ORDER BY num DESC");
+		assertEquals(100, sort.rowsScanned());
+		assertEquals(10, sort.rowsMatched());
+		
+		Aggregation.build(new String[] { "count(*)", "sum(num)" }).compute((Collection) list);
+		assertEquals(100, registry.metrics("aggregate", "count(*), sum(num)").rowsScanned());
+	}
+	
+	@Test
+	public void disabled() {
+		QueryMetrics.setSink(null);
+		assertFalse(QueryMetrics.isEnabled());
+		assertEquals(QueryMetrics.DISABLED, QueryMetrics.start());
+		
+		Query.build("num > ?", new Object[] { 5 }).search(list);
+		assertTrue(registry.metrics().isEmpty());
+	}
+	
+	@Test
+	public void maxTemplates() {
+		registry = new QueryMetricsRegistry(2);
+		QueryMetrics.setSink(registry);
+		Query.build("num > ?", new Object[] { 1 }).search(list);
+		Query.build("num < ?", new Object[] { 1 }).search(list);
+		Query.build("num = ?", new Object[] { 1 }).search(list);
+		Query.build("num != ?", new Object[] { 1 }).search(list);
+		
+		assertEquals(3, registry.metrics().size());
+		assertEquals(2, registry.metrics("search", QueryMetricsRegistry.OTHER_TEMPLATES)
+			.executions());
+		assertEquals(3, registry.slowest(3, 0.99).size());
+		assertEquals(1, registry.slowest(1, 0.99).size());
+	}
+	
+	//
+	// Slow query log
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void slowQueryLog() {
+		List<String> logged = new ArrayList<String>();
+		Handler handler = new Handler() {
+			public void publish(LogRecord record) {
+				logged.add(record.getMessage());
+			}
+			
+			public void flush() {
+			}
+			
+			public void close() {
+			}
+		};
+		Logger logger = Logger.getLogger(QueryMetrics.class.getName());
+		logger.addHandler(handler);
+		try {
+			QueryMetrics.setSink(null);
+			QueryMetrics.setSlowQueryThreshold(0);
+			assertTrue(QueryMetrics.isEnabled());
+			assertEquals(0, QueryMetrics.slowQueryThreshold());
+			
+			Query.build("name = ?", new Object[] { "name3" }).search(list);
+			assertEquals(1, logged.size());
+			assertTrue(logged.get(0).contains("\"name\" = ?"));
+			assertTrue(logged.get(0).contains("[name3]"));
+			
+			// Above the threshold, nothing is logged
+			QueryMetrics.setSlowQueryThreshold(60000);
+			Query.build("name = ?", new Object[] { "name3" }).search(list);
+			assertEquals(1, logged.size());
+		} finally {
+			logger.removeHandler(handler);
+		}
+	}
+	
+	//
+	// Latency histogram
+	//--------------------------------------------------------------------
+	
+	@Test
+	public void latencyHistogram() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.percentile(0.99));
+		for (long i = 1; i <= 1000; ++i) {
+			histogram.record(i * 1000);
+		}
+		assertEquals(1000, histogram.count());
+		assertEquals(1000000, histogram.max());
+		assertEquals(500500.0, histogram.mean(), 0.0001);
+		
+		// Within the 12.5% bucket error, and never above the max
+		long p50 = histogram.percentile(0.5);
+		long p99 = histogram.percentile(0.99);
+		assertTrue(p50 >= 500000 && p50 <= 500000 * 1.125);
+		assertTrue(p99 >= 990000 && p99 <= 1000000);
+		assertEquals(1000000, histogram.percentile(1.0));
+		
+		// Bucket bounds are continuous
+		for (int i = 1; i < LatencyHistogram.BUCKETS; ++i) {
+			long lower = LatencyHistogram.bucketUpperBound(i - 1) + 1;
+			assertEquals(i, LatencyHistogram.bucketIndex(lower));
+			assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(i)));
+		}
+		
+		histogram.reset();
+		assertEquals(0, histogram.count());
+		assertNull(registry.metrics("search", "unknown"));
+	}
+}
@@ -0,0 +1,174 @@
+package picoded.core.struct.query.planner;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+import picoded.core.struct.query.condition.Constant;
+
+public class QueryOptimizer_test {
+	
+	private List<Map<String, Object>> rows = null;
+	
+	/// Row with numeric, numeric string, string, and missing values
+	private Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("id", i);
+		ret.put("name", (i % 3 == 0) ? "bob" : "tom" + (i % 7));
+		if (i % 5 != 0) {
+			ret.put("val", (i % 4 == 0) ? (Object) Integer.toString(i % 20) : (Object) (i % 20));
+		}
+		if (i % 9 == 0) {
+			ret.put("val", "str" + i);
+		}
+		return ret;
+	}
+	
+	@Before
+	public void setUp() {
+		rows = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 200; ++i) {
+			rows.add(row(i));
+		}
+	}
+	
+	/// Asserts the optimized query string, and that it gives the same result
+	private Query assertOptimized(String expected, String queryStr, Object[] args) {
+		Query query = Query.build(queryStr, args);
+		Query optimized = query.optimize();
+		assertEquals(queryStr, expected, optimized.toString());
+		assertEquals(queryStr, query.search(rows), optimized.search(rows));
+		return optimized;
+	}
+	
+	@Test
+	public void flattenAndDuplicatesTest() {
+		assertOptimized("\"name\" = :0 AND \"id\" > :1",
+			"(name = ? AND (id > ? AND name = ?)) AND name = ?", new Object[] { "bob", 10, "bob",
+				"bob" });
+		assertOptimized("\"name\" = :0 OR \"name\" = :1 OR \"id\" < :2",
+			"name = ? OR (name = ? OR (id < ? OR name = ?))", new Object[] { "bob", "tom1", 5, "tom1" });
+		assertOptimized("\"name\" = :0", "name = ? AND name = ?", new Object[] { "bob", "bob" });
+	}
+	
+	@Test
+	public void notPushDownTest() {
+		assertOptimized("\"name\" = :0", "NOT(NOT(name = ?))", new Object[] { "bob" });
+		assertOptimized("(NOT(  \"name\" = :0 )) OR (NOT(  \"id\" > :1 ))", "NOT(name = ? AND id > ?)",
+			new Object[] { "bob", 50 });
+		assertOptimized("(NOT(  \"name\" = :0 )) AND (NOT(  \"id\" > :1 ))", "NOT(name = ? OR id > ?)",
+			new Object[] { "bob", 50 });
+		assertOptimized("\"val\" IS NOT NULL", "NOT(val IS NULL)", null);
+	}
+	
+	@Test
+	public void rangeMergeTest() {
+		assertOptimized("\"val\" BETWEEN :1 AND :2", "val >= ? AND val >= ? AND val <= ?",
+			new Object[] { 1, 5, 10 });
+		assertOptimized("\"val\" > :0 AND \"val\" <= :2", "val > ? AND val >= ? AND val <= ?",
+			new Object[] { 5, 5, 10 });
+		assertOptimized("\"val\" <= :1", "val < ? AND val <= ?", new Object[] { 10, 5 });
+		assertOptimized("\"val\" < :0", "val < ? AND val <= ?", new Object[] { 5, 5 });
+		assertOptimized("\"val\" = :0", "val = ? AND val BETWEEN ? AND ?", new Object[] { 7, 1, 10 });
+		assertOptimized("\"val\" > :1", "val > ? OR val > ?", new Object[] { 10, 5 });
+		assertOptimized("\"val\" <= :0", "val <= ? OR val < ?", new Object[] { 10, 10 });
+		
+		// String arguments are not merged, as they are compared as strings
+		assertOptimized("\"val\" > :0 AND \"val\" > :1", "val > ? AND val > ?", new Object[] {
+			"10", "9" });
+	}
+	
+	@Test
+	public void constantFoldingTest() {
+		assertEquals(Constant.FALSE, assertOptimized("FALSE", "val > ? AND val < ?", new Object[] {
+			10, 5 }));
+		assertOptimized("FALSE", "val = ? AND val = ?", new Object[] { 1, 2 });
+		assertOptimized("FALSE", "val = ? AND val > ?", new Object[] { 1, 2 });
+		assertOptimized("FALSE", "val IS NULL AND val = ?", new Object[] { 1 });
+		assertOptimized("FALSE", "NOT (name = ?) AND name = ?", new Object[] { "bob", "bob" });
+		assertOptimized("FALSE", "name = ?", new Object[] { null });
+		assertOptimized("FALSE", "val BETWEEN ? AND ?", new Object[] { 10, 1 });
+		assertOptimized("TRUE", "NOT (name = ?) OR name = ?", new Object[] { "bob", "bob" });
+		assertOptimized("TRUE", "val IS NULL OR val IS NOT NULL", null);
+		assertOptimized("\"id\" > :1", "name = ? OR id > ?", new Object[] { null, 10 });
+		assertOptimized("\"val\" = :0", "val IS NOT NULL AND val = ?", new Object[] { 3 });
+	}
+	
+	@Test
+	public void constantQueryTest() {
+		Query query = Query.build("TRUE AND (FALSE OR id < ?)", new Object[] { 5 });
+		assertEquals(5, query.search(rows).size());
+		assertEquals("\"id\" < :0", query.optimize().toString());
+		assertEquals(QueryType.FALSE, Query.build("false").type());
+		assertEquals(0, Constant.FALSE.search(rows).size());
+		assertEquals(200, Constant.TRUE.search(rows).size());
+		assertEquals(200, Constant.TRUE.count(rows));
+		
+		// Round trip of the optimized query string
+		Query optimized = Query.build("val > ? AND val < ? OR name = ?", new Object[] { 10, 5,
+			"bob" }).optimize();
+		assertEquals("\"name\" = :2", optimized.toString());
+		Query rebuilt = Query.build(optimized.toSqlString(), optimized.queryArgumentsArray());
+		assertEquals(optimized.search(rows), rebuilt.search(rows));
+	}
+	
+	/// Random query string, of the given depth
+	private String randomQuery(Random rand, int depth, List<Object> args) {
+		if (depth <= 0 || rand.nextInt(3) == 0) {
+			String field = new String[] { "val", "id", "name", "missing" }[rand.nextInt(4)];
+			String op = new String[] { "=", "!=", "<", "<=", ">", ">=", "BETWEEN", "IS NULL",
+				"IS NOT NULL", "IN" }[rand.nextInt(10)];
+			Object[] values = new Object[] { 0, 3, 5, 5.0, 10, 15, 20, "5", "10", "bob", "tom1",
+				"str9", null };
+			if (op.startsWith("IS")) {
+				return field + " " + op;
+			} else if (op.equals("BETWEEN")) {
+				args.add(values[rand.nextInt(values.length)]);
+				args.add(values[rand.nextInt(values.length)]);
+				return field + " BETWEEN ? AND ?";
+			} else if (op.equals("IN")) {
+				args.add(values[rand.nextInt(values.length)]);
+				args.add(values[rand.nextInt(values.length)]);
+				return field + " IN (?, ?)";
+			}
+			args.add(values[rand.nextInt(values.length)]);
+			return field + " " + op + " ?";
+		}
+		
+		int count = 1 + rand.nextInt(3);
+		String combination = new String[] { " AND ", " OR " }[rand.nextInt(2)];
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < count; ++i) {
+			if (i > 0) {
+				ret.append(combination);
+			}
+			ret.append(rand.nextInt(4) == 0 ? "NOT (" : "(");
+			ret.append(randomQuery(rand, depth - 1, args)).append(")");
+		}
+		return ret.toString();
+	}
+	
+	@Test
+	public void randomEquivalenceTest() {
+		Random rand = new Random(42);
+		for (int i = 0; i < 500; ++i) {
+			List<Object> args = new ArrayList<Object>();
+			String queryStr = randomQuery(rand, 3, args);
+			Query query = Query.build(queryStr, args.toArray());
+			Query optimized = query.optimize();
+			assertEquals(queryStr + " -> " + optimized, query.search(rows), optimized.search(rows));
+			
+			// Optimizing again, gives the same query
+			assertEquals(optimized.toString(), optimized.optimize().toString());
+		}
+	}
+}
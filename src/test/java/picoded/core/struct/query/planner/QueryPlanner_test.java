@@ -0,0 +1,220 @@
+package picoded.core.struct.query.planner;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import picoded.core.struct.IndexedQueryMapCollection;
+import picoded.core.struct.query.Query;
+import picoded.core.struct.query.QueryType;
+
+public class QueryPlanner_test {
+	
+	private List<Map<String, Object>> rows = null;
+	
+	/// Row with a low cardinality name, numeric value, and a text field
+	private Map<String, Object> row(int i) {
+		Map<String, Object> ret = new HashMap<String, Object>();
+		ret.put("id", i);
+		ret.put("name", "name" + (i % 10));
+		ret.put("note", "note " + i + ((i % 3 == 0) ? " special" : ""));
+		if (i % 4 != 0) {
+			ret.put("val", i % 100);
+		}
+		return ret;
+	}
+	
+	@Before
+	public void setUp() {
+		rows = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 1000; ++i) {
+			rows.add(row(i));
+		}
+	}
+	
+	@Test
+	public void fieldStatisticsTest() {
+		QueryStatistics stats = QueryStatistics.collect(rows);
+		assertEquals(1000, stats.rowCount());
+		assertTrue(stats.isAllFields());
+		
+		FieldStatistics name = stats.field("name");
+		assertEquals(10, name.distinctCount());
+		assertEquals(0, name.nullCount());
+		assertEquals(100L, (long) name.valueFrequencies().get("name3"));
+		
+		FieldStatistics val = stats.field("val");
+		assertEquals(250, val.nullCount());
+		assertEquals(750, val.numericCount());
+		assertEquals(1.0, val.min(), 0.0);
+		assertEquals(99.0, val.max(), 0.0);
+		long histogramTotal = 0;
+		for (long count : val.histogram()) {
+			histogramTotal += count;
+		}
+		assertEquals(750, histogramTotal);
+		
+		// Too many distinct values, to keep the frequencies
+		assertEquals(1000, stats.field("id").distinctCount());
+		assertNull(stats.field("id").valueFrequencies());
+		
+		// Only the requested fields
+		stats = QueryStatistics.collect(rows, new String[] { "name" });
+		assertFalse(stats.isAllFields());
+		assertNull(stats.field("val"));
+		
+		// Nested field values
+		for (Map<String, Object> row : rows) {
+			Map<String, Object> nested = new HashMap<String, Object>();
+			nested.put("b", row.get("name"));
+			row.put("a", nested);
+		}
+		stats = QueryStatistics.collect(rows, new String[] { "a.b" });
+		assertEquals(10, stats.field("a.b").distinctCount());
+		assertEquals(0, stats.field("a.b").nullCount());
+	}
+	
+	@Test
+	public void selectivityTest() {
+		QueryStatistics stats = QueryStatistics.collect(rows);
+		QueryPlanner planner = new QueryPlanner(stats);
+		
+		// Exact, using the value frequencies
+		assertEquals(0.1, planner.plan(Query.build("name = ?", new Object[] { "name3" }))
+			.selectivity(), 0.0);
+		assertEquals(0.9, planner.plan(Query.build("name != ?", new Object[] { "name3" }))
+			.selectivity(), 0.0);
+		Query like = Query.build("note LIKE ?", new Object[] { "%special%" });
+		assertNull(stats.field("note").valueFrequencies());
+		assertEquals(FieldStatistics.DEFAULT_LIKE_SELECTIVITY, planner.plan(like).selectivity(),
+			0.0);
+		
+		// Estimated, using the histogram
+		stats = QueryStatistics.collect(rows, null, 0, 32);
+		planner = new QueryPlanner(stats);
+		for (int arg : new int[] { 10, 50, 90 }) {
+			Query query = Query.build("val < ?", new Object[] { arg });
+			double actual = (double) query.search(rows).size() / rows.size();
+			assertEquals(actual, planner.plan(query).selectivity(), 0.05);
+			query = Query.build("val >= ?", new Object[] { arg });
+			actual = (double) query.search(rows).size() / rows.size();
+			assertEquals(actual, planner.plan(query).selectivity(), 0.05);
+		}
+		
+		// Missing field
+		assertEquals(0.0, new QueryPlanner(QueryStatistics.collect(rows)).plan(
+			Query.build("missing = ?", new Object[] { 1 })).selectivity(), 0.0);
+	}
+	
+	/// Asserts the estimated selectivity, is close to the actual selectivity
+	private void assertSelectivity(QueryPlanner planner, Query query) {
+		double actual = (double) query.search(rows).size() / rows.size();
+		assertEquals(query.toString(), actual, planner.plan(query).selectivity(), 0.05);
+	}
+	
+	@Test
+	public void inBetweenNullSelectivityTest() {
+		// Estimated, without the value frequencies
+		QueryPlanner planner = new QueryPlanner(QueryStatistics.collect(rows, null, 0, 32));
+		assertSelectivity(planner, Query.build("val IN (?, ?, ?)", new Object[] { 10, 50, 70 }));
+		assertSelectivity(planner, Query.build("val BETWEEN ? AND ?", new Object[] { 10, 50 }));
+		assertSelectivity(planner, Query.build("val IS NULL"));
+		assertSelectivity(planner, Query.build("val IS NOT NULL"));
+		
+		// Exact, using the value frequencies
+		planner = new QueryPlanner(QueryStatistics.collect(rows));
+		assertEquals(0.2, planner.plan(Query.build("name IN (?, ?)", new Object[] { "name1",
+			"name2" })).selectivity(), 0.0);
+	}
+	
+	@Test
+	public void reorderTest() {
+		QueryPlanner planner = new QueryPlanner(QueryStatistics.collect(rows));
+		
+		// Equality before a regex LIKE
+		Query query = Query.build("note LIKE ? AND val > ? AND name = ?", new Object[] {
+			"%spec_al%", 10, "name3" });
+		QueryPlan plan = planner.plan(query);
+		List<Query> children = plan.query().childrenQuery();
+		assertEquals(3, children.size());
+		assertEquals(QueryType.EQUALS, children.get(0).type());
+		assertEquals(QueryType.MORE_THAN, children.get(1).type());
+		assertEquals(QueryType.LIKE, children.get(2).type());
+		
+		// Same ordering, without statistics
+		children = new QueryPlanner(null).plan(query).query().childrenQuery();
+		assertEquals(QueryType.EQUALS, children.get(0).type());
+		assertEquals(QueryType.LIKE, children.get(2).type());
+		
+		// Contains LIKE, is matched without regex
+		query = Query.build("val > ? AND note LIKE ?", new Object[] { 10, "%special%" });
+		assertTrue(planner.plan(query.childrenQuery().get(1)).cost() < QueryPlanner.LIKE_COST);
+		children = planner.plan(query).query().childrenQuery();
+		assertEquals(QueryType.LIKE, children.get(0).type());
+		
+		// Nested AND is flattened
+		query = Query.build("note LIKE ? AND (val > ? AND name = ?)", new Object[] { "%special%",
+			10, "name3" });
+		children = planner.plan(query).query().childrenQuery();
+		assertEquals(3, children.size());
+		assertEquals(QueryType.EQUALS, children.get(0).type());
+		
+		// OR evaluates the most likely, and cheapest, first
+		query = Query.build("name = ? OR val > ?", new Object[] { "name3", 10 });
+		children = planner.plan(query).query().childrenQuery();
+		assertEquals(QueryType.MORE_THAN, children.get(0).type());
+		
+		// Unchanged query, is returned as it is
+		query = Query.build("name = ? AND note LIKE ?", new Object[] { "name3", "%special%" });
+		assertSame(query, planner.plan(query).query());
+	}
+	
+	@Test
+	public void resultEquivalenceTest() {
+		QueryPlanner planner = new QueryPlanner(QueryStatistics.collect(rows));
+		String[] queries = new String[] { "note LIKE ? AND val > ? AND name = ? AND id > ?",
+			"note LIKE ? OR val > ? OR name = ? OR id < ?",
+			"NOT(note LIKE ? OR val > ?) AND name = ? AND id > ?",
+			"(note LIKE ? OR val > ?) AND (name = ? AND val > ?)" };
+		for (String queryStr : queries) {
+			Query query = Query.build(queryStr, new Object[] { "%special%", 50, "name3", 20 });
+			QueryPlan plan = planner.plan(query);
+			assertEquals(queryStr, query.search(rows), plan.query().search(rows));
+			assertEquals(queryStr, (double) query.search(rows).size() / rows.size(), plan
+				.selectivity(), 0.2);
+		}
+	}
+	
+	@Test
+	public void explainTest() {
+		QueryPlanner planner = new QueryPlanner(QueryStatistics.collect(rows));
+		QueryPlan plan = planner.plan(Query.build("note LIKE ? AND name = ?", new Object[] {
+			"%special%", "name3" }));
+		String[] lines = plan.explain().split("\n");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("AND  (selectivity="));
+		assertTrue(lines[1], lines[1].startsWith("  \"name\" = "));
+		assertTrue(lines[1], lines[1].contains("rows=100)"));
+		assertTrue(lines[2], lines[2].startsWith("  \"note\" LIKE "));
+		assertEquals(25, plan.estimatedRowCount());
+		
+		// Indexed collection explain
+		IndexedQueryMapCollection<Map<String, Object>> indexed = new IndexedQueryMapCollection<Map<String, Object>>(
+			rows);
+		indexed.addHashIndex("name");
+		indexed.analyze();
+		Query query = Query.build("note LIKE ? AND name = ?", new Object[] { "%special%",
+			"name3" });
+		assertTrue(indexed.explain(query).startsWith("INDEX SCAN  (candidates=100, rows=1000)\n"));
+		assertTrue(indexed.explain(Query.build("note LIKE ?", new Object[] { "%special%" }))
+			.startsWith("FULL SCAN  (rows=1000)\n"));
+		assertEquals(query.search(rows), indexed.query(query, null, -1, -1));
+		assertEquals(query.search(rows).size(), indexed.queryCount(query));
+	}
+}
@@ -316,4 +316,30 @@ public class RequestHttpClient_GET_test {
 		cookies.add("cookie1=thiscookie; cookie1=anothercook; cookie2=myname");
 		assertEquals(cookies, requestHeaders.get("cookie"));
 	}
+	
+	/**
+	 * This test assert toString() returns the original response body,
+	 * after it was read by toMap(), including when the body is not JSON
+	 */
+	@Test
+	public void toMap_then_toString_get_request() {
+		String jsonBody = "{ \"hello\" : \"wörld\",\n  \"list\" : [ 1, 2 ] }";
+		mockWebServer.enqueue(new MockResponse().setBody(jsonBody));
+		mockWebServer.enqueue(new MockResponse().setBody("hello, world!"));
+		
+		ResponseHttp responseHttp = requestHttpClient.get(mockWebServer.url("/").toString(), null,
+			null, null);
+		assertEquals("wörld", responseHttp.toMap().getString("hello"));
+		assertEquals(jsonBody, responseHttp.toString());
+		
+		// Non JSON body
+		responseHttp = requestHttpClient.get(mockWebServer.url("/").toString(), null, null, null);
+		try {
+			responseHttp.toMap();
+			fail("Expected an invalid JSON format exception");
+		} catch (ConvertJSON.InvalidFormatJSON e) {
+			// expected
+		}
+		assertEquals("hello, world!", responseHttp.toString());
+	}
 }
@@ -14,11 +14,13 @@ import java.util.ArrayList;
 
 import picoded.core.web.RequestHttpClient;
 import picoded.core.conv.ConvertJSON;
+import picoded.core.conv.ConvertSmile;
 import picoded.core.conv.GUID;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.Cookie;
+import okio.Buffer;
 
 import org.junit.After;
 import org.junit.Before;
@@ -990,4 +992,51 @@ public class RequestHttpClient_POST_test {
 		cookies.add("cookie1=thiscookie; cookie1=anothercook; cookie2=myname");
 		assertEquals(cookies, requestHeaders.get("cookie"));
 	}
-}
\ No newline at end of file
+	
+	//------------------------------------------------
+	//
+	//  POST request binary JSON (smile) test units
+	//
+	//------------------------------------------------
+	
+	/**
+	 * This test assert that the post request body is sent as smile,
+	 * with the accept header, and that the smile response is decoded
+	 * using httpPostJSON() with the binaryJSON config
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void binary_json_post_request() throws InterruptedException {
+		
+		Map<String, Object> responseMap = new HashMap<String, Object>();
+		responseMap.put("hello", "world");
+		byte[] responseBody = ConvertSmile.fromMap(responseMap);
+		mockWebServer.enqueue(new MockResponse().setHeader("Content-Type",
+			ConvertSmile.CONTENT_TYPE).setBody(new Buffer().write(responseBody)));
+		
+		// Client with binary JSON enabled
+		Map<String, Object> config = new HashMap<String, Object>();
+		config.put("binaryJSON", true);
+		RequestHttpClient binaryClient = new RequestHttpClient(config);
+		
+		// Prepare post body Params
+		Map<String, Object> postBodyParams = new HashMap<String, Object>();
+		postBodyParams.put("first_value", "single-value");
+		postBodyParams.put("second_value", 2);
+		
+		// Retrieve mockResponse from server and assert the results
+		ResponseHttp responseHttp = binaryClient.httpPostJSON(mockWebServer.url("/").toString(),
+			postBodyParams, null, null);
+		assertEquals(200, responseHttp.statusCode());
+		assertEquals("world", responseHttp.toMap().getString("hello"));
+		assertEquals(responseMap, ConvertSmile.toMap(responseBody));
+		assertEquals(responseMap, responseHttp.toMap());
+		
+		// Check sent request's headers, and body
+		RecordedRequest sentRequest = mockWebServer.takeRequest();
+		assertEquals(ConvertSmile.CONTENT_TYPE, sentRequest.getHeader("Content-Type"));
+		assertEquals(RequestHttpClient.ACCEPT_SMILE_OR_JSON, sentRequest.getHeader("Accept"));
+		assertEquals(postBodyParams, ConvertSmile.toMap(sentRequest.getBody().readByteArray()));
+	}
+}